@@ -1,5 +1,14 @@
 package net.ccscript.axfr4azuredns;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -11,8 +20,19 @@ import org.apache.commons.cli.ParseException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import net.ccscript.axfr4azuredns.loadgen.LoadGenerator;
+import net.ccscript.axfr4azuredns.loadgen.LoadMode;
+import net.ccscript.axfr4azuredns.loadgen.LoadReport;
+import net.ccscript.axfr4azuredns.plan.ChangePlanWriter;
+import net.ccscript.axfr4azuredns.plan.ChangePlanner;
 import net.ccscript.axfr4azuredns.server.DNSServer;
+import net.ccscript.axfr4azuredns.server.ZoneFileImporter;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.transfer.MasterPool;
+import net.ccscript.axfr4azuredns.zonefile.ZoneFileException;
 
 /**
  * Parses arguments and launches the DNS Server Application.
@@ -37,6 +57,13 @@ public final class DNSServerApp {
      * @param args The arguments of the program:
      *      [-h|-help]                  Print help message and discards the rest
      *      [-c|-config] config_file    The JSON configuration file. Mandatory to start the server.
+     *      [-i|-import] zone_file      Imports a zone file into the Azure DNS Zones of zone -o, then exits.
+     *      [-o|-origin] zone_name      The configured zone the imported zone file holds.
+     *      [-p|-plan] plan_file        Writes the change plan of every zone to plan_file, then exits.
+     *      [-l|-load] mode             Sends udp, tcp or notify load to every listener, reports it, then exits.
+     *      [-r|-rate] requests         Requests per second of -l, closed loop if absent.
+     *      [-w|-workers] count         Concurrent requests of -l.
+     *      [-d|-duration] seconds      Duration of -l against each listener.
      * @throws ParseException
      */
     public static void main(String[] args) throws ParseException, DNSServerConfigurationException {
@@ -56,9 +83,122 @@ public final class DNSServerApp {
 
         String configurationFileName = cmdArguments.getOptionValue("c");
         logger.info("Configuration file is in: {}", configurationFileName);
+        if (cmdArguments.hasOption("i")) {
+            importZoneFile(configurationFileName, cmdArguments.getOptionValue("i"), cmdArguments.getOptionValue("o"));
+            return;
+        }
+        if (cmdArguments.hasOption("p")) {
+            planChanges(configurationFileName, cmdArguments.getOptionValue("p"));
+            return;
+        }
+        if (cmdArguments.hasOption("l")) {
+            generateLoad(configurationFileName, LoadMode.fromString(cmdArguments.getOptionValue("l")),
+                intOption(cmdArguments, "r", 0), intOption(cmdArguments, "w", LoadGenerator.DEFAULT_WORKERS),
+                intOption(cmdArguments, "d", LoadGenerator.DEFAULT_DURATION_SECONDS));
+            return;
+        }
 
         DNSServer dnsServer = new DNSServer(configurationFileName);
         dnsServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(dnsServer::stop, "dns-server-stop"));
+    }
+
+    /**
+     * Imports a zone file into the Azure DNS Zones of a configured zone.
+     * @param configurationFileName the JSON configuration file.
+     * @param zoneFileName the zone file, an RFC 1035 master file or an AXFR dump.
+     * @param zoneName the name of the configured zone the zone file holds.
+     * @throws DNSServerConfigurationException if the configuration cannot be read.
+     */
+    private static void importZoneFile(String configurationFileName, String zoneFileName, String zoneName)
+        throws DNSServerConfigurationException {
+
+        if (zoneName == null) {
+            throw new IllegalArgumentException("Zone name is mandatory to import a zone file (-o zone_name).");
+        }
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.loadConfigurationFile(
+            configurationFileName);
+        Zone zone = configuration.getZoneByName(zoneName.toLowerCase());
+        if (zone == null) {
+            throw new IllegalArgumentException("Zone " + zoneName + " is not configured.");
+        }
+        runImport(configuration, zone, Path.of(zoneFileName));
+    }
+
+    private static void runImport(DNSServerConfiguration configuration, Zone zone, Path zoneFile) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int failures = ZoneFileImporter.create(configuration, executor).importZoneFile(zone, zoneFile);
+            if (failures > 0) {
+                throw new IllegalStateException(failures + " record set changes could not be applied.");
+            }
+            logger.info("Zone file {} imported into zone {}", zoneFile, zone.getZoneName());
+        } catch (IOException | ZoneFileException e) {
+            throw new IllegalStateException("Zone file " + zoneFile + " could not be imported.", e);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Plans the sync of every configured zone without writing to Azure, streaming one JSON line per zone to the
+     * plan file as soon as it is planned, then a summary line.
+     * @param configurationFileName the JSON configuration file.
+     * @param planFileName the file the change plan is written to.
+     * @throws DNSServerConfigurationException if the configuration cannot be read.
+     */
+    private static void planChanges(String configurationFileName, String planFileName)
+        throws DNSServerConfigurationException {
+
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.loadConfigurationFile(
+            configurationFileName);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            MasterPool masterPool = new MasterPool(configuration.getSync());
+            PrintStream out = new PrintStream(new FileOutputStream(planFileName), false, StandardCharsets.UTF_8)) {
+
+            ChangePlanWriter writer = new ChangePlanWriter(out);
+            ChangePlanner.create(configuration, masterPool, executor).planAll(configuration.getZones(), writer::write)
+                .join();
+            writer.writeSummary();
+            logger.info("Change plan of {} zones written to {}", configuration.getZones().size(), planFileName);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Change plan could not be written to " + planFileName, ioe);
+        }
+    }
+
+    /**
+     * Sends load to the listener of every configured server in turn, then prints a report per listener.
+     * @param configurationFileName the JSON configuration file.
+     * @param mode the {@link LoadMode}.
+     * @param rate the requests per second, or 0 to run in closed loop.
+     * @param workers the number of concurrent requests.
+     * @param durationSeconds the duration of the run against each listener.
+     * @throws DNSServerConfigurationException if the configuration cannot be read.
+     */
+    private static void generateLoad(String configurationFileName, LoadMode mode, int rate, int workers,
+        int durationSeconds) throws DNSServerConfigurationException {
+
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.loadConfigurationFile(
+            configurationFileName);
+        LoadGenerator generator = new LoadGenerator(configuration, mode, rate, workers,
+            Duration.ofSeconds(durationSeconds), LoadGenerator.DEFAULT_TIMEOUT);
+        try {
+            for (LoadReport report : generator.runAll()) {
+                report.print(System.out);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int intOption(CommandLine cmdArguments, String option, int defaultValue) {
+        if (!cmdArguments.hasOption(option)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(cmdArguments.getOptionValue(option));
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Option -" + option + " expects a number.", nfe);
+        }
     }
 
     /**
@@ -102,6 +242,65 @@ public final class DNSServerApp {
             .build();
         clOptions.addOption(configurationFileOption);
 
+        Option importOption = Option.builder("i")
+            .longOpt("import")
+            .argName("zone_file")
+            .hasArg()
+            .desc("Imports a zone file (RFC 1035 master file or AXFR dump) into the Azure DNS Zones of the "
+                + "zone given by -o, then exits")
+            .build();
+        clOptions.addOption(importOption);
+
+        Option originOption = Option.builder("o")
+            .longOpt("origin")
+            .argName("zone_name")
+            .hasArg()
+            .desc("The configured zone the imported zone file holds")
+            .build();
+        clOptions.addOption(originOption);
+
+        Option planOption = Option.builder("p")
+            .longOpt("plan")
+            .argName("plan_file")
+            .hasArg()
+            .desc("Writes the changes a sync would make to every Azure DNS Zone to plan_file, one JSON line per "
+                + "zone and Azure DNS Zone, without writing to Azure, then exits")
+            .build();
+        clOptions.addOption(planOption);
+
+        Option loadOption = Option.builder("l")
+            .longOpt("load")
+            .argName("mode")
+            .hasArg()
+            .desc("Sends udp or tcp queries, or notify messages, for names of the configured zones to the "
+                + "listener of every server, prints the rate, latency histogram and loss of each, then exits")
+            .build();
+        clOptions.addOption(loadOption);
+
+        Option rateOption = Option.builder("r")
+            .longOpt("rate")
+            .argName("requests")
+            .hasArg()
+            .desc("The requests per second sent by -l, as fast as answered if absent")
+            .build();
+        clOptions.addOption(rateOption);
+
+        Option workersOption = Option.builder("w")
+            .longOpt("workers")
+            .argName("count")
+            .hasArg()
+            .desc("The concurrent requests of -l (" + LoadGenerator.DEFAULT_WORKERS + ")")
+            .build();
+        clOptions.addOption(workersOption);
+
+        Option durationOption = Option.builder("d")
+            .longOpt("duration")
+            .argName("seconds")
+            .hasArg()
+            .desc("The duration of -l against each listener (" + LoadGenerator.DEFAULT_DURATION_SECONDS + ")")
+            .build();
+        clOptions.addOption(durationOption);
+
         return clOptions;
     }
 
@@ -0,0 +1,253 @@
+package net.ccscript.axfr4azuredns.admin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Admin;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+
+/**
+ * The local HTTP admin endpoint, for operators to act on a zone during an incident without restarting the server.
+ * Every response is a JSON object.
+ * <ul>
+ * <li>{@code GET /zones}: the pipeline state of every served zone, with the sync queue depth.</li>
+ * <li>{@code GET /zones/<zone>}: the pipeline state of a zone.</li>
+ * <li>{@code POST /zones/<zone>/sync}: queues a sync of the zone ahead of every NOTIFY and poll.</li>
+ * <li>{@code POST /zones/<zone>/pause} and {@code POST /zones/<zone>/resume}: stops and restarts the syncs of a
+ * zone, such as a runaway zone spending the throttle budget of its subscription.</li>
+ * <li>{@code GET /queue}: the number of running syncs and of waiting syncs by Azure subscription.</li>
+ * <li>{@code POST /subscriptions/<subscription>/drain}: drops the waiting syncs of an Azure subscription.</li>
+ * </ul>
+ * The endpoint only listens on a loopback address and rejects requests from any other address.
+ */
+public final class AdminServer {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_ACCEPTED = 202;
+    private static final int HTTP_FORBIDDEN = 403;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_CONFLICT = 409;
+    // Path segments: resource, then name, then operation
+    private static final int NAME_PATH = 2;
+    private static final int OPERATION_PATH = 3;
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final Admin admin;
+    private final DNSServerConfiguration configuration;
+    private final ZoneControl control;
+    private HttpServer httpServer;
+
+    /**
+     * Creates an AdminServer.
+     * @param admin the {@link Admin} configuration giving the address of the endpoint.
+     * @param configuration the {@link DNSServerConfiguration} the zones are looked up in by name.
+     * @param control the {@link ZoneControl} the operations are run by.
+     */
+    public AdminServer(Admin admin, DNSServerConfiguration configuration, ZoneControl control) {
+        this.admin = admin;
+        this.configuration = configuration;
+        this.control = control;
+    }
+
+    /**
+     * Starts listening.
+     * @param executor the {@link Executor} handling the requests.
+     * @throws IOException if the endpoint cannot listen on its address.
+     */
+    public void start(Executor executor) throws IOException {
+        this.httpServer = HttpServer.create(new InetSocketAddress(this.admin.getListenOn(), this.admin.getPort()), 0);
+        this.httpServer.createContext("/zones", exchange -> handle(exchange, this::zones));
+        this.httpServer.createContext("/queue", exchange -> handle(exchange, this::queue));
+        this.httpServer.createContext("/subscriptions", exchange -> handle(exchange, this::subscriptions));
+        this.httpServer.setExecutor(executor);
+        this.httpServer.start();
+        logger.info("Admin endpoint listening on {}", this.httpServer.getAddress());
+    }
+
+    /**
+     * Gets the address the endpoint listens on.
+     * @return the address, with the actual port if the configured port is 0.
+     */
+    public InetSocketAddress getAddress() {
+        return this.httpServer.getAddress();
+    }
+
+    /**
+     * Stops listening, without waiting for the requests in progress.
+     */
+    public void stop() {
+        if (this.httpServer != null) {
+            this.httpServer.stop(0);
+        }
+    }
+
+    /**
+     * A request handler, answering with an HTTP status code and a JSON object.
+     */
+    @FunctionalInterface
+    private interface Route {
+        Response route(String method, String[] path);
+    }
+
+    /**
+     * The HTTP status code and JSON body of a response.
+     */
+    private static final class Response {
+        private final int status;
+        private final JsonObject body;
+
+        Response(int status, JsonObject body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response error(int status, String message) {
+            JsonObject body = new JsonObject();
+            body.addProperty("error", message);
+            return new Response(status, body);
+        }
+    }
+
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        try (exchange) {
+            Response response;
+            if (!exchange.getRemoteAddress().getAddress().isLoopbackAddress()) {
+                response = Response.error(HTTP_FORBIDDEN, "Admin requests are only accepted from loopback");
+            } else {
+                String[] path = Arrays.stream(exchange.getRequestURI().getPath().split("/"))
+                    .filter(segment -> !segment.isEmpty()).toArray(String[]::new);
+                response = route.route(exchange.getRequestMethod(), path);
+            }
+            byte[] body = (response.body + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    private Response zones(String method, String[] path) {
+        if (path.length == 1) {
+            return "GET".equals(method) ? new Response(HTTP_OK, allZones()) : badMethod();
+        }
+        String zoneName = path[1].endsWith(".") ? path[1].substring(0, path[1].length() - 1) : path[1];
+        Zone zone = this.configuration.getZoneByName(zoneName);
+        if (zone == null || path.length > OPERATION_PATH) {
+            return Response.error(HTTP_NOT_FOUND, "Unknown zone " + zoneName);
+        }
+        ZoneStatus status = this.control.getStatus(zone);
+        if (status == null) {
+            return Response.error(HTTP_CONFLICT, "Zone " + zoneName + " is not served by this node");
+        }
+        if (path.length == NAME_PATH) {
+            return "GET".equals(method) ? new Response(HTTP_OK, toJson(status)) : badMethod();
+        }
+        if (!"POST".equals(method)) {
+            return badMethod();
+        }
+        switch (path[2]) {
+            case "sync":
+                if (status.isPaused()) {
+                    return Response.error(HTTP_CONFLICT, "Zone " + zoneName + " is paused");
+                }
+                logger.info("Admin: sync of zone {} requested", zoneName);
+                this.control.syncNow(zone);
+                return new Response(HTTP_ACCEPTED, toJson(this.control.getStatus(zone)));
+            case "pause":
+                logger.warn("Admin: zone {} paused", zoneName);
+                this.control.pause(zone);
+                return new Response(HTTP_OK, toJson(this.control.getStatus(zone)));
+            case "resume":
+                logger.info("Admin: zone {} resumed", zoneName);
+                this.control.resume(zone);
+                return new Response(HTTP_OK, toJson(this.control.getStatus(zone)));
+            default:
+                return Response.error(HTTP_NOT_FOUND, "Unknown zone operation " + path[2]);
+        }
+    }
+
+    private Response queue(String method, String[] path) {
+        if (path.length > 1) {
+            return Response.error(HTTP_NOT_FOUND, "Unknown resource");
+        }
+        return "GET".equals(method) ? new Response(HTTP_OK, queueDepth()) : badMethod();
+    }
+
+    private Response subscriptions(String method, String[] path) {
+        if (path.length != OPERATION_PATH || !"drain".equals(path[2])) {
+            return Response.error(HTTP_NOT_FOUND, "Unknown subscription operation");
+        }
+        if (!"POST".equals(method)) {
+            return badMethod();
+        }
+        int dropped = this.control.drain(path[1]);
+        logger.warn("Admin: {} waiting syncs of subscription {} dropped", dropped, path[1]);
+        JsonObject body = new JsonObject();
+        body.addProperty("subscription", path[1]);
+        body.addProperty("dropped", dropped);
+        return new Response(HTTP_OK, body);
+    }
+
+    private static Response badMethod() {
+        return Response.error(HTTP_BAD_METHOD, "Method not allowed");
+    }
+
+    private JsonObject allZones() {
+        JsonArray zones = new JsonArray();
+        for (Zone zone : this.configuration.getZones()) {
+            ZoneStatus status = this.control.getStatus(zone);
+            if (status != null) {
+                zones.add(toJson(status));
+            }
+        }
+        JsonObject body = queueDepth();
+        body.add("zones", zones);
+        return body;
+    }
+
+    private JsonObject queueDepth() {
+        JsonObject waiting = new JsonObject();
+        for (Map.Entry<String, Integer> subscription : this.control.getWaitingCounts().entrySet()) {
+            waiting.addProperty(subscription.getKey(), subscription.getValue());
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("running", this.control.getRunningCount());
+        body.add("waiting", waiting);
+        return body;
+    }
+
+    private static JsonObject toJson(ZoneStatus status) {
+        JsonObject zone = new JsonObject();
+        zone.addProperty("zone", status.getZoneName());
+        zone.addProperty("subscription", status.getSubscription());
+        zone.addProperty("readiness", status.getReadiness().name().toLowerCase(Locale.ROOT));
+        zone.addProperty("paused", status.isPaused());
+        if (status.getWaitingPriority() != null) {
+            zone.addProperty("waiting", status.getWaitingPriority().name().toLowerCase(Locale.ROOT));
+        }
+        zone.addProperty("running", status.isRunning());
+        if (status.getSerial() >= 0) {
+            zone.addProperty("serial", status.getSerial());
+        }
+        return zone;
+    }
+
+}
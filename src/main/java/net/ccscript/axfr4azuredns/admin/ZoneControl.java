@@ -0,0 +1,59 @@
+package net.ccscript.axfr4azuredns.admin;
+
+import java.util.Map;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+
+/**
+ * The operations of the admin endpoint on the zones served by a server and on its sync queue.
+ */
+public interface ZoneControl {
+
+    /**
+     * Gets the pipeline state of a zone.
+     * @param zone the {@link Zone}.
+     * @return the {@link ZoneStatus}, or null if the zone is not served by this server, such as a zone owned by
+     *         another node of the cluster.
+     */
+    ZoneStatus getStatus(Zone zone);
+
+    /**
+     * Queues a sync of a served zone ahead of every NOTIFY and poll, starting the zone first if still waiting for
+     * its turn.
+     * @param zone the {@link Zone} to be synchronized.
+     */
+    void syncNow(Zone zone);
+
+    /**
+     * Pauses a served zone: its waiting sync is dropped and no other sync starts until it is resumed. A running
+     * sync is not interrupted.
+     * @param zone the {@link Zone} to be paused.
+     */
+    void pause(Zone zone);
+
+    /**
+     * Resumes a paused zone and queues a sync to catch up with the changes missed meanwhile.
+     * @param zone the {@link Zone} to be resumed.
+     */
+    void resume(Zone zone);
+
+    /**
+     * Drops the waiting syncs of an Azure subscription.
+     * @param subscription the Azure subscription.
+     * @return the number of syncs dropped.
+     */
+    int drain(String subscription);
+
+    /**
+     * Gets the number of syncs running.
+     * @return the number of running syncs.
+     */
+    int getRunningCount();
+
+    /**
+     * Gets the number of syncs waiting to be run by Azure subscription.
+     * @return the number of waiting syncs by subscription.
+     */
+    Map<String, Integer> getWaitingCounts();
+
+}
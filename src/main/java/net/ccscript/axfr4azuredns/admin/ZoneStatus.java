@@ -0,0 +1,69 @@
+package net.ccscript.axfr4azuredns.admin;
+
+import net.ccscript.axfr4azuredns.sync.SyncPriority;
+import net.ccscript.axfr4azuredns.sync.ZoneReadiness;
+
+/**
+ * The pipeline state of a zone served by this server, as reported by the admin endpoint.
+ */
+public final class ZoneStatus {
+
+    private final String zoneName;
+    private final String subscription;
+    private final ZoneReadiness readiness;
+    private final boolean paused;
+    private final boolean running;
+    private final SyncPriority waitingPriority;
+    private final long serial;
+
+    /**
+     * Creates a ZoneStatus.
+     * @param zoneName the name of the zone.
+     * @param subscription the Azure subscription the sync jobs of the zone are queued under.
+     * @param readiness the {@link ZoneReadiness} of the zone.
+     * @param paused true if the syncs of the zone are paused.
+     * @param running true if a sync of the zone is running.
+     * @param waitingPriority the {@link SyncPriority} of the sync waiting to be run, or null if none.
+     * @param serial the SOA serial of the version held, or -1 if none.
+     */
+    public ZoneStatus(String zoneName, String subscription, ZoneReadiness readiness, boolean paused,
+        boolean running, SyncPriority waitingPriority, long serial) {
+
+        this.zoneName = zoneName;
+        this.subscription = subscription;
+        this.readiness = readiness;
+        this.paused = paused;
+        this.running = running;
+        this.waitingPriority = waitingPriority;
+        this.serial = serial;
+    }
+
+    public String getZoneName() {
+        return this.zoneName;
+    }
+
+    public String getSubscription() {
+        return this.subscription;
+    }
+
+    public ZoneReadiness getReadiness() {
+        return this.readiness;
+    }
+
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    public SyncPriority getWaitingPriority() {
+        return this.waitingPriority;
+    }
+
+    public long getSerial() {
+        return this.serial;
+    }
+
+}
@@ -0,0 +1,132 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureCredentials;
+
+/**
+ * Gets and caches Azure Resource Manager access tokens for the configured {@link AzureCredentials}, using the
+ * OAuth 2.0 client credentials flow.
+ */
+public class AzureAccessTokenProvider {
+    /**
+     * The default Microsoft Entra ID authority.
+     */
+    public static final String DEFAULT_AUTHORITY = "https://login.microsoftonline.com";
+
+    private static Logger logger = LogManager.getLogger();
+
+    private static final String SCOPE = "https://management.azure.com/.default";
+    private static final long EXPIRY_MARGIN_SECONDS = 300;
+    private static final int HTTP_OK = 200;
+
+    private final DNSServerConfiguration configuration;
+    private final String authority;
+    private final HttpClient httpClient;
+    private final ConcurrentMap<String, AccessToken> accessTokens;
+
+    /**
+     * Creates an AzureAccessTokenProvider.
+     * @param configuration the {@link DNSServerConfiguration} holding the {@link AzureCredentials}.
+     * @param authority the base URL of the authority, usually {@link #DEFAULT_AUTHORITY}.
+     */
+    public AzureAccessTokenProvider(DNSServerConfiguration configuration, String authority) {
+        this.configuration = configuration;
+        this.authority = authority;
+        this.httpClient = HttpClient.newHttpClient();
+        this.accessTokens = new ConcurrentHashMap<String, AccessToken>();
+    }
+
+    /**
+     * Gets a valid access token for a Service Principal, requesting a new one if needed.
+     * @param servicePrincipal the Service Principal, which must be part of the {@link AzureCredentials}.
+     * @return the bearer access token.
+     * @throws AzureDNSException if the access token could not be obtained.
+     */
+    public String getAccessToken(String servicePrincipal) throws AzureDNSException {
+        AccessToken accessToken = this.accessTokens.get(servicePrincipal);
+        if (accessToken == null || accessToken.isExpired()) {
+            accessToken = requestAccessToken(servicePrincipal);
+            this.accessTokens.put(servicePrincipal, accessToken);
+        }
+        return accessToken.getValue();
+    }
+
+    private AccessToken requestAccessToken(String servicePrincipal) throws AzureDNSException {
+        AzureCredentials credentials = this.configuration.getAzureCredential(servicePrincipal);
+        if (credentials == null) {
+            throw new AzureDNSException("Service Principal not found: " + servicePrincipal);
+        }
+
+        logger.debug("Requesting an access token for Service Principal {}", servicePrincipal);
+        String form = "grant_type=client_credentials"
+            + "&client_id=" + URLEncoder.encode(servicePrincipal, StandardCharsets.UTF_8)
+            + "&client_secret=" + URLEncoder.encode(credentials.getPassword(), StandardCharsets.UTF_8)
+            + "&scope=" + URLEncoder.encode(SCOPE, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create(this.authority + "/" + credentials.getTenant() + "/oauth2/v2.0/token"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() != HTTP_OK) {
+            throw new AzureDNSException("Access token request failed for Service Principal " + servicePrincipal
+                + " with HTTP status " + response.statusCode());
+        }
+
+        JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+        long expiresIn = body.get("expires_in").getAsLong();
+        return new AccessToken(body.get("access_token").getAsString(),
+            Instant.now().plusSeconds(expiresIn - EXPIRY_MARGIN_SECONDS));
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws AzureDNSException {
+        try {
+            return this.httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ioe) {
+            throw new AzureDNSException("Access token request failed", ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AzureDNSException("Access token request interrupted", ie);
+        }
+    }
+
+    /**
+     * An access token along with the time at which it must be renewed.
+     */
+    private static final class AccessToken {
+        private final String value;
+        private final Instant renewAfter;
+
+        AccessToken(String value, Instant renewAfter) {
+            this.value = value;
+            this.renewAfter = renewAfter;
+        }
+
+        String getValue() {
+            return this.value;
+        }
+
+        boolean isExpired() {
+            return Instant.now().isAfter(this.renewAfter);
+        }
+    }
+
+}
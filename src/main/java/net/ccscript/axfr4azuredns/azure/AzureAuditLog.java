@@ -0,0 +1,92 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.time.Instant;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * The audit trail of the writes to Azure DNS Zones: one compact JSON line per record set created, replaced,
+ * deleted or deployed, logged to the {@value #LOGGER_NAME} logger. Its appender is expected never to drop an event,
+ * unlike the appenders of the diagnostic logs.
+ */
+final class AzureAuditLog {
+
+    /**
+     * The name of the audit logger.
+     */
+    static final String LOGGER_NAME = "net.ccscript.axfr4azuredns.audit";
+
+    private static Logger logger = LogManager.getLogger(LOGGER_NAME);
+
+    private AzureAuditLog() {
+    }
+
+    /**
+     * Records a record set written by a PUT request.
+     * @param azureResourceId the resource identifier of the Azure DNS Zone.
+     * @param written the {@link AzureRecordSet} as returned by Azure, with its new etag.
+     * @param ifMatch the etag the write was conditional on, or null if the record set was created.
+     */
+    static void put(String azureResourceId, AzureRecordSet written, String ifMatch) {
+        if (logger.isInfoEnabled()) {
+            JsonObject event = event(ifMatch == null ? "create" : "replace", azureResourceId, written);
+            if (ifMatch != null) {
+                event.addProperty("if_match", ifMatch);
+            }
+            logger.info(event.toString());
+        }
+    }
+
+    /**
+     * Records a record set removed by a DELETE request.
+     * @param azureResourceId the resource identifier of the Azure DNS Zone.
+     * @param deleted the deleted {@link AzureRecordSet}, as last known.
+     */
+    static void delete(String azureResourceId, AzureRecordSet deleted) {
+        if (logger.isInfoEnabled()) {
+            JsonObject event = event("delete", azureResourceId, deleted);
+            logger.info(event.toString());
+        }
+    }
+
+    /**
+     * Records a record set written by a successful deployment.
+     * @param azureResourceId the resource identifier of the Azure DNS Zone.
+     * @param deployed the deployed {@link AzureRecordSet}.
+     * @param deploymentName the name of the deployment.
+     */
+    static void deploy(String azureResourceId, AzureRecordSet deployed, String deploymentName) {
+        if (logger.isInfoEnabled()) {
+            JsonObject event = event("deploy", azureResourceId, deployed);
+            event.addProperty("deployment", deploymentName);
+            logger.info(event.toString());
+        }
+    }
+
+    private static JsonObject event(String action, String azureResourceId, AzureRecordSet recordSet) {
+        JsonObject event = new JsonObject();
+        event.addProperty("time", Instant.now().toString());
+        event.addProperty("action", action);
+        event.addProperty("zone", azureResourceId);
+        event.addProperty("name", recordSet.getName());
+        event.addProperty("type", recordSet.getType().name());
+        event.addProperty("ttl", recordSet.getTtl());
+        JsonArray records = new JsonArray();
+        recordSet.getRecords().forEach(records::add);
+        event.add("records", records);
+        if (recordSet.getEtag() != null) {
+            event.addProperty("etag", recordSet.getEtag());
+        }
+        String traceId = ThreadContext.get("traceId");
+        if (traceId != null) {
+            event.addProperty("trace_id", traceId);
+        }
+        return event;
+    }
+
+}
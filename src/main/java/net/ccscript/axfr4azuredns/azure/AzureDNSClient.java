@@ -0,0 +1,55 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * Access to the record sets of Azure DNS Zones.
+ */
+public interface AzureDNSClient {
+
+    /**
+     * Lists one page of the record sets of a given type, using the typed list endpoint
+     * (dnsZones/{zoneName}/{recordType}).
+     * @param azureDomain the Azure DNS Zone to be listed.
+     * @param type the {@link AzureRecordType} to be listed.
+     * @param nextLink the nextLink of the previous page, or null to get the first page.
+     * @return the requested {@link AzureRecordSetPage}.
+     * @throws AzureDNSException if the page could not be retrieved.
+     */
+    AzureRecordSetPage listRecordSets(AzureDomain azureDomain, AzureRecordType type, String nextLink)
+        throws AzureDNSException;
+
+    /**
+     * Reads a single record set.
+     * @param azureDomain the Azure DNS Zone holding the record set.
+     * @param name the relative record set name.
+     * @param type the {@link AzureRecordType} of the record set.
+     * @return the {@link AzureRecordSet} along with its current etag, or null if it does not exist.
+     * @throws AzureDNSException if the record set could not be retrieved.
+     */
+    AzureRecordSet getRecordSet(AzureDomain azureDomain, String name, AzureRecordType type)
+        throws AzureDNSException;
+
+    /**
+     * Creates or replaces a record set, only if it was not modified since it was read.
+     * @param azureDomain the Azure DNS Zone holding the record set.
+     * @param recordSet the desired {@link AzureRecordSet}.
+     * @param ifMatch the etag of the record set as last read, sent as If-Match. If null, the record set is only
+     *                created if it does not exist yet (If-None-Match: *).
+     * @return the record set as written by Azure, along with its new etag.
+     * @throws AzurePreconditionFailedException if the record set etag does not match anymore.
+     * @throws AzureDNSException if the record set could not be written.
+     */
+    AzureRecordSet putRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet, String ifMatch)
+        throws AzureDNSException;
+
+    /**
+     * Deletes a record set, only if it was not modified since it was read.
+     * @param azureDomain the Azure DNS Zone holding the record set.
+     * @param recordSet the {@link AzureRecordSet} to be deleted, holding its etag as last read (sent as If-Match).
+     * @throws AzurePreconditionFailedException if the record set etag does not match anymore.
+     * @throws AzureDNSException if the record set could not be deleted.
+     */
+    void deleteRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet) throws AzureDNSException;
+
+}
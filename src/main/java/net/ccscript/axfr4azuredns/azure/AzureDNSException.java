@@ -0,0 +1,16 @@
+package net.ccscript.axfr4azuredns.azure;
+
+/**
+ * Used to report failures while reading from or writing to the Azure DNS API.
+ */
+public class AzureDNSException extends Exception {
+
+    public AzureDNSException(String message, Exception exception) {
+        super(message, exception);
+    }
+
+    public AzureDNSException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,138 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import net.ccscript.axfr4azuredns.azure.AzureThrottle.Operation;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * {@link AzureDNSClient} using the Azure DNS REST API.
+ * Writes are conditional: PUT and DELETE requests carry the etag of the record set as last read (If-Match),
+ * so that no GET is needed before a write to avoid overwriting changes made outside of axfr4azuredns.
+ */
+public class AzureDNSRestClient implements AzureDNSClient {
+    /**
+     * The Azure DNS REST API version.
+     */
+    public static final String API_VERSION = "2018-05-01";
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_CREATED = 201;
+    private static final int HTTP_NO_CONTENT = 204;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_PRECONDITION_FAILED = 412;
+
+    private final AzureRestTransport transport;
+
+    /**
+     * Creates an AzureDNSRestClient.
+     * @param transport the {@link AzureRestTransport} used to send the requests.
+     */
+    public AzureDNSRestClient(AzureRestTransport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public AzureRecordSetPage listRecordSets(AzureDomain azureDomain, AzureRecordType type, String nextLink)
+        throws AzureDNSException {
+
+        URI uri = URI.create(nextLink != null ? nextLink : recordTypeUrl(azureDomain, type));
+        HttpResponse<String> response = this.transport.send(azureDomain, Operation.READ,
+            HttpRequest.newBuilder(uri).GET());
+
+        AzureRestTransport.checkStatus(response,
+            "Listing " + type + " record sets of " + azureDomain.getAzureZoneName(), HTTP_OK);
+        return readPage(JsonParser.parseString(response.body()).getAsJsonObject());
+    }
+
+    @Override
+    public AzureRecordSet getRecordSet(AzureDomain azureDomain, String name, AzureRecordType type)
+        throws AzureDNSException {
+
+        HttpResponse<String> response = this.transport.send(azureDomain, Operation.READ,
+            HttpRequest.newBuilder(recordSetUri(azureDomain, name, type)).GET());
+
+        if (response.statusCode() == HTTP_NOT_FOUND) {
+            return null;
+        }
+        AzureRestTransport.checkStatus(response, "Reading record set " + name + "/" + type, HTTP_OK);
+        return AzureRecordSetJsonReader.fromJson(JsonParser.parseString(response.body()).getAsJsonObject());
+    }
+
+    @Override
+    public AzureRecordSet putRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet, String ifMatch)
+        throws AzureDNSException {
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                recordSetUri(azureDomain, recordSet.getName(), recordSet.getType()))
+            .PUT(HttpRequest.BodyPublishers.ofString(AzureRecordSetJsonWriter.toJson(recordSet).toString()));
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        } else {
+            request.header("If-None-Match", "*");
+        }
+
+        HttpResponse<String> response = this.transport.send(azureDomain, Operation.WRITE, request);
+        checkPrecondition(response, recordSet);
+        AzureRestTransport.checkStatus(response, "Writing record set " + recordSet.getKey(), HTTP_OK, HTTP_CREATED);
+        return AzureRecordSetJsonReader.fromJson(JsonParser.parseString(response.body()).getAsJsonObject());
+    }
+
+    @Override
+    public void deleteRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet) throws AzureDNSException {
+        if (recordSet.getEtag() == null) {
+            throw new AzureDNSException("Record set " + recordSet.getKey() + " has no etag to be deleted with");
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                recordSetUri(azureDomain, recordSet.getName(), recordSet.getType()))
+            .DELETE()
+            .header("If-Match", recordSet.getEtag());
+
+        HttpResponse<String> response = this.transport.send(azureDomain, Operation.DELETE, request);
+        checkPrecondition(response, recordSet);
+        AzureRestTransport.checkStatus(response, "Deleting record set " + recordSet.getKey(),
+            HTTP_OK, HTTP_NO_CONTENT, HTTP_NOT_FOUND);
+    }
+
+    private String recordTypeUrl(AzureDomain azureDomain, AzureRecordType type) {
+        return this.transport.getEndpoint() + azureDomain.getAzureResourceId() + "/" + type.getPathSegment()
+            + "?api-version=" + API_VERSION;
+    }
+
+    private URI recordSetUri(AzureDomain azureDomain, String name, AzureRecordType type) {
+        return URI.create(this.transport.getEndpoint() + azureDomain.getAzureResourceId() + "/"
+            + type.getPathSegment() + "/" + name + "?api-version=" + API_VERSION);
+    }
+
+    private static void checkPrecondition(HttpResponse<String> response, AzureRecordSet recordSet)
+        throws AzurePreconditionFailedException {
+
+        if (response.statusCode() == HTTP_PRECONDITION_FAILED) {
+            throw new AzurePreconditionFailedException("Record set " + recordSet.getKey()
+                + " was modified in Azure since it was cached");
+        }
+    }
+
+    private static AzureRecordSetPage readPage(JsonObject pageObject) throws AzureDNSException {
+        List<AzureRecordSet> recordSets = new ArrayList<AzureRecordSet>();
+        for (JsonElement recordSetElement : pageObject.getAsJsonArray("value")) {
+            recordSets.add(AzureRecordSetJsonReader.fromJson(recordSetElement.getAsJsonObject()));
+        }
+
+        JsonElement nextLinkElement = pageObject.get("nextLink");
+        String nextLink = null;
+        if (nextLinkElement != null && !nextLinkElement.isJsonNull()) {
+            nextLink = nextLinkElement.getAsString();
+        }
+        return new AzureRecordSetPage(recordSets, nextLink);
+    }
+
+}
@@ -0,0 +1,79 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import net.ccscript.axfr4azuredns.azure.AzureThrottle.Operation;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * Submits and follows Azure Resource Manager template deployments in the Resource Group of an Azure DNS Zone.
+ */
+public class AzureDeploymentClient {
+    /**
+     * The Azure Resource Manager deployments REST API version.
+     */
+    public static final String API_VERSION = "2021-04-01";
+    /**
+     * The provisioning state of a successful deployment.
+     */
+    public static final String SUCCEEDED = "Succeeded";
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_CREATED = 201;
+
+    private final AzureRestTransport transport;
+
+    /**
+     * Creates an AzureDeploymentClient.
+     * @param transport the {@link AzureRestTransport} used to send the requests.
+     */
+    public AzureDeploymentClient(AzureRestTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Submits a deployment. Azure runs it asynchronously.
+     * @param azureDomain the Azure DNS Zone providing the subscription and Resource Group.
+     * @param deploymentName the deployment name, unique within the Resource Group.
+     * @param deployment the deployment request body.
+     * @throws AzureDNSException if the deployment was not accepted.
+     */
+    public void submit(AzureDomain azureDomain, String deploymentName, JsonObject deployment)
+        throws AzureDNSException {
+
+        HttpResponse<String> response = this.transport.send(azureDomain, Operation.WRITE,
+            HttpRequest.newBuilder(deploymentUri(azureDomain, deploymentName))
+                .PUT(HttpRequest.BodyPublishers.ofString(deployment.toString())));
+        AzureRestTransport.checkStatus(response, "Submitting deployment " + deploymentName, HTTP_OK, HTTP_CREATED);
+    }
+
+    /**
+     * Gets the provisioning state of a deployment.
+     * @param azureDomain the Azure DNS Zone providing the subscription and Resource Group.
+     * @param deploymentName the deployment name.
+     * @return the provisioning state, e.g. Accepted, Running, Succeeded, Failed or Canceled.
+     * @throws AzureDNSException if the deployment could not be read.
+     */
+    public String getProvisioningState(AzureDomain azureDomain, String deploymentName) throws AzureDNSException {
+        HttpResponse<String> response = this.transport.send(azureDomain, Operation.READ,
+            HttpRequest.newBuilder(deploymentUri(azureDomain, deploymentName)).GET());
+        AzureRestTransport.checkStatus(response, "Reading deployment " + deploymentName, HTTP_OK);
+
+        JsonObject deployment = JsonParser.parseString(response.body()).getAsJsonObject();
+        return deployment.getAsJsonObject("properties").get("provisioningState").getAsString();
+    }
+
+    private URI deploymentUri(AzureDomain azureDomain, String deploymentName) {
+        return URI.create(this.transport.getEndpoint()
+            + "/subscriptions/" + azureDomain.getAzureSubscription()
+            + "/resourcegroups/" + azureDomain.getAzureResourceGroup()
+            + "/providers/Microsoft.Resources/deployments/" + deploymentName
+            + "?api-version=" + API_VERSION);
+    }
+
+}
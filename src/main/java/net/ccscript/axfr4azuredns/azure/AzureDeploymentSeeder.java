@@ -0,0 +1,168 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * Onboards a large zone into an empty Azure DNS Zone using template deployments instead of one request per
+ * record set. The desired record sets are compiled into batches of bounded size, submitted concurrently, then
+ * polled until completion. Deployments do not return etags: the {@link AzureZoneCache} must be loaded again
+ * once seeding is complete. Steady-state sync keeps using the {@link AzureZoneUpdater}.
+ */
+public final class AzureDeploymentSeeder {
+    /**
+     * Default number of record sets per deployment. Azure Resource Manager accepts up to 800 resources per
+     * template.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    /**
+     * Default number of deployments running at the same time.
+     */
+    public static final int DEFAULT_CONCURRENT_DEPLOYMENTS = 4;
+    /**
+     * Default delay between two polls of a running deployment.
+     */
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(10);
+
+    private static Logger logger = LogManager.getLogger();
+
+    private static final Set<String> TERMINAL_STATES = Set.of(AzureDeploymentClient.SUCCEEDED, "Failed", "Canceled");
+    private static final int MAX_DEPLOYMENT_PREFIX_LENGTH = 40;
+
+    private final AzureDeploymentClient client;
+    private final Executor executor;
+    private final int batchSize;
+    private final Semaphore runningDeployments;
+    private final Duration pollInterval;
+
+    /**
+     * Creates an AzureDeploymentSeeder.
+     * @param client the {@link AzureDeploymentClient} used to submit and poll deployments.
+     * @param executor the {@link Executor} running the deployments.
+     * @param batchSize the maximum number of record sets per deployment.
+     * @param concurrentDeployments the maximum number of deployments running at the same time.
+     * @param pollInterval the delay between two polls of a running deployment.
+     */
+    public AzureDeploymentSeeder(AzureDeploymentClient client, Executor executor, int batchSize,
+        int concurrentDeployments, Duration pollInterval) {
+
+        this.client = client;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.runningDeployments = new Semaphore(concurrentDeployments, true);
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Checks whether an Azure DNS Zone is still empty: it only holds the apex SOA and NS record sets that
+     * Azure creates with the zone.
+     * @param cache the loaded {@link AzureZoneCache} of the Azure DNS Zone.
+     * @return true if the Azure DNS Zone holds no other record set.
+     */
+    public static boolean isEmptyZone(AzureZoneCache cache) {
+        for (AzureRecordSet recordSet : cache.getRecordSets()) {
+            if (!AzureRecordSet.APEX_NAME.equals(recordSet.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deploys the desired record sets into an Azure DNS Zone.
+     * @param azureDomain the Azure DNS Zone to be seeded.
+     * @param recordSets the desired {@link AzureRecordSet}s.
+     * @return a future completed once every deployment succeeded, or completed exceptionally with an
+     *         {@link AzureDNSException} if one of them failed.
+     */
+    public CompletableFuture<Void> seed(AzureDomain azureDomain, List<AzureRecordSet> recordSets) {
+        String deploymentPrefix = deploymentPrefix(azureDomain);
+        List<List<AzureRecordSet>> batches = partition(recordSets);
+        logger.info("Seeding {} record sets into Azure DNS Zone {} with {} deployments", recordSets.size(),
+            azureDomain.getAzureZoneName(), batches.size());
+
+        CompletableFuture<?>[] deployments = new CompletableFuture<?>[batches.size()];
+        for (int i = 0; i < batches.size(); i++) {
+            String deploymentName = deploymentPrefix + "-" + i;
+            List<AzureRecordSet> batch = batches.get(i);
+            deployments[i] = CompletableFuture.runAsync(() -> deploy(azureDomain, deploymentName, batch),
+                this.executor);
+        }
+        return CompletableFuture.allOf(deployments);
+    }
+
+    private List<List<AzureRecordSet>> partition(List<AzureRecordSet> recordSets) {
+        List<List<AzureRecordSet>> batches = new ArrayList<List<AzureRecordSet>>();
+        for (int start = 0; start < recordSets.size(); start += this.batchSize) {
+            batches.add(recordSets.subList(start, Math.min(recordSets.size(), start + this.batchSize)));
+        }
+        return batches;
+    }
+
+    /**
+     * Submits one deployment and waits for its completion, once a deployment slot is available.
+     * @param azureDomain the Azure DNS Zone to be seeded.
+     * @param deploymentName the deployment name.
+     * @param batch the record sets of the deployment.
+     */
+    private void deploy(AzureDomain azureDomain, String deploymentName, List<AzureRecordSet> batch) {
+        try {
+            this.runningDeployments.acquire();
+            try {
+                this.client.submit(azureDomain, deploymentName,
+                    AzureDeploymentTemplate.compile(azureDomain.getAzureZoneName(), batch));
+                waitForCompletion(azureDomain, deploymentName);
+                for (AzureRecordSet recordSet : batch) {
+                    AzureAuditLog.deploy(azureDomain.getAzureResourceId(), recordSet, deploymentName);
+                }
+            } finally {
+                this.runningDeployments.release();
+            }
+        } catch (AzureDNSException ade) {
+            throw new CompletionException(ade);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ie);
+        }
+    }
+
+    private void waitForCompletion(AzureDomain azureDomain, String deploymentName)
+        throws AzureDNSException, InterruptedException {
+
+        String state = this.client.getProvisioningState(azureDomain, deploymentName);
+        while (!TERMINAL_STATES.contains(state)) {
+            Thread.sleep(this.pollInterval);
+            state = this.client.getProvisioningState(azureDomain, deploymentName);
+        }
+
+        if (!AzureDeploymentClient.SUCCEEDED.equals(state)) {
+            throw new AzureDNSException("Deployment " + deploymentName + " ended in state " + state);
+        }
+        logger.info("Deployment {} succeeded", deploymentName);
+    }
+
+    /**
+     * Builds a deployment name prefix unique to this seeding, within the 64 characters allowed by Azure.
+     * @param azureDomain the Azure DNS Zone to be seeded.
+     * @return the deployment name prefix.
+     */
+    private static String deploymentPrefix(AzureDomain azureDomain) {
+        String prefix = "axfr4azuredns-" + azureDomain.getAzureZoneName();
+        if (prefix.length() > MAX_DEPLOYMENT_PREFIX_LENGTH) {
+            prefix = prefix.substring(0, MAX_DEPLOYMENT_PREFIX_LENGTH);
+        }
+        return prefix + "-" + System.currentTimeMillis();
+    }
+
+}
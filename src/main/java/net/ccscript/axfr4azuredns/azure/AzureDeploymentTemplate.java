@@ -0,0 +1,50 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.Collection;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Compiles record sets into the body of an incremental Azure Resource Manager template deployment.
+ */
+final class AzureDeploymentTemplate {
+
+    private static final String TEMPLATE_SCHEMA =
+        "https://schema.management.azure.com/schemas/2019-04-01/deploymentTemplate.json#";
+
+    private AzureDeploymentTemplate() {
+    }
+
+    /**
+     * Builds the deployment request body creating or replacing the given record sets.
+     * @param azureZoneName the Azure DNS Zone holding the record sets.
+     * @param recordSets the {@link AzureRecordSet}s to be deployed.
+     * @return the deployment JSON object.
+     */
+    static JsonObject compile(String azureZoneName, Collection<AzureRecordSet> recordSets) {
+        JsonArray resources = new JsonArray();
+        for (AzureRecordSet recordSet : recordSets) {
+            JsonObject resource = new JsonObject();
+            resource.addProperty("type", "Microsoft.Network/dnsZones/" + recordSet.getType().getPathSegment());
+            resource.addProperty("apiVersion", AzureDNSRestClient.API_VERSION);
+            resource.addProperty("name", azureZoneName + "/" + recordSet.getName());
+            resource.add("properties", AzureRecordSetJsonWriter.toJson(recordSet).get("properties"));
+            resources.add(resource);
+        }
+
+        JsonObject template = new JsonObject();
+        template.addProperty("$schema", TEMPLATE_SCHEMA);
+        template.addProperty("contentVersion", "1.0.0.0");
+        template.add("resources", resources);
+
+        JsonObject properties = new JsonObject();
+        properties.addProperty("mode", "Incremental");
+        properties.add("template", template);
+
+        JsonObject deployment = new JsonObject();
+        deployment.add("properties", properties);
+        return deployment;
+    }
+
+}
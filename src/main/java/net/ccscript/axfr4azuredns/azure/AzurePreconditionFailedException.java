@@ -0,0 +1,13 @@
+package net.ccscript.axfr4azuredns.azure;
+
+/**
+ * Reports that Azure refused a conditional write (HTTP 412): the record set etag changed since it was cached,
+ * usually because the record set was edited outside of axfr4azuredns.
+ */
+public class AzurePreconditionFailedException extends AzureDNSException {
+
+    public AzurePreconditionFailedException(String message) {
+        super(message);
+    }
+
+}
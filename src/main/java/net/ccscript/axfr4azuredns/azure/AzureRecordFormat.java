@@ -0,0 +1,87 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.CAARecord;
+import org.xbill.DNS.CNAMERecord;
+import org.xbill.DNS.MXRecord;
+import org.xbill.DNS.NSRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.Type;
+
+/**
+ * Formats DNS records the way an {@link AzureRecordSet} holds them, so that records coming from a master server
+ * compare equal to the ones read from Azure: the fields of {@link AzureRecordType#getFields()} joined by one
+ * space, names without their trailing dot, IPv6 addresses in their RFC 5952 compressed form and the strings of
+ * a TXT record concatenated.
+ */
+final class AzureRecordFormat {
+
+    private static final Pattern ZERO_GROUPS = Pattern.compile("(^|:)0(:0)+(:|$)");
+
+    private static final Map<Integer, Function<Record, String>> FORMATS = Map.of(
+        Type.A, Record::rdataToString,
+        Type.AAAA, AzureRecordFormat::ipv6,
+        Type.CAA, record -> ((CAARecord) record).getFlags() + " " + ((CAARecord) record).getTag() + " "
+            + ((CAARecord) record).getValue(),
+        Type.CNAME, record -> name(((CNAMERecord) record).getTarget()),
+        Type.MX, record -> ((MXRecord) record).getPriority() + " " + name(((MXRecord) record).getTarget()),
+        Type.NS, record -> name(((NSRecord) record).getTarget()),
+        Type.PTR, record -> name(((PTRRecord) record).getTarget()),
+        Type.SRV, record -> ((SRVRecord) record).getPriority() + " " + ((SRVRecord) record).getWeight() + " "
+            + ((SRVRecord) record).getPort() + " " + name(((SRVRecord) record).getTarget()),
+        Type.TXT, record -> String.join("", ((TXTRecord) record).getStrings()));
+
+    private AzureRecordFormat() {
+    }
+
+    /**
+     * Formats a record.
+     * @param record the record.
+     * @return the record formatted as described in {@link AzureRecordType}, or null if Azure does not support its
+     *         type, or holds it as a record set property (SOA).
+     */
+    static String format(Record record) {
+        Function<Record, String> format = FORMATS.get(record.getType());
+        return format == null ? null : format.apply(record);
+    }
+
+    /**
+     * Gets the Azure type of a record.
+     * @param record a record whose type {@link #format(Record)} supports.
+     * @return the {@link AzureRecordType}.
+     */
+    static AzureRecordType typeOf(Record record) {
+        return AzureRecordType.valueOf(Type.string(record.getType()));
+    }
+
+    private static String name(Name name) {
+        return name.toString(true);
+    }
+
+    /**
+     * Formats an IPv6 address, replacing its longest run of zero groups with "::".
+     */
+    private static String ipv6(Record record) {
+        String address = ((AAAARecord) record).getAddress().getHostAddress();
+        Matcher zeros = ZERO_GROUPS.matcher(address);
+        int start = -1;
+        int end = -1;
+        while (zeros.find()) {
+            if (zeros.end() - zeros.start() > end - start) {
+                start = zeros.start();
+                end = zeros.end();
+            }
+        }
+        return start < 0 ? address : address.substring(0, start) + "::" + address.substring(end);
+    }
+
+}
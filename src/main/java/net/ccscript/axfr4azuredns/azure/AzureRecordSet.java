@@ -0,0 +1,132 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable Azure DNS record set: all the records of one type sharing the same name in an Azure DNS Zone.
+ * Two record sets are equal when name, type, TTL and records are equal. The etag is not part of equality
+ * since it only reflects the version Azure holds, not the content.
+ */
+public final class AzureRecordSet {
+    /**
+     * The relative name Azure uses for the zone apex.
+     */
+    public static final String APEX_NAME = "@";
+
+    private final String name;
+    private final AzureRecordType type;
+    private final long ttl;
+    private final List<String> records;
+    private final String etag;
+
+    /**
+     * Creates an AzureRecordSet.
+     * @param name the record set name, relative to the Azure DNS Zone ("@" for the apex).
+     * @param type the {@link AzureRecordType} of the records.
+     * @param ttl the time to live of the record set, in seconds.
+     * @param records the records, each formatted as described in {@link AzureRecordType}.
+     * @param etag the etag returned by Azure, or null if the record set does not come from Azure.
+     */
+    public AzureRecordSet(String name, AzureRecordType type, long ttl, Collection<String> records, String etag) {
+        List<String> sortedRecords = new ArrayList<String>(records);
+        Collections.sort(sortedRecords);
+
+        this.name = name.toLowerCase();
+        this.type = type;
+        this.ttl = ttl;
+        this.records = Collections.unmodifiableList(sortedRecords);
+        this.etag = etag;
+    }
+
+    /**
+     * Builds the key identifying a record set within an Azure DNS Zone.
+     * @param name the relative record set name.
+     * @param type the {@link AzureRecordType}.
+     * @return the key, in the form name/type.
+     */
+    public static String keyOf(String name, AzureRecordType type) {
+        return name.toLowerCase() + "/" + type.name();
+    }
+
+    /**
+     * Gets the key identifying this record set within its Azure DNS Zone.
+     * @return the key, in the form name/type.
+     */
+    public String getKey() {
+        return keyOf(this.name, this.type);
+    }
+
+    /**
+     * Gets the record set name, relative to the Azure DNS Zone.
+     * @return the relative name, "@" for the zone apex.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the type of the records in this record set.
+     * @return the {@link AzureRecordType}.
+     */
+    public AzureRecordType getType() {
+        return this.type;
+    }
+
+    /**
+     * Gets the time to live of the record set.
+     * @return the TTL in seconds.
+     */
+    public long getTtl() {
+        return this.ttl;
+    }
+
+    /**
+     * Gets the records of this record set, sorted.
+     * @return an unmodifiable sorted list of records.
+     */
+    public List<String> getRecords() {
+        return this.records;
+    }
+
+    /**
+     * Gets the etag Azure returned for this record set.
+     * @return the etag, or null if unknown.
+     */
+    public String getEtag() {
+        return this.etag;
+    }
+
+    /**
+     * Creates a copy of this record set holding another etag.
+     * @param newEtag the etag to be held by the copy.
+     * @return the copy of this record set.
+     */
+    public AzureRecordSet withEtag(String newEtag) {
+        return new AzureRecordSet(this.name, this.type, this.ttl, this.records, newEtag);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof AzureRecordSet)) {
+            return false;
+        }
+        AzureRecordSet otherRecordSet = (AzureRecordSet) other;
+        return this.ttl == otherRecordSet.ttl && getKey().equals(otherRecordSet.getKey())
+            && this.records.equals(otherRecordSet.records);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.name, this.type, this.ttl, this.records);
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + " " + this.ttl + " " + this.records;
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.ccscript.axfr4azuredns.azure;
+
+/**
+ * A change to be applied to an Azure DNS Zone: a record set to be created or replaced, or a record set to be
+ * deleted.
+ */
+public final class AzureRecordSetChange {
+
+    private final Action action;
+    private final AzureRecordSet recordSet;
+
+    private AzureRecordSetChange(Action action, AzureRecordSet recordSet) {
+        this.action = action;
+        this.recordSet = recordSet;
+    }
+
+    /**
+     * Creates a change creating or replacing a record set.
+     * @param desiredRecordSet the desired {@link AzureRecordSet}.
+     * @return the {@link Action#UPSERT} change.
+     */
+    public static AzureRecordSetChange upsert(AzureRecordSet desiredRecordSet) {
+        return new AzureRecordSetChange(Action.UPSERT, desiredRecordSet);
+    }
+
+    /**
+     * Creates a change deleting a record set.
+     * @param obsoleteRecordSet the {@link AzureRecordSet} to be deleted.
+     * @return the {@link Action#DELETE} change.
+     */
+    public static AzureRecordSetChange delete(AzureRecordSet obsoleteRecordSet) {
+        return new AzureRecordSetChange(Action.DELETE, obsoleteRecordSet);
+    }
+
+    /**
+     * Gets what must be done with the record set.
+     * @return the {@link Action}.
+     */
+    public Action getAction() {
+        return this.action;
+    }
+
+    /**
+     * Gets the record set: the desired one for {@link Action#UPSERT}, the obsolete one for {@link Action#DELETE}.
+     * @return the {@link AzureRecordSet}.
+     */
+    public AzureRecordSet getRecordSet() {
+        return this.recordSet;
+    }
+
+    @Override
+    public String toString() {
+        return this.action + " " + this.recordSet;
+    }
+
+    /**
+     * The actions which can be applied on an Azure record set.
+     */
+    public enum Action {
+        /**
+         * Create the record set, or replace it if it already exists.
+         */
+        UPSERT,
+        /**
+         * Delete the record set.
+         */
+        DELETE
+    }
+
+}
@@ -0,0 +1,92 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Reads {@link AzureRecordSet}s from their Azure Resource Manager JSON representation.
+ */
+final class AzureRecordSetJsonReader {
+
+    private AzureRecordSetJsonReader() {
+    }
+
+    /**
+     * Reads an {@link AzureRecordSet} from an Azure Resource Manager record set object.
+     * @param recordSetObject the record set object, as returned by the Azure DNS API.
+     * @return the corresponding {@link AzureRecordSet}, holding the etag returned by Azure.
+     * @throws AzureDNSException if the record set type is not supported.
+     */
+    static AzureRecordSet fromJson(JsonObject recordSetObject) throws AzureDNSException {
+        String name = recordSetObject.get("name").getAsString();
+        AzureRecordType type = typeOf(recordSetObject.get("type").getAsString());
+        JsonObject properties = recordSetObject.getAsJsonObject("properties");
+        long ttl = properties.get("TTL").getAsLong();
+        String etag = recordSetObject.has("etag") ? recordSetObject.get("etag").getAsString() : null;
+
+        return new AzureRecordSet(name, type, ttl, readRecords(properties, type), etag);
+    }
+
+    /**
+     * Gets the {@link AzureRecordType} from the Azure resource type, e.g. "Microsoft.Network/dnszones/A".
+     * @param resourceType the Azure resource type.
+     * @return the corresponding {@link AzureRecordType}.
+     * @throws AzureDNSException if the record type is not supported.
+     */
+    private static AzureRecordType typeOf(String resourceType) throws AzureDNSException {
+        String typeName = resourceType.substring(resourceType.lastIndexOf('/') + 1);
+        try {
+            return AzureRecordType.valueOf(typeName.toUpperCase());
+        } catch (IllegalArgumentException iae) {
+            throw new AzureDNSException("Unsupported Azure record type: " + resourceType, iae);
+        }
+    }
+
+    private static List<String> readRecords(JsonObject properties, AzureRecordType type) {
+        List<String> records = new ArrayList<String>();
+        JsonElement recordsElement = properties.get(type.getPropertyName());
+
+        if (recordsElement == null || recordsElement.isJsonNull()) {
+            return records;
+        }
+        if (recordsElement.isJsonArray()) {
+            for (JsonElement recordElement : recordsElement.getAsJsonArray()) {
+                records.add(readRecord(recordElement.getAsJsonObject(), type));
+            }
+        } else {
+            records.add(readRecord(recordsElement.getAsJsonObject(), type));
+        }
+        return records;
+    }
+
+    private static String readRecord(JsonObject recordObject, AzureRecordType type) {
+        List<String> values = new ArrayList<String>();
+        for (String field : type.getFields()) {
+            values.add(readField(recordObject.get(field)));
+        }
+        return String.join(" ", values);
+    }
+
+    /**
+     * Reads a record field. TXT values are arrays of strings which are concatenated.
+     * @param fieldElement the JSON field value.
+     * @return the field value as a String.
+     */
+    private static String readField(JsonElement fieldElement) {
+        if (fieldElement == null || fieldElement.isJsonNull()) {
+            return "";
+        }
+        if (fieldElement.isJsonArray()) {
+            StringBuilder value = new StringBuilder();
+            for (JsonElement chunk : fieldElement.getAsJsonArray()) {
+                value.append(chunk.getAsString());
+            }
+            return value.toString();
+        }
+        return fieldElement.getAsString();
+    }
+
+}
@@ -0,0 +1,85 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Writes {@link AzureRecordSet}s to their Azure Resource Manager JSON representation.
+ */
+final class AzureRecordSetJsonWriter {
+
+    private static final Set<String> NUMERIC_FIELDS = Set.of("flags", "preference", "serialNumber", "refreshTime",
+        "retryTime", "expireTime", "minimumTTL", "priority", "weight", "port");
+    private static final int TXT_CHUNK_LENGTH = 255;
+
+    private AzureRecordSetJsonWriter() {
+    }
+
+    /**
+     * Writes the Azure Resource Manager request body used to create or replace a record set.
+     * @param recordSet the {@link AzureRecordSet} to be written.
+     * @return the record set JSON object.
+     */
+    static JsonObject toJson(AzureRecordSet recordSet) {
+        AzureRecordType type = recordSet.getType();
+        JsonArray records = new JsonArray();
+        for (String record : recordSet.getRecords()) {
+            records.add(writeRecord(record, type));
+        }
+
+        JsonObject properties = new JsonObject();
+        properties.addProperty("TTL", recordSet.getTtl());
+        if (type.isSingleRecord() && !records.isEmpty()) {
+            properties.add(type.getPropertyName(), records.get(0));
+        } else {
+            properties.add(type.getPropertyName(), records);
+        }
+
+        JsonObject recordSetObject = new JsonObject();
+        recordSetObject.add("properties", properties);
+        return recordSetObject;
+    }
+
+    private static JsonObject writeRecord(String record, AzureRecordType type) {
+        List<String> fields = type.getFields();
+        String[] values = record.split(" ", fields.size());
+
+        JsonObject recordObject = new JsonObject();
+        for (int i = 0; i < values.length; i++) {
+            recordObject.add(fields.get(i), writeField(type, fields.get(i), values[i]));
+        }
+        return recordObject;
+    }
+
+    private static JsonElement writeField(AzureRecordType type, String field, String value) {
+        if (type == AzureRecordType.TXT) {
+            return writeTxtChunks(value);
+        }
+        if (NUMERIC_FIELDS.contains(field)) {
+            return new JsonPrimitive(Long.parseLong(value));
+        }
+        return new JsonPrimitive(value);
+    }
+
+    /**
+     * Splits a TXT value into the 255 characters strings Azure expects.
+     * @param value the full TXT value.
+     * @return the JSON array of strings.
+     */
+    private static JsonArray writeTxtChunks(String value) {
+        JsonArray chunks = new JsonArray();
+        for (int start = 0; start < value.length(); start += TXT_CHUNK_LENGTH) {
+            chunks.add(value.substring(start, Math.min(value.length(), start + TXT_CHUNK_LENGTH)));
+        }
+        if (chunks.isEmpty()) {
+            chunks.add("");
+        }
+        return chunks;
+    }
+
+}
@@ -0,0 +1,48 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a paginated Azure DNS record set listing.
+ */
+public final class AzureRecordSetPage {
+
+    private final List<AzureRecordSet> recordSets;
+    private final String nextLink;
+
+    /**
+     * Creates an AzureRecordSetPage.
+     * @param recordSets the record sets contained in this page.
+     * @param nextLink the URL of the next page, or null if this is the last page.
+     */
+    public AzureRecordSetPage(List<AzureRecordSet> recordSets, String nextLink) {
+        this.recordSets = Collections.unmodifiableList(recordSets);
+        this.nextLink = nextLink;
+    }
+
+    /**
+     * Gets the record sets contained in this page.
+     * @return an unmodifiable list of {@link AzureRecordSet}.
+     */
+    public List<AzureRecordSet> getRecordSets() {
+        return this.recordSets;
+    }
+
+    /**
+     * Checks if another page follows this one.
+     * @return true if {@link #getNextLink()} must be fetched to complete the listing.
+     */
+    public boolean hasNextLink() {
+        return this.nextLink != null && !this.nextLink.isEmpty();
+    }
+
+    /**
+     * Gets the URL of the next page, as returned by Azure.
+     * @return the URL of the next page, or null if this is the last page.
+     */
+    public String getNextLink() {
+        return this.nextLink;
+    }
+
+}
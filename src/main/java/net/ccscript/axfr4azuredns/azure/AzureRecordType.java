@@ -0,0 +1,96 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The record types supported by Azure DNS, along with the way the Azure Resource Manager API represents them.
+ * Each record of a record set is handled as a single String: the record fields joined by one space, in the
+ * order given by {@link #getFields()}. The last field may itself contain spaces (e.g. TXT or CAA values).
+ */
+public enum AzureRecordType {
+    /**
+     * IPv4 address record.
+     */
+    A("ARecords", false, "ipv4Address"),
+    /**
+     * IPv6 address record.
+     */
+    AAAA("AAAARecords", false, "ipv6Address"),
+    /**
+     * Certification Authority Authorization record.
+     */
+    CAA("caaRecords", false, "flags", "tag", "value"),
+    /**
+     * Canonical name record. Azure only allows one per record set.
+     */
+    CNAME("CNAMERecord", true, "cname"),
+    /**
+     * Mail exchange record.
+     */
+    MX("MXRecords", false, "preference", "exchange"),
+    /**
+     * Name server record.
+     */
+    NS("NSRecords", false, "nsdname"),
+    /**
+     * Pointer record.
+     */
+    PTR("PTRRecords", false, "ptrdname"),
+    /**
+     * Start of authority record. Azure only allows one, at the zone apex.
+     */
+    SOA("SOARecord", true, "host", "email", "serialNumber", "refreshTime", "retryTime", "expireTime", "minimumTTL"),
+    /**
+     * Service locator record.
+     */
+    SRV("SRVRecords", false, "priority", "weight", "port", "target"),
+    /**
+     * Text record.
+     */
+    TXT("TXTRecords", false, "value");
+
+    private final String propertyName;
+    private final boolean singleRecord;
+    private final List<String> fields;
+
+    AzureRecordType(String propertyName, boolean singleRecord, String... fields) {
+        this.propertyName = propertyName;
+        this.singleRecord = singleRecord;
+        this.fields = Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    /**
+     * Gets the name of the record set property holding the records, e.g. "ARecords".
+     * @return the Azure Resource Manager property name.
+     */
+    public String getPropertyName() {
+        return this.propertyName;
+    }
+
+    /**
+     * Checks whether Azure holds a single record object instead of an array for this type.
+     * @return true for CNAME and SOA, false otherwise.
+     */
+    public boolean isSingleRecord() {
+        return this.singleRecord;
+    }
+
+    /**
+     * Gets the ordered list of the Azure Resource Manager field names composing a record of this type.
+     * @return the unmodifiable list of field names.
+     */
+    public List<String> getFields() {
+        return this.fields;
+    }
+
+    /**
+     * Gets the path segment used by the typed Azure DNS endpoints, e.g. "A" in dnsZones/{zone}/A.
+     * @return the record type path segment.
+     */
+    public String getPathSegment() {
+        return name();
+    }
+
+}
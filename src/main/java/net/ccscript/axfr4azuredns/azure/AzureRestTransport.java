@@ -0,0 +1,177 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.azure.AzureThrottle.Operation;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.trace.Span;
+
+/**
+ * Sends authenticated requests to the Azure Resource Manager API, keeping each subscription within its
+ * rate limits and waiting as requested when Azure answers 429 (Too Many Requests). Each request is traced as a
+ * detail span of the current span, recorded on its own only if slow. The HTTP client and the access tokens are
+ * created on the first request, so that a server whose zones need no Azure write does not connect to Azure.
+ */
+public class AzureRestTransport {
+    /**
+     * The default Azure Resource Manager endpoint.
+     */
+    public static final String DEFAULT_ENDPOINT = "https://management.azure.com";
+
+    private static Logger logger = LogManager.getLogger();
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int MAX_THROTTLED_ATTEMPTS = 5;
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final String endpoint;
+    private final AzureAccessTokenProvider accessTokenProvider;
+    private final AzureThrottle throttle;
+    private volatile HttpClient httpClient;
+
+    /**
+     * Creates an AzureRestTransport.
+     * @param endpoint the Azure Resource Manager endpoint, usually {@link #DEFAULT_ENDPOINT}.
+     * @param accessTokenProvider the {@link AzureAccessTokenProvider} authenticating the requests.
+     * @param throttle the {@link AzureThrottle} shared by every Azure DNS Zone.
+     */
+    public AzureRestTransport(String endpoint, AzureAccessTokenProvider accessTokenProvider,
+        AzureThrottle throttle) {
+
+        this.endpoint = endpoint;
+        this.accessTokenProvider = accessTokenProvider;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Creates the AzureRestTransport of a server: Azure Resource Manager and Microsoft Entra ID endpoints of the
+     * public cloud, credentials of the configuration and a new {@link AzureThrottle}.
+     * @param configuration the {@link DNSServerConfiguration} holding the Azure credentials.
+     * @return the AzureRestTransport.
+     */
+    public static AzureRestTransport forConfiguration(DNSServerConfiguration configuration) {
+        return new AzureRestTransport(DEFAULT_ENDPOINT,
+            new AzureAccessTokenProvider(configuration, AzureAccessTokenProvider.DEFAULT_AUTHORITY),
+            new AzureThrottle());
+    }
+
+    /**
+     * Gets the Azure Resource Manager endpoint requests are sent to.
+     * @return the endpoint base URL, without trailing slash.
+     */
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    /**
+     * Sends a request on behalf of an Azure DNS Zone, once its subscription throttle allows it.
+     * @param azureDomain the Azure DNS Zone providing the subscription and Service Principal.
+     * @param operation the {@link Operation} used to throttle the request.
+     * @param requestBuilder the request, without authentication.
+     * @return the HTTP response. 429 responses are only returned once retries are exhausted.
+     * @throws AzureDNSException if the request could not be sent.
+     */
+    public HttpResponse<String> send(AzureDomain azureDomain, Operation operation,
+        HttpRequest.Builder requestBuilder) throws AzureDNSException {
+
+        String accessToken = this.accessTokenProvider.getAccessToken(azureDomain.getAzureServicePrincipal());
+        HttpRequest request = requestBuilder
+            .header("Authorization", "Bearer " + accessToken)
+            .header("Content-Type", "application/json")
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+        String subscription = azureDomain.getAzureSubscription();
+        try (Span span = Span.current().detail("azure." + request.method().toLowerCase(Locale.ROOT))) {
+            span.setAttribute("url.path", request.uri().getPath());
+            span.addBytes(request.bodyPublisher().map(body -> Math.max(0, body.contentLength())).orElse(0L));
+            HttpResponse<String> response = execute(subscription, operation, request);
+            for (int attempt = 1; isThrottled(response) && attempt < MAX_THROTTLED_ATTEMPTS; attempt++) {
+                Duration retryAfter = getRetryAfter(response);
+                logger.warn("Azure subscription {} is throttled, waiting {} seconds", subscription,
+                    retryAfter.toSeconds());
+                span.add("throttled", 1);
+                this.throttle.pause(subscription, retryAfter);
+                response = execute(subscription, operation, request);
+            }
+            span.setAttribute("http.status_code", Integer.toString(response.statusCode()));
+            span.addBytes(response.body() == null ? 0 : response.body().length());
+            return response;
+        }
+    }
+
+    /**
+     * Checks that a response has one of the expected HTTP status codes.
+     * @param response the HTTP response to be checked.
+     * @param action the description of the request, used in the error message.
+     * @param expectedStatusCodes the HTTP status codes accepted.
+     * @throws AzureDNSException if the response status code is not expected.
+     */
+    public static void checkStatus(HttpResponse<String> response, String action, int... expectedStatusCodes)
+        throws AzureDNSException {
+
+        for (int expectedStatusCode : expectedStatusCodes) {
+            if (response.statusCode() == expectedStatusCode) {
+                return;
+            }
+        }
+        throw new AzureDNSException(action + " failed with HTTP status " + response.statusCode());
+    }
+
+    private HttpResponse<String> execute(String subscription, Operation operation, HttpRequest request)
+        throws AzureDNSException {
+
+        try {
+            long waitStart = System.nanoTime();
+            this.throttle.acquire(subscription, operation);
+            Span.current().add("throttle_wait_ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+            logger.trace("{} {}", request.method(), request.uri());
+            return httpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ioe) {
+            throw new AzureDNSException("Azure request failed: " + request.method() + " " + request.uri(), ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AzureDNSException("Azure request interrupted: " + request.method() + " " + request.uri(), ie);
+        }
+    }
+
+    private HttpClient httpClient() {
+        HttpClient client = this.httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = this.httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+                    this.httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static boolean isThrottled(HttpResponse<String> response) {
+        return response.statusCode() == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    private static Duration getRetryAfter(HttpResponse<String> response) {
+        try {
+            return response.headers().firstValue("Retry-After")
+                .map(seconds -> Duration.ofSeconds(Long.parseLong(seconds.trim())))
+                .orElse(DEFAULT_RETRY_AFTER);
+        } catch (NumberFormatException nfe) {
+            return DEFAULT_RETRY_AFTER;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the Azure Resource Manager requests of each Azure subscription within the subscription rate limits.
+ * Each subscription gets one token bucket per {@link Operation}, shared by every Azure DNS Zone of the subscription.
+ */
+public final class AzureThrottle {
+    /**
+     * Default number of reads a subscription can burst (Azure Resource Manager subscription bucket size).
+     */
+    public static final int DEFAULT_READ_BUCKET_SIZE = 250;
+    /**
+     * Default number of reads per second once the burst is consumed.
+     */
+    public static final int DEFAULT_READ_REFILL_RATE = 25;
+    /**
+     * Default number of writes or deletes a subscription can burst.
+     */
+    public static final int DEFAULT_WRITE_BUCKET_SIZE = 200;
+    /**
+     * Default number of writes or deletes per second once the burst is consumed.
+     */
+    public static final int DEFAULT_WRITE_REFILL_RATE = 10;
+
+    private static final long MILLIS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+
+    private final ConcurrentMap<String, AzureTokenBucket> readBuckets;
+    private final ConcurrentMap<String, AzureTokenBucket> writeBuckets;
+    private final ConcurrentMap<String, AzureTokenBucket> deleteBuckets;
+
+    /**
+     * Creates an AzureThrottle using the default Azure Resource Manager limits.
+     */
+    public AzureThrottle() {
+        this.readBuckets = new ConcurrentHashMap<String, AzureTokenBucket>();
+        this.writeBuckets = new ConcurrentHashMap<String, AzureTokenBucket>();
+        this.deleteBuckets = new ConcurrentHashMap<String, AzureTokenBucket>();
+    }
+
+    /**
+     * Waits until the subscription is allowed to run one more request of the given {@link Operation}.
+     * @param subscription the Azure subscription the request is sent to.
+     * @param operation the kind of request.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void acquire(String subscription, Operation operation) throws InterruptedException {
+        bucketOf(subscription, operation).acquire();
+    }
+
+    /**
+     * Stops every request of the subscription for the given delay, as requested by a Retry-After header.
+     * @param subscription the throttled Azure subscription.
+     * @param delay the delay during which no request must be sent.
+     */
+    public void pause(String subscription, Duration delay) {
+        for (Operation operation : Operation.values()) {
+            bucketOf(subscription, operation).pause(delay.toNanos());
+        }
+    }
+
+    /**
+     * Estimates how long a subscription takes to run requests of one {@link Operation} under the default limits,
+     * starting from a full bucket with no other request of that kind competing for it.
+     * @param operation the kind of requests.
+     * @param requests the number of requests.
+     * @return the estimated duration, zero when the requests fit in the burst.
+     */
+    public static Duration estimateDuration(Operation operation, long requests) {
+        boolean read = operation == Operation.READ;
+        long bucketSize = read ? DEFAULT_READ_BUCKET_SIZE : DEFAULT_WRITE_BUCKET_SIZE;
+        long refillRate = read ? DEFAULT_READ_REFILL_RATE : DEFAULT_WRITE_REFILL_RATE;
+        return Duration.ofMillis(Math.max(0, requests - bucketSize) * MILLIS_PER_SECOND / refillRate);
+    }
+
+    /**
+     * Estimates how long a subscription takes to run writes and deletes, which use separate buckets and therefore
+     * run side by side.
+     * @param writes the number of write requests.
+     * @param deletes the number of delete requests.
+     * @return the estimated duration.
+     */
+    public static Duration estimateDuration(long writes, long deletes) {
+        Duration writeDuration = estimateDuration(Operation.WRITE, writes);
+        Duration deleteDuration = estimateDuration(Operation.DELETE, deletes);
+        return writeDuration.compareTo(deleteDuration) < 0 ? deleteDuration : writeDuration;
+    }
+
+    private AzureTokenBucket bucketOf(String subscription, Operation operation) {
+        switch (operation) {
+            case READ:
+                return this.readBuckets.computeIfAbsent(subscription,
+                    key -> new AzureTokenBucket(DEFAULT_READ_BUCKET_SIZE, DEFAULT_READ_REFILL_RATE));
+            case DELETE:
+                return this.deleteBuckets.computeIfAbsent(subscription,
+                    key -> new AzureTokenBucket(DEFAULT_WRITE_BUCKET_SIZE, DEFAULT_WRITE_REFILL_RATE));
+            default:
+                return this.writeBuckets.computeIfAbsent(subscription,
+                    key -> new AzureTokenBucket(DEFAULT_WRITE_BUCKET_SIZE, DEFAULT_WRITE_REFILL_RATE));
+        }
+    }
+
+    /**
+     * The kinds of Azure Resource Manager requests, each one having its own rate limit.
+     */
+    public enum Operation {
+        /**
+         * GET requests.
+         */
+        READ,
+        /**
+         * PUT, PATCH and POST requests.
+         */
+        WRITE,
+        /**
+         * DELETE requests.
+         */
+        DELETE
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A blocking token bucket, modelled after the Azure Resource Manager throttling algorithm.
+ * Callers wait outside of the bucket lock so that virtual threads are never pinned while waiting.
+ */
+final class AzureTokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a full AzureTokenBucket.
+     * @param capacity the maximum number of tokens in the bucket.
+     * @param refillPerSecond the number of tokens added to the bucket every second.
+     */
+    AzureTokenBucket(int capacity, int refillPerSecond) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes one token from the bucket, waiting until one is available.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        while (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            waitNanos = reserve();
+        }
+    }
+
+    /**
+     * Empties the bucket so that no token is available before the given delay, e.g. after a 429 response.
+     * @param delayNanos the delay in nanoseconds.
+     */
+    synchronized void pause(long delayNanos) {
+        refill();
+        this.tokens = Math.min(this.tokens, 0) - delayNanos * this.tokensPerNano;
+    }
+
+    /**
+     * Tries to take one token.
+     * @return 0 if a token was taken, or the estimated number of nanoseconds to wait before trying again.
+     */
+    private synchronized long reserve() {
+        refill();
+        if (this.tokens >= 1) {
+            this.tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - this.tokens) / this.tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefillNanos) * this.tokensPerNano);
+        this.lastRefillNanos = now;
+    }
+
+}
@@ -0,0 +1,133 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * Local copy of the record sets of one Azure DNS Zone, used to compare master DNS data without
+ * listing the Azure DNS Zone again. One cache is shared by every source zone replicated into the Azure DNS Zone,
+ * whose writes are queued on its write lock.
+ */
+public final class AzureZoneCache {
+
+    private final AzureDomain azureDomain;
+    private final ConcurrentMap<String, AzureRecordSet> recordSets;
+    private final Lock writeLock;
+    private volatile boolean loaded;
+
+    /**
+     * Creates an empty AzureZoneCache.
+     * @param azureDomain the Azure DNS Zone cached.
+     */
+    public AzureZoneCache(AzureDomain azureDomain) {
+        this.azureDomain = azureDomain;
+        this.recordSets = new ConcurrentHashMap<String, AzureRecordSet>();
+        this.writeLock = new ReentrantLock(true);
+    }
+
+    /**
+     * Gets the Azure DNS Zone cached.
+     * @return the cached {@link AzureDomain}.
+     */
+    public AzureDomain getAzureDomain() {
+        return this.azureDomain;
+    }
+
+    /**
+     * Gets the lock serializing the change sets applied to the Azure DNS Zone, granted in arrival order.
+     * @return the fair write {@link Lock}.
+     */
+    public Lock getWriteLock() {
+        return this.writeLock;
+    }
+
+    /**
+     * Adds or replaces a record set in the cache.
+     * @param recordSet the {@link AzureRecordSet} as known by Azure.
+     */
+    public void put(AzureRecordSet recordSet) {
+        this.recordSets.put(recordSet.getKey(), recordSet);
+    }
+
+    /**
+     * Adds or replaces record sets in the cache.
+     * @param newRecordSets the {@link AzureRecordSet}s as known by Azure.
+     */
+    public void putAll(Collection<AzureRecordSet> newRecordSets) {
+        for (AzureRecordSet recordSet : newRecordSets) {
+            put(recordSet);
+        }
+    }
+
+    /**
+     * Replaces the whole content of the cache, e.g. with a fresh listing of the Azure DNS Zone.
+     * @param newRecordSets the {@link AzureRecordSet}s as known by Azure.
+     */
+    public void replaceAll(Collection<AzureRecordSet> newRecordSets) {
+        Set<String> keys = new HashSet<String>();
+        for (AzureRecordSet recordSet : newRecordSets) {
+            put(recordSet);
+            keys.add(recordSet.getKey());
+        }
+        this.recordSets.keySet().retainAll(keys);
+    }
+
+    /**
+     * Removes a record set from the cache.
+     * @param name the relative record set name.
+     * @param type the {@link AzureRecordType} of the record set.
+     */
+    public void remove(String name, AzureRecordType type) {
+        this.recordSets.remove(AzureRecordSet.keyOf(name, type));
+    }
+
+    /**
+     * Gets a record set from the cache.
+     * @param name the relative record set name.
+     * @param type the {@link AzureRecordType} of the record set.
+     * @return the cached {@link AzureRecordSet}, or null if Azure does not hold this record set.
+     */
+    public AzureRecordSet get(String name, AzureRecordType type) {
+        return this.recordSets.get(AzureRecordSet.keyOf(name, type));
+    }
+
+    /**
+     * Gets all the cached record sets.
+     * @return an unmodifiable view of the cached {@link AzureRecordSet}s.
+     */
+    public Collection<AzureRecordSet> getRecordSets() {
+        return Collections.unmodifiableCollection(this.recordSets.values());
+    }
+
+    /**
+     * Gets the number of cached record sets.
+     * @return the number of cached record sets.
+     */
+    public int size() {
+        return this.recordSets.size();
+    }
+
+    /**
+     * Checks whether the initial load from Azure is complete.
+     * @return true once every record type has been listed.
+     */
+    public boolean isLoaded() {
+        return this.loaded;
+    }
+
+    /**
+     * Marks the initial load from Azure as complete.
+     */
+    void markLoaded() {
+        this.loaded = true;
+    }
+
+}
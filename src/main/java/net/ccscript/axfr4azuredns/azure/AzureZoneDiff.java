@@ -0,0 +1,134 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.xbill.DNS.Record;
+
+/**
+ * The diff stage between the records of a source zone and its Azure DNS Zone. Records are added as they come, from
+ * a zone transfer or a zone file, and grouped into the desired {@link AzureRecordSet}s of the
+ * {@link AzureZoneScope}; the {@link AzureRecordSetChange}s are then computed against the {@link AzureZoneCache}.
+ * Records out of the scope, or of a type Azure does not support, are skipped. Not thread safe.
+ */
+public final class AzureZoneDiff {
+
+    private final AzureZoneScope scope;
+    private final Map<String, DesiredRecordSet> desiredRecordSets;
+    private long skippedRecords;
+
+    /**
+     * Creates an empty AzureZoneDiff.
+     * @param scope the {@link AzureZoneScope} of the source zone.
+     */
+    public AzureZoneDiff(AzureZoneScope scope) {
+        this.scope = scope;
+        this.desiredRecordSets = new LinkedHashMap<String, DesiredRecordSet>();
+    }
+
+    /**
+     * Adds records of the source zone.
+     * @param records the records.
+     */
+    public void addAll(Collection<Record> records) {
+        for (Record record : records) {
+            add(record);
+        }
+    }
+
+    /**
+     * Adds a record of the source zone.
+     * @param record the record.
+     */
+    public void add(Record record) {
+        String value = AzureRecordFormat.format(record);
+        if (value == null || !this.scope.contains(record.getName(), record.getType())) {
+            this.skippedRecords++;
+            return;
+        }
+        String name = this.scope.relativeName(record.getName());
+        AzureRecordType type = AzureRecordFormat.typeOf(record);
+        this.desiredRecordSets.computeIfAbsent(AzureRecordSet.keyOf(name, type),
+            key -> new DesiredRecordSet(name, type)).add(record.getTTL(), value);
+    }
+
+    /**
+     * Gets the number of records which are not replicated to Azure.
+     * @return the skipped record count.
+     */
+    public long getSkippedRecords() {
+        return this.skippedRecords;
+    }
+
+    /**
+     * Gets the desired record sets.
+     * @return the {@link AzureRecordSet}s, without etag.
+     */
+    public List<AzureRecordSet> getRecordSets() {
+        List<AzureRecordSet> recordSets = new ArrayList<AzureRecordSet>(this.desiredRecordSets.size());
+        for (DesiredRecordSet desired : this.desiredRecordSets.values()) {
+            recordSets.add(desired.toRecordSet());
+        }
+        return recordSets;
+    }
+
+    /**
+     * Computes the changes turning the Azure DNS Zone into the source zone, within the scope.
+     * @param cache the loaded {@link AzureZoneCache} of the Azure DNS Zone.
+     * @return the {@link AzureRecordSetChange}s: upserts first, then deletes.
+     */
+    public List<AzureRecordSetChange> changes(AzureZoneCache cache) {
+        List<AzureRecordSetChange> changes = new ArrayList<AzureRecordSetChange>();
+        addUpserts(cache, changes);
+        addDeletes(cache, changes);
+        return changes;
+    }
+
+    private void addUpserts(AzureZoneCache cache, List<AzureRecordSetChange> changes) {
+        for (AzureRecordSet desired : getRecordSets()) {
+            if (!desired.equals(cache.get(desired.getName(), desired.getType()))) {
+                changes.add(AzureRecordSetChange.upsert(desired));
+            }
+        }
+    }
+
+    private void addDeletes(AzureZoneCache cache, List<AzureRecordSetChange> changes) {
+        for (AzureRecordSet cached : cache.getRecordSets()) {
+            if (!this.desiredRecordSets.containsKey(cached.getKey()) && this.scope.owns(cached)) {
+                changes.add(AzureRecordSetChange.delete(cached));
+            }
+        }
+    }
+
+    /**
+     * The records of a desired record set, whose TTL is the lowest TTL of its records.
+     */
+    private static final class DesiredRecordSet {
+        private final String name;
+        private final AzureRecordType type;
+        private final Set<String> records;
+        private long ttl;
+
+        DesiredRecordSet(String name, AzureRecordType type) {
+            this.name = name;
+            this.type = type;
+            this.records = new LinkedHashSet<String>();
+            this.ttl = Long.MAX_VALUE;
+        }
+
+        void add(long recordTtl, String record) {
+            this.ttl = Math.min(this.ttl, recordTtl);
+            this.records.add(record);
+        }
+
+        AzureRecordSet toRecordSet() {
+            return new AzureRecordSet(this.name, this.type, this.ttl, this.records, null);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * Loads Azure DNS Zones into {@link AzureZoneCache}s on startup.
+ * Instead of the single paginated dnsZones/{zoneName}/all listing, every zone is partitioned by record type:
+ * each {@link AzureRecordType} is listed concurrently through its typed endpoint, and the next page of a
+ * listing is requested before the current page is merged into the cache.
+ * The request rate stays within the subscription limits enforced by the {@link AzureThrottle} of the client.
+ */
+public final class AzureZoneLoader {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final AzureDNSClient client;
+    private final Executor executor;
+
+    /**
+     * Creates an AzureZoneLoader.
+     * @param client the {@link AzureDNSClient} used to list the record sets.
+     * @param executor the {@link Executor} running the page requests.
+     */
+    public AzureZoneLoader(AzureDNSClient client, Executor executor) {
+        this.client = client;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts loading several Azure DNS Zones at once. Azure DNS Zones shared by several
+     * {@link AzureDomain}s are only loaded once.
+     * @param azureDomains the Azure DNS Zones to be loaded.
+     * @return the loads in progress, by Azure resource identifier (see {@link AzureDomain#getAzureResourceId()}).
+     */
+    public Map<String, CompletableFuture<AzureZoneCache>> loadAll(Collection<AzureDomain> azureDomains) {
+        Map<String, CompletableFuture<AzureZoneCache>> loads =
+            new LinkedHashMap<String, CompletableFuture<AzureZoneCache>>();
+        for (AzureDomain azureDomain : azureDomains) {
+            loads.computeIfAbsent(azureDomain.getAzureResourceId(), resourceId -> load(azureDomain));
+        }
+        return loads;
+    }
+
+    /**
+     * Starts loading one Azure DNS Zone.
+     * @param azureDomain the Azure DNS Zone to be loaded.
+     * @return the {@link AzureZoneCache}, completed once every record type is loaded.
+     */
+    public CompletableFuture<AzureZoneCache> load(AzureDomain azureDomain) {
+        AzureZoneCache cache = new AzureZoneCache(azureDomain);
+        long startNanos = System.nanoTime();
+        logger.info("Loading Azure DNS Zone {}", azureDomain.getAzureZoneName());
+
+        AzureRecordType[] types = AzureRecordType.values();
+        CompletableFuture<?>[] partitions = new CompletableFuture<?>[types.length];
+        for (int i = 0; i < types.length; i++) {
+            partitions[i] = loadPartition(cache, types[i]);
+        }
+
+        return CompletableFuture.allOf(partitions).thenApply(loaded -> {
+            cache.markLoaded();
+            logger.info("Loaded {} record sets of Azure DNS Zone {} in {} ms", cache.size(),
+                azureDomain.getAzureZoneName(), (System.nanoTime() - startNanos) / NANOS_PER_MILLI);
+            return cache;
+        }).whenComplete((loadedCache, error) -> {
+            if (error != null) {
+                logger.error("Loading Azure DNS Zone {} failed", azureDomain.getAzureZoneName(), error);
+            }
+        });
+    }
+
+    private CompletableFuture<Void> loadPartition(AzureZoneCache cache, AzureRecordType type) {
+        return fetchPage(cache.getAzureDomain(), type, null)
+            .thenCompose(page -> mergePage(cache, type, page));
+    }
+
+    /**
+     * Requests the next page, if any, then merges the current page into the cache while the next one is in flight.
+     * @param cache the {@link AzureZoneCache} being loaded.
+     * @param type the {@link AzureRecordType} partition being loaded.
+     * @param page the page to be merged.
+     * @return a future completed once the last page of the partition is merged.
+     */
+    private CompletableFuture<Void> mergePage(AzureZoneCache cache, AzureRecordType type, AzureRecordSetPage page) {
+        CompletableFuture<Void> nextPages = CompletableFuture.completedFuture(null);
+        if (page.hasNextLink()) {
+            nextPages = fetchPage(cache.getAzureDomain(), type, page.getNextLink())
+                .thenCompose(nextPage -> mergePage(cache, type, nextPage));
+        }
+        cache.putAll(page.getRecordSets());
+        return nextPages;
+    }
+
+    private CompletableFuture<AzureRecordSetPage> fetchPage(AzureDomain azureDomain, AzureRecordType type,
+        String nextLink) {
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.client.listRecordSets(azureDomain, type, nextLink);
+            } catch (AzureDNSException ade) {
+                throw new CompletionException(ade);
+            }
+        }, this.executor);
+    }
+
+}
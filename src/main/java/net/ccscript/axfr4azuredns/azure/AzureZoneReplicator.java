@@ -0,0 +1,160 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.TextParseException;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.trace.Span;
+
+/**
+ * Replicates a source zone into every Azure DNS Zone it targets. The records are converted once per distinct Azure
+ * DNS Zone name, so that targets replicating the same zone into several subscriptions share one
+ * {@link AzureZoneDiff}. Each target is then diffed against its own {@link AzureZoneCache} and updated in parallel,
+ * within the throttle of its own subscription. An empty target with bulk seeding enabled is seeded with
+ * deployments instead, then listed again as deployments return no etag. Source zones sharing an Azure DNS Zone
+ * share its cache, and their change sets are applied one at a time on its write lock. Each target is traced as a
+ * child span of the span current when replicating.
+ */
+public final class AzureZoneReplicator {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final AzureZoneUpdater azureZoneUpdater;
+    private final AzureDeploymentSeeder azureDeploymentSeeder;
+    private final AzureZoneLoader azureZoneLoader;
+    private final Executor executor;
+
+    /**
+     * Creates an AzureZoneReplicator.
+     * @param azureZoneUpdater the {@link AzureZoneUpdater} applying the changes.
+     * @param azureDeploymentSeeder the {@link AzureDeploymentSeeder} seeding empty Azure DNS Zones.
+     * @param azureZoneLoader the {@link AzureZoneLoader} listing the seeded Azure DNS Zones again.
+     * @param executor the {@link Executor} updating the targets.
+     */
+    public AzureZoneReplicator(AzureZoneUpdater azureZoneUpdater, AzureDeploymentSeeder azureDeploymentSeeder,
+        AzureZoneLoader azureZoneLoader, Executor executor) {
+
+        this.azureZoneUpdater = azureZoneUpdater;
+        this.azureDeploymentSeeder = azureDeploymentSeeder;
+        this.azureZoneLoader = azureZoneLoader;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates the empty diffs of a zone, one per distinct scope of its targets, to be filled with the records of the
+     * source zone.
+     * @param zone the source {@link Zone}.
+     * @return the {@link AzureZoneDiff}s by {@link #diffKey(AzureDomain)}.
+     * @throws TextParseException if a zone name is not valid.
+     */
+    public static Map<String, AzureZoneDiff> newDiffs(Zone zone) throws TextParseException {
+        Name origin = Name.fromString(zone.getZoneName(), Name.root);
+        Map<String, AzureZoneDiff> diffs = new LinkedHashMap<String, AzureZoneDiff>();
+        for (AzureDomain azureDomain : zone.getAzureDomains()) {
+            if (!diffs.containsKey(diffKey(azureDomain))) {
+                diffs.put(diffKey(azureDomain), new AzureZoneDiff(new AzureZoneScope(origin, azureDomain)));
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Gets the key of the diff of a target: targets with the same Azure DNS Zone name and the same sub-zones have the
+     * same {@link AzureZoneScope}, hence share their diff.
+     * @param azureDomain the target {@link AzureDomain}.
+     * @return the key of its diff in {@link #newDiffs(Zone)}.
+     */
+    public static String diffKey(AzureDomain azureDomain) {
+        if (azureDomain.getSubZoneNames().isEmpty()) {
+            return azureDomain.getAzureZoneName();
+        }
+        return azureDomain.getAzureZoneName() + " - " + String.join(",", azureDomain.getSubZoneNames());
+    }
+
+    /**
+     * Replicates a zone into all its targets in parallel. A failing target does not prevent the other ones.
+     * @param zone the source {@link Zone}.
+     * @param diffs the {@link AzureZoneDiff}s of the zone, filled with its records (see {@link #newDiffs(Zone)}).
+     * @param caches gives the {@link AzureZoneCache} of each target, loaded or being loaded.
+     * @return the number of record set changes which could not be applied, counting a target which could not be
+     *         loaded or seeded as one.
+     */
+    public int replicate(Zone zone, Map<String, AzureZoneDiff> diffs,
+        Function<AzureDomain, CompletableFuture<AzureZoneCache>> caches) {
+
+        Span sync = Span.current();
+        List<CompletableFuture<Integer>> targets = new ArrayList<CompletableFuture<Integer>>();
+        for (AzureDomain azureDomain : zone.getAzureDomains()) {
+            AzureZoneDiff diff = diffs.get(diffKey(azureDomain));
+            targets.add(caches.apply(azureDomain)
+                .thenApplyAsync(cache -> replicateTo(sync, azureDomain, cache, diff), this.executor)
+                .exceptionally(error -> {
+                    logger.error("Replication of zone {} into Azure DNS Zone {} failed", zone.getZoneName(),
+                        azureDomain.getAzureResourceId(), error);
+                    return 1;
+                }));
+        }
+        int failures = 0;
+        for (CompletableFuture<Integer> target : targets) {
+            failures += target.join();
+        }
+        return failures;
+    }
+
+    private int replicateTo(Span sync, AzureDomain azureDomain, AzureZoneCache cache, AzureZoneDiff diff) {
+        try (Span span = sync.child("azure.target").setAttribute("azure_zone", azureDomain.getAzureResourceId())) {
+            Span lock = span.child("azure.lock");
+            cache.getWriteLock().lock();
+            lock.close();
+            boolean applied = false;
+            try {
+                int failures = applyTo(azureDomain, cache, diff);
+                span.add("failures", failures);
+                applied = true;
+                return failures;
+            } finally {
+                cache.getWriteLock().unlock();
+                if (!applied) {
+                    span.fail("Replication failed");
+                }
+            }
+        }
+    }
+
+    private int applyTo(AzureDomain azureDomain, AzureZoneCache cache, AzureZoneDiff diff) {
+        if (azureDomain.isBulkSeeding() && AzureDeploymentSeeder.isEmptyZone(cache)) {
+            List<AzureRecordSet> recordSets = diff.getRecordSets();
+            try (Span span = Span.current().child("azure.seed")) {
+                span.addRecords(recordSets.size());
+                this.azureDeploymentSeeder.seed(azureDomain, recordSets).join();
+            }
+            // Deployments return no etag: list the zone again so that the next writes are conditional on real etags
+            try (Span span = Span.current().child("azure.reload")) {
+                AzureZoneCache seeded = this.azureZoneLoader.load(azureDomain).join();
+                span.addRecords(seeded.size());
+                cache.replaceAll(seeded.getRecordSets());
+            }
+            return 0;
+        }
+        List<AzureRecordSetChange> changes;
+        try (Span span = Span.current().child("diff")) {
+            changes = diff.changes(cache);
+            span.addRecords(changes.size());
+        }
+        logger.info("Applying {} record set changes to Azure DNS Zone {}", changes.size(),
+            azureDomain.getAzureResourceId());
+        return this.azureZoneUpdater.apply(cache, changes);
+    }
+
+}
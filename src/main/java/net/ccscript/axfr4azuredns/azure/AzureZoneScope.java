@@ -0,0 +1,111 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.xbill.DNS.Name;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * The part of an Azure DNS Zone a source zone owns: the subtree of the source zone, which may be a sub-zone of the
+ * Azure DNS Zone. The SOA record set, and the NS record set at the apex of the source zone, are left out: Azure
+ * manages the ones at its zone apex, and the delegation of a sub-zone belongs to its parent zone. The subtrees of the
+ * sub-zones replicated into the same Azure DNS Zone are left out as well, except their delegation records: each
+ * source zone sharing an Azure DNS Zone only owns its own subtree.
+ */
+public final class AzureZoneScope {
+
+    private final Name sourceOrigin;
+    private final Name azureOrigin;
+    private final Set<Name> subZoneOrigins;
+
+    /**
+     * Creates an AzureZoneScope.
+     * @param sourceOrigin the origin of the source zone.
+     * @param azureDomain the {@link AzureDomain} the source zone is replicated to.
+     * @throws TextParseException if the Azure DNS Zone name or a sub-zone name is not valid.
+     */
+    public AzureZoneScope(Name sourceOrigin, AzureDomain azureDomain) throws TextParseException {
+        this.sourceOrigin = sourceOrigin;
+        this.azureOrigin = Name.fromString(azureDomain.getAzureZoneName(), Name.root);
+        this.subZoneOrigins = new HashSet<Name>();
+        for (String subZoneName : azureDomain.getSubZoneNames()) {
+            this.subZoneOrigins.add(Name.fromString(subZoneName, Name.root));
+        }
+    }
+
+    /**
+     * Gets the origin of the source zone.
+     * @return the source zone origin.
+     */
+    public Name getSourceOrigin() {
+        return this.sourceOrigin;
+    }
+
+    /**
+     * Checks whether a record of the source zone is replicated to Azure.
+     * @param name the owner name of the record.
+     * @param type the record type.
+     * @return true if the record belongs to the scope.
+     */
+    public boolean contains(Name name, int type) {
+        return type != Type.SOA && !(type == Type.NS && name.equals(this.sourceOrigin))
+            && name.subdomain(this.sourceOrigin) && !inSubZone(name, type);
+    }
+
+    /**
+     * Checks whether a name belongs to a sub-zone, walking up its ancestors within the source zone.
+     * @param name the owner name, within the source zone.
+     * @param type the record type.
+     * @return true if a sub-zone owns the record.
+     */
+    private boolean inSubZone(Name name, int type) {
+        if (this.subZoneOrigins.isEmpty()) {
+            return false;
+        }
+        // The NS and DS records at the apex of a sub-zone are the delegation held by the parent zone
+        boolean delegation = type == Type.NS || type == Type.DS;
+        Name owner = delegation ? new Name(name, 1) : name;
+        while (owner.labels() > this.sourceOrigin.labels()) {
+            if (this.subZoneOrigins.contains(owner)) {
+                return true;
+            }
+            owner = new Name(owner, 1);
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an Azure record set belongs to the scope, and should be deleted if the source zone no longer
+     * holds it.
+     * @param recordSet the {@link AzureRecordSet} of the Azure DNS Zone.
+     * @return true if the record set belongs to the scope.
+     */
+    public boolean owns(AzureRecordSet recordSet) {
+        Name name = absoluteName(recordSet.getName());
+        return name != null && contains(name, Type.value(recordSet.getType().name()));
+    }
+
+    /**
+     * Gets the name of an Azure record set.
+     * @param name an owner name within the Azure DNS Zone.
+     * @return the name relative to the Azure DNS Zone, "@" for its apex.
+     */
+    public String relativeName(Name name) {
+        return name.equals(this.azureOrigin) ? AzureRecordSet.APEX_NAME
+            : name.relativize(this.azureOrigin).toString();
+    }
+
+    private Name absoluteName(String relativeName) {
+        try {
+            return AzureRecordSet.APEX_NAME.equals(relativeName) ? this.azureOrigin
+                : Name.fromString(relativeName, this.azureOrigin);
+        } catch (TextParseException tpe) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.azure.AzureRecordSetChange.Action;
+import net.ccscript.axfr4azuredns.logging.LogSampler;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.trace.Span;
+
+/**
+ * Applies {@link AzureRecordSetChange}s to an Azure DNS Zone, keeping its {@link AzureZoneCache} up to date.
+ * Every write is conditional on the etag held by the cache, so no record set is read before being written.
+ * When Azure reports a conflict (412), only the conflicting record set is read again, then the change is
+ * retried once against its fresh etag.
+ */
+public final class AzureZoneUpdater {
+
+    /**
+     * The number of changes traced as one batch span.
+     */
+    public static final int TRACE_BATCH_SIZE = 100;
+
+    private static final int CHANGE_LOGS_PER_SECOND = 10;
+
+    private static Logger logger = LogManager.getLogger();
+    private static final LogSampler CONFLICT_LOGS = new LogSampler(CHANGE_LOGS_PER_SECOND);
+    private static final LogSampler FAILURE_LOGS = new LogSampler(CHANGE_LOGS_PER_SECOND);
+
+    private final AzureDNSClient client;
+
+    /**
+     * Creates an AzureZoneUpdater.
+     * @param client the {@link AzureDNSClient} used to write the record sets.
+     */
+    public AzureZoneUpdater(AzureDNSClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Applies changes to the Azure DNS Zone of a cache, traced in batches of {@link #TRACE_BATCH_SIZE} changes.
+     * A failing change does not prevent the other ones.
+     * @param cache the loaded {@link AzureZoneCache} of the Azure DNS Zone to be changed.
+     * @param changes the {@link AzureRecordSetChange}s to be applied.
+     * @return the number of changes which could not be applied.
+     */
+    public int apply(AzureZoneCache cache, Collection<AzureRecordSetChange> changes) {
+        List<AzureRecordSetChange> changeList = new ArrayList<AzureRecordSetChange>(changes);
+        int failures = 0;
+        for (int from = 0; from < changeList.size(); from += TRACE_BATCH_SIZE) {
+            List<AzureRecordSetChange> batch = changeList.subList(from,
+                Math.min(from + TRACE_BATCH_SIZE, changeList.size()));
+            try (Span span = Span.current().child("azure.batch")) {
+                span.addRecords(batch.size());
+                int batchFailures = applyBatch(cache, batch);
+                span.add("failures", batchFailures);
+                failures += batchFailures;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Applies a single change, retrying it once after refreshing the record set in case of conflict.
+     * @param cache the {@link AzureZoneCache} of the Azure DNS Zone to be changed.
+     * @param change the {@link AzureRecordSetChange} to be applied.
+     * @throws AzureDNSException if the change could not be applied.
+     */
+    public void apply(AzureZoneCache cache, AzureRecordSetChange change) throws AzureDNSException {
+        AzureRecordSet desired = change.getRecordSet();
+        AzureRecordSet cached = cache.get(desired.getName(), desired.getType());
+        try {
+            write(cache, change, cached);
+        } catch (AzurePreconditionFailedException apfe) {
+            CONFLICT_LOGS.log(logger, Level.INFO, cache.getAzureDomain().getAzureResourceId(),
+                "Record set {} changed in Azure, refreshing it: {}", desired.getKey(), apfe.getMessage());
+            Span.current().add("conflicts", 1);
+            write(cache, change, refresh(cache, desired));
+        }
+    }
+
+    private int applyBatch(AzureZoneCache cache, List<AzureRecordSetChange> batch) {
+        int failures = 0;
+        for (AzureRecordSetChange change : batch) {
+            try {
+                apply(cache, change);
+            } catch (AzureDNSException ade) {
+                FAILURE_LOGS.log(logger, Level.ERROR, cache.getAzureDomain().getAzureResourceId(),
+                    "Change {} on Azure DNS Zone {} failed", change, cache.getAzureDomain().getAzureZoneName(), ade);
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    private void write(AzureZoneCache cache, AzureRecordSetChange change, AzureRecordSet current)
+        throws AzureDNSException {
+
+        if (change.getAction() == Action.DELETE) {
+            delete(cache, current);
+        } else {
+            upsert(cache, change.getRecordSet(), current);
+        }
+    }
+
+    private void upsert(AzureZoneCache cache, AzureRecordSet desired, AzureRecordSet current)
+        throws AzureDNSException {
+
+        if (desired.equals(current)) {
+            return;
+        }
+        String ifMatch = current != null ? current.getEtag() : null;
+        AzureRecordSet written = this.client.putRecordSet(cache.getAzureDomain(), desired, ifMatch);
+        AzureAuditLog.put(cache.getAzureDomain().getAzureResourceId(), written, ifMatch);
+        cache.put(written);
+    }
+
+    private void delete(AzureZoneCache cache, AzureRecordSet current) throws AzureDNSException {
+        if (current == null) {
+            return;
+        }
+        this.client.deleteRecordSet(cache.getAzureDomain(), current);
+        AzureAuditLog.delete(cache.getAzureDomain().getAzureResourceId(), current);
+        cache.remove(current.getName(), current.getType());
+    }
+
+    /**
+     * Reads one record set from Azure and stores it in the cache.
+     * @param cache the {@link AzureZoneCache} to be refreshed.
+     * @param recordSet the record set to be refreshed.
+     * @return the record set as currently held by Azure, or null if it does not exist.
+     * @throws AzureDNSException if the record set could not be read.
+     */
+    private AzureRecordSet refresh(AzureZoneCache cache, AzureRecordSet recordSet) throws AzureDNSException {
+        AzureDomain azureDomain = cache.getAzureDomain();
+        AzureRecordSet current = this.client.getRecordSet(azureDomain, recordSet.getName(), recordSet.getType());
+        if (current == null) {
+            cache.remove(recordSet.getName(), recordSet.getType());
+        } else {
+            cache.put(current);
+        }
+        return current;
+    }
+
+}
@@ -0,0 +1,75 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A consistent hash ring distributing zones across cluster nodes. Each node is placed on the ring several times
+ * (virtual nodes) to spread the zones evenly. Adding or removing a node only moves the zones between that node and
+ * its ring neighbours: the zones of the other nodes keep their owner.
+ */
+public final class ConsistentHashRing {
+    /**
+     * Default number of virtual nodes per node.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private static final int BITS_PER_BYTE = 8;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final NavigableMap<Long, String> ring;
+
+    /**
+     * Creates a ConsistentHashRing.
+     * @param nodeIds the identifiers of the nodes.
+     * @param virtualNodes the number of virtual nodes per node.
+     */
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        this.ring = new TreeMap<Long, String>();
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                this.ring.put(hash(nodeId + "#" + i), nodeId);
+            }
+        }
+    }
+
+    /**
+     * Gets the node owning a zone: the first node found clockwise on the ring from the zone hash.
+     * @param zoneName the DNS Zone name.
+     * @return the identifier of the owner node, or null if the ring has no node.
+     */
+    public String ownerOf(String zoneName) {
+        if (this.ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> owner = this.ring.ceilingEntry(hash(zoneName));
+        if (owner == null) {
+            owner = this.ring.firstEntry();
+        }
+        return owner.getValue();
+    }
+
+    /**
+     * Hashes a key on the ring, using the first 64 bits of its MD5 digest.
+     * @param key the key to be hashed.
+     * @return the position on the ring.
+     */
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long position = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                position = (position << BITS_PER_BYTE) | (digest[i] & BYTE_MASK);
+            }
+            return position;
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("MD5 is not available", nsae);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A lease stored in a file of a shared directory: the holder identifier and the expiry time, one per line.
+ * Lease files are replaced atomically so that readers never see a partially written lease.
+ */
+final class FileLease {
+
+    private final String holder;
+    private final long expiresAtMillis;
+
+    /**
+     * Creates a FileLease.
+     * @param holder the identifier of the node holding the lease.
+     * @param expiresAtMillis the expiry time, in milliseconds since the epoch.
+     */
+    FileLease(String holder, long expiresAtMillis) {
+        this.holder = holder;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * Reads a lease file.
+     * @param file the lease file.
+     * @return the {@link FileLease}, or null if the file does not exist or is not a lease.
+     * @throws IOException if the file could not be read.
+     */
+    static FileLease read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.size() < 2) {
+            return null;
+        }
+        try {
+            return new FileLease(lines.get(0), Long.parseLong(lines.get(1)));
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    /**
+     * Acquires or renews a lease, unless another holder has a valid lease. Callers must hold the lease lock.
+     * @param file the lease file.
+     * @param holder the identifier of the node claiming the lease.
+     * @param ttl the lease duration.
+     * @return true if the lease is now held by the holder.
+     * @throws IOException if the lease file could not be read or written.
+     */
+    static boolean claim(Path file, String holder, Duration ttl) throws IOException {
+        long now = System.currentTimeMillis();
+        FileLease current = read(file);
+        if (current != null && current.isValid(now) && !holder.equals(current.holder)) {
+            return false;
+        }
+        new FileLease(holder, now + ttl.toMillis()).write(file);
+        return true;
+    }
+
+    /**
+     * Deletes a lease if it is held by the given holder. Callers must hold the lease lock.
+     * @param file the lease file.
+     * @param holder the identifier of the node releasing the lease.
+     * @throws IOException if the lease file could not be read or deleted.
+     */
+    static void delete(Path file, String holder) throws IOException {
+        FileLease current = read(file);
+        if (current != null && holder.equals(current.holder)) {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes this lease, replacing the previous lease file atomically.
+     * @param file the lease file.
+     * @throws IOException if the file could not be written.
+     */
+    void write(Path file) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporaryFile, this.holder + "\n" + this.expiresAtMillis + "\n", StandardCharsets.UTF_8);
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the identifier of the node holding the lease.
+     * @return the node identifier.
+     */
+    String getHolder() {
+        return this.holder;
+    }
+
+    /**
+     * Checks if the lease is still valid.
+     * @param nowMillis the current time, in milliseconds since the epoch.
+     * @return true if the lease has not expired.
+     */
+    boolean isValid(long nowMillis) {
+        return nowMillis < this.expiresAtMillis;
+    }
+
+}
@@ -0,0 +1,103 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ZoneLeaseBackend} using a directory shared by all nodes (e.g. an NFS or SMB share).
+ * Heartbeats are lease files in the members sub-directory. Zone leases are lease files in the leases
+ * sub-directory, updated under an exclusive file lock so that two nodes never hold the same zone.
+ */
+public final class FileLockLeaseBackend implements ZoneLeaseBackend {
+
+    private static final String LEASE_SUFFIX = ".lease";
+
+    private final Path membersDirectory;
+    private final Path leasesDirectory;
+
+    /**
+     * Creates a FileLockLeaseBackend.
+     * @param directory the shared directory. Sub-directories are created if needed.
+     * @throws IOException if the sub-directories could not be created.
+     */
+    public FileLockLeaseBackend(Path directory) throws IOException {
+        this.membersDirectory = Files.createDirectories(directory.resolve("members"));
+        this.leasesDirectory = Files.createDirectories(directory.resolve("leases"));
+    }
+
+    @Override
+    public void heartbeat(String nodeId, Duration ttl) throws IOException {
+        new FileLease(nodeId, System.currentTimeMillis() + ttl.toMillis())
+            .write(this.membersDirectory.resolve(nodeId + LEASE_SUFFIX));
+    }
+
+    @Override
+    public Set<String> getLiveNodes() throws IOException {
+        Set<String> liveNodes = new HashSet<String>();
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> members = Files.newDirectoryStream(this.membersDirectory, "*" + LEASE_SUFFIX)) {
+            for (Path member : members) {
+                FileLease heartbeat = FileLease.read(member);
+                if (heartbeat != null && heartbeat.isValid(now)) {
+                    liveNodes.add(heartbeat.getHolder());
+                }
+            }
+        }
+        return liveNodes;
+    }
+
+    @Override
+    public LeaseClaim tryAcquire(String zoneName, String nodeId, Duration ttl) throws IOException {
+        Path leaseFile = this.leasesDirectory.resolve(zoneName + LEASE_SUFFIX);
+        try (FileChannel lockChannel = openLock(zoneName); FileLock lock = tryLock(lockChannel)) {
+            if (lock == null) {
+                return LeaseClaim.BUSY;
+            }
+            return FileLease.claim(leaseFile, nodeId, ttl) ? LeaseClaim.HELD : LeaseClaim.TAKEN;
+        }
+    }
+
+    @Override
+    public void release(String zoneName, String nodeId) throws IOException {
+        Path leaseFile = this.leasesDirectory.resolve(zoneName + LEASE_SUFFIX);
+        try (FileChannel lockChannel = openLock(zoneName)) {
+            // Closing the channel releases the lock
+            lockChannel.lock();
+            FileLease.delete(leaseFile, nodeId);
+        }
+    }
+
+    @Override
+    public void leave(String nodeId) throws IOException {
+        Files.deleteIfExists(this.membersDirectory.resolve(nodeId + LEASE_SUFFIX));
+    }
+
+    private FileChannel openLock(String zoneName) throws IOException {
+        return FileChannel.open(this.leasesDirectory.resolve(zoneName + ".lock"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Tries to lock a lease without waiting.
+     * @param lockChannel the lock file channel.
+     * @return the {@link FileLock}, or null if another process or thread holds it.
+     * @throws IOException if the lock could not be requested.
+     */
+    private static FileLock tryLock(FileChannel lockChannel) throws IOException {
+        try {
+            return lockChannel.tryLock();
+        } catch (OverlappingFileLockException ofle) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+/**
+ * The outcome of a zone lease claim in a {@link ZoneLeaseBackend}.
+ */
+public enum LeaseClaim {
+    /**
+     * The node holds the lease, acquired or renewed.
+     */
+    HELD,
+    /**
+     * Another node holds a valid lease.
+     */
+    TAKEN,
+    /**
+     * The lease could not be checked at once, such as while another node updates it: the ownership of the zone is
+     * left as is until the next claim.
+     */
+    BUSY
+}
@@ -0,0 +1,55 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * The coordination backend shared by the nodes of a cluster. It tracks which nodes are alive and which node holds
+ * the lease of each zone. A lease is only granted to one node at a time, until it expires or is released.
+ */
+public interface ZoneLeaseBackend {
+
+    /**
+     * Declares a node alive for the given duration.
+     * @param nodeId the node identifier.
+     * @param ttl the duration after which the node is considered gone unless it sends another heartbeat.
+     * @throws IOException if the backend could not be updated.
+     */
+    void heartbeat(String nodeId, Duration ttl) throws IOException;
+
+    /**
+     * Gets the nodes whose last heartbeat has not expired.
+     * @return the identifiers of the live nodes.
+     * @throws IOException if the backend could not be read.
+     */
+    Set<String> getLiveNodes() throws IOException;
+
+    /**
+     * Acquires or renews the lease of a zone.
+     * @param zoneName the DNS Zone name.
+     * @param nodeId the node requesting the lease.
+     * @param ttl the duration of the lease.
+     * @return the {@link LeaseClaim}: {@link LeaseClaim#HELD} if the node holds the lease,
+     *         {@link LeaseClaim#TAKEN} if another node holds a valid lease, or {@link LeaseClaim#BUSY} if the lease
+     *         is being updated by another node.
+     * @throws IOException if the backend could not be updated.
+     */
+    LeaseClaim tryAcquire(String zoneName, String nodeId, Duration ttl) throws IOException;
+
+    /**
+     * Releases the lease of a zone, if held by the node.
+     * @param zoneName the DNS Zone name.
+     * @param nodeId the node releasing the lease.
+     * @throws IOException if the backend could not be updated.
+     */
+    void release(String zoneName, String nodeId) throws IOException;
+
+    /**
+     * Removes a node from the live nodes.
+     * @param nodeId the node leaving the cluster.
+     * @throws IOException if the backend could not be updated.
+     */
+    void leave(String nodeId) throws IOException;
+
+}
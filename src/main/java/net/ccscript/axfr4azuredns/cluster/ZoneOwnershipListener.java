@@ -0,0 +1,18 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+import java.util.Set;
+
+/**
+ * Notified when the zones owned by the local node change.
+ */
+@FunctionalInterface
+public interface ZoneOwnershipListener {
+
+    /**
+     * Called after a refresh which changed the zones owned by the local node.
+     * @param acquiredZones the zones the local node now owns and must start synchronizing.
+     * @param releasedZones the zones the local node no longer owns and must stop synchronizing.
+     */
+    void ownershipChanged(Set<String> acquiredZones, Set<String> releasedZones);
+
+}
@@ -0,0 +1,175 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Splits the configured zones across the live nodes of a cluster. Zones are assigned with a
+ * {@link ConsistentHashRing} built from the live nodes, so that a node leaving or joining only moves its own
+ * zones. A node only synchronizes a zone once it holds the zone lease in the {@link ZoneLeaseBackend}: a zone
+ * moving to another node is synchronized there once the previous owner released it or its lease expired. A
+ * lease busy at the time of a claim, being updated by another node, leaves the ownership of its zone as is.
+ * <p>
+ * The lease of an owned zone is also tracked locally from its last renewal: when renewals fail, such as while the
+ * backend is unreachable, the zone is dropped before its lease can expire in the backend and be claimed by another
+ * node.
+ */
+public final class ZoneShardCoordinator {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final String nodeId;
+    private final Collection<String> zoneNames;
+    private final ZoneLeaseBackend backend;
+    private final int virtualNodes;
+    private final Duration leaseDuration;
+    private final ZoneOwnershipListener listener;
+    private final ConcurrentMap<String, Long> leaseDeadlines;
+    private long lastRefreshNanos;
+
+    /**
+     * Creates a ZoneShardCoordinator. No zone is owned until the first {@link #refresh()}.
+     * @param nodeId the identifier of the local node, unique in the cluster.
+     * @param zoneNames the names of all the configured zones.
+     * @param backend the {@link ZoneLeaseBackend} shared by the cluster.
+     * @param virtualNodes the number of virtual nodes per node on the ring.
+     * @param leaseDuration the duration of heartbeats and zone leases. Refresh must run more often.
+     * @param listener the {@link ZoneOwnershipListener} notified of ownership changes.
+     */
+    public ZoneShardCoordinator(String nodeId, Collection<String> zoneNames, ZoneLeaseBackend backend,
+        int virtualNodes, Duration leaseDuration, ZoneOwnershipListener listener) {
+
+        this.nodeId = nodeId;
+        this.zoneNames = zoneNames;
+        this.backend = backend;
+        this.virtualNodes = virtualNodes;
+        this.leaseDuration = leaseDuration;
+        this.listener = listener;
+        this.leaseDeadlines = new ConcurrentHashMap<String, Long>();
+    }
+
+    /**
+     * Checks if the local node currently owns a zone.
+     * @param zoneName the DNS Zone name.
+     * @return true if the local node holds the zone lease and it has not expired since its last renewal.
+     */
+    public boolean owns(String zoneName) {
+        Long deadline = this.leaseDeadlines.get(zoneName);
+        return deadline != null && deadline - System.nanoTime() > 0;
+    }
+
+    /**
+     * Gets the zones currently owned by the local node.
+     * @return an unmodifiable view of the owned zone names.
+     */
+    public Set<String> getOwnedZones() {
+        return Collections.unmodifiableSet(this.leaseDeadlines.keySet());
+    }
+
+    /**
+     * Sends a heartbeat, recomputes the zone assignment from the live nodes, then acquires or renews the leases of
+     * the zones assigned to the local node and releases the other ones. If the backend fails, the owned zones
+     * whose lease would expire before the next refresh are dropped.
+     */
+    public synchronized void refresh() {
+        long now = System.nanoTime();
+        long leaseDeadline = now + this.leaseDuration.toNanos();
+        Set<String> acquiredZones = new HashSet<String>();
+        Set<String> releasedZones = new HashSet<String>();
+        try {
+            this.backend.heartbeat(this.nodeId, this.leaseDuration);
+            Set<String> liveNodes = new HashSet<String>(this.backend.getLiveNodes());
+            liveNodes.add(this.nodeId);
+            ConsistentHashRing ring = new ConsistentHashRing(liveNodes, this.virtualNodes);
+
+            for (String zoneName : this.zoneNames) {
+                LeaseClaim claim = this.nodeId.equals(ring.ownerOf(zoneName)) ? claim(zoneName) : LeaseClaim.TAKEN;
+                if (claim == LeaseClaim.BUSY) {
+                    logger.debug("Lease of zone {} is busy, ownership of node {} left as is", zoneName, this.nodeId);
+                } else {
+                    updateOwnership(zoneName, claim == LeaseClaim.HELD, leaseDeadline, acquiredZones,
+                        releasedZones);
+                }
+            }
+        } catch (IOException ioe) {
+            logger.error("Cluster coordination failed for node {}", this.nodeId, ioe);
+        }
+        // The next refresh is expected one refresh period from now, as long as the last one took
+        long refreshPeriod = this.lastRefreshNanos == 0 ? 0 : now - this.lastRefreshNanos;
+        this.lastRefreshNanos = now;
+        expireLeases(System.nanoTime() + refreshPeriod, releasedZones);
+        notifyListener(acquiredZones, releasedZones);
+    }
+
+    /**
+     * Releases every owned zone and leaves the cluster, so that other nodes take over without waiting for the
+     * leases to expire.
+     */
+    public synchronized void leave() {
+        try {
+            for (String zoneName : this.leaseDeadlines.keySet()) {
+                this.backend.release(zoneName, this.nodeId);
+            }
+            this.backend.leave(this.nodeId);
+        } catch (IOException ioe) {
+            logger.error("Node {} could not leave the cluster cleanly", this.nodeId, ioe);
+        }
+        Set<String> releasedZones = new HashSet<String>(this.leaseDeadlines.keySet());
+        this.leaseDeadlines.clear();
+        notifyListener(Collections.emptySet(), releasedZones);
+    }
+
+    private LeaseClaim claim(String zoneName) throws IOException {
+        return this.backend.tryAcquire(zoneName, this.nodeId, this.leaseDuration);
+    }
+
+    private void updateOwnership(String zoneName, boolean owned, long leaseDeadline, Set<String> acquiredZones,
+        Set<String> releasedZones) throws IOException {
+
+        if (owned && this.leaseDeadlines.put(zoneName, leaseDeadline) == null) {
+            acquiredZones.add(zoneName);
+        } else if (!owned && this.leaseDeadlines.remove(zoneName) != null) {
+            this.backend.release(zoneName, this.nodeId);
+            releasedZones.add(zoneName);
+        }
+    }
+
+    /**
+     * Drops the owned zones whose lease expires before a given time, as it could not be renewed.
+     * @param expiryNanos the time, from {@link System#nanoTime()}.
+     * @param releasedZones collects the dropped zones.
+     */
+    private void expireLeases(long expiryNanos, Set<String> releasedZones) {
+        for (Iterator<Map.Entry<String, Long>> leases = this.leaseDeadlines.entrySet().iterator();
+            leases.hasNext();) {
+
+            Map.Entry<String, Long> lease = leases.next();
+            if (lease.getValue() - expiryNanos <= 0) {
+                leases.remove();
+                releasedZones.add(lease.getKey());
+                logger.warn("Lease of zone {} could not be renewed by node {} before it expires, zone dropped",
+                    lease.getKey(), this.nodeId);
+            }
+        }
+    }
+
+    private void notifyListener(Set<String> acquiredZones, Set<String> releasedZones) {
+        if (acquiredZones.isEmpty() && releasedZones.isEmpty()) {
+            return;
+        }
+        logger.info("Node {} acquired zones {} and released zones {}", this.nodeId, acquiredZones, releasedZones);
+        this.listener.ownershipChanged(acquiredZones, releasedZones);
+    }
+
+}
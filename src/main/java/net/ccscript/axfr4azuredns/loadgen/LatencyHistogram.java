@@ -0,0 +1,85 @@
+package net.ccscript.axfr4azuredns.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A log-linear histogram of latencies in microseconds, recordable from any thread: each power of two is split into
+ * 4 buckets, so that a bucket spans at most 25% of its lower bound, from 1 microsecond up to about 17 minutes.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 30;
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT + 1) * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * @param nanos the latency in nanoseconds.
+     */
+    void record(long nanos) {
+        long micros = Math.max(1, nanos / NANOS_PER_MICRO);
+        this.counts.incrementAndGet(bucketOf(micros));
+        this.total.incrementAndGet();
+        this.maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    static int bucketOf(long micros) {
+        int exponent = Math.min(MAX_EXPONENT, Long.SIZE - 1 - Long.numberOfLeadingZeros(micros));
+        int subBucket = exponent < SUB_BUCKET_BITS ? 0
+            : (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the upper bound of a bucket.
+     * @param bucket the bucket index.
+     * @return the lowest latency in microseconds above the bucket.
+     */
+    static long upperBoundMicros(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        if (exponent < SUB_BUCKET_BITS) {
+            return 2L << exponent;
+        }
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    int getBuckets() {
+        return this.counts.length();
+    }
+
+    long getCount(int bucket) {
+        return this.counts.get(bucket);
+    }
+
+    long getTotal() {
+        return this.total.get();
+    }
+
+    long getMaxMicros() {
+        return this.maxMicros.get();
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies, as the upper bound of the bucket holding it.
+     * @param percentile the percentile, between 0 and 1.
+     * @return the latency in microseconds, never above the maximum recorded, or 0 if nothing was recorded.
+     */
+    long percentileMicros(double percentile) {
+        long rank = (long) Math.ceil(percentile * this.total.get());
+        long seen = 0;
+        for (int bucket = 0; bucket < this.counts.length(); bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBoundMicros(bucket), this.maxMicros.get());
+            }
+        }
+        return this.maxMicros.get();
+    }
+
+}
@@ -0,0 +1,177 @@
+package net.ccscript.axfr4azuredns.loadgen;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The connection of a {@link LoadGenerator} worker to a listener, sending one request at a time and waiting for its
+ * response. Responses with another message id, late answers to timed out requests, are skipped.
+ */
+abstract class LoadClient implements Closeable {
+
+    private static final int MAX_DATAGRAM_LENGTH = 65535;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int BYTE_BITS = 8;
+
+    private final InetSocketAddress target;
+    private final int timeoutMillis;
+
+    LoadClient(InetSocketAddress target, Duration timeout) {
+        this.target = target;
+        this.timeoutMillis = (int) timeout.toMillis();
+    }
+
+    /**
+     * Creates the client of a worker.
+     * @param mode the {@link LoadMode}, telling whether to use UDP or TCP.
+     * @param target the address of the listener.
+     * @param timeout the time to wait for each response.
+     * @return the client, connecting on its first request.
+     */
+    static LoadClient of(LoadMode mode, InetSocketAddress target, Duration timeout) {
+        return mode.isUdp() ? new Udp(target, timeout) : new Tcp(target, timeout);
+    }
+
+    /**
+     * Sends a request and waits for its response.
+     * @param request the request in wire format.
+     * @return the response in wire format, or null if none came before the timeout.
+     * @throws IOException if the request could not be sent or the connection failed.
+     */
+    abstract byte[] exchange(byte[] request) throws IOException;
+
+    /**
+     * Closes the connection, if open.
+     */
+    @Override
+    public abstract void close();
+
+    InetSocketAddress getTarget() {
+        return this.target;
+    }
+
+    int getTimeoutMillis() {
+        return this.timeoutMillis;
+    }
+
+    static boolean sameId(byte[] request, byte[] response) {
+        return response.length > 1 && request[0] == response[0] && request[1] == response[1];
+    }
+
+    /**
+     * A UDP client, on its own socket connected to the listener.
+     */
+    private static final class Udp extends LoadClient {
+        private final byte[] buffer = new byte[MAX_DATAGRAM_LENGTH];
+        private DatagramSocket socket;
+
+        Udp(InetSocketAddress target, Duration timeout) {
+            super(target, timeout);
+        }
+
+        @Override
+        byte[] exchange(byte[] request) throws IOException {
+            if (this.socket == null) {
+                this.socket = new DatagramSocket();
+                this.socket.connect(getTarget());
+            }
+            this.socket.send(new DatagramPacket(request, request.length));
+            long deadline = System.nanoTime() + Duration.ofMillis(getTimeoutMillis()).toNanos();
+            while (true) {
+                long remainingMillis = Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+                if (remainingMillis <= 0) {
+                    return null;
+                }
+                this.socket.setSoTimeout((int) remainingMillis);
+                DatagramPacket packet = new DatagramPacket(this.buffer, this.buffer.length);
+                try {
+                    this.socket.receive(packet);
+                } catch (SocketTimeoutException ste) {
+                    return null;
+                }
+                byte[] response = Arrays.copyOf(packet.getData(), packet.getLength());
+                if (sameId(request, response)) {
+                    return response;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (this.socket != null) {
+                this.socket.close();
+            }
+        }
+    }
+
+    /**
+     * A TCP client, keeping its connection open across requests. A timed out or failed connection is closed, and
+     * the next request opens a new one.
+     */
+    private static final class Tcp extends LoadClient {
+        private Socket socket;
+        private DataInputStream input;
+        private DataOutputStream output;
+
+        Tcp(InetSocketAddress target, Duration timeout) {
+            super(target, timeout);
+        }
+
+        @Override
+        byte[] exchange(byte[] request) throws IOException {
+            try {
+                if (this.socket == null) {
+                    this.socket = new Socket();
+                    this.socket.connect(getTarget(), getTimeoutMillis());
+                    this.socket.setSoTimeout(getTimeoutMillis());
+                    this.socket.setTcpNoDelay(true);
+                    this.input = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+                    this.output = new DataOutputStream(this.socket.getOutputStream());
+                }
+                byte[] message = new byte[request.length + 2];
+                message[0] = (byte) (request.length >>> BYTE_BITS);
+                message[1] = (byte) (request.length & BYTE_MASK);
+                System.arraycopy(request, 0, message, 2, request.length);
+                this.output.write(message);
+                this.output.flush();
+                while (true) {
+                    byte[] response = new byte[this.input.readUnsignedShort()];
+                    this.input.readFully(response);
+                    if (sameId(request, response)) {
+                        return response;
+                    }
+                }
+            } catch (SocketTimeoutException ste) {
+                close();
+                return null;
+            } catch (IOException ioe) {
+                close();
+                throw ioe;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (this.socket == null) {
+                return;
+            }
+            try {
+                this.socket.close();
+            } catch (IOException ioe) {
+                // nothing left to do with a failed connection
+            }
+            this.socket = null;
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+package net.ccscript.axfr4azuredns.loadgen;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+
+/**
+ * Sends queries or NOTIFY messages for the configured zones to the listeners of the configured servers, to measure
+ * their capacity and latency. Each worker sends one request at a time. In closed loop, workers send their next
+ * request as soon as the previous one is answered or timed out. At a fixed rate, requests are scheduled evenly and
+ * their latency is counted from their scheduled time, so that a saturated listener shows in the latencies instead
+ * of lowering the rate.
+ */
+public final class LoadGenerator {
+
+    /**
+     * The default number of workers.
+     */
+    public static final int DEFAULT_WORKERS = 16;
+    /**
+     * The default duration of a run against one listener, in seconds.
+     */
+    public static final int DEFAULT_DURATION_SECONDS = 10;
+    /**
+     * The default time to wait for a response.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final DNSServerConfiguration configuration;
+    private final QueryMix queryMix;
+    private final LoadMode mode;
+    private final int rate;
+    private final int workers;
+    private final Duration duration;
+    private final Duration timeout;
+
+    /**
+     * Creates a LoadGenerator.
+     * @param configuration the {@link DNSServerConfiguration} giving the servers and the zones.
+     * @param mode the {@link LoadMode}.
+     * @param rate the requests per second sent to each listener, or 0 to run in closed loop.
+     * @param workers the number of workers, each sending one request at a time.
+     * @param duration the duration of the run against each listener.
+     * @param timeout the time to wait for a response before counting the request as lost.
+     * @throws DNSServerConfigurationException if the TSIG keys or the zones of the configuration are invalid.
+     */
+    public LoadGenerator(DNSServerConfiguration configuration, LoadMode mode, int rate, int workers,
+        Duration duration, Duration timeout) throws DNSServerConfigurationException {
+
+        if (rate < 0 || workers < 1) {
+            throw new IllegalArgumentException("The load rate cannot be negative and one worker is needed.");
+        }
+        this.configuration = configuration;
+        this.mode = mode;
+        this.rate = rate;
+        this.workers = workers;
+        this.duration = duration;
+        this.timeout = timeout;
+        try {
+            this.queryMix = new QueryMix(configuration.getZones(), new TsigKeyring(configuration));
+        } catch (IOException ioe) {
+            throw new DNSServerConfigurationException("Zones cannot be used to generate load", ioe);
+        }
+    }
+
+    /**
+     * Runs against the listener of every configured server in turn. Servers without UDP listener are skipped in UDP
+     * and NOTIFY modes.
+     * @return the {@link LoadReport} of each listener.
+     * @throws DNSServerConfigurationException if the address of a server is invalid.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    public List<LoadReport> runAll() throws DNSServerConfigurationException, InterruptedException {
+        List<LoadReport> reports = new ArrayList<LoadReport>();
+        for (Server server : this.configuration.getServers()) {
+            if (this.mode.isUdp() && !server.isUdpEnabled()) {
+                logger.warn("Server {} has no UDP listener, skipped", server.getListenOn());
+                continue;
+            }
+            int port = this.mode.isUdp() ? server.getUdpPort() : server.getTcpPort();
+            reports.add(run(new InetSocketAddress(targetAddress(server.getListenOn()), port)));
+        }
+        return reports;
+    }
+
+    /**
+     * Sends requests to a wildcard listener through the loopback address.
+     */
+    private static InetAddress targetAddress(String listenOn) throws DNSServerConfigurationException {
+        try {
+            InetAddress address = InetAddress.getByName(listenOn);
+            return address.isAnyLocalAddress() ? InetAddress.getLoopbackAddress() : address;
+        } catch (UnknownHostException uhe) {
+            throw new DNSServerConfigurationException("Invalid server address " + listenOn, uhe);
+        }
+    }
+
+    /**
+     * Runs against one listener for the configured duration.
+     * @param target the address of the listener.
+     * @return the {@link LoadReport} of the run.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    public LoadReport run(InetSocketAddress target) throws InterruptedException {
+        logger.info("Sending {} load to {} for {} seconds", this.mode, target, this.duration.toSeconds());
+        LoadReport report = new LoadReport(this.mode, target, this.rate, this.workers);
+        long start = System.nanoTime();
+        long end = start + this.duration.toNanos();
+        AtomicLong tickets = new AtomicLong();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < this.workers; i++) {
+                executor.execute(() -> work(target, report, start, end, tickets));
+            }
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Load generation interrupted");
+        }
+        report.setDurationNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void work(InetSocketAddress target, LoadReport report, long start, long end, AtomicLong tickets) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (LoadClient client = LoadClient.of(this.mode, target, this.timeout)) {
+            while (true) {
+                long scheduled = nextSchedule(start, tickets);
+                if (scheduled >= end) {
+                    return;
+                }
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                exchange(client, report, random, scheduled);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the time the next request of a worker is scheduled at: now in closed loop, or the time of the next
+     * ticket of the evenly spaced schedule at a fixed rate.
+     */
+    private long nextSchedule(long start, AtomicLong tickets) {
+        if (this.rate == 0) {
+            return System.nanoTime();
+        }
+        return start + tickets.getAndIncrement() * TimeUnit.SECONDS.toNanos(1) / this.rate;
+    }
+
+    private void exchange(LoadClient client, LoadReport report, ThreadLocalRandom random, long scheduled) {
+        try {
+            byte[] request = this.queryMix.next(this.mode, random, random.nextInt(1 << Short.SIZE));
+            report.addSent();
+            byte[] response = client.exchange(request);
+            if (response == null) {
+                report.addLost();
+            } else {
+                report.addAnswered(System.nanoTime() - scheduled, response);
+            }
+        } catch (IOException ioe) {
+            logger.debug("Request to {} failed: {}", client.getTarget(), ioe.getMessage());
+            report.addFailed();
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package net.ccscript.axfr4azuredns.loadgen;
+
+import java.util.Locale;
+
+/**
+ * The kind of requests sent by a {@link LoadGenerator}.
+ */
+public enum LoadMode {
+    /**
+     * Standard queries over UDP.
+     */
+    UDP,
+    /**
+     * Standard queries over TCP, one connection per worker, reused until it fails.
+     */
+    TCP,
+    /**
+     * NOTIFY messages over UDP, signed with the TSIG key of the zone and its first master server if any.
+     */
+    NOTIFY;
+
+    /**
+     * Gets the LoadMode from its command line name.
+     * @param mode the mode name: udp, tcp or notify.
+     * @return the corresponding LoadMode.
+     * @throws IllegalArgumentException if the mode is unknown.
+     */
+    public static LoadMode fromString(String mode) {
+        try {
+            return valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException("Unknown load mode " + mode + ": use udp, tcp or notify.", iae);
+        }
+    }
+
+    /**
+     * Tells if the requests of this mode are sent over UDP.
+     * @return true for {@link #UDP} and {@link #NOTIFY}.
+     */
+    public boolean isUdp() {
+        return this != TCP;
+    }
+}
@@ -0,0 +1,163 @@
+package net.ccscript.axfr4azuredns.loadgen;
+
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.xbill.DNS.Rcode;
+
+/**
+ * The outcome of a {@link LoadGenerator} run against one listener: requests sent, answered by response code, lost
+ * and failed, the answered rate and the latency histogram. Counters can be updated from any thread.
+ */
+public final class LoadReport {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double MICROS_PER_MILLI = 1000;
+    private static final double PERCENT = 100;
+    private static final int RCODE_BYTE = 3;
+    private static final int FLAGS_BYTE = 2;
+    private static final int RCODE_MASK = 0x0F;
+    private static final int TC_MASK = 0x02;
+
+    private final LoadMode mode;
+    private final InetSocketAddress target;
+    private final int rate;
+    private final int workers;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final Map<Integer, LongAdder> rcodes = new ConcurrentHashMap<Integer, LongAdder>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder truncated = new LongAdder();
+    private volatile long durationNanos;
+
+    /**
+     * Creates an empty LoadReport.
+     * @param mode the {@link LoadMode} of the run.
+     * @param target the address of the listener.
+     * @param rate the requests per second sent, or 0 in closed loop.
+     * @param workers the number of workers.
+     */
+    LoadReport(LoadMode mode, InetSocketAddress target, int rate, int workers) {
+        this.mode = mode;
+        this.target = target;
+        this.rate = rate;
+        this.workers = workers;
+    }
+
+    void addSent() {
+        this.sent.increment();
+    }
+
+    void addLost() {
+        this.lost.increment();
+    }
+
+    void addFailed() {
+        this.failed.increment();
+    }
+
+    /**
+     * Records a response.
+     * @param latencyNanos the time from the scheduled send of the request to the response.
+     * @param response the response in wire format, whose header gives the response code and TC flag.
+     */
+    void addAnswered(long latencyNanos, byte[] response) {
+        this.latencies.record(latencyNanos);
+        this.rcodes.computeIfAbsent(response[RCODE_BYTE] & RCODE_MASK, rcode -> new LongAdder()).increment();
+        if ((response[FLAGS_BYTE] & TC_MASK) != 0) {
+            this.truncated.increment();
+        }
+    }
+
+    void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    public long getSent() {
+        return this.sent.sum();
+    }
+
+    public long getAnswered() {
+        return this.latencies.getTotal();
+    }
+
+    public long getLost() {
+        return this.lost.sum();
+    }
+
+    public long getFailed() {
+        return this.failed.sum();
+    }
+
+    /**
+     * Gets the number of responses with a response code.
+     * @param rcode the response code, such as {@link Rcode#NOERROR}.
+     * @return the number of responses.
+     */
+    public long getRcodeCount(int rcode) {
+        LongAdder count = this.rcodes.get(rcode);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Gets the rate of answered requests.
+     * @return the answered requests per second.
+     */
+    public double getAnsweredPerSecond() {
+        return this.durationNanos == 0 ? 0 : getAnswered() * (double) TimeUnit.SECONDS.toNanos(1) / this.durationNanos;
+    }
+
+    /**
+     * Gets a latency percentile.
+     * @param percentile the percentile, between 0 and 1.
+     * @return the latency in microseconds.
+     */
+    public long getLatencyMicros(double percentile) {
+        return this.latencies.percentileMicros(percentile);
+    }
+
+    /**
+     * Prints the report: counters, latency percentiles and the non-empty buckets of the latency histogram.
+     * @param out the stream the report is printed to.
+     */
+    public void print(PrintStream out) {
+        out.printf("%s load against %s for %.1f s, %s with %d workers%n", this.mode,
+            this.target.getAddress().getHostAddress() + ":" + this.target.getPort(),
+            this.durationNanos / (double) TimeUnit.SECONDS.toNanos(1),
+            this.rate > 0 ? this.rate + " requests/s" : "closed loop", this.workers);
+        long sentCount = getSent();
+        out.printf("  sent %d, answered %d (%.1f/s), lost %d (%.2f%%), failed %d, truncated %d%n", sentCount,
+            getAnswered(), getAnsweredPerSecond(), getLost(),
+            sentCount == 0 ? 0 : getLost() * PERCENT / sentCount, getFailed(), this.truncated.sum());
+
+        StringBuilder rcodeCounts = new StringBuilder("  rcodes:");
+        for (Map.Entry<Integer, LongAdder> rcode : new TreeMap<Integer, LongAdder>(this.rcodes).entrySet()) {
+            rcodeCounts.append(' ').append(Rcode.string(rcode.getKey())).append(' ').append(rcode.getValue().sum());
+        }
+        out.println(rcodeCounts);
+
+        StringBuilder percentiles = new StringBuilder("  latency");
+        for (double percentile : PERCENTILES) {
+            percentiles.append(String.format(" p%s %.2f ms,", Double.toString(percentile * PERCENT)
+                .replaceAll("\\.0$", ""), this.latencies.percentileMicros(percentile) / MICROS_PER_MILLI));
+        }
+        percentiles.append(String.format(" max %.2f ms", this.latencies.getMaxMicros() / MICROS_PER_MILLI));
+        out.println(percentiles);
+
+        long answered = getAnswered();
+        for (int bucket = 0; bucket < this.latencies.getBuckets(); bucket++) {
+            long count = this.latencies.getCount(bucket);
+            if (count > 0) {
+                out.printf("    < %9.3f ms %10d %6.2f%%%n",
+                    LatencyHistogram.upperBoundMicros(bucket) / MICROS_PER_MILLI, count, count * PERCENT / answered);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package net.ccscript.axfr4azuredns.loadgen;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Opcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.tsig.Tsig;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+
+/**
+ * Builds the requests of a {@link LoadGenerator} from the configured zones. Queries are a mix of the names a
+ * resolver asks a secondary for: 40% apex SOA, 20% apex NS, 20% www A and 20% A of a random name, answered from the
+ * negative path. NOTIFY messages name a random zone.
+ */
+final class QueryMix {
+
+    private static final double SOA_SHARE = 0.4;
+    private static final double NS_SHARE = 0.6;
+    private static final double WWW_SHARE = 0.8;
+
+    private final List<Name> origins;
+    private final List<Tsig> notifyKeys;
+
+    /**
+     * Creates a QueryMix.
+     * @param zones the configured zones.
+     * @param keyring the {@link TsigKeyring} signing the NOTIFY messages.
+     * @throws TextParseException if a zone name is invalid.
+     * @throws UnknownHostException if a master server of a zone is not a valid address.
+     */
+    QueryMix(Collection<Zone> zones, TsigKeyring keyring) throws TextParseException, UnknownHostException {
+        this.origins = new ArrayList<Name>();
+        this.notifyKeys = new ArrayList<Tsig>();
+        for (Zone zone : zones) {
+            this.origins.add(Name.fromString(zone.getZoneName(), Name.root));
+            List<String> masters = List.copyOf(zone.getDnsDomainConfiguration().getDnsServersIPs());
+            this.notifyKeys.add(masters.isEmpty() ? null : keyring.forMaster(zone, masters.get(0)));
+        }
+        if (this.origins.isEmpty()) {
+            throw new IllegalArgumentException("No zone is configured to generate load for.");
+        }
+    }
+
+    /**
+     * Builds the next request.
+     * @param mode the {@link LoadMode}, telling whether to build a query or a NOTIFY.
+     * @param random the random generator of the calling worker.
+     * @param id the message id.
+     * @return the request in wire format.
+     * @throws TextParseException if a query name cannot be built.
+     */
+    byte[] next(LoadMode mode, Random random, int id) throws TextParseException {
+        int zone = random.nextInt(this.origins.size());
+        Name origin = this.origins.get(zone);
+        if (mode == LoadMode.NOTIFY) {
+            Message notify = new Message(id);
+            notify.getHeader().setOpcode(Opcode.NOTIFY);
+            notify.getHeader().setFlag(Flags.AA);
+            notify.addRecord(Record.newRecord(origin, Type.SOA, DClass.IN), Section.QUESTION);
+            Tsig tsig = this.notifyKeys.get(zone);
+            return tsig == null ? notify.toWire() : tsig.newExchange().signRequest(notify.toWire());
+        }
+
+        double draw = random.nextDouble();
+        Record question;
+        if (draw < SOA_SHARE) {
+            question = Record.newRecord(origin, Type.SOA, DClass.IN);
+        } else if (draw < NS_SHARE) {
+            question = Record.newRecord(origin, Type.NS, DClass.IN);
+        } else if (draw < WWW_SHARE) {
+            question = Record.newRecord(Name.fromString("www", origin), Type.A, DClass.IN);
+        } else {
+            question = Record.newRecord(Name.fromString(Long.toHexString(random.nextLong()), origin), Type.A,
+                DClass.IN);
+        }
+        Message query = Message.newQuery(question);
+        query.getHeader().setID(id);
+        return query.toWire();
+    }
+
+}
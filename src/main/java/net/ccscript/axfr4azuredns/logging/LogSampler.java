@@ -0,0 +1,101 @@
+package net.ccscript.axfr4azuredns.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Rate limits a category of log messages per key, such as per zone, so that a storm of events on one zone (e.g. a
+ * NOTIFY storm) can neither flood the log nor hide the events of the other zones. Each key has a bucket of one
+ * second of messages: a message is logged while the bucket holds a token, otherwise it is dropped and counted, and
+ * the count is logged along with the next message of the key. Sampling never waits.
+ * The keys must come from a bounded set, such as the configured zones, as their buckets are never evicted.
+ */
+public final class LogSampler {
+
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    private final int messagesPerSecond;
+    private final ConcurrentMap<String, Bucket> buckets;
+
+    /**
+     * Creates a LogSampler.
+     * @param messagesPerSecond the number of messages logged per second and per key.
+     */
+    public LogSampler(int messagesPerSecond) {
+        this.messagesPerSecond = messagesPerSecond;
+        this.buckets = new ConcurrentHashMap<String, Bucket>();
+    }
+
+    /**
+     * Logs a message unless the rate of its key is exceeded. The message is only formatted if it is logged.
+     * @param logger the {@link Logger} of the message.
+     * @param level the {@link Level} of the message.
+     * @param key the key the rate applies to, such as a zone name.
+     * @param message the message pattern.
+     * @param params the parameters of the message pattern.
+     */
+    public void log(Logger logger, Level level, String key, String message, Object... params) {
+        if (!logger.isEnabled(level)) {
+            return;
+        }
+        long dropped = sample(key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        if (dropped < 0) {
+            return;
+        }
+        logger.log(level, message, params);
+        if (dropped > 0) {
+            logger.log(level, "{} similar messages for {} dropped by the log rate limit", dropped, key);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of a key, at a given time.
+     * @param key the key.
+     * @param nowMillis the current time in milliseconds, from any monotonic origin.
+     * @return -1 if the message must be dropped, otherwise the number of messages of the key dropped since the
+     *         last one logged.
+     */
+    long sample(String key, long nowMillis) {
+        return this.buckets.computeIfAbsent(key, k -> new Bucket(this.messagesPerSecond, nowMillis))
+            .take(this.messagesPerSecond, nowMillis);
+    }
+
+    /**
+     * The tokens and dropped messages of a key.
+     */
+    private static final class Bucket {
+        private long tokens;
+        private long refillMillis;
+        private long dropped;
+
+        Bucket(int messagesPerSecond, long nowMillis) {
+            this.tokens = messagesPerSecond;
+            this.refillMillis = nowMillis;
+        }
+
+        synchronized long take(int messagesPerSecond, long nowMillis) {
+            long added = (nowMillis - this.refillMillis) * messagesPerSecond / MILLIS_PER_SECOND;
+            if (this.tokens + added >= messagesPerSecond) {
+                this.tokens = messagesPerSecond;
+                this.refillMillis = nowMillis;
+            } else if (added > 0) {
+                // Only move the refill time by whole tokens, so that frequent messages do not lose fractions
+                this.tokens += added;
+                this.refillMillis += added * MILLIS_PER_SECOND / messagesPerSecond;
+            }
+            if (this.tokens == 0) {
+                this.dropped++;
+                return -1;
+            }
+            this.tokens--;
+            long reported = this.dropped;
+            this.dropped = 0;
+            return reported;
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package net.ccscript.axfr4azuredns.plan;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.azure.AzureThrottle;
+
+/**
+ * Streams {@link ZoneChangePlan}s as JSON lines, one per zone and Azure DNS Zone as soon as it is planned, then a
+ * summary line.
+ * The summary estimates the duration per Azure subscription, since the zones of a subscription share its throttle.
+ */
+public final class ChangePlanWriter {
+
+    private static final double MILLIS_PER_SECOND = 1000d;
+
+    private final PrintStream out;
+    private final Map<String, long[]> subscriptionRequests;
+    private final JsonArray failedZones;
+    private final JsonArray massDeletionZones;
+    private int zones;
+
+    /**
+     * Creates a ChangePlanWriter.
+     * @param out the stream the JSON lines are written to.
+     */
+    public ChangePlanWriter(PrintStream out) {
+        this.out = out;
+        this.subscriptionRequests = new TreeMap<String, long[]>();
+        this.failedZones = new JsonArray();
+        this.massDeletionZones = new JsonArray();
+    }
+
+    /**
+     * Writes the plan of a zone. Can be called by several threads at once.
+     * @param plan the {@link ZoneChangePlan}.
+     */
+    public synchronized void write(ZoneChangePlan plan) {
+        this.out.println(plan.toJson());
+        this.out.flush();
+
+        this.zones++;
+        String zoneName = plan.getZone().getZoneName();
+        if (plan.isFailed()) {
+            this.failedZones.add(zoneName);
+            return;
+        }
+        if (plan.isMassDeletion()) {
+            this.massDeletionZones.add(zoneName);
+        }
+        long[] requests = this.subscriptionRequests.computeIfAbsent(
+            plan.getAzureDomain().getAzureSubscription(), subscription -> new long[2]);
+        requests[0] += plan.getWrites();
+        requests[1] += plan.getDeletes();
+    }
+
+    /**
+     * Writes the summary line, once every zone is written.
+     */
+    public synchronized void writeSummary() {
+        JsonObject subscriptions = new JsonObject();
+        double estimatedSeconds = 0;
+        for (Map.Entry<String, long[]> entry : this.subscriptionRequests.entrySet()) {
+            long[] requests = entry.getValue();
+            JsonObject subscription = new JsonObject();
+            subscription.addProperty("write_requests", requests[0]);
+            subscription.addProperty("delete_requests", requests[1]);
+            double seconds = toSeconds(AzureThrottle.estimateDuration(requests[0], requests[1]));
+            subscription.addProperty("estimated_seconds", seconds);
+            subscriptions.add(entry.getKey(), subscription);
+            estimatedSeconds = Math.max(estimatedSeconds, seconds);
+        }
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("zones", this.zones);
+        summary.add("failed_zones", this.failedZones);
+        summary.add("mass_deletion_zones", this.massDeletionZones);
+        summary.addProperty("estimated_seconds", estimatedSeconds);
+        summary.add("subscriptions", subscriptions);
+        JsonObject line = new JsonObject();
+        line.add("summary", summary);
+        this.out.println(line);
+        this.out.flush();
+    }
+
+    /**
+     * Converts a duration to the seconds written in plans.
+     * @param duration the duration.
+     * @return the duration in seconds, with millisecond precision.
+     */
+    static double toSeconds(Duration duration) {
+        return duration.toMillis() / MILLIS_PER_SECOND;
+    }
+
+}
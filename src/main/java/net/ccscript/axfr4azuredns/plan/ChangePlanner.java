@@ -0,0 +1,132 @@
+package net.ccscript.axfr4azuredns.plan;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.xbill.DNS.Record;
+
+import net.ccscript.axfr4azuredns.azure.AzureDNSRestClient;
+import net.ccscript.axfr4azuredns.azure.AzureRestTransport;
+import net.ccscript.axfr4azuredns.azure.AzureZoneCache;
+import net.ccscript.axfr4azuredns.azure.AzureZoneDiff;
+import net.ccscript.axfr4azuredns.azure.AzureZoneLoader;
+import net.ccscript.axfr4azuredns.azure.AzureZoneReplicator;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.transfer.MasterPool;
+import net.ccscript.axfr4azuredns.transfer.ZoneTransfer;
+import net.ccscript.axfr4azuredns.transfer.ZoneTransferClient;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+
+/**
+ * Plans the sync of zones without writing to Azure: each zone is transferred from its master servers while its
+ * Azure DNS Zones are loaded, then diffed into one {@link ZoneChangePlan} per Azure DNS Zone. Every zone is planned
+ * at once on the executor: transfers are only limited by the {@link MasterPool} and Azure reads by the subscription
+ * throttle.
+ */
+public final class ChangePlanner {
+
+    private final ZoneTransferClient transferClient;
+    private final AzureZoneLoader azureZoneLoader;
+    private final Executor executor;
+
+    /**
+     * Creates a ChangePlanner.
+     * @param transferClient the {@link ZoneTransferClient} transferring the zones.
+     * @param azureZoneLoader the {@link AzureZoneLoader} loading the Azure DNS Zones.
+     * @param executor the {@link Executor} planning the zones.
+     */
+    public ChangePlanner(ZoneTransferClient transferClient, AzureZoneLoader azureZoneLoader, Executor executor) {
+        this.transferClient = transferClient;
+        this.azureZoneLoader = azureZoneLoader;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates the ChangePlanner of a configuration.
+     * @param configuration the {@link DNSServerConfiguration} holding the TSIG keys and Azure credentials.
+     * @param masterPool the {@link MasterPool} limiting the transfers of each master server.
+     * @param executor the {@link Executor} planning the zones and running the Azure requests.
+     * @return the ChangePlanner.
+     * @throws DNSServerConfigurationException if a TSIG key of the configuration is not valid.
+     */
+    public static ChangePlanner create(DNSServerConfiguration configuration, MasterPool masterPool,
+        Executor executor) throws DNSServerConfigurationException {
+
+        return new ChangePlanner(new ZoneTransferClient(masterPool, new TsigKeyring(configuration)),
+            new AzureZoneLoader(new AzureDNSRestClient(AzureRestTransport.forConfiguration(configuration)), executor),
+            executor);
+    }
+
+    /**
+     * Plans zones in parallel. Azure DNS Zones shared by several zones are only loaded once.
+     * @param zones the {@link Zone}s to be planned.
+     * @param sink called with each {@link ZoneChangePlan} as soon as it is ready, possibly by several threads at
+     *        once.
+     * @return a future completed once every zone is planned.
+     */
+    public CompletableFuture<Void> planAll(Collection<Zone> zones, Consumer<ZoneChangePlan> sink) {
+        List<AzureDomain> azureDomains = new ArrayList<AzureDomain>();
+        for (Zone zone : zones) {
+            azureDomains.addAll(zone.getAzureDomains());
+        }
+        Map<String, CompletableFuture<AzureZoneCache>> loads = this.azureZoneLoader.loadAll(azureDomains);
+
+        List<CompletableFuture<Void>> plans = new ArrayList<CompletableFuture<Void>>();
+        for (Zone zone : zones) {
+            plans.add(CompletableFuture.supplyAsync(() -> plan(zone, loads), this.executor)
+                .thenAccept(zonePlans -> zonePlans.forEach(sink)));
+        }
+        return CompletableFuture.allOf(plans.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Plans one zone: it is transferred and converted once, then diffed against each of its Azure DNS Zones.
+     * @param zone the {@link Zone} to be planned.
+     * @param loads the loads of the Azure DNS Zones, by Azure resource identifier.
+     * @return one {@link ZoneChangePlan} per Azure DNS Zone of the zone, failed if the zone could not be transferred.
+     */
+    List<ZoneChangePlan> plan(Zone zone, Map<String, CompletableFuture<AzureZoneCache>> loads) {
+        List<ZoneChangePlan> plans = new ArrayList<ZoneChangePlan>();
+        try {
+            Map<String, AzureZoneDiff> diffs = AzureZoneReplicator.newDiffs(zone);
+            ZoneTransfer transfer = this.transferClient.transfer(zone, null);
+            List<Record> records = transfer.apply(List.of());
+            List<Record> replicated = zone.getRecordRules().apply(records);
+            for (AzureZoneDiff diff : diffs.values()) {
+                diff.addAll(replicated);
+            }
+            for (AzureDomain azureDomain : zone.getAzureDomains()) {
+                plans.add(planTarget(zone, azureDomain, transfer.getSoa().getSerial(), records.size(),
+                    diffs.get(AzureZoneReplicator.diffKey(azureDomain)), loads.get(azureDomain.getAzureResourceId())));
+            }
+        } catch (IOException ioe) {
+            zone.getAzureDomains().forEach(azureDomain -> plans.add(ZoneChangePlan.failed(zone, azureDomain,
+                ioe.getMessage())));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        return plans;
+    }
+
+    private static ZoneChangePlan planTarget(Zone zone, AzureDomain azureDomain, long serial, long records,
+        AzureZoneDiff diff, CompletableFuture<AzureZoneCache> load) {
+
+        try {
+            return ZoneChangePlan.of(zone, azureDomain, serial, records, diff, load.join());
+        } catch (CompletionException ce) {
+            return ZoneChangePlan.failed(zone, azureDomain,
+                "Azure DNS Zone could not be loaded: " + ce.getCause().getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package net.ccscript.axfr4azuredns.plan;
+
+import java.util.List;
+
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.azure.AzureDeploymentSeeder;
+import net.ccscript.axfr4azuredns.azure.AzureRecordSetChange;
+import net.ccscript.axfr4azuredns.azure.AzureRecordSetChange.Action;
+import net.ccscript.axfr4azuredns.azure.AzureThrottle;
+import net.ccscript.axfr4azuredns.azure.AzureZoneCache;
+import net.ccscript.axfr4azuredns.azure.AzureZoneDiff;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+
+/**
+ * What a sync of a zone would change in one of its Azure DNS Zones: the record set changes, the Azure Resource Manager
+ * requests they take and how long the subscription throttle makes them last. A plan deleting at least half of the
+ * record sets the zone owns in Azure is flagged as a mass deletion.
+ */
+public final class ZoneChangePlan {
+
+    /**
+     * Share of the owned record sets from which deleting them is flagged as a mass deletion.
+     */
+    public static final double MASS_DELETION_RATIO = 0.5;
+
+    private final Zone zone;
+    private final AzureDomain azureDomain;
+    private final String error;
+    private long serial;
+    private long records;
+    private long skippedRecords;
+    private int recordSets;
+    private int creates;
+    private int updates;
+    private int deletes;
+    private int deployments;
+    private long writes;
+
+    private ZoneChangePlan(Zone zone, AzureDomain azureDomain, String error) {
+        this.zone = zone;
+        this.azureDomain = azureDomain;
+        this.error = error;
+    }
+
+    /**
+     * Plans the changes bringing an Azure DNS Zone to the content of a zone. An empty Azure DNS Zone with bulk
+     * seeding enabled is planned as deployments, like the real sync would do.
+     * @param zone the planned {@link Zone}.
+     * @param azureDomain the planned Azure DNS Zone, one of the {@link AzureDomain}s of the zone.
+     * @param serial the serial of the transferred zone.
+     * @param records the number of transferred records.
+     * @param diff the {@link AzureZoneDiff} holding the transferred records.
+     * @param cache the loaded {@link AzureZoneCache} of the Azure DNS Zone.
+     * @return the ZoneChangePlan.
+     */
+    public static ZoneChangePlan of(Zone zone, AzureDomain azureDomain, long serial, long records,
+        AzureZoneDiff diff, AzureZoneCache cache) {
+
+        ZoneChangePlan plan = new ZoneChangePlan(zone, azureDomain, null);
+        plan.serial = serial;
+        plan.records = records;
+        plan.skippedRecords = diff.getSkippedRecords();
+        plan.recordSets = diff.getRecordSets().size();
+        if (azureDomain.isBulkSeeding() && AzureDeploymentSeeder.isEmptyZone(cache)) {
+            plan.creates = plan.recordSets;
+            plan.deployments = Math.ceilDiv(plan.recordSets, AzureDeploymentSeeder.DEFAULT_BATCH_SIZE);
+            plan.writes = plan.deployments;
+        } else {
+            plan.count(diff.changes(cache), cache);
+        }
+        return plan;
+    }
+
+    /**
+     * Records that a zone could not be planned for one of its Azure DNS Zones.
+     * @param zone the {@link Zone}.
+     * @param azureDomain the {@link AzureDomain} of the zone.
+     * @param error why the zone could not be transferred or its Azure DNS Zone loaded.
+     * @return the failed ZoneChangePlan.
+     */
+    public static ZoneChangePlan failed(Zone zone, AzureDomain azureDomain, String error) {
+        return new ZoneChangePlan(zone, azureDomain, error);
+    }
+
+    private void count(List<AzureRecordSetChange> changes, AzureZoneCache cache) {
+        for (AzureRecordSetChange change : changes) {
+            if (change.getAction() == Action.DELETE) {
+                this.deletes++;
+            } else if (cache.get(change.getRecordSet().getName(), change.getRecordSet().getType()) == null) {
+                this.creates++;
+            } else {
+                this.updates++;
+            }
+        }
+        this.writes = this.creates + this.updates;
+    }
+
+    /**
+     * Gets the planned zone.
+     * @return the {@link Zone}.
+     */
+    public Zone getZone() {
+        return this.zone;
+    }
+
+    /**
+     * Gets the planned Azure DNS Zone.
+     * @return the {@link AzureDomain}.
+     */
+    public AzureDomain getAzureDomain() {
+        return this.azureDomain;
+    }
+
+    /**
+     * Tells whether the zone could not be planned.
+     * @return true if the zone could not be transferred or its Azure DNS Zone loaded.
+     */
+    public boolean isFailed() {
+        return this.error != null;
+    }
+
+    /**
+     * Gets the number of write requests (PUT) of the plan: one per created or updated record set, or one per
+     * deployment when seeding.
+     * @return the write request count.
+     */
+    public long getWrites() {
+        return this.writes;
+    }
+
+    /**
+     * Gets the number of delete requests of the plan.
+     * @return the delete request count.
+     */
+    public long getDeletes() {
+        return this.deletes;
+    }
+
+    /**
+     * Tells whether the plan deletes at least {@link #MASS_DELETION_RATIO} of the record sets the zone owns.
+     * @return true for a mass deletion.
+     */
+    public boolean isMassDeletion() {
+        int owned = this.recordSets - this.creates + this.deletes;
+        return this.deletes > 0 && this.deletes >= owned * MASS_DELETION_RATIO;
+    }
+
+    /**
+     * Writes the plan as a JSON object.
+     * @return the JSON object.
+     */
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("zone", this.zone.getZoneName());
+        json.addProperty("azure_zone", this.azureDomain.getAzureZoneName());
+        json.addProperty("subscription", this.azureDomain.getAzureSubscription());
+        if (isFailed()) {
+            json.addProperty("error", this.error);
+            return json;
+        }
+        json.addProperty("serial", this.serial);
+        json.addProperty("records", this.records);
+        json.addProperty("skipped_records", this.skippedRecords);
+        json.addProperty("record_sets", this.recordSets);
+        json.addProperty("creates", this.creates);
+        json.addProperty("updates", this.updates);
+        json.addProperty("deletes", this.deletes);
+        json.addProperty("unchanged", this.recordSets - this.creates - this.updates);
+        json.addProperty("deployments", this.deployments);
+        json.addProperty("write_requests", getWrites());
+        json.addProperty("delete_requests", getDeletes());
+        json.addProperty("estimated_seconds",
+            ChangePlanWriter.toSeconds(AzureThrottle.estimateDuration(getWrites(), getDeletes())));
+        json.addProperty("mass_deletion", isMassDeletion());
+        return json;
+    }
+
+}
@@ -0,0 +1,175 @@
+package net.ccscript.axfr4azuredns.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches one DNS label against several glob patterns at once, in a single pass over the label. The patterns may
+ * hold '*' (any characters, possibly none) and '?' (any one character), and are matched ignoring case. They are
+ * compiled into a deterministic automaton whose input alphabet is reduced to the characters the patterns spell out,
+ * plus one class for every other character.
+ */
+final class LabelAutomaton {
+
+    private static final int ASCII = 128;
+    private static final int OTHER = 0;
+    private static final int DEAD = -1;
+    private static final int[] NO_MATCH = new int[0];
+
+    private final int[] charClasses;
+    private final int[][] transitions;
+    private final int[][] accepted;
+
+    /**
+     * Compiles glob patterns.
+     * @param patterns the lowercase glob patterns, each matching a single label.
+     */
+    LabelAutomaton(List<String> patterns) {
+        this.charClasses = new int[ASCII];
+        List<Character> classChars = new ArrayList<Character>();
+        classChars.add('\0');
+        for (String pattern : patterns) {
+            for (char c : pattern.toCharArray()) {
+                if (c != '*' && c != '?' && c < ASCII && this.charClasses[c] == OTHER) {
+                    this.charClasses[c] = classChars.size();
+                    this.charClasses[Character.toUpperCase(c)] = classChars.size();
+                    classChars.add(c);
+                }
+            }
+        }
+
+        Nfa nfa = new Nfa(patterns);
+        Map<BitSet, Integer> stateIds = new HashMap<BitSet, Integer>();
+        List<BitSet> states = new ArrayList<BitSet>();
+        List<int[]> stateTransitions = new ArrayList<int[]>();
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        BitSet start = nfa.closure(nfa.starts());
+        stateIds.put(start, 0);
+        states.add(start);
+        pending.add(0);
+        while (!pending.isEmpty()) {
+            int state = pending.poll();
+            int[] next = new int[classChars.size()];
+            for (int charClass = 0; charClass < next.length; charClass++) {
+                BitSet target = nfa.closure(nfa.step(states.get(state), charClass == OTHER ? null
+                    : classChars.get(charClass)));
+                if (target.isEmpty()) {
+                    next[charClass] = DEAD;
+                    continue;
+                }
+                Integer targetId = stateIds.get(target);
+                if (targetId == null) {
+                    targetId = states.size();
+                    stateIds.put(target, targetId);
+                    states.add(target);
+                    pending.add(targetId);
+                }
+                next[charClass] = targetId;
+            }
+            stateTransitions.add(next);
+        }
+
+        this.transitions = stateTransitions.toArray(new int[0][]);
+        this.accepted = new int[states.size()][];
+        for (int state = 0; state < states.size(); state++) {
+            this.accepted[state] = nfa.accepted(states.get(state));
+        }
+    }
+
+    /**
+     * Matches a label.
+     * @param label the label, as given by {@link org.xbill.DNS.Name#getLabelString(int)}.
+     * @return the indexes of the matching patterns, in increasing order.
+     */
+    int[] match(String label) {
+        int state = 0;
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            state = this.transitions[state][c < ASCII ? this.charClasses[c] : OTHER];
+            if (state == DEAD) {
+                return NO_MATCH;
+            }
+        }
+        return this.accepted[state];
+    }
+
+    /**
+     * The non-deterministic automaton of the patterns: one position per pattern character, plus one final position
+     * per pattern.
+     */
+    private static final class Nfa {
+        private final List<String> patterns;
+        private final int[] offsets;
+
+        Nfa(List<String> patterns) {
+            this.patterns = patterns;
+            this.offsets = new int[patterns.size() + 1];
+            for (int i = 0; i < patterns.size(); i++) {
+                this.offsets[i + 1] = this.offsets[i] + patterns.get(i).length() + 1;
+            }
+        }
+
+        BitSet starts() {
+            BitSet starts = new BitSet();
+            for (int i = 0; i < this.patterns.size(); i++) {
+                starts.set(this.offsets[i]);
+            }
+            return starts;
+        }
+
+        /**
+         * Moves every position past the '*' it stands on, which may match no character.
+         */
+        BitSet closure(BitSet positions) {
+            BitSet closure = (BitSet) positions.clone();
+            for (int i = 0; i < this.patterns.size(); i++) {
+                String pattern = this.patterns.get(i);
+                for (int j = 0; j < pattern.length(); j++) {
+                    if (closure.get(this.offsets[i] + j) && pattern.charAt(j) == '*') {
+                        closure.set(this.offsets[i] + j + 1);
+                    }
+                }
+            }
+            return closure;
+        }
+
+        /**
+         * Consumes one character.
+         * @param c the character, or null for a character the patterns do not spell out.
+         */
+        BitSet step(BitSet positions, Character c) {
+            BitSet next = new BitSet();
+            for (int i = 0; i < this.patterns.size(); i++) {
+                String pattern = this.patterns.get(i);
+                for (int j = 0; j < pattern.length(); j++) {
+                    if (!positions.get(this.offsets[i] + j)) {
+                        continue;
+                    }
+                    char p = pattern.charAt(j);
+                    if (p == '*') {
+                        next.set(this.offsets[i] + j);
+                    } else if (p == '?' || c != null && p == c) {
+                        next.set(this.offsets[i] + j + 1);
+                    }
+                }
+            }
+            return next;
+        }
+
+        int[] accepted(BitSet positions) {
+            List<Integer> accepted = new ArrayList<Integer>();
+            for (int i = 0; i < this.patterns.size(); i++) {
+                if (positions.get(this.offsets[i + 1] - 1)) {
+                    accepted.add(i);
+                }
+            }
+            return accepted.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+}
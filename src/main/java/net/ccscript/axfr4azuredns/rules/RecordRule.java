@@ -0,0 +1,172 @@
+package net.ccscript.axfr4azuredns.rules;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+
+/**
+ * A rule of a zone, selecting the records replicated to Azure. A rule matches records by owner name pattern and
+ * type, then either excludes them or includes them, optionally overriding their TTL and rewriting their target
+ * name. The name pattern is an absolute name whose leftmost label may be "*", matching any name below the rest of
+ * the pattern, or a glob with '*' and '?', matching one label. Without name pattern, the rule matches every name.
+ */
+public final class RecordRule {
+
+    /**
+     * What a rule does with the records it matches.
+     */
+    public enum Action {
+        /**
+         * The records are replicated, with the TTL and target of the rule, if any.
+         */
+        INCLUDE,
+        /**
+         * The records are not replicated.
+         */
+        EXCLUDE
+    }
+
+    /**
+     * The TTL of a rule which keeps the TTL of the records.
+     */
+    public static final long KEEP_TTL = -1;
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final String namePattern;
+    private final Set<Integer> types;
+    private final Action action;
+    private long ttl = KEEP_TTL;
+    private Name rewriteFrom;
+    private Name rewriteTo;
+
+    /**
+     * Creates a RecordRule.
+     * @param namePattern the owner name pattern, or null to match every name.
+     * @param typeNames the names of the record types matched, empty to match every type.
+     * @param action the {@link Action} applied to the matching records.
+     * @throws DNSServerConfigurationException if the name pattern or a type is not valid.
+     */
+    public RecordRule(String namePattern, Collection<String> typeNames, Action action)
+        throws DNSServerConfigurationException {
+
+        this.namePattern = namePattern == null ? "*" : namePattern.toLowerCase(Locale.ROOT);
+        checkNamePattern(this.namePattern);
+        this.types = new HashSet<Integer>();
+        for (String typeName : typeNames) {
+            int type = Type.value(typeName);
+            if (type < 0) {
+                logger.error("Record rule {} has an unknown record type: {}", this.namePattern, typeName);
+                throw new DNSServerConfigurationException("Unknown record type in record rule: " + typeName);
+            }
+            this.types.add(type);
+        }
+        this.action = action;
+    }
+
+    private static void checkNamePattern(String namePattern) throws DNSServerConfigurationException {
+        String[] labels = labelsOf(namePattern);
+        for (int i = 1; i < labels.length; i++) {
+            if (labels[i].isEmpty() || labels[i].indexOf('*') >= 0 || labels[i].indexOf('?') >= 0) {
+                logger.error("Record rule name pattern is not valid: {}", namePattern);
+                throw new DNSServerConfigurationException("Record rule name pattern is not valid: " + namePattern
+                    + ". Only its leftmost label may hold wildcards.");
+            }
+        }
+    }
+
+    /**
+     * Splits a name pattern into labels.
+     * @param namePattern the name pattern, with or without its trailing dot.
+     * @return the labels, leftmost first, without the root label.
+     */
+    static String[] labelsOf(String namePattern) {
+        String relative = namePattern.endsWith(".") ? namePattern.substring(0, namePattern.length() - 1)
+            : namePattern;
+        return relative.isEmpty() ? new String[0] : relative.split("\\.", -1);
+    }
+
+    /**
+     * Overrides the TTL of the included records.
+     * @param ttl the TTL in seconds, or {@link #KEEP_TTL}.
+     */
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Rewrites the target name of the included CNAME, MX, NS, PTR and SRV records: a target at or below one domain
+     * is moved below another one.
+     * @param from the domain of the targets to be rewritten.
+     * @param to the domain replacing it.
+     * @throws DNSServerConfigurationException if a domain name is not valid.
+     */
+    public void setRewriteTarget(String from, String to) throws DNSServerConfigurationException {
+        try {
+            this.rewriteFrom = Name.fromString(from, Name.root);
+            this.rewriteTo = Name.fromString(to, Name.root);
+        } catch (TextParseException tpe) {
+            logger.error("Record rule {} has an invalid target rewrite: {} to {}", this.namePattern, from, to);
+            throw new DNSServerConfigurationException("Record rule target rewrite is not valid", tpe);
+        }
+    }
+
+    /**
+     * Gets the owner name pattern.
+     * @return the lowercase name pattern, "*" matching every name.
+     */
+    public String getNamePattern() {
+        return this.namePattern;
+    }
+
+    /**
+     * Checks whether the rule matches a record type.
+     * @param type the record type.
+     * @return true if the rule matches every type or this one.
+     */
+    public boolean matchesType(int type) {
+        return this.types.isEmpty() || this.types.contains(type);
+    }
+
+    /**
+     * Gets the action of the rule.
+     * @return the {@link Action} applied to the matching records.
+     */
+    public Action getAction() {
+        return this.action;
+    }
+
+    /**
+     * Gets the TTL of the included records.
+     * @return the TTL in seconds, or {@link #KEEP_TTL}.
+     */
+    public long getTtl() {
+        return this.ttl;
+    }
+
+    /**
+     * Gets the domain of the targets to be rewritten.
+     * @return the domain, or null if targets are not rewritten.
+     */
+    public Name getRewriteFrom() {
+        return this.rewriteFrom;
+    }
+
+    /**
+     * Gets the domain replacing the rewritten targets.
+     * @return the domain, or null if targets are not rewritten.
+     */
+    public Name getRewriteTo() {
+        return this.rewriteTo;
+    }
+
+}
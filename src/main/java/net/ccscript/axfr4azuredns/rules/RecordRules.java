@@ -0,0 +1,230 @@
+package net.ccscript.axfr4azuredns.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.xbill.DNS.CNAMERecord;
+import org.xbill.DNS.MXRecord;
+import org.xbill.DNS.NSRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.NameTooLongException;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+
+import net.ccscript.axfr4azuredns.rules.RecordRule.Action;
+
+/**
+ * The {@link RecordRule}s of a zone, compiled once at configuration load into a trie of labels, walked from the
+ * root label, whose nodes hold the rules anchored at their name. The glob patterns of the leftmost labels are
+ * compiled into one {@link LabelAutomaton} per node. Selecting the rule of a record costs one trie lookup per label
+ * of its owner name, whatever the number of rules. The first matching rule, in configuration order, applies;
+ * records matching no rule are included unchanged. Thread safe.
+ */
+public final class RecordRules {
+
+    /**
+     * The rules of a zone without rules, including every record unchanged.
+     */
+    public static final RecordRules NONE = new RecordRules(List.of());
+
+    private static final int NO_RULE = Integer.MAX_VALUE;
+    // The type, class, TTL and rdata length between the owner name and the rdata of a record
+    private static final int RDATA_HEADER_LENGTH = 10;
+
+    private final RecordRule[] rules;
+    private final Node root;
+
+    /**
+     * Compiles rules.
+     * @param rules the {@link RecordRule}s, in configuration order.
+     */
+    public RecordRules(List<RecordRule> rules) {
+        this.rules = rules.toArray(new RecordRule[0]);
+        this.root = new Node();
+        for (int index = 0; index < this.rules.length; index++) {
+            add(index, RecordRule.labelsOf(this.rules[index].getNamePattern()));
+        }
+        this.root.compile();
+    }
+
+    private void add(int index, String[] labels) {
+        int first = labels.length > 0 && isWildcard(labels[0]) ? 1 : 0;
+        Node node = this.root;
+        for (int i = labels.length - 1; i >= first; i--) {
+            node = node.children.computeIfAbsent(labels[i], label -> new Node());
+        }
+        if (first == 0) {
+            node.exactRules.add(index);
+        } else if ("*".equals(labels[0])) {
+            node.subtreeRules.add(index);
+        } else {
+            node.labelPatterns.add(labels[0]);
+            node.labelRules.add(index);
+        }
+    }
+
+    private static boolean isWildcard(String label) {
+        return label.indexOf('*') >= 0 || label.indexOf('?') >= 0;
+    }
+
+    /**
+     * Checks whether there is no rule.
+     * @return true if every record is included unchanged.
+     */
+    public boolean isEmpty() {
+        return this.rules.length == 0;
+    }
+
+    /**
+     * Applies the rules to records, as a stage between a transfer or a zone file and the Azure diff.
+     * @param records the records of the source zone.
+     * @return the included records, transformed by their rule, in the same order.
+     */
+    public List<Record> apply(Collection<Record> records) {
+        if (isEmpty()) {
+            return records instanceof List<Record> list ? list : new ArrayList<Record>(records);
+        }
+        List<Record> included = new ArrayList<Record>(records.size());
+        for (Record record : records) {
+            Record applied = apply(record);
+            if (applied != null) {
+                included.add(applied);
+            }
+        }
+        return included;
+    }
+
+    /**
+     * Applies the rules to one record.
+     * @param record the record of the source zone.
+     * @return the record transformed by its rule, or null if it is excluded.
+     */
+    public Record apply(Record record) {
+        RecordRule rule = ruleOf(record.getName(), record.getType());
+        if (rule == null) {
+            return record;
+        }
+        if (rule.getAction() == Action.EXCLUDE) {
+            return null;
+        }
+        Record rewritten = rule.getRewriteFrom() == null ? record
+            : rewriteTarget(record, rule.getRewriteFrom(), rule.getRewriteTo());
+        return rule.getTtl() == RecordRule.KEEP_TTL ? rewritten : withTtl(rewritten, rule.getTtl());
+    }
+
+    /**
+     * Finds the first rule matching a record, walking the trie down the labels of its owner name.
+     * @param name the owner name.
+     * @param type the record type.
+     * @return the first matching {@link RecordRule}, or null if none matches.
+     */
+    RecordRule ruleOf(Name name, int type) {
+        int best = NO_RULE;
+        Node node = this.root;
+        for (int i = name.labels() - 2; node != null; i--) {
+            if (i < 0) {
+                best = Math.min(best, first(node.exactRuleIndexes, type));
+                break;
+            }
+            best = Math.min(best, first(node.subtreeRuleIndexes, type));
+            String label = name.getLabelString(i).toLowerCase(Locale.ROOT);
+            if (i == 0 && node.automaton != null) {
+                best = Math.min(best, firstOf(node.automaton.match(label), node.labelRuleIndexes, type));
+            }
+            node = node.children.get(label);
+        }
+        return best == NO_RULE ? null : this.rules[best];
+    }
+
+    private int first(int[] ruleIndexes, int type) {
+        for (int index : ruleIndexes) {
+            if (this.rules[index].matchesType(type)) {
+                return index;
+            }
+        }
+        return NO_RULE;
+    }
+
+    private int firstOf(int[] patterns, int[] ruleIndexes, int type) {
+        for (int pattern : patterns) {
+            if (this.rules[ruleIndexes[pattern]].matchesType(type)) {
+                return ruleIndexes[pattern];
+            }
+        }
+        return NO_RULE;
+    }
+
+    private static Record rewriteTarget(Record record, Name from, Name to) {
+        if (record instanceof CNAMERecord cname) {
+            return new CNAMERecord(cname.getName(), cname.getDClass(), cname.getTTL(),
+                rewrite(cname.getTarget(), from, to));
+        } else if (record instanceof MXRecord mx) {
+            return new MXRecord(mx.getName(), mx.getDClass(), mx.getTTL(), mx.getPriority(),
+                rewrite(mx.getTarget(), from, to));
+        } else if (record instanceof NSRecord ns) {
+            return new NSRecord(ns.getName(), ns.getDClass(), ns.getTTL(), rewrite(ns.getTarget(), from, to));
+        } else if (record instanceof PTRRecord ptr) {
+            return new PTRRecord(ptr.getName(), ptr.getDClass(), ptr.getTTL(), rewrite(ptr.getTarget(), from, to));
+        } else if (record instanceof SRVRecord srv) {
+            return new SRVRecord(srv.getName(), srv.getDClass(), srv.getTTL(), srv.getPriority(), srv.getWeight(),
+                srv.getPort(), rewrite(srv.getTarget(), from, to));
+        }
+        return record;
+    }
+
+    private static Name rewrite(Name target, Name from, Name to) {
+        if (!target.subdomain(from)) {
+            return target;
+        }
+        try {
+            return target.equals(from) ? to : Name.concatenate(target.relativize(from), to);
+        } catch (NameTooLongException ntle) {
+            return target;
+        }
+    }
+
+    private static Record withTtl(Record record, long ttl) {
+        byte[] wire = record.toWire(Section.ANSWER);
+        int rdataOffset = record.getName().length() + RDATA_HEADER_LENGTH;
+        return Record.newRecord(record.getName(), record.getType(), record.getDClass(), ttl,
+            Arrays.copyOfRange(wire, rdataOffset, wire.length));
+    }
+
+    /**
+     * A node of the trie: the rules matching its name, the names below it, or the names one label below it
+     * whose leftmost label matches a glob pattern.
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private final List<Integer> exactRules = new ArrayList<Integer>();
+        private final List<Integer> subtreeRules = new ArrayList<Integer>();
+        private final List<String> labelPatterns = new ArrayList<String>();
+        private final List<Integer> labelRules = new ArrayList<Integer>();
+        private int[] exactRuleIndexes;
+        private int[] subtreeRuleIndexes;
+        private int[] labelRuleIndexes;
+        private LabelAutomaton automaton;
+
+        void compile() {
+            this.exactRuleIndexes = toArray(this.exactRules);
+            this.subtreeRuleIndexes = toArray(this.subtreeRules);
+            this.labelRuleIndexes = toArray(this.labelRules);
+            if (!this.labelPatterns.isEmpty()) {
+                this.automaton = new LabelAutomaton(this.labelPatterns);
+            }
+            this.children.values().forEach(Node::compile);
+        }
+
+        private static int[] toArray(List<Integer> indexes) {
+            return indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+}
@@ -1,22 +1,92 @@
 package net.ccscript.axfr4azuredns.server;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.TextParseException;
 
+import net.ccscript.axfr4azuredns.admin.AdminServer;
+import net.ccscript.axfr4azuredns.admin.ZoneControl;
+import net.ccscript.axfr4azuredns.admin.ZoneStatus;
+import net.ccscript.axfr4azuredns.azure.AzureDNSRestClient;
+import net.ccscript.axfr4azuredns.azure.AzureDeploymentClient;
+import net.ccscript.axfr4azuredns.azure.AzureDeploymentSeeder;
+import net.ccscript.axfr4azuredns.azure.AzureRestTransport;
+import net.ccscript.axfr4azuredns.azure.AzureZoneCache;
+import net.ccscript.axfr4azuredns.azure.AzureZoneLoader;
+import net.ccscript.axfr4azuredns.azure.AzureZoneReplicator;
+import net.ccscript.axfr4azuredns.azure.AzureZoneUpdater;
+import net.ccscript.axfr4azuredns.cluster.FileLockLeaseBackend;
+import net.ccscript.axfr4azuredns.cluster.ZoneShardCoordinator;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Cluster;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.server.listener.DNSServerRequestHandler;
+import net.ccscript.axfr4azuredns.server.listener.ServerListeners;
+import net.ccscript.axfr4azuredns.sync.MasterSoaSource;
+import net.ccscript.axfr4azuredns.sync.MasterZoneSync;
+import net.ccscript.axfr4azuredns.sync.SyncExecutor;
+import net.ccscript.axfr4azuredns.sync.SyncJob;
+import net.ccscript.axfr4azuredns.sync.SyncPriority;
+import net.ccscript.axfr4azuredns.sync.ZonePoller;
+import net.ccscript.axfr4azuredns.sync.ZoneReadiness;
+import net.ccscript.axfr4azuredns.sync.ZoneStarter;
+import net.ccscript.axfr4azuredns.trace.Tracer;
+import net.ccscript.axfr4azuredns.transfer.MasterPool;
+import net.ccscript.axfr4azuredns.transfer.ZoneTransferClient;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+import net.ccscript.axfr4azuredns.zone.ZoneSnapshot;
+import net.ccscript.axfr4azuredns.zone.ZoneStateDirectory;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
 
 /**
- * A DNS Slave Server.
+ * A DNS Slave Server. Its listeners are open as soon as it starts; the zones are then started in the background at
+ * the pace of the startup configuration, each restored from the state directory if any, then polled. Azure DNS Zones
+ * are loaded on their first replication. With an admin configuration, operators control the zones through the local
+ * {@link AdminServer}.
  */
-public class DNSServer {
+public class DNSServer implements ZoneControl {
+
+    private static final int LEASE_RENEWALS = 3;
+    private static final int DUMP_REQUEST_CHECK_SECONDS = 5;
 
     private Logger logger = LogManager.getLogger();
     private DNSServerConfiguration configuration;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private AzureZoneLoader azureZoneLoader;
+    private ZoneShardCoordinator shardCoordinator;
+    private SyncExecutor syncExecutor;
+    private ZonePoller zonePoller;
+    private ZoneStarter zoneStarter;
+    private AdminServer adminServer;
+    private Set<String> pausedZones = ConcurrentHashMap.newKeySet();
+    private MasterPool masterPool;
+    private MasterZoneSync masterZoneSync;
+    private Tracer tracer;
+    private ServerListeners listeners = new ServerListeners();
+    private ZoneStore zoneStore = new ZoneStore();
+    private Map<String, CompletableFuture<AzureZoneCache>> azureZoneCaches;
+    private AzureRestTransport azureTransport;
+    private int masterPort = MasterPool.DNS_PORT;
 
     /**
      * Creates a {@link #DNSSlaveServer} based on a given configuration JSON.
@@ -24,29 +94,332 @@ public class DNSServer {
      * @throws DNSServerConfigurationException In case configuration could not be read.
      */
     public DNSServer(String configurationFileName) throws DNSServerConfigurationException {
+        logger.info("DNS Server is loading configuration from file {}", configurationFileName);
+        configuration = DNSServerConfigurationFactory.loadConfigurationFile(configurationFileName);
+    }
+
+    /**
+     * Creates a DNSServer from a loaded configuration, talking to stand-ins of Azure and of the master servers, such
+     * as the local Azure DNS emulator and synthetic master servers of the load tests.
+     * @param configuration the {@link DNSServerConfiguration}.
+     * @param azureTransport the {@link AzureRestTransport} sending the Azure requests.
+     * @param masterPort the port of the master servers.
+     */
+    public DNSServer(DNSServerConfiguration configuration, AzureRestTransport azureTransport, int masterPort) {
+        this.configuration = configuration;
+        this.azureTransport = azureTransport;
+        this.masterPort = masterPort;
+    }
+
+    /**
+     * Starts the server: its listeners, then its zones. A start failing partway stops what was started.
+     * @throws DNSServerConfigurationException if the cluster lease directory or the state directory cannot be used,
+     *         or a server or the admin endpoint cannot listen on its address.
+     */
+    public void start() throws DNSServerConfigurationException {
+        boolean started = false;
+        try {
+            startComponents();
+            started = true;
+        } finally {
+            if (!started) {
+                stop();
+            }
+        }
+    }
+
+    private void startComponents() throws DNSServerConfigurationException {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        azureZoneCaches = new ConcurrentHashMap<String, CompletableFuture<AzureZoneCache>>();
+        AzureRestTransport transport = azureTransport != null ? azureTransport
+            : AzureRestTransport.forConfiguration(configuration);
+        AzureDNSRestClient azureClient = new AzureDNSRestClient(transport);
+        azureZoneLoader = new AzureZoneLoader(azureClient, executor);
+        syncExecutor = new SyncExecutor(executor, configuration.getSync());
+        TsigKeyring keyring = new TsigKeyring(configuration);
+        masterPool = new MasterPool(configuration.getSync(), masterPort);
+        AzureZoneReplicator replicator = new AzureZoneReplicator(new AzureZoneUpdater(azureClient),
+            new AzureDeploymentSeeder(new AzureDeploymentClient(transport), executor,
+                AzureDeploymentSeeder.DEFAULT_BATCH_SIZE, AzureDeploymentSeeder.DEFAULT_CONCURRENT_DEPLOYMENTS,
+                AzureDeploymentSeeder.DEFAULT_POLL_INTERVAL),
+            azureZoneLoader, executor);
+        tracer = Tracer.forConfiguration(configuration.getTracing());
+        ZoneTransferClient transferClient = new ZoneTransferClient(masterPool, keyring);
+        masterZoneSync = new MasterZoneSync(transferClient, zoneStore, replicator, this::azureZoneCache, tracer,
+            createStateDirectory());
+        if (configuration.getTracing().getDirectory() != null) {
+            scheduler.scheduleWithFixedDelay(tracer::dumpIfRequested, DUMP_REQUEST_CHECK_SECONDS,
+                DUMP_REQUEST_CHECK_SECONDS, TimeUnit.SECONDS);
+        }
+        zonePoller = new ZonePoller(scheduler, executor,
+            new MasterSoaSource(transferClient), syncExecutor, this::syncZone, masterZoneSync::getSyncedSerial);
+        zoneStarter = new ZoneStarter(scheduler, executor, configuration.getStartup().getZonesPerSecond(),
+            this::startZone);
+
+        listeners.start(configuration.getServers(),
+            new DNSServerRequestHandler(configuration, keyring, zoneStore, this::notified));
+        if (configuration.isAdminEnabled()) {
+            startAdmin();
+        }
+        if (configuration.isClusterEnabled()) {
+            startCluster();
+        } else {
+            startZones(configuration.getZones().stream().map(Zone::getZoneName).toList());
+        }
+    }
+
+    private void startAdmin() throws DNSServerConfigurationException {
+        adminServer = new AdminServer(configuration.getAdmin(), configuration, this);
+        try {
+            adminServer.start(executor);
+        } catch (IOException e) {
+            throw new DNSServerConfigurationException("Admin endpoint cannot listen on "
+                + configuration.getAdmin().getListenOn() + ":" + configuration.getAdmin().getPort(), e);
+        }
+    }
+
+    private ZoneStateDirectory createStateDirectory() throws DNSServerConfigurationException {
+        String stateDirectory = configuration.getStartup().getStateDirectory();
+        if (stateDirectory == null) {
+            return null;
+        }
         try {
-            logger.info("DNS Server is loading configuration from file {}", configurationFileName);
-            configuration = DNSServerConfigurationFactory.createDNSServerConfigurationFromFile(
-                configurationFileName);
-        } catch (FileNotFoundException e) {
-            throw new DNSServerConfigurationException("Configuration file could not be found", e);
+            return new ZoneStateDirectory(Path.of(stateDirectory));
         } catch (IOException e) {
-            throw new DNSServerConfigurationException("Error reading schema or configuration", e);
-        } catch (DNSServerConfigurationException e) {
-            throw e;
+            throw new DNSServerConfigurationException("State directory cannot be used", e);
         }
     }
 
     /**
-     * Starts the server and configures a SIGNAL listener in case of stop order.
+     * Stops the server: closes its listeners and admin endpoint, leaves the cluster and stops its threads, without
+     * waiting for the running syncs.
      */
-    public void start() {
-        // TODO start Signal listener in case of termination
-        // TODO start server listener thread(s)
+    public void stop() {
+        listeners.close();
+        if (adminServer != null) {
+            adminServer.stop();
+        }
+        if (shardCoordinator != null) {
+            shardCoordinator.leave();
+        }
+        // start() may have failed partway: only the components created so far are stopped
+        if (zoneStarter != null) {
+            zoneStarter.stop();
+        }
+        if (zonePoller != null) {
+            zonePoller.stopAll();
+        }
+        if (syncExecutor != null) {
+            syncExecutor.shutdown();
+        }
+        if (masterPool != null) {
+            masterPool.close();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
-    public void stop() {
-        // TODO stops the server threads.
+    /**
+     * Gets the startup state of a zone served by this server.
+     * @param zoneName the name of the zone.
+     * @return the {@link ZoneReadiness} of the zone, or null if the zone is not served by this server, such as a
+     *         zone owned by another node of the cluster.
+     */
+    public ZoneReadiness getZoneReadiness(String zoneName) {
+        if (zoneStarter == null || configuration.getZoneByName(zoneName) == null
+            || shardCoordinator != null && !shardCoordinator.owns(zoneName)) {
+            return null;
+        }
+        if (zoneStarter.isPending(zoneName)) {
+            return ZoneReadiness.PENDING;
+        }
+        return snapshotOf(zoneName) != null ? ZoneReadiness.READY : ZoneReadiness.SYNCING;
+    }
+
+    /**
+     * Gets the startup state of every zone served by this server.
+     * @return the {@link ZoneReadiness} by zone name, in configuration order.
+     */
+    public Map<String, ZoneReadiness> getZoneReadiness() {
+        Map<String, ZoneReadiness> readiness = new LinkedHashMap<String, ZoneReadiness>();
+        for (Zone zone : configuration.getZones()) {
+            ZoneReadiness zoneReadiness = getZoneReadiness(zone.getZoneName());
+            if (zoneReadiness != null) {
+                readiness.put(zone.getZoneName(), zoneReadiness);
+            }
+        }
+        return readiness;
+    }
+
+    private ZoneSnapshot snapshotOf(String zoneName) {
+        try {
+            return zoneStore.get(Name.fromString(zoneName, Name.root));
+        } catch (TextParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Queues a sync of a zone whose master sent a NOTIFY, unless another node of the cluster owns the zone. A zone
+     * still waiting for its turn is started first, out of the listener thread.
+     * @param zone the notified {@link Zone}.
+     */
+    private void notified(Zone zone) {
+        if (shardCoordinator != null && !shardCoordinator.owns(zone.getZoneName())) {
+            logger.debug("NOTIFY for zone {} ignored: owned by another node", zone.getZoneName());
+            return;
+        }
+        if (zoneStarter.isPending(zone.getZoneName())) {
+            executor.execute(() -> {
+                zoneStarter.startNow(zone);
+                syncExecutor.submit(SyncJob.of(zone, SyncPriority.NOTIFY, () -> syncZone(zone)));
+            });
+            return;
+        }
+        syncExecutor.submit(SyncJob.of(zone, SyncPriority.NOTIFY, () -> syncZone(zone)));
+    }
+
+    /**
+     * Starts a zone: restores its last replicated version, if any, so that it is answered and transferred
+     * incrementally, then starts polling it.
+     * @param zone the {@link Zone} to be started.
+     */
+    private void startZone(Zone zone) {
+        if (masterZoneSync.restore(zone)) {
+            logger.debug("Zone {} restored from the state directory", zone.getZoneName());
+        }
+        zonePoller.start(zone);
+    }
+
+    private void syncZone(Zone zone) {
+        if (pausedZones.contains(zone.getZoneName())) {
+            logger.debug("Sync of zone {} skipped: zone paused", zone.getZoneName());
+            return;
+        }
+        masterZoneSync.sync(zone);
+    }
+
+    @Override
+    public ZoneStatus getStatus(Zone zone) {
+        String zoneName = zone.getZoneName();
+        ZoneReadiness readiness = getZoneReadiness(zoneName);
+        if (readiness == null) {
+            return null;
+        }
+        ZoneSnapshot snapshot = snapshotOf(zoneName);
+        return new ZoneStatus(zoneName, zone.getAzureDomain().getAzureSubscription(), readiness,
+            pausedZones.contains(zoneName), syncExecutor.isRunning(zoneName), syncExecutor.getWaitingPriority(zoneName),
+            snapshot == null ? -1 : snapshot.getZone().getSOA().getSerial());
+    }
+
+    @Override
+    public void syncNow(Zone zone) {
+        zoneStarter.startNow(zone);
+        syncExecutor.submit(SyncJob.of(zone, SyncPriority.OPERATOR, () -> syncZone(zone)));
+    }
+
+    @Override
+    public void pause(Zone zone) {
+        pausedZones.add(zone.getZoneName());
+        syncExecutor.cancel(zone.getZoneName());
+    }
+
+    @Override
+    public void resume(Zone zone) {
+        if (pausedZones.remove(zone.getZoneName())) {
+            syncExecutor.submit(SyncJob.of(zone, SyncPriority.POLL, () -> syncZone(zone)));
+        }
+    }
+
+    @Override
+    public int drain(String subscription) {
+        return syncExecutor.drain(subscription);
+    }
+
+    @Override
+    public int getRunningCount() {
+        return syncExecutor.getRunningCount();
+    }
+
+    @Override
+    public Map<String, Integer> getWaitingCounts() {
+        return syncExecutor.getWaitingCounts();
+    }
+
+    /**
+     * Gets the cache of an Azure DNS Zone, starting its load if it is not loaded yet. A failed load is forgotten
+     * once it completes, so that the next replication of the Azure DNS Zone loads it again.
+     * @param azureDomain the Azure DNS Zone.
+     * @return the {@link AzureZoneCache}, loaded or being loaded.
+     */
+    private CompletableFuture<AzureZoneCache> azureZoneCache(AzureDomain azureDomain) {
+        return azureZoneCaches.computeIfAbsent(azureDomain.getAzureResourceId(), resourceId -> {
+            CompletableFuture<AzureZoneCache> load = azureZoneLoader.load(azureDomain);
+            // Asynchronously, as a load already failed would otherwise update the map within computeIfAbsent
+            load.whenCompleteAsync((cache, failure) -> {
+                if (failure != null) {
+                    azureZoneCaches.remove(resourceId, load);
+                }
+            }, executor);
+            return load;
+        });
+    }
+
+    /**
+     * Joins the cluster: only the zones assigned to this node are started and synchronized.
+     * Leases are taken in the background, then renewed three times per lease duration.
+     * @throws DNSServerConfigurationException if the cluster lease directory cannot be used.
+     */
+    private void startCluster() throws DNSServerConfigurationException {
+        Cluster cluster = configuration.getCluster();
+        try {
+            shardCoordinator = new ZoneShardCoordinator(cluster.getNodeId(),
+                configuration.getZones().stream().map(Zone::getZoneName).toList(),
+                new FileLockLeaseBackend(Path.of(cluster.getLeaseDirectory())), cluster.getVirtualNodes(),
+                Duration.ofSeconds(cluster.getLeaseSeconds()),
+                this::ownershipChanged);
+        } catch (IOException e) {
+            throw new DNSServerConfigurationException("Cluster lease directory cannot be used", e);
+        }
+
+        logger.info("Joining the cluster as node {}", cluster.getNodeId());
+        long refreshPeriodMillis = TimeUnit.SECONDS.toMillis(cluster.getLeaseSeconds()) / LEASE_RENEWALS;
+        scheduler.scheduleAtFixedRate(shardCoordinator::refresh, 0, refreshPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling the zones moved to other nodes and drops their Azure DNS Zones, unless still used by an owned
+     * zone, then starts the zones moved to this node.
+     * @param acquiredZones the names of the zones now owned by this node.
+     * @param releasedZones the names of the zones now owned by other nodes.
+     */
+    private void ownershipChanged(Set<String> acquiredZones, Set<String> releasedZones) {
+        Set<String> releasedResourceIds = new HashSet<String>();
+        for (String zoneName : releasedZones) {
+            zoneStarter.cancel(zoneName);
+            zonePoller.stop(zoneName);
+            masterZoneSync.forget(configuration.getZoneByName(zoneName));
+            releasedResourceIds.addAll(configuration.getZoneByName(zoneName).getAzureResourceIds());
+        }
+        for (String zoneName : shardCoordinator.getOwnedZones()) {
+            releasedResourceIds.removeAll(configuration.getZoneByName(zoneName).getAzureResourceIds());
+        }
+        azureZoneCaches.keySet().removeAll(releasedResourceIds);
+        startZones(acquiredZones);
+    }
+
+    /**
+     * Queues the given zones to be started at the startup pace. Their Azure DNS Zones are loaded on their first
+     * replication, so that zones whose content did not change since the last run cost no Azure request.
+     * @param zoneNames the names of the zones to be started.
+     */
+    private void startZones(Collection<String> zoneNames) {
+        zoneStarter.queue(zoneNames.stream().map(configuration::getZoneByName).toList());
     }
 
 }
@@ -0,0 +1,99 @@
+package net.ccscript.axfr4azuredns.server;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+
+import net.ccscript.axfr4azuredns.azure.AzureDNSRestClient;
+import net.ccscript.axfr4azuredns.azure.AzureDeploymentClient;
+import net.ccscript.axfr4azuredns.azure.AzureDeploymentSeeder;
+import net.ccscript.axfr4azuredns.azure.AzureRestTransport;
+import net.ccscript.axfr4azuredns.azure.AzureZoneCache;
+import net.ccscript.axfr4azuredns.azure.AzureZoneDiff;
+import net.ccscript.axfr4azuredns.azure.AzureZoneLoader;
+import net.ccscript.axfr4azuredns.azure.AzureZoneReplicator;
+import net.ccscript.axfr4azuredns.azure.AzureZoneUpdater;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.zonefile.ZoneFileException;
+import net.ccscript.axfr4azuredns.zonefile.ZoneFileReader;
+
+/**
+ * Seeds or reconciles the Azure DNS Zones of a configured zone from a zone file, with no master server involved.
+ * The zone file, an RFC 1035 master file or an AXFR dump, is parsed in parallel by a {@link ZoneFileReader} while
+ * the Azure DNS Zones are loaded, and its records are replicated by the same {@link AzureZoneReplicator} as
+ * transferred zones, once filtered by the record rules of the zone.
+ */
+public final class ZoneFileImporter {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final AzureZoneLoader azureZoneLoader;
+    private final AzureZoneReplicator replicator;
+    private final int parallelism;
+
+    /**
+     * Creates a ZoneFileImporter.
+     * @param azureZoneLoader the {@link AzureZoneLoader} loading the Azure DNS Zones.
+     * @param replicator the {@link AzureZoneReplicator} updating or seeding the Azure DNS Zones.
+     * @param parallelism the number of threads parsing the zone file.
+     */
+    public ZoneFileImporter(AzureZoneLoader azureZoneLoader, AzureZoneReplicator replicator, int parallelism) {
+        this.azureZoneLoader = azureZoneLoader;
+        this.replicator = replicator;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates the ZoneFileImporter of a configuration, parsing with one thread per processor.
+     * @param configuration the {@link DNSServerConfiguration} holding the Azure credentials.
+     * @param executor the {@link Executor} running the Azure requests.
+     * @return the ZoneFileImporter.
+     */
+    public static ZoneFileImporter create(DNSServerConfiguration configuration, Executor executor) {
+        AzureRestTransport transport = AzureRestTransport.forConfiguration(configuration);
+        AzureDNSRestClient client = new AzureDNSRestClient(transport);
+        AzureZoneLoader loader = new AzureZoneLoader(client, executor);
+        return new ZoneFileImporter(loader,
+            new AzureZoneReplicator(new AzureZoneUpdater(client),
+                new AzureDeploymentSeeder(new AzureDeploymentClient(transport), executor,
+                    AzureDeploymentSeeder.DEFAULT_BATCH_SIZE, AzureDeploymentSeeder.DEFAULT_CONCURRENT_DEPLOYMENTS,
+                    AzureDeploymentSeeder.DEFAULT_POLL_INTERVAL),
+                loader, executor),
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Imports a zone file into the Azure DNS Zones of a zone.
+     * @param zone the {@link Zone} the zone file holds.
+     * @param zoneFile the zone file.
+     * @return the number of record set changes which could not be applied, counting an Azure DNS Zone which could
+     *         not be loaded or seeded as one.
+     * @throws IOException if the zone file cannot be read.
+     * @throws ZoneFileException if the zone file is not valid.
+     * @throws InterruptedException if interrupted while parsing.
+     */
+    public int importZoneFile(Zone zone, Path zoneFile) throws IOException, ZoneFileException, InterruptedException {
+        Map<String, CompletableFuture<AzureZoneCache>> loads = this.azureZoneLoader.loadAll(zone.getAzureDomains());
+        Map<String, AzureZoneDiff> diffs = AzureZoneReplicator.newDiffs(zone);
+        Name origin = Name.fromString(zone.getZoneName(), Name.root);
+        long records = new ZoneFileReader(zoneFile, origin, this.parallelism, ZoneFileReader.DEFAULT_CHUNK_SIZE)
+            .read(chunk -> {
+                List<Record> replicated = zone.getRecordRules().apply(chunk);
+                diffs.values().forEach(diff -> diff.addAll(replicated));
+            });
+        logger.info("Zone file {} holds {} records, {} of them not replicated to Azure", zoneFile, records,
+            diffs.values().iterator().next().getSkippedRecords());
+
+        return this.replicator.replicate(zone, diffs, azureDomain -> loads.get(azureDomain.getAzureResourceId()));
+    }
+
+}
@@ -0,0 +1,35 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Admin;
+
+/**
+ * Deserializes the optional "admin" section of the configuration.
+ */
+final class AdminConfigurationDeserializer {
+
+    private AdminConfigurationDeserializer() {
+    }
+
+    /**
+     * Deserializes the "admin" section from the jsonConfiguration, if present, and sets it in the dnsConfiguration.
+     * @param jsonConfiguration the root JSON configuration object
+     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
+     * @throws DNSServerConfigurationException If the address is not a loopback address.
+     */
+    static void deserializeAdmin(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration)
+        throws DNSServerConfigurationException {
+
+        if (!jsonConfiguration.has("admin")) {
+            return;
+        }
+        JsonObject adminObject = jsonConfiguration.get("admin").getAsJsonObject();
+
+        Admin admin = dnsConfiguration.new Admin(
+            JsonValues.getString(adminObject, "listen_on", Admin.DEFAULT_LISTEN_ON),
+            JsonValues.getInt(adminObject, "port", Admin.DEFAULT_PORT));
+        dnsConfiguration.setAdmin(admin);
+    }
+
+}
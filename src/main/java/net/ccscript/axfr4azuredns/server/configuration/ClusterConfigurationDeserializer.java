@@ -0,0 +1,37 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Cluster;
+
+/**
+ * Deserializes the optional "cluster" section of the configuration.
+ */
+final class ClusterConfigurationDeserializer {
+
+    private ClusterConfigurationDeserializer() {
+    }
+
+    /**
+     * Deserializes the "cluster" section from the jsonConfiguration, if present, and sets it in the dnsConfiguration.
+     * @param jsonConfiguration the root JSON configuration object
+     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
+     * @throws DNSServerConfigurationException If one of the values is not valid.
+     */
+    static void deserializeCluster(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration)
+        throws DNSServerConfigurationException {
+
+        if (!jsonConfiguration.has("cluster")) {
+            return;
+        }
+        JsonObject clusterObject = jsonConfiguration.get("cluster").getAsJsonObject();
+
+        Cluster cluster = dnsConfiguration.new Cluster(
+            JsonValues.getString(clusterObject, "node_id", null),
+            clusterObject.get("lease_directory").getAsString(),
+            JsonValues.getInt(clusterObject, "virtual_nodes", Cluster.DEFAULT_VIRTUAL_NODES),
+            JsonValues.getInt(clusterObject, "lease_seconds", Cluster.DEFAULT_LEASE_SECONDS));
+        dnsConfiguration.setCluster(cluster);
+    }
+
+}
@@ -1,12 +1,17 @@
 package net.ccscript.axfr4azuredns.server.configuration;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 
 import org.apache.commons.validator.routines.DomainValidator;
@@ -14,6 +19,7 @@ import org.apache.commons.validator.routines.InetAddressValidator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import net.ccscript.axfr4azuredns.rules.RecordRules;
 import net.ccscript.axfr4azuredns.server.DNSServer;
 
 /**
@@ -25,6 +31,12 @@ public final class DNSServerConfiguration {
     private Set<Server> servers;
     private Map<String, Zone> zones;
     private Map<String, AzureCredentials> azureCredentials;
+    private Map<String, TsigKey> tsigKeys;
+    private Cluster cluster;
+    private Sync sync;
+    private Tracing tracing;
+    private Startup startup;
+    private Admin admin;
 
     /**
      * Initialize the Sets and Collections used for Server Configuration.
@@ -34,6 +46,11 @@ public final class DNSServerConfiguration {
         this.servers = new HashSet<Server>();
         this.zones = new HashMap<String, Zone>();
         this.azureCredentials = new HashMap<String, AzureCredentials>();
+        this.tsigKeys = new HashMap<String, TsigKey>();
+        this.sync = new Sync(Sync.DEFAULT_MAX_CONCURRENT_JOBS, Collections.emptyMap());
+        this.tracing = new Tracing(null, Tracing.DEFAULT_BUFFER_SPANS, Tracing.DEFAULT_EXPORT_THRESHOLD_SECONDS,
+            Tracing.DEFAULT_SLOW_CALL_MILLIS);
+        this.startup = new Startup(null, Startup.DEFAULT_ZONES_PER_SECOND);
     }
 
     /**
@@ -57,20 +74,65 @@ public final class DNSServerConfiguration {
      * Adds a {@link Zone} to the collection of Domains to be replicated.
      * At the time of addition, this will check if an Azure Credentials corresponds to this entry.
      * Therefore, Azure Credentials must be added **before** calling addZone.
+     * Zones nested in each other and replicated into the same Azure DNS Zone are linked, so that each one only owns
+     * its own subtree of it.
      * @param zone the {@link Zone} to be added to the collection.
      * @throws DNSServerConfigurationException If the provided Zone refers to a ServicePrincipal
      *                                         that does not exist in AzureCredentials.
      */
     void addZone(Zone zone) throws DNSServerConfigurationException {
-        String servicePrincipal = zone.getAzureDomain().getAzureServicePrincipal();
-        if (null == getAzureCredential(servicePrincipal)) {
-            logger.error("Service Principal for Zone {} not found: {}", zone.getZoneName(), servicePrincipal);
-            throw new DNSServerConfigurationException("Service Principal not found: " + servicePrincipal
-                + ". Please add service principal before adding the zone.");
+        for (AzureDomain azureDomain : zone.getAzureDomains()) {
+            String servicePrincipal = azureDomain.getAzureServicePrincipal();
+            if (null == getAzureCredential(servicePrincipal)) {
+                logger.error("Service Principal for Zone {} not found: {}", zone.getZoneName(), servicePrincipal);
+                throw new DNSServerConfigurationException("Service Principal not found: " + servicePrincipal
+                    + ". Please add service principal before adding the zone.");
+            }
+        }
+        for (Zone other : this.zones.values()) {
+            if (isSubZone(zone.getZoneName(), other.getZoneName())) {
+                linkSubZone(other, zone);
+            } else if (isSubZone(other.getZoneName(), zone.getZoneName())) {
+                linkSubZone(zone, other);
+            }
         }
         this.zones.put(zone.getZoneName(), zone);
     }
 
+    /**
+     * Records a sub-zone in every Azure DNS Zone it shares with its parent zone.
+     * @param parent the parent {@link Zone}.
+     * @param subZone the {@link Zone} nested in the parent zone.
+     */
+    private static void linkSubZone(Zone parent, Zone subZone) {
+        for (AzureDomain parentDomain : parent.getAzureDomains()) {
+            for (AzureDomain subDomain : subZone.getAzureDomains()) {
+                if (parentDomain.getAzureResourceId().equalsIgnoreCase(subDomain.getAzureResourceId())) {
+                    logger.info("Zone {} owns its subtree of Azure DNS Zone {} shared with zone {}",
+                        subZone.getZoneName(), parentDomain.getAzureZoneName(), parent.getZoneName());
+                    parentDomain.addSubZoneName(subZone.getZoneName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a zone name is a strict subdomain of another one.
+     * @param zoneName the zone name.
+     * @param parentZoneName the parent zone name.
+     * @return true if zoneName is below parentZoneName.
+     */
+    private static boolean isSubZone(String zoneName, String parentZoneName) {
+        String name = absoluteName(zoneName);
+        String parent = absoluteName(parentZoneName);
+        return name.length() > parent.length() && name.endsWith("." + parent);
+    }
+
+    private static String absoluteName(String zoneName) {
+        String name = zoneName.toLowerCase();
+        return name.endsWith(".") ? name : name + ".";
+    }
+
     /**
      * Gets the collection of {@link Zone}s to be replicated.
      * @return an unmodifiable collection of {@link Zone}s
@@ -113,6 +175,118 @@ public final class DNSServerConfiguration {
         return this.azureCredentials.get(servicePrincipal);
     }
 
+    /**
+     * Adds a {@link TsigKey} to the known TSIG keys.
+     * @param tsigKey the {@link TsigKey} to be added.
+     */
+    void addTsigKey(TsigKey tsigKey) {
+        this.tsigKeys.put(tsigKey.getName(), tsigKey);
+    }
+
+    /**
+     * Gets the TSIG keys shared with the master servers.
+     * @return an unmodifiable collection of {@link TsigKey}s.
+     */
+    public Collection<TsigKey> getTsigKeys() {
+        return Collections.unmodifiableCollection(this.tsigKeys.values());
+    }
+
+    /**
+     * Sets the {@link Cluster} configuration, enabling cluster mode.
+     * @param cluster the {@link Cluster} configuration.
+     */
+    void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * Checks if cluster mode is enabled: zones are then split across several nodes.
+     * @return true if a {@link Cluster} configuration is present.
+     */
+    public boolean isClusterEnabled() {
+        return this.cluster != null;
+    }
+
+    /**
+     * Gets the {@link Cluster} configuration.
+     * @return the {@link Cluster} configuration, or null if cluster mode is disabled.
+     */
+    public Cluster getCluster() {
+        return this.cluster;
+    }
+
+    /**
+     * Sets the {@link Sync} configuration.
+     * @param sync the {@link Sync} configuration.
+     */
+    void setSync(Sync sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Gets the {@link Sync} configuration.
+     * @return the {@link Sync} configuration, with default values if the section is absent.
+     */
+    public Sync getSync() {
+        return this.sync;
+    }
+
+    /**
+     * Sets the {@link Tracing} configuration.
+     * @param tracing the {@link Tracing} configuration.
+     */
+    void setTracing(Tracing tracing) {
+        this.tracing = tracing;
+    }
+
+    /**
+     * Gets the {@link Tracing} configuration.
+     * @return the {@link Tracing} configuration, with default values if the section is absent.
+     */
+    public Tracing getTracing() {
+        return this.tracing;
+    }
+
+    /**
+     * Sets the {@link Startup} configuration.
+     * @param startup the {@link Startup} configuration.
+     */
+    void setStartup(Startup startup) {
+        this.startup = startup;
+    }
+
+    /**
+     * Gets the {@link Startup} configuration.
+     * @return the {@link Startup} configuration, with default values if the section is absent.
+     */
+    public Startup getStartup() {
+        return this.startup;
+    }
+
+    /**
+     * Sets the {@link Admin} configuration, enabling the admin endpoint.
+     * @param admin the {@link Admin} configuration.
+     */
+    void setAdmin(Admin admin) {
+        this.admin = admin;
+    }
+
+    /**
+     * Checks if the admin endpoint is enabled.
+     * @return true if an {@link Admin} configuration is present.
+     */
+    public boolean isAdminEnabled() {
+        return this.admin != null;
+    }
+
+    /**
+     * Gets the {@link Admin} configuration.
+     * @return the {@link Admin} configuration, or null if the admin endpoint is disabled.
+     */
+    public Admin getAdmin() {
+        return this.admin;
+    }
+
     /**
      * Server Configuration Object.
      */
@@ -125,10 +299,22 @@ public final class DNSServerConfiguration {
          * The default UDP port for the DNS Server. Disabled by default (0).
          */
         public static final int DEFAULT_UDP_PORT = 0;
+        /**
+         * The default number of UDP sockets, each served by its own worker thread: one per available processor.
+         */
+        public static final int DEFAULT_UDP_SOCKETS = Runtime.getRuntime().availableProcessors();
+        /**
+         * The default largest EDNS0 UDP payload size, chosen to avoid IP fragmentation.
+         */
+        public static final int DEFAULT_EDNS_UDP_PAYLOAD = 1232;
 
         private String listenOn;
         private int tcpPort;
         private int udpPort;
+        private int udpSockets = DEFAULT_UDP_SOCKETS;
+        private int ednsUdpPayload = DEFAULT_EDNS_UDP_PAYLOAD;
+        private Tcp tcp;
+        private RateLimit rateLimit;
 
         /**
          * Creates a Server object.
@@ -142,6 +328,7 @@ public final class DNSServerConfiguration {
             setListenOn(listenOn);
             this.tcpPort = tcpPort;
             this.udpPort = udpPort;
+            this.tcp = new Tcp(Tcp.DEFAULT_IDLE_TIMEOUT_SECONDS, Tcp.DEFAULT_PIPELINE_DEPTH);
         }
 
         /**
@@ -195,6 +382,329 @@ public final class DNSServerConfiguration {
             }
             return this.udpPort;
         }
+
+        /**
+         * Sets the number of UDP sockets bound with SO_REUSEPORT to the UDP port.
+         * @param udpSockets the number of UDP sockets.
+         */
+        void setUdpSockets(int udpSockets) {
+            this.udpSockets = udpSockets;
+        }
+
+        /**
+         * Gets the number of UDP sockets bound with SO_REUSEPORT to the UDP port, each served by its own worker.
+         * @return the number of UDP sockets.
+         */
+        public int getUdpSockets() {
+            return this.udpSockets;
+        }
+
+        /**
+         * Sets the largest EDNS0 UDP payload size sent to clients.
+         * @param ednsUdpPayload the payload size in bytes.
+         */
+        void setEdnsUdpPayload(int ednsUdpPayload) {
+            this.ednsUdpPayload = ednsUdpPayload;
+        }
+
+        /**
+         * Gets the largest EDNS0 UDP payload size sent to clients. Clients advertising a smaller size get smaller
+         * responses; clients without EDNS0 get at most 512 bytes.
+         * @return the payload size in bytes.
+         */
+        public int getEdnsUdpPayload() {
+            return this.ednsUdpPayload;
+        }
+
+        /**
+         * Sets the {@link Tcp} configuration of the TCP connections.
+         * @param tcp the {@link Tcp} configuration.
+         */
+        void setTcp(Tcp tcp) {
+            this.tcp = tcp;
+        }
+
+        /**
+         * Gets the configuration of the TCP connections.
+         * @return the {@link Tcp} configuration, with default values if absent from the configuration.
+         */
+        public Tcp getTcp() {
+            return this.tcp;
+        }
+
+        /**
+         * Sets the {@link RateLimit} configuration, enabling Response Rate Limiting on this server.
+         * @param rateLimit the {@link RateLimit} configuration.
+         */
+        void setRateLimit(RateLimit rateLimit) {
+            this.rateLimit = rateLimit;
+        }
+
+        /**
+         * Checks if Response Rate Limiting is enabled on this server.
+         * @return true if a {@link RateLimit} configuration is present.
+         */
+        public boolean isRateLimitEnabled() {
+            return this.rateLimit != null;
+        }
+
+        /**
+         * Gets the Response Rate Limiting configuration.
+         * @return the {@link RateLimit} configuration, or null if rate limiting is disabled.
+         */
+        public RateLimit getRateLimit() {
+            return this.rateLimit;
+        }
+    }
+
+    /**
+     * TCP Connections Configuration of a {@link Server}.
+     */
+    public final class Tcp {
+        /**
+         * Default time an idle connection stays open, in seconds.
+         */
+        public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 10;
+        /**
+         * Default number of requests of a connection processed at the same time.
+         */
+        public static final int DEFAULT_PIPELINE_DEPTH = 32;
+
+        private int idleTimeoutSeconds;
+        private int pipelineDepth;
+        private Tls tls;
+
+        /**
+         * Creates a Tcp object.
+         * @param idleTimeoutSeconds the time an idle connection stays open, in seconds.
+         * @param pipelineDepth the number of requests of a connection processed at the same time.
+         */
+        Tcp(int idleTimeoutSeconds, int pipelineDepth) {
+            this.idleTimeoutSeconds = idleTimeoutSeconds;
+            this.pipelineDepth = pipelineDepth;
+        }
+
+        /**
+         * Gets the time a connection without pending request stays open. It is advertised to the clients asking for
+         * edns-tcp-keepalive.
+         * @return the idle timeout, in seconds.
+         */
+        public int getIdleTimeoutSeconds() {
+            return this.idleTimeoutSeconds;
+        }
+
+        /**
+         * Gets the number of pipelined requests of a connection processed at the same time. Further requests are
+         * not read until a response is sent.
+         * @return the pipeline depth.
+         */
+        public int getPipelineDepth() {
+            return this.pipelineDepth;
+        }
+
+        /**
+         * Sets the {@link Tls} configuration, serving DNS over TLS on the TCP port.
+         * @param tls the {@link Tls} configuration.
+         */
+        void setTls(Tls tls) {
+            this.tls = tls;
+        }
+
+        /**
+         * Checks if the TCP port serves DNS over TLS.
+         * @return true if a {@link Tls} configuration is present.
+         */
+        public boolean isTlsEnabled() {
+            return this.tls != null;
+        }
+
+        /**
+         * Gets the DNS over TLS configuration.
+         * @return the {@link Tls} configuration, or null if the TCP port serves plain DNS.
+         */
+        public Tls getTls() {
+            return this.tls;
+        }
+    }
+
+    /**
+     * DNS over TLS Configuration of a {@link Tcp} port.
+     */
+    public final class Tls {
+        /**
+         * Default lifetime of a TLS session, during which clients may resume it without a full handshake.
+         */
+        public static final int DEFAULT_SESSION_TIMEOUT_SECONDS = 3600;
+        /**
+         * Default number of TLS sessions kept for resumption by TLS 1.2 clients without session tickets.
+         */
+        public static final int DEFAULT_SESSION_CACHE_SIZE = 10000;
+
+        private String certificateFile;
+        private String privateKeyFile;
+        private int sessionTimeoutSeconds;
+        private int sessionCacheSize;
+
+        /**
+         * Creates a Tls object.
+         * @param certificateFile the PEM file holding the certificate chain, server certificate first.
+         * @param privateKeyFile the PEM file holding the unencrypted PKCS#8 private key of the server certificate.
+         * @param sessionTimeoutSeconds the lifetime of a TLS session, in seconds.
+         * @param sessionCacheSize the number of TLS sessions kept for resumption.
+         */
+        Tls(String certificateFile, String privateKeyFile, int sessionTimeoutSeconds, int sessionCacheSize) {
+            this.certificateFile = certificateFile;
+            this.privateKeyFile = privateKeyFile;
+            this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+            this.sessionCacheSize = sessionCacheSize;
+        }
+
+        /**
+         * Gets the PEM file holding the certificate chain, server certificate first.
+         * @return the certificate file path.
+         */
+        public String getCertificateFile() {
+            return this.certificateFile;
+        }
+
+        /**
+         * Gets the PEM file holding the unencrypted PKCS#8 private key of the server certificate.
+         * @return the private key file path.
+         */
+        public String getPrivateKeyFile() {
+            return this.privateKeyFile;
+        }
+
+        /**
+         * Gets the lifetime of a TLS session, during which reconnecting clients resume it with an abbreviated
+         * handshake.
+         * @return the session timeout, in seconds.
+         */
+        public int getSessionTimeoutSeconds() {
+            return this.sessionTimeoutSeconds;
+        }
+
+        /**
+         * Gets the number of TLS sessions kept on the server for resumption. TLS 1.3 and session ticket clients
+         * resume with the ticket they hold instead.
+         * @return the session cache size.
+         */
+        public int getSessionCacheSize() {
+            return this.sessionCacheSize;
+        }
+    }
+
+    /**
+     * Response Rate Limiting Configuration of a {@link Server}: limits the responses sent to a client network
+     * prefix, to mitigate reflection and amplification attacks.
+     */
+    public final class RateLimit {
+        /**
+         * Default maximum number of errors per second, per client prefix. 0 disables the limit.
+         */
+        public static final int DEFAULT_ERRORS_PER_SECOND = 5;
+        /**
+         * Default number of over-limit responses per truncated response sent. 0 never sends truncated responses.
+         */
+        public static final int DEFAULT_SLIP = 2;
+        /**
+         * Default length of the IPv4 client prefixes.
+         */
+        public static final int DEFAULT_IPV4_PREFIX_LENGTH = 24;
+        /**
+         * Default length of the IPv6 client prefixes.
+         */
+        public static final int DEFAULT_IPV6_PREFIX_LENGTH = 56;
+        /**
+         * Default number of entries of the rate limiting table.
+         */
+        public static final int DEFAULT_TABLE_SIZE = 65536;
+
+        private int responsesPerSecond;
+        private int nxdomainsPerSecond;
+        private int errorsPerSecond;
+        private int slip;
+        private int ipv4PrefixLength;
+        private int ipv6PrefixLength;
+        private int tableSize;
+
+        /**
+         * Creates a RateLimit object. Limits are per client prefix; 0 disables the limit of a response class.
+         * @param responsesPerSecond the maximum number of positive responses per second.
+         * @param nxdomainsPerSecond the maximum number of NXDOMAIN responses per second.
+         * @param errorsPerSecond the maximum number of error responses per second.
+         * @param slip the number of over-limit responses per truncated response sent, 0 to drop them all.
+         * @param ipv4PrefixLength the length of the IPv4 client prefixes.
+         * @param ipv6PrefixLength the length of the IPv6 client prefixes.
+         * @param tableSize the number of entries of the rate limiting table.
+         */
+        RateLimit(int responsesPerSecond, int nxdomainsPerSecond, int errorsPerSecond, int slip,
+            int ipv4PrefixLength, int ipv6PrefixLength, int tableSize) {
+
+            this.responsesPerSecond = responsesPerSecond;
+            this.nxdomainsPerSecond = nxdomainsPerSecond;
+            this.errorsPerSecond = errorsPerSecond;
+            this.slip = slip;
+            this.ipv4PrefixLength = ipv4PrefixLength;
+            this.ipv6PrefixLength = ipv6PrefixLength;
+            this.tableSize = tableSize;
+        }
+
+        /**
+         * Gets the maximum number of positive responses per second, per client prefix.
+         * @return the limit, 0 if disabled.
+         */
+        public int getResponsesPerSecond() {
+            return this.responsesPerSecond;
+        }
+
+        /**
+         * Gets the maximum number of NXDOMAIN responses per second, per client prefix.
+         * @return the limit, 0 if disabled.
+         */
+        public int getNxdomainsPerSecond() {
+            return this.nxdomainsPerSecond;
+        }
+
+        /**
+         * Gets the maximum number of error responses per second, per client prefix.
+         * @return the limit, 0 if disabled.
+         */
+        public int getErrorsPerSecond() {
+            return this.errorsPerSecond;
+        }
+
+        /**
+         * Gets the number of over-limit responses per truncated response sent.
+         * @return the slip, 0 if over-limit responses are all dropped.
+         */
+        public int getSlip() {
+            return this.slip;
+        }
+
+        /**
+         * Gets the length of the IPv4 client prefixes sharing the same limits.
+         * @return the IPv4 prefix length.
+         */
+        public int getIpv4PrefixLength() {
+            return this.ipv4PrefixLength;
+        }
+
+        /**
+         * Gets the length of the IPv6 client prefixes sharing the same limits.
+         * @return the IPv6 prefix length.
+         */
+        public int getIpv6PrefixLength() {
+            return this.ipv6PrefixLength;
+        }
+
+        /**
+         * Gets the number of entries of the rate limiting table.
+         * @return the table size.
+         */
+        public int getTableSize() {
+            return this.tableSize;
+        }
     }
 
     /**
@@ -203,27 +713,39 @@ public final class DNSServerConfiguration {
     public final class Zone {
         private String zoneName;
         private DNSDomain dnsDomainConfiguration;
-        private AzureDomain azureDomain;
+        private List<AzureDomain> azureDomains;
+        private RecordRules recordRules = RecordRules.NONE;
 
         /**
          * Creates a Zone object.
          * @param zoneName the dns zone name.
          * @param dnsDomain a {@link DNSDomain} containing non-Azure DNS Zone configuration.
-         * @param azureDomain
+         * @param azureDomains the {@link AzureDomain}s the zone is replicated to, at least one.
          */
-        Zone(String zoneName, DNSDomain dnsDomain, AzureDomain azureDomain) throws DNSServerConfigurationException {
-            setZoneNameAndAzureDomain(zoneName, azureDomain);
+        Zone(String zoneName, DNSDomain dnsDomain, List<AzureDomain> azureDomains)
+            throws DNSServerConfigurationException {
+
+            Set<String> resourceIds = new HashSet<String>();
+            for (AzureDomain azureDomain : azureDomains) {
+                checkZoneNames(zoneName, azureDomain);
+                if (!resourceIds.add(azureDomain.getAzureResourceId())) {
+                    logger.error("Azure DNS Zone {} is a target of zone {} twice", azureDomain.getAzureResourceId(),
+                        zoneName);
+                    throw new DNSServerConfigurationException("Azure DNS Zone is a target of the zone twice");
+                }
+            }
+            this.zoneName = zoneName;
+            this.azureDomains = List.copyOf(azureDomains);
             this.dnsDomainConfiguration = dnsDomain;
         }
 
         /**
-         * Sets the zoneName an AzureDomain while checking that zoneName is the AzureDomain's
-         * zoneName or a subdomain of it and vice versa.
+         * Checks that zoneName is the AzureDomain's zoneName or a subdomain of it and vice versa.
          * @param newZoneName the zoneName to be set.
          * @param newAzureDomain the azureDomain to be set.
          * @throws DNSServerConfigurationException If the zone names are not a subdomain of each other.
          */
-        private void setZoneNameAndAzureDomain(String newZoneName, AzureDomain newAzureDomain)
+        private void checkZoneNames(String newZoneName, AzureDomain newAzureDomain)
             throws DNSServerConfigurationException {
 
             DomainValidator validator = DomainValidator.getInstance();
@@ -237,17 +759,47 @@ public final class DNSServerConfiguration {
                 logger.error("Azure Zone name is not valid: {}", azureZoneName);
                 throw new DNSServerConfigurationException("Azure Zone name is not valid");
             }
-
-            this.zoneName = newZoneName;
-            this.azureDomain = newAzureDomain;
         }
 
         /**
-         * Gets the Azure DNS Zone access information.
+         * Gets the access information of the first Azure DNS Zone the zone is replicated to, which also gives the
+         * subscription the sync jobs of the zone are queued under.
          * @return the Azure DNS Zone access information.
          */
         public AzureDomain getAzureDomain() {
-            return this.azureDomain;
+            return this.azureDomains.get(0);
+        }
+
+        /**
+         * Gets the access information of every Azure DNS Zone the zone is replicated to.
+         * @return an unmodifiable list of {@link AzureDomain}s, in configuration order.
+         */
+        public List<AzureDomain> getAzureDomains() {
+            return this.azureDomains;
+        }
+
+        /**
+         * Gets the resource identifiers of every Azure DNS Zone the zone is replicated to.
+         * @return the Azure resource identifiers, in configuration order.
+         */
+        public List<String> getAzureResourceIds() {
+            return this.azureDomains.stream().map(AzureDomain::getAzureResourceId).toList();
+        }
+
+        /**
+         * Sets the rules selecting and transforming the records replicated to Azure.
+         * @param recordRules the compiled {@link RecordRules}.
+         */
+        void setRecordRules(RecordRules recordRules) {
+            this.recordRules = recordRules;
+        }
+
+        /**
+         * Gets the rules selecting and transforming the records replicated to Azure.
+         * @return the compiled {@link RecordRules}, {@link RecordRules#NONE} if the zone has none.
+         */
+        public RecordRules getRecordRules() {
+            return this.recordRules;
         }
 
         /**
@@ -279,10 +831,17 @@ public final class DNSServerConfiguration {
          * Default Zone Transfer type to be used: IXFR, falls back to AXFR if not supported by target server.
          */
         public static final ZoneTransferType DEFAULT_ZONE_TRANSFER_TYPE = ZoneTransferType.IXFR;
+        /**
+         * Default maximum polling interval of adaptive polling.
+         */
+        public static final int DEFAULT_MAX_POLLING_INTERVAL = 60;
 
         private Collection<String> dnsServersIPs;
         private ZoneTransferType zoneTransfer;
         private int pollingInterval = 5;
+        private boolean adaptivePolling;
+        private int maxPollingInterval = DEFAULT_MAX_POLLING_INTERVAL;
+        private String tsigKey;
 
         /**
          * Creates a DNSDomain object.
@@ -335,12 +894,72 @@ public final class DNSServerConfiguration {
         }
 
         /**
-         * Gets the applicable polling interval in minutes in case no NOTIFY is received from master.
+         * Gets the applicable polling interval in minutes in case no NOTIFY is received from master. With adaptive
+         * polling, this is the shortest interval used.
          * @return the applicable polling interval in minutes.
          */
         public int getPollingInterval() {
             return this.pollingInterval;
         }
+
+        /**
+         * Sets if the polling interval adapts to the SOA timers and the change rate of the zone.
+         * @param adaptivePolling true to enable adaptive polling.
+         */
+        void setAdaptivePolling(boolean adaptivePolling) {
+            this.adaptivePolling = adaptivePolling;
+        }
+
+        /**
+         * Checks if the polling interval adapts to the SOA timers and the change rate of the zone: it moves between
+         * {@link #getPollingInterval()} and {@link #getMaxPollingInterval()}, never beyond the SOA refresh.
+         * @return true if adaptive polling is enabled.
+         */
+        public boolean isAdaptivePolling() {
+            return this.adaptivePolling;
+        }
+
+        /**
+         * Sets the longest polling interval in minutes of adaptive polling.
+         * @param maxPollingInterval the maximum polling interval in minutes.
+         * @throws DNSServerConfigurationException If shorter than the polling interval.
+         */
+        void setMaxPollingInterval(int maxPollingInterval) throws DNSServerConfigurationException {
+            if (maxPollingInterval < this.pollingInterval) {
+                throw new DNSServerConfigurationException("max_polling_interval " + maxPollingInterval
+                    + " is shorter than polling_interval " + this.pollingInterval);
+            }
+            this.maxPollingInterval = maxPollingInterval;
+        }
+
+        /**
+         * Gets the longest polling interval in minutes of adaptive polling, used for zones which do not change.
+         * @return the maximum polling interval in minutes.
+         */
+        public int getMaxPollingInterval() {
+            return this.maxPollingInterval;
+        }
+
+        /**
+         * Sets the TSIG key signing the transfers and NOTIFY messages of the zone.
+         * @param tsigKey the name of a {@link TsigKey}, or null to use the key of the master server, if any.
+         * @throws DNSServerConfigurationException If no TSIG key has that name.
+         */
+        void setTsigKey(String tsigKey) throws DNSServerConfigurationException {
+            if (tsigKey != null && !DNSServerConfiguration.this.tsigKeys.containsKey(tsigKey)) {
+                logger.error("TSIG key not found: {}", tsigKey);
+                throw new DNSServerConfigurationException("TSIG key not found: " + tsigKey);
+            }
+            this.tsigKey = tsigKey;
+        }
+
+        /**
+         * Gets the TSIG key signing the transfers and NOTIFY messages of the zone, whatever the master server.
+         * @return the name of the {@link TsigKey}, or null if the zone uses the key of each master server.
+         */
+        public String getTsigKey() {
+            return this.tsigKey;
+        }
     }
 
     /**
@@ -351,6 +970,8 @@ public final class DNSServerConfiguration {
         private String azureSubscription;
         private String azureResourceGroup;
         private String azureServicePrincipal;
+        private boolean bulkSeeding;
+        private Set<String> subZoneNames = new TreeSet<String>();
 
         /**
          * Creates an AzureDomain, representing the Azure Zone to be synchronized with the non-Azure DNS.
@@ -399,6 +1020,51 @@ public final class DNSServerConfiguration {
         public String getAzureSubscription() {
             return this.azureSubscription;
         }
+
+        /**
+         * Enables or disables onboarding of an empty Azure DNS Zone with template deployments.
+         * @param bulkSeeding true to seed an empty Azure DNS Zone with template deployments.
+         */
+        void setBulkSeeding(boolean bulkSeeding) {
+            this.bulkSeeding = bulkSeeding;
+        }
+
+        /**
+         * Checks if an empty Azure DNS Zone must be seeded with template deployments instead of one request per
+         * record set.
+         * @return true if bulk seeding is enabled for this Azure DNS Zone.
+         */
+        public boolean isBulkSeeding() {
+            return this.bulkSeeding;
+        }
+
+        /**
+         * Records a zone nested in the zone replicated here and replicated into the same Azure DNS Zone.
+         * @param subZoneName the name of the sub-zone.
+         */
+        void addSubZoneName(String subZoneName) {
+            this.subZoneNames.add(subZoneName);
+        }
+
+        /**
+         * Gets the zones nested in the zone replicated here which are replicated into the same Azure DNS Zone.
+         * Their subtrees are owned by them, except their delegation records.
+         * @return the sorted, unmodifiable names of the sub-zones.
+         */
+        public Set<String> getSubZoneNames() {
+            return Collections.unmodifiableSet(this.subZoneNames);
+        }
+
+        /**
+         * Gets the Azure Resource Manager identifier of the Azure DNS Zone.
+         * Several {@link Zone}s may share the same identifier when they replicate into the same Azure DNS Zone.
+         * @return the ARM resource identifier, starting with /subscriptions/.
+         */
+        public String getAzureResourceId() {
+            return "/subscriptions/" + this.azureSubscription
+                + "/resourceGroups/" + this.azureResourceGroup
+                + "/providers/Microsoft.Network/dnsZones/" + this.azureZoneName;
+        }
     }
 
     /**
@@ -415,6 +1081,380 @@ public final class DNSServerConfiguration {
         AXFR
     }
 
+    /**
+     * Cluster mode Configuration: zones are split across the nodes sharing the same coordination backend.
+     */
+    public final class Cluster {
+        /**
+         * Default number of virtual nodes per node on the consistent hash ring.
+         */
+        public static final int DEFAULT_VIRTUAL_NODES = 128;
+        /**
+         * Default duration of node heartbeats and zone leases, in seconds.
+         */
+        public static final int DEFAULT_LEASE_SECONDS = 30;
+
+        private String nodeId;
+        private String leaseDirectory;
+        private int virtualNodes;
+        private int leaseSeconds;
+
+        /**
+         * Creates a Cluster object.
+         * @param nodeId the identifier of this node, or null to use the host name.
+         * @param leaseDirectory the directory shared by all nodes, holding heartbeats and zone leases.
+         * @param virtualNodes the number of virtual nodes per node on the consistent hash ring.
+         * @param leaseSeconds the duration of node heartbeats and zone leases, in seconds.
+         * @throws DNSServerConfigurationException if no nodeId is given and the host name cannot be resolved.
+         */
+        Cluster(String nodeId, String leaseDirectory, int virtualNodes, int leaseSeconds)
+            throws DNSServerConfigurationException {
+
+            setNodeId(nodeId);
+            this.leaseDirectory = leaseDirectory;
+            this.virtualNodes = virtualNodes;
+            this.leaseSeconds = leaseSeconds;
+        }
+
+        private void setNodeId(String newNodeId) throws DNSServerConfigurationException {
+            if (newNodeId != null) {
+                this.nodeId = newNodeId;
+                return;
+            }
+            try {
+                this.nodeId = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException uhe) {
+                logger.error("Cluster node_id is not set and host name cannot be resolved");
+                throw new DNSServerConfigurationException("Cluster node_id is not set", uhe);
+            }
+        }
+
+        /**
+         * Gets the identifier of this node, unique in the cluster.
+         * @return the node identifier.
+         */
+        public String getNodeId() {
+            return this.nodeId;
+        }
+
+        /**
+         * Gets the directory shared by all nodes, used by the file lock coordination backend.
+         * @return the shared directory path.
+         */
+        public String getLeaseDirectory() {
+            return this.leaseDirectory;
+        }
+
+        /**
+         * Gets the number of virtual nodes per node on the consistent hash ring.
+         * @return the number of virtual nodes.
+         */
+        public int getVirtualNodes() {
+            return this.virtualNodes;
+        }
+
+        /**
+         * Gets the duration of node heartbeats and zone leases.
+         * @return the lease duration in seconds.
+         */
+        public int getLeaseSeconds() {
+            return this.leaseSeconds;
+        }
+    }
+
+    /**
+     * Sync execution Configuration: how many zone sync jobs run at the same time and how they are shared
+     * between Azure subscriptions.
+     */
+    public final class Sync {
+        /**
+         * Default maximum number of zone sync jobs running at the same time.
+         */
+        public static final int DEFAULT_MAX_CONCURRENT_JOBS = 64;
+        /**
+         * Default weight of an Azure subscription when sharing the sync jobs.
+         */
+        public static final int DEFAULT_SUBSCRIPTION_WEIGHT = 1;
+        /**
+         * Default maximum number of zone transfers from the same master server at the same time.
+         */
+        public static final int DEFAULT_MAX_TRANSFERS_PER_MASTER = 2;
+        /**
+         * Default time in seconds an unused TCP connection to a master server is kept for reuse.
+         */
+        public static final int DEFAULT_MASTER_IDLE_TIMEOUT_SECONDS = 30;
+
+        private int maxConcurrentJobs;
+        private Map<String, Integer> subscriptionWeights;
+        private boolean adaptivePolling;
+        private int maxTransfersPerMaster = DEFAULT_MAX_TRANSFERS_PER_MASTER;
+        private Map<String, Integer> masterTransferLimits = Collections.emptyMap();
+        private int masterIdleTimeoutSeconds = DEFAULT_MASTER_IDLE_TIMEOUT_SECONDS;
+
+        /**
+         * Creates a Sync object.
+         * @param maxConcurrentJobs the maximum number of zone sync jobs running at the same time.
+         * @param subscriptionWeights the weight of each Azure subscription. Other subscriptions get
+         *        {@link #DEFAULT_SUBSCRIPTION_WEIGHT}.
+         */
+        Sync(int maxConcurrentJobs, Map<String, Integer> subscriptionWeights) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+            this.subscriptionWeights = subscriptionWeights;
+        }
+
+        /**
+         * Gets the maximum number of zone sync jobs running at the same time.
+         * @return the maximum number of concurrent jobs.
+         */
+        public int getMaxConcurrentJobs() {
+            return this.maxConcurrentJobs;
+        }
+
+        /**
+         * Gets the weights of the Azure subscriptions: a subscription with weight 2 gets twice the sync time of a
+         * subscription with weight 1 when both have pending jobs.
+         * @return an unmodifiable map of weights by subscription.
+         */
+        public Map<String, Integer> getSubscriptionWeights() {
+            return Collections.unmodifiableMap(this.subscriptionWeights);
+        }
+
+        /**
+         * Sets if zones use adaptive polling unless their configuration says otherwise.
+         * @param adaptivePolling true to enable adaptive polling by default.
+         */
+        void setAdaptivePolling(boolean adaptivePolling) {
+            this.adaptivePolling = adaptivePolling;
+        }
+
+        /**
+         * Checks if zones use adaptive polling unless their configuration says otherwise.
+         * @return true if adaptive polling is enabled by default.
+         */
+        public boolean isAdaptivePolling() {
+            return this.adaptivePolling;
+        }
+
+        /**
+         * Sets the maximum number of zone transfers from the same master server at the same time.
+         * @param maxTransfersPerMaster the maximum number of concurrent transfers per master server.
+         */
+        void setMaxTransfersPerMaster(int maxTransfersPerMaster) {
+            this.maxTransfersPerMaster = maxTransfersPerMaster;
+        }
+
+        /**
+         * Gets the maximum number of zone transfers from the same master server at the same time, counted across
+         * all the zones using that master server.
+         * @return the maximum number of concurrent transfers per master server.
+         */
+        public int getMaxTransfersPerMaster() {
+            return this.maxTransfersPerMaster;
+        }
+
+        /**
+         * Sets the maximum number of concurrent zone transfers of specific master servers.
+         * @param masterTransferLimits the maximum number of concurrent transfers by master server IP.
+         */
+        void setMasterTransferLimits(Map<String, Integer> masterTransferLimits) {
+            this.masterTransferLimits = masterTransferLimits;
+        }
+
+        /**
+         * Gets the maximum number of concurrent zone transfers of specific master servers. Other master servers
+         * get {@link #getMaxTransfersPerMaster()}.
+         * @return an unmodifiable map of limits by master server IP.
+         */
+        public Map<String, Integer> getMasterTransferLimits() {
+            return Collections.unmodifiableMap(this.masterTransferLimits);
+        }
+
+        /**
+         * Sets the time an unused TCP connection to a master server is kept for reuse.
+         * @param masterIdleTimeoutSeconds the idle timeout in seconds.
+         */
+        void setMasterIdleTimeoutSeconds(int masterIdleTimeoutSeconds) {
+            this.masterIdleTimeoutSeconds = masterIdleTimeoutSeconds;
+        }
+
+        /**
+         * Gets the time an unused TCP connection to a master server is kept for reuse by the next SOA query or
+         * zone transfer.
+         * @return the idle timeout in seconds.
+         */
+        public int getMasterIdleTimeoutSeconds() {
+            return this.masterIdleTimeoutSeconds;
+        }
+    }
+
+    /**
+     * Sync tracing Configuration: how many spans of the recent zone syncs are kept in memory, and which syncs are
+     * exported to disk.
+     */
+    public final class Tracing {
+        /**
+         * Default number of spans kept in memory.
+         */
+        public static final int DEFAULT_BUFFER_SPANS = 16384;
+        /**
+         * Default duration in seconds from which a zone sync is exported.
+         */
+        public static final int DEFAULT_EXPORT_THRESHOLD_SECONDS = 60;
+        /**
+         * Default duration in milliseconds from which a single Azure request gets its own span.
+         */
+        public static final int DEFAULT_SLOW_CALL_MILLIS = 1000;
+
+        private String directory;
+        private int bufferSpans;
+        private int exportThresholdSeconds;
+        private int slowCallMillis;
+
+        /**
+         * Creates a Tracing object.
+         * @param directory the directory the traces are exported to, or null to keep them in memory only.
+         * @param bufferSpans the number of spans kept in memory.
+         * @param exportThresholdSeconds the duration in seconds from which a zone sync is exported.
+         * @param slowCallMillis the duration in milliseconds from which a single Azure request gets its own span.
+         */
+        Tracing(String directory, int bufferSpans, int exportThresholdSeconds, int slowCallMillis) {
+            this.directory = directory;
+            this.bufferSpans = bufferSpans;
+            this.exportThresholdSeconds = exportThresholdSeconds;
+            this.slowCallMillis = slowCallMillis;
+        }
+
+        /**
+         * Gets the directory the traces are exported to.
+         * @return the directory path, or null if traces are only kept in memory.
+         */
+        public String getDirectory() {
+            return this.directory;
+        }
+
+        /**
+         * Gets the number of spans of the recent zone syncs kept in memory.
+         * @return the number of spans.
+         */
+        public int getBufferSpans() {
+            return this.bufferSpans;
+        }
+
+        /**
+         * Gets the duration from which the trace of a zone sync is exported to the directory.
+         * @return the duration in seconds, 0 to export every zone sync.
+         */
+        public int getExportThresholdSeconds() {
+            return this.exportThresholdSeconds;
+        }
+
+        /**
+         * Gets the duration from which a single Azure request gets its own span. Faster requests are only counted
+         * in the span of their batch.
+         * @return the duration in milliseconds.
+         */
+        public int getSlowCallMillis() {
+            return this.slowCallMillis;
+        }
+    }
+
+    /**
+     * Startup Configuration: where the zone versions are kept across restarts and how fast the zones are started.
+     */
+    public final class Startup {
+        /**
+         * Default number of zones started per second.
+         */
+        public static final int DEFAULT_ZONES_PER_SECOND = 50;
+
+        private String stateDirectory;
+        private int zonesPerSecond;
+
+        /**
+         * Creates a Startup object.
+         * @param stateDirectory the directory the zone versions are kept in, or null to transfer every zone again
+         *        after a restart.
+         * @param zonesPerSecond the number of zones started per second.
+         */
+        Startup(String stateDirectory, int zonesPerSecond) {
+            this.stateDirectory = stateDirectory;
+            this.zonesPerSecond = zonesPerSecond;
+        }
+
+        /**
+         * Gets the directory the last replicated version of each zone is kept in, and restored from at startup.
+         * @return the directory path, or null if zone versions are only kept in memory.
+         */
+        public String getStateDirectory() {
+            return this.stateDirectory;
+        }
+
+        /**
+         * Gets the number of zones started per second: restored, then polled. Zones receiving a NOTIFY are started
+         * at once.
+         * @return the number of zones started per second.
+         */
+        public int getZonesPerSecond() {
+            return this.zonesPerSecond;
+        }
+    }
+
+    /**
+     * Admin endpoint Configuration: the local HTTP endpoint operators use to sync, pause or resume zones and drain
+     * subscription queues. It only listens on a loopback address.
+     */
+    public final class Admin {
+        /**
+         * Default address the admin endpoint listens on.
+         */
+        public static final String DEFAULT_LISTEN_ON = "127.0.0.1";
+        /**
+         * Default TCP port of the admin endpoint.
+         */
+        public static final int DEFAULT_PORT = 8053;
+
+        private String listenOn;
+        private int port;
+
+        /**
+         * Creates an Admin object.
+         * @param listenOn the loopback address the admin endpoint listens on.
+         * @param port the TCP port of the admin endpoint.
+         * @throws DNSServerConfigurationException if the address is not a loopback address.
+         */
+        Admin(String listenOn, int port) throws DNSServerConfigurationException {
+            if (!InetAddressValidator.getInstance().isValid(listenOn)) {
+                throw new DNSServerConfigurationException("Admin listen_on must be an IP address: " + listenOn);
+            }
+            try {
+                if (!InetAddress.getByName(listenOn).isLoopbackAddress()) {
+                    logger.error("Admin endpoint cannot listen on {}: not a loopback address", listenOn);
+                    throw new DNSServerConfigurationException("Admin listen_on must be a loopback address");
+                }
+            } catch (UnknownHostException uhe) {
+                throw new DNSServerConfigurationException("Admin listen_on is invalid: " + listenOn, uhe);
+            }
+            this.listenOn = listenOn;
+            this.port = port;
+        }
+
+        /**
+         * Gets the loopback address the admin endpoint listens on.
+         * @return the IP address.
+         */
+        public String getListenOn() {
+            return this.listenOn;
+        }
+
+        /**
+         * Gets the TCP port of the admin endpoint.
+         * @return the port.
+         */
+        public int getPort() {
+            return this.port;
+        }
+    }
+
     /**
      * Azure Credentials Configuration.
      */
@@ -472,4 +1512,81 @@ public final class DNSServerConfiguration {
         }
     }
 
+    /**
+     * TSIG key Configuration (RFC 8945): a secret shared with master servers to sign zone transfers and NOTIFY
+     * messages.
+     */
+    public final class TsigKey {
+        /**
+         * Default TSIG algorithm.
+         */
+        public static final String DEFAULT_ALGORITHM = "hmac-sha256";
+
+        private String name;
+        private String algorithm;
+        private byte[] secret;
+        private List<String> masters;
+
+        /**
+         * Creates a TsigKey object.
+         * @param name the key name, as known by the master servers.
+         * @param algorithm the TSIG algorithm name, such as hmac-sha256.
+         * @param secret the shared secret in base64.
+         * @param masters the master servers using this key for all their zones.
+         * @throws DNSServerConfigurationException If the secret is not base64 or a master is not an IP address.
+         */
+        TsigKey(String name, String algorithm, String secret, Collection<String> masters)
+            throws DNSServerConfigurationException {
+
+            this.name = name;
+            this.algorithm = algorithm;
+            try {
+                this.secret = Base64.getDecoder().decode(secret);
+            } catch (IllegalArgumentException iae) {
+                logger.error("TSIG key {} secret is not valid base64", name);
+                throw new DNSServerConfigurationException("TSIG key " + name + " secret is not valid base64", iae);
+            }
+            InetAddressValidator ipAddressValidator = InetAddressValidator.getInstance();
+            for (String master : masters) {
+                if (!ipAddressValidator.isValid(master)) {
+                    logger.error("Invalid TSIG key master IP address: {}", master);
+                    throw new DNSServerConfigurationException("Invalid TSIG key master IP address: " + master);
+                }
+            }
+            this.masters = new ArrayList<String>(masters);
+        }
+
+        /**
+         * Gets the key name.
+         * @return the key name, as known by the master servers.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the TSIG algorithm.
+         * @return the TSIG algorithm name, such as hmac-sha256.
+         */
+        public String getAlgorithm() {
+            return this.algorithm;
+        }
+
+        /**
+         * Gets the shared secret.
+         * @return a copy of the decoded secret.
+         */
+        public byte[] getSecret() {
+            return this.secret.clone();
+        }
+
+        /**
+         * Gets the master servers using this key for the zones which do not name their own key.
+         * @return an unmodifiable list of master server IP addresses.
+         */
+        public List<String> getMasters() {
+            return Collections.unmodifiableList(this.masters);
+        }
+    }
+
 }
@@ -11,9 +11,11 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 
+import net.ccscript.axfr4azuredns.rules.RecordRule;
+import net.ccscript.axfr4azuredns.rules.RecordRule.Action;
+import net.ccscript.axfr4azuredns.rules.RecordRules;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.DNSDomain;
-import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.ZoneTransferType;
 
@@ -31,9 +33,16 @@ public class DNSServerConfigurationDeserializer implements
         DNSServerConfiguration dnsConfiguration = new DNSServerConfiguration();
 
         try {
-            deserializeServers(jsonObject, dnsConfiguration);
+            ServerConfigurationDeserializer.deserializeServers(jsonObject, dnsConfiguration);
             deserializeAzureCredentials(jsonObject, dnsConfiguration);
+            TsigConfigurationDeserializer.deserializeTsigKeys(jsonObject, dnsConfiguration);
+            // The sync section holds the defaults of the zones
+            SyncConfigurationDeserializer.deserializeSync(jsonObject, dnsConfiguration);
             deserializeZones(jsonObject, dnsConfiguration);
+            ClusterConfigurationDeserializer.deserializeCluster(jsonObject, dnsConfiguration);
+            TracingConfigurationDeserializer.deserializeTracing(jsonObject, dnsConfiguration);
+            StartupConfigurationDeserializer.deserializeStartup(jsonObject, dnsConfiguration);
+            AdminConfigurationDeserializer.deserializeAdmin(jsonObject, dnsConfiguration);
         } catch (DNSServerConfigurationException dsce) {
             throw new JsonParseException(dsce);
         }
@@ -41,44 +50,6 @@ public class DNSServerConfigurationDeserializer implements
         return dnsConfiguration;
     }
 
-    /**
-     * Deserializes the "servers" section from the jsonConfiguration and adds them to the dnsConfiguration.
-     * @param jsonConfiguration the root JSON configuration object
-     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
-     * @throws JsonParseException If the JSON is not in correct format
-     * @throws DNSServerConfigurationException If one of the values is not valid configuration type.
-     */
-    private void deserializeServers(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration)
-        throws JsonParseException, DNSServerConfigurationException {
-
-        JsonArray serversJsonArray = jsonConfiguration.get("servers").getAsJsonArray();
-
-        for (JsonElement serverElement : serversJsonArray) {
-            DNSServerConfiguration.Server serverConfiguration = null;
-            JsonObject serverObject = serverElement.getAsJsonObject();
-
-            String listenOn = serverObject.get("listen_on").getAsString();
-
-            if (serverObject.has("tcp_port")) {
-                int tcpPort = serverObject.get("tcp_port").getAsInt();
-
-                if (serverObject.has("udp_port")) {
-                    int udpPort = serverObject.get("udp_port").getAsInt();
-
-                    serverConfiguration = dnsConfiguration.new Server(listenOn, tcpPort, udpPort);
-                } else {
-                    serverConfiguration = dnsConfiguration.new Server(listenOn, tcpPort, Server.DEFAULT_UDP_PORT);
-                }
-            } else {
-                serverConfiguration = dnsConfiguration.new Server(listenOn,
-                    Server.DEFAULT_TCP_PORT, Server.DEFAULT_UDP_PORT);
-            }
-
-            dnsConfiguration.addServer(serverConfiguration);
-        }
-
-    }
-
     /**
      * Deserializes the "zones" section from the jsonConfiguration and adds them to the dnsConfiguration.
      * @param jsonConfiguration the root JSON configuration object
@@ -97,15 +68,59 @@ public class DNSServerConfigurationDeserializer implements
             JsonObject dnsObject = domainObject.get("dns").getAsJsonObject();
             DNSDomain dnsDomain = deserializeDNSDomain(dnsObject, dnsConfiguration);
 
-            // Load the "azure" subsection
-            JsonObject azureDnsObject = domainObject.get("azure").getAsJsonObject();
-            AzureDomain azureDomain = deserializeAzureDomain(azureDnsObject, dnsConfiguration);
+            // Load the "azure" subsection: a single Azure DNS Zone or an array of them
+            List<AzureDomain> azureDomains = new ArrayList<AzureDomain>();
+            for (JsonElement azureDnsObject : asArray(domainObject.get("azure"))) {
+                azureDomains.add(deserializeAzureDomain(azureDnsObject.getAsJsonObject(), dnsConfiguration));
+            }
 
-            Zone domain = dnsConfiguration.new Zone(zoneName, dnsDomain, azureDomain);
+            Zone domain = dnsConfiguration.new Zone(zoneName, dnsDomain, azureDomains);
+            if (domainObject.has("record_rules")) {
+                domain.setRecordRules(deserializeRecordRules(domainObject.get("record_rules").getAsJsonArray()));
+            }
             dnsConfiguration.addZone(domain);
         }
     }
 
+    private static JsonArray asArray(JsonElement element) {
+        if (element.isJsonArray()) {
+            return element.getAsJsonArray();
+        }
+        JsonArray array = new JsonArray();
+        array.add(element);
+        return array;
+    }
+
+    /**
+     * Deserializes the "record_rules" subsection of a zone and compiles it.
+     * @param rulesArray the JSON array of rules, in the order they apply.
+     * @return the compiled {@link RecordRules}.
+     * @throws DNSServerConfigurationException If a rule is not valid.
+     */
+    private static RecordRules deserializeRecordRules(JsonArray rulesArray) throws DNSServerConfigurationException {
+        List<RecordRule> rules = new ArrayList<RecordRule>();
+        for (JsonElement ruleElement : rulesArray) {
+            JsonObject ruleObject = ruleElement.getAsJsonObject();
+            List<String> types = new ArrayList<String>();
+            if (ruleObject.has("types")) {
+                for (JsonElement typeElement : ruleObject.get("types").getAsJsonArray()) {
+                    types.add(typeElement.getAsString());
+                }
+            }
+            RecordRule rule = new RecordRule(JsonValues.getString(ruleObject, "name", null), types,
+                Action.valueOf(JsonValues.getString(ruleObject, "action", "include").toUpperCase()));
+            if (ruleObject.has("ttl")) {
+                rule.setTtl(ruleObject.get("ttl").getAsLong());
+            }
+            if (ruleObject.has("rewrite_target")) {
+                JsonObject rewriteObject = ruleObject.get("rewrite_target").getAsJsonObject();
+                rule.setRewriteTarget(rewriteObject.get("from").getAsString(), rewriteObject.get("to").getAsString());
+            }
+            rules.add(rule);
+        }
+        return new RecordRules(rules);
+    }
+
     private DNSDomain deserializeDNSDomain(JsonObject dnsObject, DNSServerConfiguration dnsConfiguration)
         throws JsonParseException, DNSServerConfigurationException {
 
@@ -127,7 +142,13 @@ public class DNSServerConfigurationDeserializer implements
             pollingInterval = dnsObject.get("polling_interval").getAsInt();
         }
 
-        return dnsConfiguration.new DNSDomain(masters, transferType, pollingInterval);
+        DNSDomain dnsDomain = dnsConfiguration.new DNSDomain(masters, transferType, pollingInterval);
+        dnsDomain.setAdaptivePolling(JsonValues.getBoolean(dnsObject, "adaptive_polling",
+            dnsConfiguration.getSync().isAdaptivePolling()));
+        dnsDomain.setMaxPollingInterval(
+            JsonValues.getInt(dnsObject, "max_polling_interval", DNSDomain.DEFAULT_MAX_POLLING_INTERVAL));
+        dnsDomain.setTsigKey(JsonValues.getString(dnsObject, "tsig_key", null));
+        return dnsDomain;
     }
 
     private AzureDomain deserializeAzureDomain(JsonObject azureDnsObject, DNSServerConfiguration dnsConfiguration)
@@ -138,8 +159,10 @@ public class DNSServerConfigurationDeserializer implements
         String azureSubscription = azureDnsObject.get("subscription").getAsString();
         String azureServicePrincipal = azureDnsObject.get("service_principal").getAsString();
 
-        return dnsConfiguration.new AzureDomain(azureZoneName, azureSubscription,
+        AzureDomain azureDomain = dnsConfiguration.new AzureDomain(azureZoneName, azureSubscription,
             azureResourceGroup, azureServicePrincipal);
+        azureDomain.setBulkSeeding(JsonValues.getBoolean(azureDnsObject, "bulk_seeding", false));
+        return azureDomain;
     }
 
     /**
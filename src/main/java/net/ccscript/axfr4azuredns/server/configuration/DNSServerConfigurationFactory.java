@@ -27,6 +27,25 @@ public final class DNSServerConfigurationFactory {
     private DNSServerConfigurationFactory() {
     }
 
+    /**
+     * Loads the configuration file of the server.
+     * @param configurationFilePath the path of the JSON configuration file.
+     * @return the deserialized {@link DNSServerConfiguration}.
+     * @throws DNSServerConfigurationException if the file or the schema cannot be read, or the configuration is not
+     *         valid.
+     */
+    public static DNSServerConfiguration loadConfigurationFile(String configurationFilePath)
+        throws DNSServerConfigurationException {
+
+        try {
+            return createDNSServerConfigurationFromFile(configurationFilePath);
+        } catch (FileNotFoundException e) {
+            throw new DNSServerConfigurationException("Configuration file could not be found", e);
+        } catch (IOException e) {
+            throw new DNSServerConfigurationException("Error reading schema or configuration", e);
+        }
+    }
+
     public static DNSServerConfiguration createDNSServerConfigurationFromFile(String configurationFilePath)
         throws FileNotFoundException, IOException, DNSServerConfigurationException {
 
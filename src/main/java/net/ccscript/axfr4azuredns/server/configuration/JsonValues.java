@@ -0,0 +1,46 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Reads optional configuration values, falling back to their default when absent.
+ */
+final class JsonValues {
+
+    private JsonValues() {
+    }
+
+    /**
+     * Gets an optional integer property.
+     * @param jsonObject the JSON object holding the property.
+     * @param property the property name.
+     * @param defaultValue the value returned if the property is absent.
+     * @return the property value, or defaultValue if absent.
+     */
+    static int getInt(JsonObject jsonObject, String property, int defaultValue) {
+        return jsonObject.has(property) ? jsonObject.get(property).getAsInt() : defaultValue;
+    }
+
+    /**
+     * Gets an optional boolean property.
+     * @param jsonObject the JSON object holding the property.
+     * @param property the property name.
+     * @param defaultValue the value returned if the property is absent.
+     * @return the property value, or defaultValue if absent.
+     */
+    static boolean getBoolean(JsonObject jsonObject, String property, boolean defaultValue) {
+        return jsonObject.has(property) ? jsonObject.get(property).getAsBoolean() : defaultValue;
+    }
+
+    /**
+     * Gets an optional string property.
+     * @param jsonObject the JSON object holding the property.
+     * @param property the property name.
+     * @param defaultValue the value returned if the property is absent.
+     * @return the property value, or defaultValue if absent.
+     */
+    static String getString(JsonObject jsonObject, String property, String defaultValue) {
+        return jsonObject.has(property) ? jsonObject.get(property).getAsString() : defaultValue;
+    }
+
+}
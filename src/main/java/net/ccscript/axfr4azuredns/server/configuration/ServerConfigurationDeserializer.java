@@ -0,0 +1,88 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.RateLimit;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Tcp;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Tls;
+
+/**
+ * Deserializes the "servers" section of the configuration.
+ */
+final class ServerConfigurationDeserializer {
+
+    private ServerConfigurationDeserializer() {
+    }
+
+    /**
+     * Deserializes the "servers" section from the jsonConfiguration and adds them to the dnsConfiguration.
+     * @param jsonConfiguration the root JSON configuration object
+     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
+     * @throws JsonParseException If the JSON is not in correct format
+     * @throws DNSServerConfigurationException If one of the values is not valid configuration type.
+     */
+    static void deserializeServers(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration)
+        throws JsonParseException, DNSServerConfigurationException {
+
+        JsonArray serversJsonArray = jsonConfiguration.get("servers").getAsJsonArray();
+
+        for (JsonElement serverElement : serversJsonArray) {
+            JsonObject serverObject = serverElement.getAsJsonObject();
+
+            // udp_port is only read along with tcp_port
+            String listenOn = serverObject.get("listen_on").getAsString();
+            int tcpPort = JsonValues.getInt(serverObject, "tcp_port", Server.DEFAULT_TCP_PORT);
+            int udpPort = Server.DEFAULT_UDP_PORT;
+            if (serverObject.has("tcp_port")) {
+                udpPort = JsonValues.getInt(serverObject, "udp_port", Server.DEFAULT_UDP_PORT);
+            }
+
+            Server serverConfiguration = dnsConfiguration.new Server(listenOn, tcpPort, udpPort);
+            serverConfiguration.setUdpSockets(
+                JsonValues.getInt(serverObject, "udp_sockets", Server.DEFAULT_UDP_SOCKETS));
+            serverConfiguration.setEdnsUdpPayload(
+                JsonValues.getInt(serverObject, "edns_udp_payload", Server.DEFAULT_EDNS_UDP_PAYLOAD));
+            if (serverObject.has("tcp")) {
+                serverConfiguration.setTcp(deserializeTcp(serverObject.get("tcp").getAsJsonObject(), dnsConfiguration));
+            }
+            if (serverObject.has("rate_limit")) {
+                serverConfiguration.setRateLimit(
+                    deserializeRateLimit(serverObject.get("rate_limit").getAsJsonObject(), dnsConfiguration));
+            }
+
+            dnsConfiguration.addServer(serverConfiguration);
+        }
+    }
+
+    private static Tcp deserializeTcp(JsonObject tcpObject, DNSServerConfiguration dnsConfiguration) {
+        Tcp tcp = dnsConfiguration.new Tcp(
+            JsonValues.getInt(tcpObject, "idle_timeout", Tcp.DEFAULT_IDLE_TIMEOUT_SECONDS),
+            JsonValues.getInt(tcpObject, "pipeline_depth", Tcp.DEFAULT_PIPELINE_DEPTH));
+        if (tcpObject.has("tls")) {
+            JsonObject tlsObject = tcpObject.get("tls").getAsJsonObject();
+            tcp.setTls(dnsConfiguration.new Tls(tlsObject.get("certificate_file").getAsString(),
+                tlsObject.get("private_key_file").getAsString(),
+                JsonValues.getInt(tlsObject, "session_timeout", Tls.DEFAULT_SESSION_TIMEOUT_SECONDS),
+                JsonValues.getInt(tlsObject, "session_cache_size", Tls.DEFAULT_SESSION_CACHE_SIZE)));
+        }
+        return tcp;
+    }
+
+    private static RateLimit deserializeRateLimit(JsonObject rateLimitObject,
+        DNSServerConfiguration dnsConfiguration) {
+
+        int responsesPerSecond = rateLimitObject.get("responses_per_second").getAsInt();
+        return dnsConfiguration.new RateLimit(responsesPerSecond,
+            JsonValues.getInt(rateLimitObject, "nxdomains_per_second", responsesPerSecond),
+            JsonValues.getInt(rateLimitObject, "errors_per_second", RateLimit.DEFAULT_ERRORS_PER_SECOND),
+            JsonValues.getInt(rateLimitObject, "slip", RateLimit.DEFAULT_SLIP),
+            JsonValues.getInt(rateLimitObject, "ipv4_prefix_length", RateLimit.DEFAULT_IPV4_PREFIX_LENGTH),
+            JsonValues.getInt(rateLimitObject, "ipv6_prefix_length", RateLimit.DEFAULT_IPV6_PREFIX_LENGTH),
+            JsonValues.getInt(rateLimitObject, "table_size", RateLimit.DEFAULT_TABLE_SIZE));
+    }
+
+}
@@ -0,0 +1,32 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Startup;
+
+/**
+ * Deserializes the optional "startup" section of the configuration.
+ */
+final class StartupConfigurationDeserializer {
+
+    private StartupConfigurationDeserializer() {
+    }
+
+    /**
+     * Deserializes the "startup" section from the jsonConfiguration, if present, and sets it in the dnsConfiguration.
+     * @param jsonConfiguration the root JSON configuration object
+     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
+     */
+    static void deserializeStartup(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration) {
+        if (!jsonConfiguration.has("startup")) {
+            return;
+        }
+        JsonObject startupObject = jsonConfiguration.get("startup").getAsJsonObject();
+
+        Startup startup = dnsConfiguration.new Startup(
+            JsonValues.getString(startupObject, "state_directory", null),
+            JsonValues.getInt(startupObject, "zones_per_second", Startup.DEFAULT_ZONES_PER_SECOND));
+        dnsConfiguration.setStartup(startup);
+    }
+
+}
@@ -0,0 +1,58 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Sync;
+
+/**
+ * Deserializes the optional "sync" section of the configuration.
+ */
+final class SyncConfigurationDeserializer {
+
+    private SyncConfigurationDeserializer() {
+    }
+
+    /**
+     * Deserializes the "sync" section from the jsonConfiguration, if present, and sets it in the dnsConfiguration.
+     * @param jsonConfiguration the root JSON configuration object
+     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
+     */
+    static void deserializeSync(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration) {
+        if (!jsonConfiguration.has("sync")) {
+            return;
+        }
+        JsonObject syncObject = jsonConfiguration.get("sync").getAsJsonObject();
+
+        Sync sync = dnsConfiguration.new Sync(
+            JsonValues.getInt(syncObject, "max_concurrent_jobs", Sync.DEFAULT_MAX_CONCURRENT_JOBS),
+            deserializeIntegers(syncObject, "subscription_weights"));
+        sync.setAdaptivePolling(JsonValues.getBoolean(syncObject, "adaptive_polling", false));
+        sync.setMaxTransfersPerMaster(
+            JsonValues.getInt(syncObject, "max_transfers_per_master", Sync.DEFAULT_MAX_TRANSFERS_PER_MASTER));
+        sync.setMasterTransferLimits(deserializeIntegers(syncObject, "master_transfer_limits"));
+        sync.setMasterIdleTimeoutSeconds(
+            JsonValues.getInt(syncObject, "master_idle_timeout", Sync.DEFAULT_MASTER_IDLE_TIMEOUT_SECONDS));
+        dnsConfiguration.setSync(sync);
+    }
+
+    /**
+     * Deserializes an optional object of integers keyed by name, such as the subscription weights.
+     * @param syncObject the "sync" JSON object
+     * @param property the name of the object property
+     * @return the integers by name, empty if the property is absent.
+     */
+    private static Map<String, Integer> deserializeIntegers(JsonObject syncObject, String property) {
+        Map<String, Integer> integers = new HashMap<String, Integer>();
+        if (syncObject.has(property)) {
+            for (Map.Entry<String, JsonElement> entry : syncObject.get(property).getAsJsonObject().entrySet()) {
+                integers.put(entry.getKey(), entry.getValue().getAsInt());
+            }
+        }
+        return integers;
+    }
+
+}
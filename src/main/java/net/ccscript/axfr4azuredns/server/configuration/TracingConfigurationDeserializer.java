@@ -0,0 +1,34 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Tracing;
+
+/**
+ * Deserializes the optional "tracing" section of the configuration.
+ */
+final class TracingConfigurationDeserializer {
+
+    private TracingConfigurationDeserializer() {
+    }
+
+    /**
+     * Deserializes the "tracing" section from the jsonConfiguration, if present, and sets it in the dnsConfiguration.
+     * @param jsonConfiguration the root JSON configuration object
+     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
+     */
+    static void deserializeTracing(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration) {
+        if (!jsonConfiguration.has("tracing")) {
+            return;
+        }
+        JsonObject tracingObject = jsonConfiguration.get("tracing").getAsJsonObject();
+
+        Tracing tracing = dnsConfiguration.new Tracing(
+            JsonValues.getString(tracingObject, "directory", null),
+            JsonValues.getInt(tracingObject, "buffer_spans", Tracing.DEFAULT_BUFFER_SPANS),
+            JsonValues.getInt(tracingObject, "export_threshold", Tracing.DEFAULT_EXPORT_THRESHOLD_SECONDS),
+            JsonValues.getInt(tracingObject, "slow_call_threshold", Tracing.DEFAULT_SLOW_CALL_MILLIS));
+        dnsConfiguration.setTracing(tracing);
+    }
+
+}
@@ -0,0 +1,48 @@
+package net.ccscript.axfr4azuredns.server.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.TsigKey;
+
+/**
+ * Deserializes the optional "tsig_keys" section of the configuration.
+ */
+final class TsigConfigurationDeserializer {
+
+    private TsigConfigurationDeserializer() {
+    }
+
+    /**
+     * Deserializes the "tsig_keys" section from the jsonConfiguration, if present, and adds the keys to the
+     * dnsConfiguration.
+     * @param jsonConfiguration the root JSON configuration object
+     * @param dnsConfiguration the {@link DNSServerConfiguration} to be populated
+     * @throws DNSServerConfigurationException If one of the keys is not valid.
+     */
+    static void deserializeTsigKeys(JsonObject jsonConfiguration, DNSServerConfiguration dnsConfiguration)
+        throws DNSServerConfigurationException {
+
+        if (!jsonConfiguration.has("tsig_keys")) {
+            return;
+        }
+        for (JsonElement keyElement : jsonConfiguration.get("tsig_keys").getAsJsonArray()) {
+            JsonObject keyObject = keyElement.getAsJsonObject();
+            List<String> masters = new ArrayList<String>();
+            if (keyObject.has("masters")) {
+                for (JsonElement master : keyObject.get("masters").getAsJsonArray()) {
+                    masters.add(master.getAsString());
+                }
+            }
+            dnsConfiguration.addTsigKey(dnsConfiguration.new TsigKey(
+                keyObject.get("name").getAsString(),
+                JsonValues.getString(keyObject, "algorithm", TsigKey.DEFAULT_ALGORITHM),
+                keyObject.get("secret").getAsString(),
+                masters));
+        }
+    }
+
+}
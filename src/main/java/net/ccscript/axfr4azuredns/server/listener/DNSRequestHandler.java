@@ -0,0 +1,19 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Answers DNS requests received by the listeners. Implementations must be thread-safe: all the workers of all the
+ * listeners share the same handler.
+ */
+public interface DNSRequestHandler {
+
+    /**
+     * Answers a DNS request.
+     * @param request the request in wire format, between its position and its limit.
+     * @param context the {@link RequestContext} of the request.
+     * @return the response in wire format, truncated to fit the transport, or null if nothing must be sent back.
+     */
+    byte[] handle(ByteBuffer request, RequestContext context);
+
+}
@@ -0,0 +1,137 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Opcode;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Section;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+import net.ccscript.axfr4azuredns.zone.ZoneSnapshot;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+/**
+ * The {@link DNSRequestHandler} of the {@link net.ccscript.axfr4azuredns.server.DNSServer}. NOTIFY messages from
+ * the master servers of a configured zone, signed when a TSIG key applies, are acknowledged and passed to the
+ * notify listener. Standard queries are answered from the {@link ZoneStore}, through a {@link ResponseCache} of
+ * finished responses. Other requests are refused.
+ */
+public final class DNSServerRequestHandler implements DNSRequestHandler {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final NotifyResponder notifyResponder;
+    private final QueryResponder queryResponder;
+    private final ZoneStore zoneStore;
+    private final ResponseCache responseCache;
+
+    /**
+     * Creates a DNSServerRequestHandler.
+     * @param configuration the {@link DNSServerConfiguration} holding the zones and their master servers.
+     * @param keyring the {@link TsigKeyring} giving the key signing the NOTIFY messages of each zone and master.
+     * @param zoneStore the {@link ZoneStore} holding the zones the server answers queries for.
+     * @param notifyListener called with the {@link Zone} of every accepted NOTIFY.
+     */
+    public DNSServerRequestHandler(DNSServerConfiguration configuration, TsigKeyring keyring, ZoneStore zoneStore,
+        Consumer<Zone> notifyListener) {
+
+        this.notifyResponder = new NotifyResponder(configuration, keyring, notifyListener);
+        this.queryResponder = new QueryResponder(zoneStore);
+        this.zoneStore = zoneStore;
+        this.responseCache = new ResponseCache(ResponseCache.DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public byte[] handle(ByteBuffer request, RequestContext context) {
+        WireQuery wireQuery = WireQuery.parse(request, context);
+        byte[] cachedResponse = getCachedResponse(wireQuery, request);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
+
+        Message query = parse(request, context);
+        if (query == null) {
+            return null;
+        }
+        if (!EdnsSupport.isSupportedVersion(query)) {
+            return EdnsSupport.toWire(query, newResponse(query), context);
+        }
+        if (query.getHeader().getOpcode() == Opcode.NOTIFY) {
+            return this.notifyResponder.respond(request, query, context);
+        }
+        Message response = newResponse(query);
+        ZoneSnapshot snapshot = answer(query, response);
+        byte[] wire = EdnsSupport.toWire(query, response, context);
+        putCachedResponse(wireQuery, snapshot, wire);
+        return wire;
+    }
+
+    /**
+     * Gets the number of queries answered from the response cache.
+     * @return the cache hit count.
+     */
+    public long getCacheHits() {
+        return this.responseCache.getHits();
+    }
+
+    /**
+     * Gets the number of cacheable queries which were not answered from the response cache.
+     * @return the cache miss count.
+     */
+    public long getCacheMisses() {
+        return this.responseCache.getMisses();
+    }
+
+    /**
+     * Creates the response to a request, echoing its ID, opcode and question.
+     * @param query the request.
+     * @return the response.
+     */
+    static Message newResponse(Message query) {
+        Message response = new Message(query.getHeader().getID());
+        response.getHeader().setFlag(Flags.QR);
+        response.getHeader().setOpcode(query.getHeader().getOpcode());
+        if (query.getQuestion() != null) {
+            response.addRecord(query.getQuestion(), Section.QUESTION);
+        }
+        return response;
+    }
+
+    private byte[] getCachedResponse(WireQuery wireQuery, ByteBuffer request) {
+        return wireQuery == null ? null : this.responseCache.get(wireQuery, request, this.zoneStore);
+    }
+
+    private void putCachedResponse(WireQuery wireQuery, ZoneSnapshot snapshot, byte[] response) {
+        if (wireQuery != null && snapshot != null) {
+            this.responseCache.put(wireQuery, snapshot, response);
+        }
+    }
+
+    private static Message parse(ByteBuffer request, RequestContext context) {
+        Message query;
+        try {
+            query = new Message(request.duplicate());
+        } catch (IOException ioe) {
+            logger.debug("Malformed request from {} dropped", context.getClient());
+            return null;
+        }
+        return query.getHeader().getFlag(Flags.QR) ? null : query;
+    }
+
+    private ZoneSnapshot answer(Message query, Message response) {
+        if (query.getHeader().getOpcode() == Opcode.QUERY) {
+            return this.queryResponder.answer(query, response);
+        }
+        response.getHeader().setRcode(Rcode.REFUSED);
+        return null;
+    }
+
+}
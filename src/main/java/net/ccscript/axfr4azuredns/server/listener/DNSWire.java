@@ -0,0 +1,118 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes the few DNS header fields the listeners need, directly in wire format, so that the hot path
+ * does not parse whole messages.
+ */
+final class DNSWire {
+
+    /**
+     * Length of the DNS header.
+     */
+    static final int HEADER_LENGTH = 12;
+    /**
+     * Maximum length of a UDP response to a client which did not advertise a larger EDNS0 payload size.
+     */
+    static final int MAX_UDP_LENGTH = 512;
+
+    private static final int FLAGS_OFFSET = 2;
+    private static final int RCODE_OFFSET = 3;
+    private static final int QDCOUNT_OFFSET = 4;
+    private static final int ANCOUNT_OFFSET = 6;
+    private static final int NSCOUNT_OFFSET = 8;
+    private static final int ARCOUNT_OFFSET = 10;
+    private static final int RCODE_MASK = 0x0F;
+    private static final int OPCODE_AND_RD_MASK = 0x79;
+    private static final int QR_AND_TC = 0x82;
+    private static final int QR_AND_OPCODE_MASK = 0xF8;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int POINTER_MASK = 0xC0;
+    private static final int POINTER_LENGTH = 2;
+    private static final int TYPE_AND_CLASS_LENGTH = 4;
+
+    private DNSWire() {
+    }
+
+    /**
+     * Gets the response code of a response.
+     * @param response the response in wire format.
+     * @return the response code, without EDNS0 extended bits.
+     */
+    static int rcodeOf(byte[] response) {
+        return response.length > RCODE_OFFSET ? response[RCODE_OFFSET] & RCODE_MASK : 0;
+    }
+
+    /**
+     * Writes a truncated response to a request: the request header and question with the QR and TC flags set and
+     * no records, so that the client retries over TCP.
+     * @param request the request, from index 0 to its limit.
+     * @param response the buffer receiving the response, cleared first and flipped once written.
+     * @return false if the request is too malformed to be answered.
+     */
+    static boolean writeTruncated(ByteBuffer request, ByteBuffer response) {
+        int questionEnd = questionEnd(request);
+        if (questionEnd < 0) {
+            return false;
+        }
+
+        response.clear();
+        response.put(request.duplicate().position(0).limit(questionEnd));
+        response.put(FLAGS_OFFSET, (byte) (request.get(FLAGS_OFFSET) & OPCODE_AND_RD_MASK | QR_AND_TC));
+        response.put(RCODE_OFFSET, (byte) 0);
+        response.putShort(QDCOUNT_OFFSET, (short) (questionEnd > HEADER_LENGTH ? 1 : 0));
+        response.putShort(ANCOUNT_OFFSET, (short) 0);
+        response.putShort(NSCOUNT_OFFSET, (short) 0);
+        response.putShort(ARCOUNT_OFFSET, (short) 0);
+        response.flip();
+        return true;
+    }
+
+    /**
+     * Checks if a request is a standard query with a single question and no answer nor authority record.
+     * @param request the request, from index 0 to its limit.
+     * @return true if the request is such a query.
+     */
+    static boolean isStandardQuery(ByteBuffer request) {
+        if (request.limit() < DNSWire.HEADER_LENGTH || (request.get(FLAGS_OFFSET) & QR_AND_OPCODE_MASK) != 0) {
+            return false;
+        }
+        return request.getShort(QDCOUNT_OFFSET) == 1
+            && (request.getShort(ANCOUNT_OFFSET) | request.getShort(NSCOUNT_OFFSET)) == 0;
+    }
+
+    /**
+     * Finds the end of the question of a request. Only a single question is kept.
+     * @param request the request, from index 0 to its limit.
+     * @return the index following the question, the header length if there is no single question, or -1 if the
+     *         request is malformed.
+     */
+    private static int questionEnd(ByteBuffer request) {
+        if (request.limit() < HEADER_LENGTH) {
+            return -1;
+        }
+        if (request.getShort(QDCOUNT_OFFSET) != 1) {
+            return HEADER_LENGTH;
+        }
+        int nameEnd = nameEnd(request, HEADER_LENGTH);
+        return nameEnd < 0 || nameEnd + TYPE_AND_CLASS_LENGTH > request.limit()
+            ? -1 : nameEnd + TYPE_AND_CLASS_LENGTH;
+    }
+
+    private static int nameEnd(ByteBuffer request, int nameStart) {
+        int position = nameStart;
+        while (position < request.limit()) {
+            int labelLength = request.get(position) & BYTE_MASK;
+            if (labelLength == 0) {
+                return position + 1;
+            }
+            if ((labelLength & POINTER_MASK) == POINTER_MASK) {
+                return position + POINTER_LENGTH;
+            }
+            position += labelLength + 1;
+        }
+        return -1;
+    }
+
+}
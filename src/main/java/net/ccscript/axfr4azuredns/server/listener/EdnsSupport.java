@@ -0,0 +1,102 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xbill.DNS.EDNSOption;
+import org.xbill.DNS.ExtendedFlags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.OPTRecord;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TcpKeepaliveOption;
+
+/**
+ * EDNS0 (RFC 6891) handling of the responses: UDP responses use the payload size advertised by the client up to
+ * the server limit, and TCP clients asking for edns-tcp-keepalive (RFC 7828) are told how long idle connections
+ * stay open. The DO bit of the request is echoed (RFC 3225), and a request of an EDNS version other than 0 is
+ * answered with BADVERS.
+ */
+final class EdnsSupport {
+
+    // The upper 8 bits of a 12 bit rcode go in the OPT record, the lower 4 bits in the header
+    private static final int HEADER_RCODE_BITS = 4;
+    private static final int HEADER_RCODE_MASK = 0xF;
+
+    private EdnsSupport() {
+    }
+
+    /**
+     * Gets the maximum length of the response to a request.
+     * @param query the request.
+     * @param context the {@link RequestContext} of the request.
+     * @return the maximum response length, above which the response is truncated.
+     */
+    static int responseLimit(Message query, RequestContext context) {
+        OPTRecord opt = query.getOPT();
+        return responseLimit(opt == null ? 0 : opt.getPayloadSize(), context);
+    }
+
+    /**
+     * Gets the maximum length of the response to a request.
+     * @param clientPayloadSize the EDNS0 UDP payload size advertised by the client, 0 if the request has no OPT
+     *        record.
+     * @param context the {@link RequestContext} of the request.
+     * @return the maximum response length, above which the response is truncated.
+     */
+    static int responseLimit(int clientPayloadSize, RequestContext context) {
+        if (context.isStream()) {
+            return RequestContext.MAX_STREAM_LENGTH;
+        }
+        return Math.min(Math.max(DNSWire.MAX_UDP_LENGTH, clientPayloadSize), context.getUdpPayloadSize());
+    }
+
+    /**
+     * Checks whether the EDNS version of a request is supported.
+     * @param query the request.
+     * @return true if the request has no OPT record or an OPT record of version 0.
+     */
+    static boolean isSupportedVersion(Message query) {
+        OPTRecord opt = query.getOPT();
+        return opt == null || opt.getVersion() == 0;
+    }
+
+    /**
+     * Adds an OPT record to the response if the request had one, with the BADVERS extended rcode if the EDNS
+     * version of the request is not supported.
+     * @param query the request.
+     * @param response the response.
+     * @param context the {@link RequestContext} of the request.
+     */
+    static void addOpt(Message query, Message response, RequestContext context) {
+        OPTRecord opt = query.getOPT();
+        if (opt == null) {
+            return;
+        }
+
+        List<EDNSOption> options = new ArrayList<EDNSOption>();
+        if (context.isStream() && !opt.getOptions(EDNSOption.Code.TCP_KEEPALIVE).isEmpty()) {
+            options.add(new TcpKeepaliveOption(context.getIdleTimeout()));
+        }
+        int extendedRcode = 0;
+        if (!isSupportedVersion(query)) {
+            response.getHeader().setRcode(Rcode.BADVERS & HEADER_RCODE_MASK);
+            extendedRcode = Rcode.BADVERS >>> HEADER_RCODE_BITS;
+        }
+        response.addRecord(new OPTRecord(context.getUdpPayloadSize(), extendedRcode, 0,
+            opt.getFlags() & ExtendedFlags.DO, options), Section.ADDITIONAL);
+    }
+
+    /**
+     * Encodes a response, with an OPT record if the request had one, truncated to the response limit.
+     * @param query the request.
+     * @param response the response.
+     * @param context the {@link RequestContext} of the request.
+     * @return the response in wire format.
+     */
+    static byte[] toWire(Message query, Message response, RequestContext context) {
+        addOpt(query, response, context);
+        return response.toWire(responseLimit(query, context));
+    }
+
+}
@@ -0,0 +1,127 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+
+import net.ccscript.axfr4azuredns.logging.LogSampler;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.tsig.Tsig;
+import net.ccscript.axfr4azuredns.tsig.TsigException;
+import net.ccscript.axfr4azuredns.tsig.TsigExchange;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+
+/**
+ * Answers NOTIFY messages (RFC 1996): a NOTIFY from a master server of a configured zone is acknowledged and passed
+ * to the notify listener. When a TSIG key applies to the zone and master server, the NOTIFY must be signed with it
+ * and the response is signed too: an unsigned or badly signed NOTIFY is answered with NOTAUTH.
+ */
+final class NotifyResponder {
+
+    private static final int NOTIFY_LOGS_PER_SECOND = 1;
+    private static final int REFUSED_LOGS_PER_SECOND = 5;
+
+    private static Logger logger = LogManager.getLogger();
+    private static final LogSampler NOTIFY_LOGS = new LogSampler(NOTIFY_LOGS_PER_SECOND);
+    private static final LogSampler REFUSED_LOGS = new LogSampler(REFUSED_LOGS_PER_SECOND);
+
+    private final DNSServerConfiguration configuration;
+    private final TsigKeyring keyring;
+    private final Consumer<Zone> notifyListener;
+
+    /**
+     * Creates a NotifyResponder.
+     * @param configuration the {@link DNSServerConfiguration} holding the zones and their master servers.
+     * @param keyring the {@link TsigKeyring} giving the key signing the messages of each zone and master server.
+     * @param notifyListener called with the {@link Zone} of every accepted NOTIFY.
+     */
+    NotifyResponder(DNSServerConfiguration configuration, TsigKeyring keyring, Consumer<Zone> notifyListener) {
+        this.configuration = configuration;
+        this.keyring = keyring;
+        this.notifyListener = notifyListener;
+    }
+
+    /**
+     * Answers a NOTIFY.
+     * @param wire the NOTIFY message, from index 0 to its limit.
+     * @param query the parsed NOTIFY message.
+     * @param context the {@link RequestContext} of the NOTIFY.
+     * @return the response in wire format, signed if the NOTIFY was.
+     */
+    byte[] respond(ByteBuffer wire, Message query, RequestContext context) {
+        Message response = DNSServerRequestHandler.newResponse(query);
+        InetSocketAddress client = context.getClient();
+        Zone zone = findZone(query);
+        TsigExchange exchange = null;
+        try {
+            exchange = zone == null ? null : authenticate(zone, client.getAddress(), wire, query);
+            response.getHeader().setRcode(accept(zone, client, response));
+        } catch (TsigException te) {
+            REFUSED_LOGS.log(logger, Level.WARN, zone.getZoneName(), "NOTIFY for zone {} from {} refused: {}",
+                zone.getZoneName(), client, te.getMessage());
+            response.getHeader().setRcode(Rcode.NOTAUTH);
+        }
+        byte[] responseWire = EdnsSupport.toWire(query, response, context);
+        return exchange == null ? responseWire : exchange.signResponse(responseWire);
+    }
+
+    private Zone findZone(Message query) {
+        Record question = query.getQuestion();
+        return question == null ? null
+            : this.configuration.getZoneByName(question.getName().toString(true).toLowerCase());
+    }
+
+    private TsigExchange authenticate(Zone zone, InetAddress client, ByteBuffer wire, Message query)
+        throws TsigException {
+
+        Tsig tsig = this.keyring.forMaster(zone, client);
+        if (tsig == null) {
+            return null;
+        }
+        TsigExchange exchange = tsig.newExchange();
+        exchange.verifyRequest(wire, query);
+        return exchange;
+    }
+
+    private int accept(Zone zone, InetSocketAddress client, Message response) {
+        if (zone == null) {
+            return Rcode.NOTAUTH;
+        }
+        if (!isMaster(zone, client.getAddress())) {
+            REFUSED_LOGS.log(logger, Level.WARN, zone.getZoneName(),
+                "NOTIFY for zone {} from {} refused: not a master server", zone.getZoneName(), client);
+            return Rcode.REFUSED;
+        }
+
+        NOTIFY_LOGS.log(logger, Level.INFO, zone.getZoneName(), "NOTIFY for zone {} received from {}",
+            zone.getZoneName(), client);
+        response.getHeader().setFlag(Flags.AA);
+        this.notifyListener.accept(zone);
+        return Rcode.NOERROR;
+    }
+
+    private static boolean isMaster(Zone zone, InetAddress address) {
+        for (String master : zone.getDnsDomainConfiguration().getDnsServersIPs()) {
+            try {
+                if (InetAddress.getByName(master).equals(address)) {
+                    return true;
+                }
+            } catch (UnknownHostException uhe) {
+                logger.warn("Master server {} of zone {} is not a valid address", master, zone.getZoneName());
+            }
+        }
+        return false;
+    }
+
+}
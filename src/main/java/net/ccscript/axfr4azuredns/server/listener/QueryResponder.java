@@ -0,0 +1,75 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.RRset;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SetResponse;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.zone.ZoneSnapshot;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+/**
+ * Answers standard queries from the {@link ZoneStore}. Queries for names outside the zones of the store, and zone
+ * transfer or meta queries, are refused.
+ */
+final class QueryResponder {
+
+    private final ZoneStore zoneStore;
+
+    /**
+     * Creates a QueryResponder.
+     * @param zoneStore the {@link ZoneStore} holding the zones the server answers for.
+     */
+    QueryResponder(ZoneStore zoneStore) {
+        this.zoneStore = zoneStore;
+    }
+
+    /**
+     * Answers a query.
+     * @param query the query.
+     * @param response the response, whose records and response code are set.
+     * @return the {@link ZoneSnapshot} the response was built from, or null if the query was refused.
+     */
+    ZoneSnapshot answer(Message query, Message response) {
+        Record question = query.getQuestion();
+        ZoneSnapshot snapshot = question == null || !Type.isRR(question.getType()) ? null
+            : this.zoneStore.find(question.getName());
+        if (snapshot == null) {
+            response.getHeader().setRcode(Rcode.REFUSED);
+            return null;
+        }
+
+        SetResponse lookup = snapshot.lookup(question.getName(), question.getType());
+        if (lookup.isDelegation()) {
+            addRRset(response, lookup.getNS(), Section.AUTHORITY);
+        } else {
+            response.getHeader().setFlag(Flags.AA);
+            answerAuthoritatively(lookup, snapshot, response);
+        }
+        return snapshot;
+    }
+
+    private static void answerAuthoritatively(SetResponse lookup, ZoneSnapshot snapshot, Message response) {
+        if (lookup.isSuccessful()) {
+            for (RRset rrset : lookup.answers()) {
+                addRRset(response, rrset, Section.ANSWER);
+            }
+        } else if (lookup.isCNAME()) {
+            response.addRecord(lookup.getCNAME(), Section.ANSWER);
+        } else {
+            response.addRecord(snapshot.getZone().getSOA(), Section.AUTHORITY);
+            response.getHeader().setRcode(lookup.isNXDOMAIN() ? Rcode.NXDOMAIN : Rcode.NOERROR);
+        }
+    }
+
+    private static void addRRset(Message response, RRset rrset, int section) {
+        for (Record record : rrset.rrs(false)) {
+            response.addRecord(record, section);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Where a DNS request comes from and how its response is sent back.
+ */
+public final class RequestContext {
+    /**
+     * Maximum length of a DNS message over a stream transport.
+     */
+    public static final int MAX_STREAM_LENGTH = 65535;
+
+    private final InetSocketAddress client;
+    private final Transport transport;
+    private final int udpPayloadSize;
+    private final Duration idleTimeout;
+
+    /**
+     * Creates a RequestContext.
+     * @param client the address of the client.
+     * @param transport the {@link Transport} of the request.
+     * @param udpPayloadSize the largest EDNS0 UDP payload size of the server.
+     * @param idleTimeout the idle timeout of the connection, advertised with edns-tcp-keepalive; null over UDP.
+     */
+    public RequestContext(InetSocketAddress client, Transport transport, int udpPayloadSize, Duration idleTimeout) {
+
+        this.client = client;
+        this.transport = transport;
+        this.udpPayloadSize = udpPayloadSize;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public InetSocketAddress getClient() {
+        return this.client;
+    }
+
+    public Transport getTransport() {
+        return this.transport;
+    }
+
+    public int getUdpPayloadSize() {
+        return this.udpPayloadSize;
+    }
+
+    public Duration getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * Checks if the request was received over a stream transport, where responses are never truncated.
+     * @return true if the transport is not UDP.
+     */
+    public boolean isStream() {
+        return this.transport != Transport.UDP;
+    }
+
+}
@@ -0,0 +1,106 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.ccscript.axfr4azuredns.zone.ZoneSnapshot;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+/**
+ * A bounded cache of finished responses, in wire format, to the standard queries answered from the
+ * {@link ZoneStore}. A hit costs a {@link WireQuery} parse and a copy of the cached bytes, with only the message ID
+ * and the case of the question name patched: no message is decoded nor encoded.
+ * <p>
+ * Entries live in a fixed-size table indexed by the key hash, like the buckets of the
+ * {@link net.ccscript.axfr4azuredns.server.ratelimit.ResponseRateLimiter}: a new entry replaces the one sharing
+ * its slot, and lookups take no lock. Each entry remembers the {@link ZoneSnapshot} it was built from, and is
+ * discarded on the first lookup after the zone is swapped in the store.
+ */
+final class ResponseCache {
+
+    /**
+     * Default number of cached responses.
+     */
+    static final int DEFAULT_CAPACITY = 16384;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int indexMask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Creates a ResponseCache.
+     * @param capacity the number of cached responses, rounded up to a power of two.
+     */
+    ResponseCache(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<Entry>(tableSize);
+        this.indexMask = tableSize - 1;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Gets the cached response to a query.
+     * @param query the {@link WireQuery} of the request.
+     * @param request the request, from index 0 to its limit.
+     * @param zoneStore the {@link ZoneStore} holding the current zone snapshots.
+     * @return the response to the request, or null if it is not cached or its zone has been swapped since.
+     */
+    byte[] get(WireQuery query, ByteBuffer request, ZoneStore zoneStore) {
+        int index = query.getHash() & this.indexMask;
+        Entry entry = this.slots.get(index);
+        if (entry == null || !Arrays.equals(entry.key, query.getKey())) {
+            this.misses.increment();
+            return null;
+        }
+        if (zoneStore.get(entry.snapshot.getOrigin()) != entry.snapshot) {
+            this.slots.compareAndSet(index, entry, null);
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return query.patch(entry.response, request);
+    }
+
+    /**
+     * Caches the response to a query.
+     * @param query the {@link WireQuery} of the request.
+     * @param snapshot the {@link ZoneSnapshot} the response was built from.
+     * @param response the response in wire format, which must not be modified afterwards.
+     */
+    void put(WireQuery query, ZoneSnapshot snapshot, byte[] response) {
+        this.slots.set(query.getHash() & this.indexMask, new Entry(query.getKey(), snapshot, response));
+    }
+
+    /**
+     * Gets the number of requests answered from the cache.
+     * @return the hit count.
+     */
+    long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets the number of cacheable requests which were not answered from the cache.
+     * @return the miss count.
+     */
+    long getMisses() {
+        return this.misses.sum();
+    }
+
+    private static final class Entry {
+        private final byte[] key;
+        private final ZoneSnapshot snapshot;
+        private final byte[] response;
+
+        Entry(byte[] key, ZoneSnapshot snapshot, byte[] response) {
+            this.key = key;
+            this.snapshot = snapshot;
+            this.response = response;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+
+/**
+ * The listeners of all the configured {@link Server}s, started and closed together.
+ */
+public final class ServerListeners implements Closeable {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final List<Closeable> listeners;
+
+    /**
+     * Creates an empty ServerListeners.
+     */
+    public ServerListeners() {
+        this.listeners = new ArrayList<Closeable>();
+    }
+
+    /**
+     * Starts the listeners of the servers.
+     * @param servers the {@link Server} configurations.
+     * @param handler the {@link DNSRequestHandler} answering requests.
+     * @throws DNSServerConfigurationException if a server cannot listen on its address.
+     */
+    public synchronized void start(Collection<Server> servers, DNSRequestHandler handler)
+        throws DNSServerConfigurationException {
+
+        for (Server server : servers) {
+            TcpListener tcpListener = TcpListener.of(server, handler);
+            this.listeners.add(tcpListener);
+            startListener(tcpListener::start, "TCP", server);
+            if (server.isUdpEnabled()) {
+                UdpListener udpListener = UdpListener.of(server, handler);
+                this.listeners.add(udpListener);
+                startListener(udpListener::start, "UDP", server);
+            }
+        }
+    }
+
+    /**
+     * Closes all the listeners. Failures are logged.
+     */
+    @Override
+    public synchronized void close() {
+        for (Closeable listener : this.listeners) {
+            try {
+                listener.close();
+            } catch (IOException ioe) {
+                logger.warn("Listener could not be closed", ioe);
+            }
+        }
+        this.listeners.clear();
+    }
+
+    private static void startListener(ListenerStart listenerStart, String transport, Server server)
+        throws DNSServerConfigurationException {
+
+        try {
+            listenerStart.start();
+        } catch (IOException ioe) {
+            throw new DNSServerConfigurationException(
+                "Cannot listen on " + transport + " " + server.getListenOn(), ioe);
+        }
+    }
+
+    /**
+     * Starts a listener.
+     */
+    @FunctionalInterface
+    private interface ListenerStart {
+        void start() throws IOException;
+    }
+
+}
@@ -0,0 +1,114 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves one TCP connection of a {@link TcpListener} (RFC 7766). Requests are read as soon as they arrive and each
+ * is answered on its own virtual thread, so that responses are sent as soon as they are ready, possibly out of
+ * order. At most pipelineDepth requests are processed at the same time: further requests are not read until a
+ * response is sent. The connection is closed once no request has been received nor is pending for the idle timeout.
+ */
+final class TcpConnection implements Runnable, Closeable {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final Socket socket;
+    private final DNSRequestHandler handler;
+    private final RequestContext context;
+    private final int pipelineDepth;
+    private final Semaphore pipeline;
+    private DataOutputStream output;
+
+    /**
+     * Creates a TcpConnection.
+     * @param socket the connected {@link Socket}.
+     * @param handler the {@link DNSRequestHandler} answering requests.
+     * @param context the {@link RequestContext} shared by all the requests of the connection.
+     * @param pipelineDepth the number of requests processed at the same time.
+     */
+    TcpConnection(Socket socket, DNSRequestHandler handler, RequestContext context, int pipelineDepth) {
+        this.socket = socket;
+        this.handler = handler;
+        this.context = context;
+        this.pipelineDepth = pipelineDepth;
+        this.pipeline = new Semaphore(pipelineDepth);
+    }
+
+    @Override
+    public void run() {
+        try (Socket connection = this.socket) {
+            connection.setSoTimeout((int) this.context.getIdleTimeout().toMillis());
+            DataInputStream input = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            this.output = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            boolean open = true;
+            while (open) {
+                open = readRequest(input);
+            }
+        } catch (IOException ioe) {
+            logger.debug("TCP connection from {} closed: {}", this.context.getClient(), ioe.getMessage());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the connection: pending requests are dropped.
+     * @throws IOException if the socket could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.socket.close();
+    }
+
+    private boolean readRequest(DataInputStream input) throws IOException, InterruptedException {
+        int high;
+        try {
+            high = input.read();
+        } catch (SocketTimeoutException ste) {
+            return this.pipeline.availablePermits() < this.pipelineDepth;
+        }
+        if (high < 0) {
+            return false;
+        }
+
+        byte[] request = new byte[(high << Byte.SIZE) | input.readUnsignedByte()];
+        input.readFully(request);
+        this.pipeline.acquire();
+        Thread.ofVirtual().start(() -> respond(request));
+        return true;
+    }
+
+    private void respond(byte[] request) {
+        try {
+            byte[] response = this.handler.handle(ByteBuffer.wrap(request), this.context);
+            if (response != null) {
+                write(response);
+            }
+        } catch (IOException ioe) {
+            logger.debug("TCP response to {} could not be sent: {}", this.context.getClient(), ioe.getMessage());
+        } finally {
+            this.pipeline.release();
+        }
+    }
+
+    private void write(byte[] response) throws IOException {
+        synchronized (this.output) {
+            this.output.writeShort(response.length);
+            this.output.write(response);
+            this.output.flush();
+        }
+    }
+
+}
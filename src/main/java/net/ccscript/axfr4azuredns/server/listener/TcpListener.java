@@ -0,0 +1,152 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Tcp;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+
+/**
+ * Receives DNS requests over TCP, or DNS over TLS, on one address. Each connection is served by a
+ * {@link TcpConnection} on its own virtual thread, which processes pipelined requests concurrently and closes the
+ * connection once it has been idle for the configured timeout. With TLS, the handshake also runs on the connection
+ * thread, so that slow or resuming clients never delay the accept loop.
+ */
+public final class TcpListener implements Closeable {
+
+    private static final String[] TLS_PROTOCOLS = {"TLSv1.3", "TLSv1.2"};
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final InetSocketAddress address;
+    private final DNSRequestHandler handler;
+    private final int udpPayloadSize;
+    private final Duration idleTimeout;
+    private final int pipelineDepth;
+    private final SSLContext tlsContext;
+    private final Set<TcpConnection> connections;
+    private ServerSocket serverSocket;
+
+    /**
+     * Creates a TcpListener. Nothing is bound until {@link #start()}.
+     * @param address the address to listen on. Port 0 binds an ephemeral port.
+     * @param handler the {@link DNSRequestHandler} answering requests.
+     * @param udpPayloadSize the largest EDNS0 UDP payload size of the server, advertised in the OPT records.
+     * @param idleTimeout the time a connection without pending request stays open.
+     * @param pipelineDepth the number of requests of a connection processed at the same time.
+     * @param tlsContext the {@link SSLContext} serving DNS over TLS, or null to serve plain DNS over TCP.
+     */
+    public TcpListener(InetSocketAddress address, DNSRequestHandler handler, int udpPayloadSize, Duration idleTimeout,
+        int pipelineDepth, SSLContext tlsContext) {
+
+        this.address = address;
+        this.handler = handler;
+        this.udpPayloadSize = udpPayloadSize;
+        this.idleTimeout = idleTimeout;
+        this.pipelineDepth = pipelineDepth;
+        this.tlsContext = tlsContext;
+        this.connections = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Creates the TcpListener of a {@link Server} configuration.
+     * @param server the {@link Server} configuration.
+     * @param handler the {@link DNSRequestHandler} answering requests.
+     * @return the {@link TcpListener}.
+     * @throws DNSServerConfigurationException if the TLS certificate or private key cannot be loaded.
+     */
+    public static TcpListener of(Server server, DNSRequestHandler handler) throws DNSServerConfigurationException {
+        Tcp tcp = server.getTcp();
+        SSLContext tlsContext = tcp.isTlsEnabled() ? TlsContextFactory.create(tcp.getTls()) : null;
+        return new TcpListener(new InetSocketAddress(server.getListenOn(), server.getTcpPort()), handler,
+            server.getEdnsUdpPayload(), Duration.ofSeconds(tcp.getIdleTimeoutSeconds()), tcp.getPipelineDepth(),
+            tlsContext);
+    }
+
+    /**
+     * Binds the socket and starts accepting connections.
+     * @throws IOException if the socket could not be bound.
+     */
+    public synchronized void start() throws IOException {
+        this.serverSocket = this.tlsContext == null ? new ServerSocket() : createTlsServerSocket();
+        this.serverSocket.bind(this.address);
+        ServerSocket acceptingSocket = this.serverSocket;
+        Thread.ofVirtual().name("tcp-" + getLocalAddress()).start(() -> accept(acceptingSocket));
+        logger.info("Listening for {} requests on {}", getTransport(), getLocalAddress());
+    }
+
+    /**
+     * Gets the transport of the requests received by this listener.
+     * @return {@link Transport#TLS} for DNS over TLS, {@link Transport#TCP} otherwise.
+     */
+    public Transport getTransport() {
+        return this.tlsContext == null ? Transport.TCP : Transport.TLS;
+    }
+
+    /**
+     * Gets the address the socket is bound to.
+     * @return the bound address, with the actual port if an ephemeral port was requested.
+     */
+    public synchronized InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) this.serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Closes the socket and all the open connections.
+     * @throws IOException if the socket could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.serverSocket.close();
+        for (TcpConnection connection : this.connections) {
+            connection.close();
+        }
+    }
+
+    private ServerSocket createTlsServerSocket() throws IOException {
+        SSLServerSocket tlsSocket = (SSLServerSocket) this.tlsContext.getServerSocketFactory().createServerSocket();
+        tlsSocket.setEnabledProtocols(TLS_PROTOCOLS);
+        return tlsSocket;
+    }
+
+    private void accept(ServerSocket acceptingSocket) {
+        while (!acceptingSocket.isClosed()) {
+            try {
+                serve(acceptingSocket.accept());
+            } catch (SocketException se) {
+                return;
+            } catch (IOException ioe) {
+                logger.warn("TCP connection could not be accepted", ioe);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        RequestContext context = new RequestContext((InetSocketAddress) socket.getRemoteSocketAddress(),
+            getTransport(), this.udpPayloadSize, this.idleTimeout);
+        TcpConnection connection = new TcpConnection(socket, this.handler, context, this.pipelineDepth);
+        this.connections.add(connection);
+        Thread.ofVirtual().start(() -> {
+            try {
+                connection.run();
+            } finally {
+                this.connections.remove(connection);
+            }
+        });
+    }
+
+}
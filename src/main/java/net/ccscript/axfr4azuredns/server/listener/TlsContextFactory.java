@@ -0,0 +1,87 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.List;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Tls;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+
+/**
+ * Creates the {@link SSLContext} of a DNS over TLS listener from PEM files. The server session context keeps
+ * sessions for resumption; TLS 1.3 and TLS 1.2 clients supporting session tickets resume statelessly with the
+ * ticket they hold.
+ */
+final class TlsContextFactory {
+
+    private static final List<String> KEY_ALGORITHMS = List.of("EC", "RSA", "Ed25519");
+    private static final char[] KEY_PASSWORD = new char[0];
+
+    private TlsContextFactory() {
+    }
+
+    /**
+     * Creates the {@link SSLContext} of a {@link Tls} configuration.
+     * @param tls the {@link Tls} configuration.
+     * @return the initialized {@link SSLContext}.
+     * @throws DNSServerConfigurationException if the certificate or the private key cannot be loaded.
+     */
+    static SSLContext create(Tls tls) throws DNSServerConfigurationException {
+        try {
+            KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            keyStore.load(null, null);
+            keyStore.setKeyEntry("dot", readPrivateKey(Path.of(tls.getPrivateKeyFile())), KEY_PASSWORD,
+                readCertificates(Path.of(tls.getCertificateFile())));
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagers.init(keyStore, KEY_PASSWORD);
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keyManagers.getKeyManagers(), null, null);
+            SSLSessionContext sessions = context.getServerSessionContext();
+            sessions.setSessionTimeout(tls.getSessionTimeoutSeconds());
+            sessions.setSessionCacheSize(tls.getSessionCacheSize());
+            return context;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new DNSServerConfigurationException(
+                "TLS certificate or private key cannot be loaded: " + tls.getCertificateFile(), e);
+        }
+    }
+
+    private static Certificate[] readCertificates(Path certificateFile) throws IOException, GeneralSecurityException {
+        try (InputStream input = Files.newInputStream(certificateFile)) {
+            return CertificateFactory.getInstance("X.509").generateCertificates(input).toArray(new Certificate[0]);
+        }
+    }
+
+    private static PrivateKey readPrivateKey(Path privateKeyFile) throws IOException, GeneralSecurityException {
+        String pem = Files.readString(privateKeyFile, StandardCharsets.US_ASCII);
+        String base64 = pem.replaceAll("-----(BEGIN|END) PRIVATE KEY-----", "");
+        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(base64));
+
+        for (String algorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePrivate(keySpec);
+            } catch (InvalidKeySpecException ikse) {
+                continue;
+            }
+        }
+        throw new InvalidKeySpecException("Not an unencrypted PKCS#8 EC, RSA or Ed25519 private key");
+    }
+
+}
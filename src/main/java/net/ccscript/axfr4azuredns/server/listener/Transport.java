@@ -0,0 +1,19 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+/**
+ * The transports on which DNS requests are received.
+ */
+public enum Transport {
+    /**
+     * Plain UDP: responses are limited to the EDNS0 payload size advertised by the client.
+     */
+    UDP,
+    /**
+     * Plain TCP: responses are length-prefixed and may be pipelined.
+     */
+    TCP,
+    /**
+     * DNS over TLS (RFC 7858): TCP framing inside a TLS session.
+     */
+    TLS
+}
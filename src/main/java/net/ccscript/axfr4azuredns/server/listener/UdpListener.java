@@ -0,0 +1,122 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.ratelimit.ResponseRateLimiter;
+
+/**
+ * Receives DNS requests over UDP on one address. With several sockets, each socket is bound to the same address
+ * with SO_REUSEPORT and served by its own {@link UdpWorker} platform thread: the kernel spreads the clients across
+ * the sockets, so that intake scales with the number of cores instead of being capped by a single socket.
+ * Platforms without SO_REUSEPORT fall back to a single socket.
+ */
+public final class UdpListener implements Closeable {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final InetSocketAddress address;
+    private final int socketCount;
+    private final DNSRequestHandler handler;
+    private final ResponseRateLimiter rateLimiter;
+    private final int udpPayloadSize;
+    private final List<DatagramChannel> channels;
+    private InetSocketAddress localAddress;
+
+    /**
+     * Creates a UdpListener. Nothing is bound until {@link #start()}.
+     * @param address the address to listen on. Port 0 binds an ephemeral port shared by all the sockets.
+     * @param socketCount the number of sockets, each served by its own worker thread.
+     * @param handler the {@link DNSRequestHandler} answering requests.
+     * @param rateLimiter the {@link ResponseRateLimiter} applied to responses, or null to disable rate limiting.
+     * @param udpPayloadSize the largest EDNS0 UDP payload size sent to clients.
+     */
+    public UdpListener(InetSocketAddress address, int socketCount, DNSRequestHandler handler,
+        ResponseRateLimiter rateLimiter, int udpPayloadSize) {
+
+        this.address = address;
+        this.socketCount = socketCount;
+        this.handler = handler;
+        this.rateLimiter = rateLimiter;
+        this.udpPayloadSize = udpPayloadSize;
+        this.channels = new ArrayList<DatagramChannel>();
+    }
+
+    /**
+     * Creates the UdpListener of a {@link Server} configuration.
+     * @param server the {@link Server} configuration, with UDP enabled.
+     * @param handler the {@link DNSRequestHandler} answering requests.
+     * @return the {@link UdpListener}.
+     * @throws DNSServerConfigurationException if UDP is disabled for this server.
+     */
+    public static UdpListener of(Server server, DNSRequestHandler handler) throws DNSServerConfigurationException {
+        ResponseRateLimiter rateLimiter = server.isRateLimitEnabled()
+            ? new ResponseRateLimiter(server.getRateLimit()) : null;
+        return new UdpListener(new InetSocketAddress(server.getListenOn(), server.getUdpPort()),
+            server.getUdpSockets(), handler, rateLimiter, server.getEdnsUdpPayload());
+    }
+
+    /**
+     * Binds the sockets and starts their workers.
+     * @throws IOException if a socket could not be bound.
+     */
+    public synchronized void start() throws IOException {
+        DatagramChannel first = open(this.address);
+        this.localAddress = (InetSocketAddress) first.getLocalAddress();
+        int count = first.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT) ? this.socketCount : 1;
+        if (count < this.socketCount) {
+            logger.warn("SO_REUSEPORT is not supported: UDP {} uses a single socket", this.localAddress);
+        }
+
+        for (int i = 1; i < count; i++) {
+            open(this.localAddress);
+        }
+        for (int i = 0; i < this.channels.size(); i++) {
+            Thread.ofPlatform().name("udp-" + this.localAddress + "-" + i).daemon()
+                .start(new UdpWorker(this.channels.get(i), this.handler, this.rateLimiter, this.udpPayloadSize));
+        }
+        logger.info("Listening for UDP requests on {} with {} sockets", this.localAddress, this.channels.size());
+    }
+
+    /**
+     * Gets the address the sockets are bound to.
+     * @return the bound address, with the actual port if an ephemeral port was requested.
+     */
+    public synchronized InetSocketAddress getLocalAddress() {
+        return this.localAddress;
+    }
+
+    /**
+     * Closes the sockets: the workers stop.
+     * @throws IOException if a socket could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (DatagramChannel channel : this.channels) {
+            channel.close();
+        }
+        this.channels.clear();
+    }
+
+    private DatagramChannel open(SocketAddress bindAddress) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        this.channels.add(channel);
+        if (this.socketCount > 1 && channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+            channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+        channel.bind(bindAddress);
+        return channel;
+    }
+
+}
@@ -0,0 +1,112 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.logging.LogSampler;
+import net.ccscript.axfr4azuredns.server.ratelimit.RateLimitDecision;
+import net.ccscript.axfr4azuredns.server.ratelimit.ResponseClass;
+import net.ccscript.axfr4azuredns.server.ratelimit.ResponseRateLimiter;
+
+/**
+ * Serves one UDP socket of a {@link UdpListener} on its own thread, with private receive and send buffers: workers
+ * share nothing but the {@link DNSRequestHandler} and the {@link ResponseRateLimiter}. A request failing, even
+ * with an unexpected exception, is logged and dropped: the worker goes on serving its socket.
+ */
+final class UdpWorker implements Runnable {
+
+    private static final int MAX_DATAGRAM_LENGTH = 65535;
+    private static final int FAILURE_LOGS_PER_SECOND = 1;
+
+    private static Logger logger = LogManager.getLogger();
+    private static final LogSampler FAILURE_LOGS = new LogSampler(FAILURE_LOGS_PER_SECOND);
+
+    private final DatagramChannel channel;
+    private final DNSRequestHandler handler;
+    private final ResponseRateLimiter rateLimiter;
+    private final int udpPayloadSize;
+    private final ByteBuffer receiveBuffer;
+    private final ByteBuffer sendBuffer;
+
+    /**
+     * Creates a UdpWorker.
+     * @param channel the bound {@link DatagramChannel}, in blocking mode.
+     * @param handler the {@link DNSRequestHandler} answering requests.
+     * @param rateLimiter the {@link ResponseRateLimiter} of the server, or null if rate limiting is disabled.
+     * @param udpPayloadSize the largest EDNS0 UDP payload size of the server.
+     */
+    UdpWorker(DatagramChannel channel, DNSRequestHandler handler, ResponseRateLimiter rateLimiter,
+        int udpPayloadSize) {
+        this.channel = channel;
+        this.handler = handler;
+        this.rateLimiter = rateLimiter;
+        this.udpPayloadSize = udpPayloadSize;
+        this.receiveBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_LENGTH);
+        this.sendBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_LENGTH);
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    public void run() {
+        while (this.channel.isOpen()) {
+            InetSocketAddress client = null;
+            try {
+                this.receiveBuffer.clear();
+                client = (InetSocketAddress) this.channel.receive(this.receiveBuffer);
+                this.receiveBuffer.flip();
+                process(client);
+            } catch (ClosedChannelException cce) {
+                return;
+            } catch (IOException ioe) {
+                FAILURE_LOGS.log(logger, Level.WARN, ioe.getClass().getName(),
+                    "UDP request from {} could not be processed", client, ioe);
+            } catch (RuntimeException re) {
+                // Losing the worker would lose the share of the UDP traffic of its socket for good
+                FAILURE_LOGS.log(logger, Level.ERROR, re.getClass().getName(), "UDP request from {} failed", client,
+                    re);
+            }
+        }
+    }
+
+    private void process(InetSocketAddress client) throws IOException {
+        byte[] response = this.handler.handle(this.receiveBuffer.duplicate(),
+            new RequestContext(client, Transport.UDP, this.udpPayloadSize, null));
+        if (response == null) {
+            return;
+        }
+
+        switch (decide(client, response)) {
+            case SEND:
+                this.sendBuffer.clear();
+                this.sendBuffer.put(response).flip();
+                this.channel.send(this.sendBuffer, client);
+                break;
+            case SLIP:
+                sendTruncated(client);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private RateLimitDecision decide(InetSocketAddress client, byte[] response) {
+        if (this.rateLimiter == null) {
+            return RateLimitDecision.SEND;
+        }
+        return this.rateLimiter.check(client.getAddress(), ResponseClass.of(DNSWire.rcodeOf(response)));
+    }
+
+    private void sendTruncated(InetSocketAddress client) throws IOException {
+        if (DNSWire.writeTruncated(this.receiveBuffer, this.sendBuffer)) {
+            this.channel.send(this.sendBuffer, client);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.nio.ByteBuffer;
+
+import org.xbill.DNS.EDNSOption;
+import org.xbill.DNS.Type;
+
+/**
+ * Reads the OPT record (RFC 6891) of a request directly in wire format, for the {@link WireQuery} key.
+ */
+final class WireEdns {
+
+    /**
+     * Shift of the client payload size in the value returned by {@link #read(ByteBuffer, int)}.
+     */
+    static final int PAYLOAD_SHIFT = 8;
+    /**
+     * Mask of the HAS_OPT and HAS_DO bits in the value returned by {@link #read(ByteBuffer, int)}.
+     */
+    static final int FLAGS_MASK = 0xFF;
+
+    private static final int ARCOUNT_OFFSET = 10;
+    private static final int SHORT_MASK = 0xFFFF;
+    private static final int OPT_TYPE_OFFSET = 1;
+    private static final int OPT_PAYLOAD_OFFSET = 3;
+    private static final int OPT_VERSION_OFFSET = 6;
+    private static final int OPT_FLAGS_OFFSET = 7;
+    private static final int OPT_RDLENGTH_OFFSET = 9;
+    private static final int OPT_FIXED_LENGTH = 11;
+    private static final int OPTION_HEADER_LENGTH = 4;
+    private static final int DO_MASK = 0x8000;
+    private static final int HAS_OPT = 1;
+    private static final int HAS_DO = 2;
+
+    private WireEdns() {
+    }
+
+    /**
+     * Reads the OPT record following the question, if any. The edns-tcp-keepalive option makes a request
+     * uncacheable, since its response depends on the connection, and so does an EDNS version other than 0, which
+     * is answered with BADVERS.
+     * @param request the request, from index 0 to its limit.
+     * @param optStart the index following the question.
+     * @return the client payload size shifted by PAYLOAD_SHIFT combined with the HAS_OPT and HAS_DO bits, 0 if
+     *         there is no OPT record, or -1 if the request has other additional records.
+     */
+    static int read(ByteBuffer request, int optStart) {
+        switch (request.getShort(ARCOUNT_OFFSET)) {
+            case 0:
+                return optStart == request.limit() ? 0 : -1;
+            case 1:
+                return optEnd(request, optStart) == request.limit() ? readOpt(request, optStart) : -1;
+            default:
+                return -1;
+        }
+    }
+
+    private static int readOpt(ByteBuffer request, int optStart) {
+        int flags = (request.getShort(optStart + OPT_FLAGS_OFFSET) & DO_MASK) == 0 ? HAS_OPT : HAS_OPT | HAS_DO;
+        return (request.getShort(optStart + OPT_PAYLOAD_OFFSET) & SHORT_MASK) << PAYLOAD_SHIFT | flags;
+    }
+
+    private static int optEnd(ByteBuffer request, int optStart) {
+        if (!isOpt(request, optStart)) {
+            return -1;
+        }
+        int optionsStart = optStart + OPT_FIXED_LENGTH;
+        int optionsEnd = optionsStart + (request.getShort(optStart + OPT_RDLENGTH_OFFSET) & SHORT_MASK);
+        return optionsEnd > request.limit() || hasKeepalive(request, optionsStart, optionsEnd) ? -1 : optionsEnd;
+    }
+
+    private static boolean isOpt(ByteBuffer request, int optStart) {
+        return optStart + OPT_FIXED_LENGTH <= request.limit() && request.get(optStart) == 0
+            && request.getShort(optStart + OPT_TYPE_OFFSET) == Type.OPT
+            && request.get(optStart + OPT_VERSION_OFFSET) == 0;
+    }
+
+    private static boolean hasKeepalive(ByteBuffer request, int optionsStart, int optionsEnd) {
+        int position = optionsStart;
+        while (position + OPTION_HEADER_LENGTH <= optionsEnd) {
+            if (request.getShort(position) == EDNSOption.Code.TCP_KEEPALIVE) {
+                return true;
+            }
+            position += OPTION_HEADER_LENGTH + (request.getShort(position + Short.BYTES) & SHORT_MASK);
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,111 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The {@link ResponseCache} key of a standard query, read directly in wire format: the question lower-cased, the
+ * EDNS0 fields which change the response and the response limits. Only queries with a single question, no answer
+ * nor authority record and at most an OPT record without edns-tcp-keepalive option get a key: any other request
+ * takes the regular path.
+ */
+final class WireQuery {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int TYPE_AND_CLASS_LENGTH = 4;
+    private static final int KEY_SUFFIX_LENGTH = TYPE_AND_CLASS_LENGTH + 5;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final byte[] key;
+    private final int nameLength;
+    private final int hash;
+
+    private WireQuery(byte[] key, int nameLength) {
+        this.key = key;
+        this.nameLength = nameLength;
+        this.hash = spread(Arrays.hashCode(key));
+    }
+
+    /**
+     * Reads the key of a request.
+     * @param request the request, from index 0 to its limit.
+     * @param context the {@link RequestContext} of the request.
+     * @return the {@link WireQuery}, or null if the request cannot be answered from the cache.
+     */
+    static WireQuery parse(ByteBuffer request, RequestContext context) {
+        int nameEnd = DNSWire.isStandardQuery(request) ? nameEnd(request) : -1;
+        int edns = nameEnd < 0 ? -1 : WireEdns.read(request, nameEnd + TYPE_AND_CLASS_LENGTH);
+        if (edns < 0) {
+            return null;
+        }
+
+        int nameLength = nameEnd - DNSWire.HEADER_LENGTH;
+        byte[] key = new byte[nameLength + KEY_SUFFIX_LENGTH];
+        for (int i = 0; i < nameLength; i++) {
+            key[i] = toLowerCase(request.get(DNSWire.HEADER_LENGTH + i));
+        }
+        ByteBuffer suffix = ByteBuffer.wrap(key, nameLength, KEY_SUFFIX_LENGTH);
+        suffix.putInt(request.getInt(nameEnd));
+        suffix.put((byte) (edns & WireEdns.FLAGS_MASK));
+        suffix.putShort((short) EdnsSupport.responseLimit(edns >>> WireEdns.PAYLOAD_SHIFT, context));
+        suffix.putShort((short) context.getUdpPayloadSize());
+        return new WireQuery(key, nameLength);
+    }
+
+    /**
+     * Gets the key bytes.
+     * @return the key, which must not be modified.
+     */
+    byte[] getKey() {
+        return this.key;
+    }
+
+    /**
+     * Gets the hash of the key.
+     * @return the hash.
+     */
+    int getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Copies a cached response for this query: only the message ID and the case of the question name are
+     * patched, from the request.
+     * @param cachedResponse the cached response to a query with the same key.
+     * @param request the request, from index 0 to its limit.
+     * @return the response to the request.
+     */
+    byte[] patch(byte[] cachedResponse, ByteBuffer request) {
+        byte[] response = cachedResponse.clone();
+        request.get(0, response, 0, Short.BYTES);
+        request.get(DNSWire.HEADER_LENGTH, response, DNSWire.HEADER_LENGTH, this.nameLength);
+        return response;
+    }
+
+    /**
+     * Finds the end of the question name, which must not be compressed.
+     * @return the index following the name, or -1.
+     */
+    private static int nameEnd(ByteBuffer request) {
+        int position = DNSWire.HEADER_LENGTH;
+        while (position < request.limit()) {
+            int labelLength = request.get(position) & BYTE_MASK;
+            if (labelLength == 0) {
+                return position + 1;
+            }
+            position = labelLength > MAX_LABEL_LENGTH ? request.limit() : position + labelLength + 1;
+        }
+        return -1;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static int spread(int h) {
+        int mixed = h * GOLDEN_RATIO;
+        return mixed ^ (mixed >>> Short.SIZE);
+    }
+
+}
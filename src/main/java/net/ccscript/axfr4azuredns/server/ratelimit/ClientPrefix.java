@@ -0,0 +1,74 @@
+package net.ccscript.axfr4azuredns.server.ratelimit;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+
+/**
+ * Reduces client addresses to the hash of their network prefix, the key of the {@link ResponseRateLimiter}.
+ * Spoofed floods usually come from a whole prefix, so limits apply to prefixes rather than single addresses.
+ */
+final class ClientPrefix {
+
+    private static final int IPV4_BITS = 32;
+    private static final int BITS_PER_BYTE = 8;
+    private static final int BYTE_MASK = 0xFF;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_MULTIPLIER_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_MULTIPLIER_2 = 0x94D049BB133111EBL;
+    private static final int MIX_SHIFT_1 = 30;
+    private static final int MIX_SHIFT_2 = 27;
+    private static final int MIX_SHIFT_3 = 31;
+
+    private ClientPrefix() {
+    }
+
+    /**
+     * Hashes the prefix of a client address together with a response class.
+     * IPv4 addresses are read from {@link Inet4Address#hashCode()}, which is the address itself, so that no
+     * array is allocated.
+     * @param client the client address.
+     * @param ipv4PrefixLength the IPv4 prefix length, between 1 and 32.
+     * @param ipv6PrefixLength the IPv6 prefix length, between 1 and 128.
+     * @param responseClass the {@link ResponseClass}.
+     * @return a well mixed 64 bits hash.
+     */
+    static long hash(InetAddress client, int ipv4PrefixLength, int ipv6PrefixLength, ResponseClass responseClass) {
+        long prefix;
+        if (client instanceof Inet4Address) {
+            prefix = client.hashCode() & (-1 << (IPV4_BITS - ipv4PrefixLength));
+        } else {
+            prefix = ipv6Prefix(client.getAddress(), ipv6PrefixLength);
+        }
+        return mix(prefix * GOLDEN_GAMMA + responseClass.ordinal());
+    }
+
+    /**
+     * Folds the first prefixLength bits of an IPv6 address.
+     * @param address the 16 bytes of the address.
+     * @param prefixLength the number of bits to keep.
+     * @return the folded prefix.
+     */
+    private static long ipv6Prefix(byte[] address, int prefixLength) {
+        long prefix = 1;
+        int bits = 0;
+        for (byte addressByte : address) {
+            int keptBits = Math.min(BITS_PER_BYTE, Math.max(0, prefixLength - bits));
+            int kept = (addressByte & BYTE_MASK) >>> (BITS_PER_BYTE - keptBits);
+            prefix = (prefix << keptBits | kept) * GOLDEN_GAMMA;
+            bits += BITS_PER_BYTE;
+        }
+        return prefix;
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads every input bit on the whole output.
+     * @param value the value to mix.
+     * @return the mixed value.
+     */
+    private static long mix(long value) {
+        long mixed = (value ^ (value >>> MIX_SHIFT_1)) * MIX_MULTIPLIER_1;
+        mixed = (mixed ^ (mixed >>> MIX_SHIFT_2)) * MIX_MULTIPLIER_2;
+        return mixed ^ (mixed >>> MIX_SHIFT_3);
+    }
+
+}
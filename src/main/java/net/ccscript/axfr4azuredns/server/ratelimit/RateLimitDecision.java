@@ -0,0 +1,20 @@
+package net.ccscript.axfr4azuredns.server.ratelimit;
+
+/**
+ * What a listener must do with a response, as decided by the {@link ResponseRateLimiter}.
+ */
+public enum RateLimitDecision {
+    /**
+     * The response is within the limits and must be sent.
+     */
+    SEND,
+    /**
+     * The response is over the limits: a truncated response (TC bit set, no records) must be sent instead, so that
+     * legitimate clients behind a spoofed prefix retry over TCP.
+     */
+    SLIP,
+    /**
+     * The response is over the limits and must be dropped.
+     */
+    DROP
+}
@@ -0,0 +1,39 @@
+package net.ccscript.axfr4azuredns.server.ratelimit;
+
+/**
+ * Classes of responses limited separately by the {@link ResponseRateLimiter}: a client flooded with errors is not
+ * limited on its positive answers.
+ */
+public enum ResponseClass {
+    /**
+     * Positive answers and empty answers.
+     */
+    RESPONSE,
+    /**
+     * Answers with the NXDOMAIN response code.
+     */
+    NXDOMAIN,
+    /**
+     * Answers with any other error response code (FORMERR, SERVFAIL, REFUSED...).
+     */
+    ERROR;
+
+    private static final int RCODE_NOERROR = 0;
+    private static final int RCODE_NXDOMAIN = 3;
+
+    /**
+     * Gets the class of a response from its response code.
+     * @param rcode the DNS response code.
+     * @return the {@link ResponseClass}.
+     */
+    public static ResponseClass of(int rcode) {
+        switch (rcode) {
+            case RCODE_NOERROR:
+                return RESPONSE;
+            case RCODE_NXDOMAIN:
+                return NXDOMAIN;
+            default:
+                return ERROR;
+        }
+    }
+}
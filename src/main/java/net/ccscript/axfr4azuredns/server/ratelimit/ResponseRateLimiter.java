@@ -0,0 +1,161 @@
+package net.ccscript.axfr4azuredns.server.ratelimit;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.RateLimit;
+
+/**
+ * Response Rate Limiting, in the spirit of BIND RRL: each (client prefix, {@link ResponseClass}) key has a token
+ * bucket refilled at the configured rate per second. Responses over the limit are dropped, except one in every
+ * slip responses which is sent truncated so that legitimate clients retry over TCP.
+ * <p>
+ * Buckets live in a fixed-size table of 64 bits slots indexed by the key hash. Each slot packs a key
+ * fingerprint, a slip counter, the credit count and the last refill time, and is updated with a single
+ * compare-and-set: checking a response takes no lock and allocates nothing for IPv4 clients. Threads only
+ * contend when they answer the same slot at the same time. A key evicts the bucket of another key sharing its
+ * slot, which errs on the side of sending.
+ * <p>
+ * Time is counted in ticks of 1/64 second and a response costs 64 credits, a bucket earning its rate in credits
+ * per tick, so that refills are exact at any rate. The refill time wraps every 2^24 ticks, about 72.8 hours: a
+ * bucket left in debt and checked again after a multiple of that time is still limited for up to two seconds.
+ */
+public final class ResponseRateLimiter {
+
+    private static final int TIME_BITS = 24;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int CREDITS_SHIFT = TIME_BITS;
+    // Signed, up to 64 credits per token for the maximum rate of 10000 per second
+    private static final int CREDITS_BITS = 21;
+    private static final long CREDITS_MASK = (1L << CREDITS_BITS) - 1;
+    private static final int DROPS_SHIFT = CREDITS_SHIFT + CREDITS_BITS;
+    private static final int DROPS_BITS = 4;
+    private static final long DROPS_MASK = (1L << DROPS_BITS) - 1;
+    private static final int FINGERPRINT_SHIFT = DROPS_SHIFT + DROPS_BITS;
+    private static final long TICKS_PER_SECOND = 64;
+    private static final int CREDITS_PER_TOKEN = (int) TICKS_PER_SECOND;
+    private static final long MILLIS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+
+    private final AtomicLongArray slots;
+    private final int indexMask;
+    private final int[] ratesPerSecond;
+    private final int slip;
+    private final int ipv4PrefixLength;
+    private final int ipv6PrefixLength;
+
+    /**
+     * Creates a ResponseRateLimiter.
+     * @param rateLimit the {@link RateLimit} configuration of a server.
+     */
+    public ResponseRateLimiter(RateLimit rateLimit) {
+        int tableSize = Integer.highestOneBit(Math.max(1, rateLimit.getTableSize() - 1)) << 1;
+        this.slots = new AtomicLongArray(tableSize);
+        this.indexMask = tableSize - 1;
+        this.ratesPerSecond = new int[ResponseClass.values().length];
+        this.ratesPerSecond[ResponseClass.RESPONSE.ordinal()] = rateLimit.getResponsesPerSecond();
+        this.ratesPerSecond[ResponseClass.NXDOMAIN.ordinal()] = rateLimit.getNxdomainsPerSecond();
+        this.ratesPerSecond[ResponseClass.ERROR.ordinal()] = rateLimit.getErrorsPerSecond();
+        this.slip = rateLimit.getSlip();
+        this.ipv4PrefixLength = rateLimit.getIpv4PrefixLength();
+        this.ipv6PrefixLength = rateLimit.getIpv6PrefixLength();
+    }
+
+    /**
+     * Decides whether a response to a client must be sent.
+     * @param client the client address.
+     * @param responseClass the {@link ResponseClass} of the response.
+     * @return the {@link RateLimitDecision}.
+     */
+    public RateLimitDecision check(InetAddress client, ResponseClass responseClass) {
+        return check(client, responseClass, TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * Decides whether a response to a client must be sent, at a given time.
+     * @param client the client address.
+     * @param responseClass the {@link ResponseClass} of the response.
+     * @param nowMillis the current time in milliseconds, from any monotonic origin.
+     * @return the {@link RateLimitDecision}.
+     */
+    RateLimitDecision check(InetAddress client, ResponseClass responseClass, long nowMillis) {
+        int rate = this.ratesPerSecond[responseClass.ordinal()];
+        if (rate == 0) {
+            return RateLimitDecision.SEND;
+        }
+
+        long hash = ClientPrefix.hash(client, this.ipv4PrefixLength, this.ipv6PrefixLength, responseClass);
+        int index = (int) hash & this.indexMask;
+        long fingerprint = hash >>> FINGERPRINT_SHIFT;
+        long now = Math.floorDiv(nowMillis * TICKS_PER_SECOND, MILLIS_PER_SECOND) & TIME_MASK;
+
+        long slot;
+        long updated;
+        do {
+            slot = this.slots.get(index);
+            updated = debit(refill(slot, fingerprint, rate, now), rate);
+        } while (!this.slots.compareAndSet(index, slot, updated));
+
+        return decide(updated);
+    }
+
+    /**
+     * Refills the bucket of a slot: each tick elapsed since the last refill earns rate credits, so that frequent
+     * checks at low rates do not lose the fractions of tokens.
+     * @param slot the current slot.
+     * @param fingerprint the fingerprint of the key.
+     * @param rate the tokens per second.
+     * @param now the current time in ticks, truncated to the time bits.
+     * @return the refilled slot, or a full bucket if the slot held another key.
+     */
+    private static long refill(long slot, long fingerprint, int rate, long now) {
+        int capacity = rate * CREDITS_PER_TOKEN;
+        if (slot >>> FINGERPRINT_SHIFT != fingerprint) {
+            return pack(fingerprint, 0, capacity, now);
+        }
+        long elapsed = (now - (slot & TIME_MASK)) & TIME_MASK;
+        long credits = Math.min(capacity, creditsOf(slot) + elapsed * rate);
+        return pack(fingerprint, dropsOf(slot), (int) credits, now);
+    }
+
+    /**
+     * Takes one token. The debt is bounded to one second of tokens, so that a key recovers within two seconds
+     * once the flood stops.
+     * @param slot the refilled slot.
+     * @param rate the tokens per second.
+     * @return the updated slot.
+     */
+    private long debit(long slot, int rate) {
+        int credits = creditsOf(slot);
+        int drops = dropsOf(slot);
+        if (credits < CREDITS_PER_TOKEN && this.slip > 0) {
+            drops = (drops + 1) % this.slip;
+        }
+        int debited = Math.max(-rate * CREDITS_PER_TOKEN, credits - CREDITS_PER_TOKEN);
+        return pack(slot >>> FINGERPRINT_SHIFT, drops, debited, slot & TIME_MASK);
+    }
+
+    private RateLimitDecision decide(long slot) {
+        if (creditsOf(slot) >= 0) {
+            return RateLimitDecision.SEND;
+        }
+        return this.slip > 0 && dropsOf(slot) == 0 ? RateLimitDecision.SLIP : RateLimitDecision.DROP;
+    }
+
+    private static long pack(long fingerprint, int drops, int credits, long time) {
+        return fingerprint << FINGERPRINT_SHIFT
+            | (drops & DROPS_MASK) << DROPS_SHIFT
+            | (credits & CREDITS_MASK) << CREDITS_SHIFT
+            | time & TIME_MASK;
+    }
+
+    private static int creditsOf(long slot) {
+        // Sign extends the credits
+        return (int) (slot << (Long.SIZE - DROPS_SHIFT) >> (Long.SIZE - CREDITS_BITS));
+    }
+
+    private static int dropsOf(long slot) {
+        return (int) (slot >>> DROPS_SHIFT & DROPS_MASK);
+    }
+
+}
@@ -0,0 +1,39 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import org.xbill.DNS.SOARecord;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.transfer.MasterPool;
+import net.ccscript.axfr4azuredns.transfer.ZoneTransferClient;
+
+/**
+ * A {@link SoaSource} querying the master servers of the zone in their configured order: the first authoritative
+ * answer wins. Queries go through the {@link ZoneTransferClient}, on the connections of the {@link MasterPool},
+ * signed and verified with the TSIG key of the zone and master server like transfers.
+ */
+public final class MasterSoaSource implements SoaSource {
+
+    private final ZoneTransferClient transferClient;
+
+    /**
+     * Creates a MasterSoaSource.
+     * @param transferClient the {@link ZoneTransferClient} querying the master servers.
+     */
+    public MasterSoaSource(ZoneTransferClient transferClient) {
+        this.transferClient = transferClient;
+    }
+
+    @Override
+    public SOARecord query(Zone zone) throws IOException {
+        try {
+            return this.transferClient.querySoa(zone);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("SOA query of zone " + zone.getZoneName() + " interrupted");
+        }
+    }
+
+}
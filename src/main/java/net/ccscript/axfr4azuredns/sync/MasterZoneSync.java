@@ -0,0 +1,294 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+
+import net.ccscript.axfr4azuredns.azure.AzureZoneCache;
+import net.ccscript.axfr4azuredns.azure.AzureZoneDiff;
+import net.ccscript.axfr4azuredns.azure.AzureZoneReplicator;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.trace.Span;
+import net.ccscript.axfr4azuredns.trace.Tracer;
+import net.ccscript.axfr4azuredns.transfer.ZoneTransfer;
+import net.ccscript.axfr4azuredns.transfer.ZoneTransferClient;
+import net.ccscript.axfr4azuredns.zone.ZoneDigest;
+import net.ccscript.axfr4azuredns.zone.ZoneSnapshot;
+import net.ccscript.axfr4azuredns.zone.ZoneStateDirectory;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+/**
+ * The sync work of a zone: transfers the changes of the zone from its master servers, incrementally when the
+ * {@link ZoneStore} already holds a version of it, publishes the new version in the store, then replicates it into
+ * every Azure DNS Zone of the zone. The zone is transferred, filtered by its record rules and converted once whatever
+ * its number of targets.
+ * <p>
+ * The {@link ZoneDigest} of each transferred version is computed before it is published: a version whose ZONEMD
+ * record does not match its content is rejected, and a version whose content is the one last replicated without
+ * failure, such as a new serial alone, skips the diff and Azure stages.
+ * <p>
+ * The version of the store last replicated without failure is kept per zone: while it lags the version held by the
+ * store, such as after an Azure failure, every sync replicates the version of the store again, even when the master
+ * has no newer serial.
+ * <p>
+ * With a {@link ZoneStateDirectory}, each version replicated without failure is also written to disk, and restored
+ * at startup as both the version held by the store and the content last replicated.
+ * <p>
+ * Each sync is traced by the {@link Tracer}: SOA check, transfer, digest, commit to the store, filter, conversion,
+ * then the diff and the Azure writes of each target.
+ */
+public final class MasterZoneSync {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final ZoneTransferClient transferClient;
+    private final ZoneStore zoneStore;
+    private final AzureZoneReplicator replicator;
+    private final Function<AzureDomain, CompletableFuture<AzureZoneCache>> azureZoneCaches;
+    private final Map<Name, ZoneDigest> replicatedDigests;
+    private final Map<Name, Long> replicatedVersions;
+    private final Tracer tracer;
+    private final ZoneStateDirectory stateDirectory;
+
+    /**
+     * Creates a MasterZoneSync.
+     * @param transferClient the {@link ZoneTransferClient} transferring the zones.
+     * @param zoneStore the {@link ZoneStore} holding the current version of the zones.
+     * @param replicator the {@link AzureZoneReplicator} updating the Azure DNS Zones.
+     * @param azureZoneCaches gives the {@link AzureZoneCache} of each Azure DNS Zone, loaded or being loaded.
+     * @param tracer the {@link Tracer} recording the span tree of each sync.
+     */
+    public MasterZoneSync(ZoneTransferClient transferClient, ZoneStore zoneStore, AzureZoneReplicator replicator,
+        Function<AzureDomain, CompletableFuture<AzureZoneCache>> azureZoneCaches, Tracer tracer) {
+
+        this(transferClient, zoneStore, replicator, azureZoneCaches, tracer, null);
+    }
+
+    /**
+     * Creates a MasterZoneSync keeping the replicated versions of the zones across restarts.
+     * @param transferClient the {@link ZoneTransferClient} transferring the zones.
+     * @param zoneStore the {@link ZoneStore} holding the current version of the zones.
+     * @param replicator the {@link AzureZoneReplicator} updating the Azure DNS Zones.
+     * @param azureZoneCaches gives the {@link AzureZoneCache} of each Azure DNS Zone, loaded or being loaded.
+     * @param tracer the {@link Tracer} recording the span tree of each sync.
+     * @param stateDirectory the {@link ZoneStateDirectory} the replicated versions are written to, or null.
+     */
+    public MasterZoneSync(ZoneTransferClient transferClient, ZoneStore zoneStore, AzureZoneReplicator replicator,
+        Function<AzureDomain, CompletableFuture<AzureZoneCache>> azureZoneCaches, Tracer tracer,
+        ZoneStateDirectory stateDirectory) {
+
+        this.transferClient = transferClient;
+        this.zoneStore = zoneStore;
+        this.replicator = replicator;
+        this.azureZoneCaches = azureZoneCaches;
+        this.replicatedDigests = new ConcurrentHashMap<Name, ZoneDigest>();
+        this.replicatedVersions = new ConcurrentHashMap<Name, Long>();
+        this.tracer = tracer;
+        this.stateDirectory = stateDirectory;
+    }
+
+    /**
+     * Restores the version of a zone written by a previous run, unless the store already holds the zone. The next
+     * sync then transfers the zone incrementally from that version, and replicates it only if its content changed.
+     * Failures are logged: the next sync transfers the whole zone.
+     * @param zone the {@link Zone} to be restored.
+     * @return true if a version was restored.
+     */
+    public boolean restore(Zone zone) {
+        if (this.stateDirectory == null) {
+            return false;
+        }
+        try {
+            Name origin = Name.fromString(zone.getZoneName(), Name.root);
+            if (this.zoneStore.get(origin) != null) {
+                return false;
+            }
+            List<Record> records = this.stateDirectory.load(origin);
+            if (records == null) {
+                return false;
+            }
+            ZoneDigest digest = ZoneDigest.of(origin, records);
+            ZoneSnapshot snapshot = this.zoneStore.swap(origin, records);
+            this.replicatedDigests.put(origin, digest);
+            this.replicatedVersions.put(origin, snapshot.getVersion());
+            logger.debug("Zone {} restored at serial {}", origin, snapshot.getZone().getSOA().getSerial());
+            return true;
+        } catch (IOException ioe) {
+            logger.warn("Zone {} cannot be restored, it will be transferred: {}", zone.getZoneName(),
+                ioe.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Gets the serial of a zone once synchronized: the serial of the version held by the store, if that version
+     * was replicated into every Azure DNS Zone of the zone without failure.
+     * @param zone the {@link Zone}.
+     * @return the serial, or -1 if the store holds no version of the zone or its version is not replicated.
+     */
+    public long getSyncedSerial(Zone zone) {
+        try {
+            Name origin = Name.fromString(zone.getZoneName(), Name.root);
+            ZoneSnapshot current = this.zoneStore.get(origin);
+            if (current == null || !isReplicated(current)) {
+                return -1;
+            }
+            return current.getZone().getSOA().getSerial();
+        } catch (IOException ioe) {
+            logger.debug("Zone name {} is invalid: {}", zone.getZoneName(), ioe.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Synchronizes a zone, within a new trace whose root span is the sync. Failures are logged: the next NOTIFY or
+     * poll tries again.
+     * @param zone the {@link Zone} to be synchronized.
+     */
+    public void sync(Zone zone) {
+        try (Span sync = this.tracer.startSync(zone.getZoneName())) {
+            try {
+                transferAndReplicate(zone, Name.fromString(zone.getZoneName(), Name.root));
+            } catch (IOException ioe) {
+                sync.fail(ioe.getMessage());
+                logger.error("Sync of zone {} failed: {}", zone.getZoneName(), ioe.getMessage());
+            } catch (InterruptedException ie) {
+                sync.fail("interrupted");
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void transferAndReplicate(Zone zone, Name origin) throws IOException, InterruptedException {
+        ZoneSnapshot current = this.zoneStore.get(origin);
+        if (current == null) {
+            List<Record> records = this.transferClient.transfer(zone, null).apply(List.of());
+            ZoneDigest digest = digest(origin, records);
+            ZoneSnapshot snapshot = commit(origin, records);
+            logger.info("Zone {} transferred", origin);
+            replicate(zone, snapshot, records, digest);
+            return;
+        }
+        ZoneTransfer transfer = this.transferClient.transfer(zone, current.getZone().getSOA());
+        if (transfer.isUpToDate()) {
+            if (isReplicated(current)) {
+                logger.debug("Zone {} is up to date at serial {}", origin, transfer.getSoa().getSerial());
+                return;
+            }
+            logger.info("Zone {} is up to date at serial {} but was not replicated, replicating it again", origin,
+                transfer.getSoa().getSerial());
+            List<Record> records = current.getRecords();
+            replicate(zone, current, records, digest(origin, records));
+            return;
+        }
+        List<Record> records = transfer.apply(current.getRecords());
+        ZoneDigest digest = digest(origin, records);
+        ZoneSnapshot snapshot = commit(origin, records);
+        logger.info("Zone {} transferred at serial {} ({})", origin, transfer.getSoa().getSerial(),
+            transfer.isIncremental() ? "IXFR" : "AXFR");
+        replicate(zone, snapshot, records, digest);
+    }
+
+    /**
+     * Digests a version of a zone, verifying its ZONEMD record.
+     */
+    private static ZoneDigest digest(Name origin, List<Record> records) throws IOException {
+        try (Span span = Span.current().child("digest")) {
+            span.addRecords(records.size());
+            return ZoneDigest.of(origin, records);
+        }
+    }
+
+    /**
+     * Publishes a new version of a zone in the store.
+     */
+    private ZoneSnapshot commit(Name origin, List<Record> records) throws IOException {
+        try (Span span = Span.current().child("commit")) {
+            span.addRecords(records.size());
+            return this.zoneStore.swap(origin, records);
+        }
+    }
+
+    private boolean isReplicated(ZoneSnapshot snapshot) {
+        Long replicatedVersion = this.replicatedVersions.get(snapshot.getOrigin());
+        return replicatedVersion != null && replicatedVersion == snapshot.getVersion();
+    }
+
+    /**
+     * Forgets the content last replicated for a zone, so that its next sync replicates it whatever its digest, and
+     * deletes its version from the state directory.
+     * @param zone the {@link Zone} no longer synchronized by this server.
+     */
+    public void forget(Zone zone) {
+        try {
+            Name origin = Name.fromString(zone.getZoneName(), Name.root);
+            this.replicatedDigests.remove(origin);
+            this.replicatedVersions.remove(origin);
+            if (this.stateDirectory != null) {
+                this.stateDirectory.delete(origin);
+            }
+        } catch (IOException ioe) {
+            logger.debug("Zone name {} is invalid: {}", zone.getZoneName(), ioe.getMessage());
+        }
+    }
+
+    private void replicate(Zone zone, ZoneSnapshot snapshot, List<Record> records, ZoneDigest digest)
+        throws IOException {
+
+        Name origin = snapshot.getOrigin();
+        if (digest.hasSameContent(this.replicatedDigests.get(origin))) {
+            logger.info("Zone {} content unchanged since its last replication, Azure DNS Zones left as is", origin);
+            this.replicatedVersions.put(origin, snapshot.getVersion());
+            save(origin, records);
+            return;
+        }
+        Map<String, AzureZoneDiff> diffs = AzureZoneReplicator.newDiffs(zone);
+        List<Record> replicated;
+        try (Span span = Span.current().child("filter")) {
+            replicated = zone.getRecordRules().apply(records);
+            span.addRecords(replicated.size());
+            span.add("excluded", records.size() - replicated.size());
+        }
+        try (Span span = Span.current().child("convert")) {
+            span.addRecords(replicated.size());
+            for (AzureZoneDiff diff : diffs.values()) {
+                diff.addAll(replicated);
+            }
+        }
+        int failures = this.replicator.replicate(zone, diffs, this.azureZoneCaches);
+        if (failures > 0) {
+            this.replicatedDigests.remove(origin);
+            logger.error("Replication of zone {} left {} changes unapplied", zone.getZoneName(), failures);
+        } else {
+            this.replicatedDigests.put(origin, digest);
+            this.replicatedVersions.put(origin, snapshot.getVersion());
+            save(origin, records);
+        }
+    }
+
+    /**
+     * Writes a replicated version of a zone to the state directory, if any. A failure is only logged: the previous
+     * version is restored at the next startup and transferred incrementally.
+     */
+    private void save(Name origin, List<Record> records) {
+        if (this.stateDirectory == null) {
+            return;
+        }
+        try (Span span = Span.current().child("save")) {
+            span.addRecords(records.size());
+            this.stateDirectory.save(origin, records);
+        } catch (IOException ioe) {
+            logger.warn("Zone {} cannot be written to the state directory: {}", origin, ioe.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.time.Duration;
+
+/**
+ * The polling interval of a zone. A fixed schedule always uses the configured interval. An adaptive schedule keeps
+ * a moving estimate of the change rate of the zone, as an exponentially weighted average of the serial changes per
+ * second seen by the polls, and polls twice per expected change: zones which change often are polled close to the
+ * minimum interval while static zones back off to the maximum one. The interval never exceeds the SOA refresh of
+ * the zone, and a failed poll is retried after the SOA retry.
+ */
+final class PollingSchedule {
+
+    /**
+     * Weight of the last poll in the change rate estimate.
+     */
+    static final double SMOOTHING = 0.25;
+    /**
+     * Expected number of serial changes between two polls.
+     */
+    static final double CHANGES_PER_POLL = 0.5;
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final boolean adaptive;
+    private double changesPerSecond = -1;
+    private Duration refresh;
+
+    /**
+     * Creates a PollingSchedule.
+     * @param minInterval the shortest interval, the only one of a fixed schedule.
+     * @param maxInterval the longest interval.
+     * @param adaptive true if the interval adapts to the change rate of the zone.
+     */
+    PollingSchedule(Duration minInterval, Duration maxInterval, boolean adaptive) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.adaptive = adaptive;
+        this.refresh = maxInterval;
+    }
+
+    /**
+     * Records the first successful poll of the zone, which gives no change information.
+     * @param soaRefresh the refresh value of the SOA record of the zone.
+     * @return the delay before the next poll.
+     */
+    synchronized Duration started(Duration soaRefresh) {
+        this.refresh = soaRefresh;
+        return this.minInterval;
+    }
+
+    /**
+     * Records a successful poll and computes the delay before the next one.
+     * @param changed true if the serial of the zone changed since the previous poll.
+     * @param elapsed the time since the previous poll.
+     * @param soaRefresh the refresh value of the SOA record of the zone.
+     * @return the delay before the next poll.
+     */
+    synchronized Duration polled(boolean changed, Duration elapsed, Duration soaRefresh) {
+        if (!this.adaptive) {
+            return this.minInterval;
+        }
+        updateChangeRate(changed ? NANOS_PER_SECOND / Math.max(1, elapsed.toNanos()) : 0);
+        this.refresh = soaRefresh;
+
+        if (this.changesPerSecond <= 0) {
+            return bounded(this.maxInterval);
+        }
+        double seconds = CHANGES_PER_POLL / this.changesPerSecond;
+        return bounded(seconds >= this.maxInterval.toSeconds() ? this.maxInterval
+            : Duration.ofNanos((long) (seconds * NANOS_PER_SECOND)));
+    }
+
+    /**
+     * Computes the delay before polling again after a failed poll.
+     * @param soaRetry the retry value of the last SOA record of the zone, or null if none was received yet.
+     * @return the delay before the next poll.
+     */
+    synchronized Duration failed(Duration soaRetry) {
+        if (!this.adaptive || soaRetry == null) {
+            return this.minInterval;
+        }
+        return bounded(soaRetry);
+    }
+
+    /**
+     * Gets the estimated change rate of the zone.
+     * @return the serial changes per second, or a negative value before the first poll.
+     */
+    synchronized double getChangesPerSecond() {
+        return this.changesPerSecond;
+    }
+
+    private void updateChangeRate(double observedRate) {
+        this.changesPerSecond = this.changesPerSecond < 0 ? observedRate
+            : SMOOTHING * observedRate + (1 - SMOOTHING) * this.changesPerSecond;
+    }
+
+    private Duration bounded(Duration interval) {
+        Duration upper = this.refresh.compareTo(this.maxInterval) < 0 ? this.refresh : this.maxInterval;
+        Duration bounded = interval.compareTo(upper) > 0 ? upper : interval;
+        return bounded.compareTo(this.minInterval) < 0 ? this.minInterval : bounded;
+    }
+
+}
@@ -0,0 +1,23 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.io.IOException;
+
+import org.xbill.DNS.SOARecord;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+
+/**
+ * Gets the current SOA record of a zone, usually from its master servers.
+ */
+@FunctionalInterface
+public interface SoaSource {
+
+    /**
+     * Gets the current SOA record of a zone.
+     * @param zone the {@link Zone}.
+     * @return the SOA record of the zone.
+     * @throws IOException if no SOA record could be obtained.
+     */
+    SOARecord query(Zone zone) throws IOException;
+
+}
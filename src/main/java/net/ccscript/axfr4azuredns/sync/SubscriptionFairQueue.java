@@ -0,0 +1,110 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Waiting {@link SyncJob}s, by priority then by Azure subscription. Jobs of the most urgent priority are taken
+ * first. Within a priority, subscriptions are served by weighted fair queuing: the waiting subscription with the
+ * lowest {@link VirtualClock} time is served next. Not thread-safe: the {@link SyncExecutor} synchronizes the
+ * access.
+ */
+final class SubscriptionFairQueue {
+
+    private final VirtualClock clock;
+    private final Map<SyncPriority, Map<String, Deque<SyncJob>>> queues;
+    private int size;
+
+    /**
+     * Creates an empty SubscriptionFairQueue.
+     * @param clock the {@link VirtualClock} of the subscriptions, charged by the caller as jobs run.
+     */
+    SubscriptionFairQueue(VirtualClock clock) {
+        this.clock = clock;
+        this.queues = new EnumMap<SyncPriority, Map<String, Deque<SyncJob>>>(SyncPriority.class);
+        for (SyncPriority priority : SyncPriority.values()) {
+            this.queues.put(priority, new LinkedHashMap<String, Deque<SyncJob>>());
+        }
+    }
+
+    /**
+     * Adds a job.
+     * @param job the job to be added.
+     */
+    void add(SyncJob job) {
+        this.queues.get(job.getPriority())
+            .computeIfAbsent(job.getSubscription(), subscription -> new ArrayDeque<SyncJob>())
+            .addLast(job);
+        this.clock.activate(job.getSubscription());
+        this.size++;
+    }
+
+    /**
+     * Removes a waiting job.
+     * @param job the job to be removed.
+     */
+    void remove(SyncJob job) {
+        Map<String, Deque<SyncJob>> subscriptions = this.queues.get(job.getPriority());
+        Deque<SyncJob> jobs = subscriptions.get(job.getSubscription());
+        if (jobs != null && jobs.remove(job)) {
+            this.size--;
+            removeIfEmpty(subscriptions, job.getSubscription());
+        }
+    }
+
+    /**
+     * Takes the next job to be run.
+     * @return the next job, or null if no job is waiting.
+     */
+    SyncJob poll() {
+        for (Map<String, Deque<SyncJob>> subscriptions : this.queues.values()) {
+            String subscription = nextSubscription(subscriptions);
+            if (subscription != null) {
+                return take(subscriptions, subscription);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all the waiting jobs. Virtual times are kept.
+     */
+    void clear() {
+        for (Map<String, Deque<SyncJob>> subscriptions : this.queues.values()) {
+            subscriptions.clear();
+        }
+        this.size = 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    private String nextSubscription(Map<String, Deque<SyncJob>> subscriptions) {
+        String next = null;
+        for (String subscription : subscriptions.keySet()) {
+            if (this.clock.isBefore(subscription, next)) {
+                next = subscription;
+            }
+        }
+        return next;
+    }
+
+    private SyncJob take(Map<String, Deque<SyncJob>> subscriptions, String subscription) {
+        SyncJob job = subscriptions.get(subscription).pollFirst();
+        removeIfEmpty(subscriptions, subscription);
+        this.clock.serve(subscription);
+        this.size--;
+        return job;
+    }
+
+    private static void removeIfEmpty(Map<String, Deque<SyncJob>> subscriptions, String subscription) {
+        if (subscriptions.get(subscription).isEmpty()) {
+            subscriptions.remove(subscription);
+        }
+    }
+
+}
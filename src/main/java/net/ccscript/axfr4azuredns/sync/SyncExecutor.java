@@ -0,0 +1,242 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Sync;
+
+/**
+ * Runs zone sync jobs with bounded concurrency, usually on virtual threads whose carrier threads are scheduled by
+ * the JDK work-stealing pool. Waiting jobs are ordered by {@link SyncPriority}, then shared between Azure
+ * subscriptions by weighted fair queuing on their measured run time, so that one large zone or one busy
+ * subscription cannot starve the others. A job replicating into several subscriptions is charged to each of them.
+ * A zone never runs twice at the same time, and at most one job per zone waits: submitting a job for a zone
+ * already waiting only raises its priority.
+ */
+public final class SyncExecutor {
+
+    /**
+     * Run time charged to a subscription when one of its jobs starts, before the actual run time is known. It
+     * prevents a single subscription from taking all the free slots at once.
+     */
+    private static final long START_CHARGE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final Executor executor;
+    private final int maxConcurrentJobs;
+    private final VirtualClock clock;
+    private final SubscriptionFairQueue queue;
+    private final Map<String, SyncJob> waitingJobs;
+    private final Map<String, SyncJob> deferredJobs;
+    private final Set<String> runningZones;
+    private boolean shutdown;
+
+    /**
+     * Creates a SyncExecutor.
+     * @param executor the {@link Executor} running the jobs, usually a virtual thread per task executor.
+     * @param maxConcurrentJobs the maximum number of jobs running at the same time.
+     * @param subscriptionWeights the weight of each Azure subscription. Other subscriptions get
+     *        {@link Sync#DEFAULT_SUBSCRIPTION_WEIGHT}.
+     */
+    public SyncExecutor(Executor executor, int maxConcurrentJobs, Map<String, Integer> subscriptionWeights) {
+        this.executor = executor;
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.clock = new VirtualClock(subscriptionWeights, Sync.DEFAULT_SUBSCRIPTION_WEIGHT);
+        this.queue = new SubscriptionFairQueue(this.clock);
+        this.waitingJobs = new HashMap<String, SyncJob>();
+        this.deferredJobs = new HashMap<String, SyncJob>();
+        this.runningZones = new HashSet<String>();
+    }
+
+    /**
+     * Creates a SyncExecutor from the sync configuration.
+     * @param executor the {@link Executor} running the jobs, usually a virtual thread per task executor.
+     * @param sync the {@link Sync} configuration.
+     */
+    public SyncExecutor(Executor executor, Sync sync) {
+        this(executor, sync.getMaxConcurrentJobs(), sync.getSubscriptionWeights());
+    }
+
+    /**
+     * Submits a job. If the zone is already running, the job waits for its end.
+     * @param job the {@link SyncJob} to be run.
+     */
+    public synchronized void submit(SyncJob job) {
+        String zoneName = job.getZoneName();
+        if (this.runningZones.contains(zoneName)) {
+            this.deferredJobs.merge(zoneName, job, SyncJob::mostUrgent);
+            return;
+        }
+
+        SyncJob waitingJob = this.waitingJobs.get(zoneName);
+        if (waitingJob == null || job.isMoreUrgentThan(waitingJob)) {
+            replaceWaitingJob(waitingJob, job);
+            dispatch();
+        }
+    }
+
+    /**
+     * Stops starting jobs and drops the waiting ones. Running jobs are not interrupted.
+     */
+    public synchronized void shutdown() {
+        this.shutdown = true;
+        this.queue.clear();
+        this.waitingJobs.clear();
+        this.deferredJobs.clear();
+    }
+
+    /**
+     * Gets the number of jobs waiting to be run, including jobs waiting for the end of a running job of the
+     * same zone.
+     * @return the number of waiting jobs.
+     */
+    public synchronized int getWaitingCount() {
+        return this.queue.size() + this.deferredJobs.size();
+    }
+
+    /**
+     * Gets the number of jobs running.
+     * @return the number of running jobs.
+     */
+    public synchronized int getRunningCount() {
+        return this.runningZones.size();
+    }
+
+    /**
+     * Checks if a job of a zone is running.
+     * @param zoneName the name of the zone.
+     * @return true if a job of the zone is running.
+     */
+    public synchronized boolean isRunning(String zoneName) {
+        return this.runningZones.contains(zoneName);
+    }
+
+    /**
+     * Gets the priority of the job of a zone waiting to be run, including a job waiting for the end of a running
+     * job of the same zone.
+     * @param zoneName the name of the zone.
+     * @return the {@link SyncPriority} of the waiting job, or null if no job of the zone is waiting.
+     */
+    public synchronized SyncPriority getWaitingPriority(String zoneName) {
+        SyncJob job = this.deferredJobs.getOrDefault(zoneName, this.waitingJobs.get(zoneName));
+        return job == null ? null : job.getPriority();
+    }
+
+    /**
+     * Gets the number of jobs waiting to be run by subscription, including jobs waiting for the end of a running
+     * job of the same zone.
+     * @return the number of waiting jobs by subscription, sorted by subscription.
+     */
+    public synchronized Map<String, Integer> getWaitingCounts() {
+        Map<String, Integer> waitingCounts = new TreeMap<String, Integer>();
+        for (SyncJob job : this.waitingJobs.values()) {
+            countWaiting(waitingCounts, job);
+        }
+        for (SyncJob job : this.deferredJobs.values()) {
+            countWaiting(waitingCounts, job);
+        }
+        return waitingCounts;
+    }
+
+    private static void countWaiting(Map<String, Integer> waitingCounts, SyncJob job) {
+        for (String subscription : job.getSubscriptions()) {
+            waitingCounts.merge(subscription, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Drops the waiting job of a zone, if any. A running job is not interrupted.
+     * @param zoneName the name of the zone.
+     * @return true if a job was dropped.
+     */
+    public synchronized boolean cancel(String zoneName) {
+        SyncJob waitingJob = this.waitingJobs.remove(zoneName);
+        if (waitingJob != null) {
+            this.queue.remove(waitingJob);
+        }
+        return this.deferredJobs.remove(zoneName) != null || waitingJob != null;
+    }
+
+    /**
+     * Drops the waiting jobs replicating into a subscription, such as to stop spending its throttle budget on
+     * queued syncs. Running jobs are not interrupted. The zones dropped are synchronized again on their next
+     * NOTIFY or poll.
+     * @param subscription the Azure subscription.
+     * @return the number of jobs dropped.
+     */
+    public synchronized int drain(String subscription) {
+        int dropped = 0;
+        for (Iterator<SyncJob> jobs = this.waitingJobs.values().iterator(); jobs.hasNext();) {
+            SyncJob job = jobs.next();
+            if (job.getSubscriptions().contains(subscription)) {
+                this.queue.remove(job);
+                jobs.remove();
+                dropped++;
+            }
+        }
+        for (Iterator<SyncJob> jobs = this.deferredJobs.values().iterator(); jobs.hasNext();) {
+            if (jobs.next().getSubscriptions().contains(subscription)) {
+                jobs.remove();
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private void replaceWaitingJob(SyncJob waitingJob, SyncJob job) {
+        if (waitingJob != null) {
+            this.queue.remove(waitingJob);
+        }
+        this.waitingJobs.put(job.getZoneName(), job);
+        this.queue.add(job);
+    }
+
+    /**
+     * Starts waiting jobs while slots are free.
+     */
+    private void dispatch() {
+        while (!this.shutdown && this.runningZones.size() < this.maxConcurrentJobs && this.queue.size() > 0) {
+            SyncJob job = this.queue.poll();
+            this.waitingJobs.remove(job.getZoneName());
+            this.runningZones.add(job.getZoneName());
+            charge(job, START_CHARGE_NANOS);
+
+            long startNanos = System.nanoTime();
+            CompletableFuture.runAsync(job.getTask(), this.executor)
+                .whenComplete((result, failure) -> completed(job, System.nanoTime() - startNanos, failure));
+        }
+    }
+
+    private void charge(SyncJob job, long nanos) {
+        for (String subscription : job.getSubscriptions()) {
+            this.clock.charge(subscription, nanos);
+        }
+    }
+
+    private synchronized void completed(SyncJob job, long runNanos, Throwable failure) {
+        if (failure != null) {
+            logger.error("{} failed", job, failure);
+        }
+        this.runningZones.remove(job.getZoneName());
+        charge(job, Math.max(0, runNanos - START_CHARGE_NANOS));
+
+        SyncJob deferredJob = this.deferredJobs.remove(job.getZoneName());
+        if (deferredJob != null) {
+            submit(deferredJob);
+        } else {
+            dispatch();
+        }
+    }
+
+}
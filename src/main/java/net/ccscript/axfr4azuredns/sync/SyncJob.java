@@ -0,0 +1,110 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.util.List;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+
+/**
+ * A zone sync job submitted to the {@link SyncExecutor}. All the jobs of a zone are expected to do the same work:
+ * the executor keeps at most one waiting job per zone, the most urgent one.
+ */
+public final class SyncJob {
+
+    private final String zoneName;
+    private final List<String> subscriptions;
+    private final SyncPriority priority;
+    private final Runnable task;
+
+    /**
+     * Creates a SyncJob.
+     * @param zoneName the name of the zone to be synchronized.
+     * @param subscription the Azure subscription holding the Azure DNS Zone, used for fair sharing.
+     * @param priority the {@link SyncPriority} of the job.
+     * @param task the sync work.
+     */
+    public SyncJob(String zoneName, String subscription, SyncPriority priority, Runnable task) {
+        this(zoneName, List.of(subscription), priority, task);
+    }
+
+    /**
+     * Creates a SyncJob replicating into several Azure subscriptions. The job waits in the queue of the first one,
+     * and its run time is charged to all of them.
+     * @param zoneName the name of the zone to be synchronized.
+     * @param subscriptions the distinct Azure subscriptions holding the Azure DNS Zones, used for fair sharing.
+     * @param priority the {@link SyncPriority} of the job.
+     * @param task the sync work.
+     */
+    public SyncJob(String zoneName, List<String> subscriptions, SyncPriority priority, Runnable task) {
+        this.zoneName = zoneName;
+        this.subscriptions = List.copyOf(subscriptions);
+        this.priority = priority;
+        this.task = task;
+    }
+
+    /**
+     * Creates a SyncJob for a configured zone.
+     * @param zone the {@link Zone} to be synchronized.
+     * @param priority the {@link SyncPriority} of the job.
+     * @param task the sync work.
+     * @return the {@link SyncJob}.
+     */
+    public static SyncJob of(Zone zone, SyncPriority priority, Runnable task) {
+        List<String> subscriptions = zone.getAzureDomains().stream()
+            .map(AzureDomain::getAzureSubscription).distinct().toList();
+        return new SyncJob(zone.getZoneName(), subscriptions, priority, task);
+    }
+
+    /**
+     * Returns the most urgent of two jobs, the first one if both have the same priority.
+     * @param first a job.
+     * @param second another job of the same zone.
+     * @return the most urgent job.
+     */
+    static SyncJob mostUrgent(SyncJob first, SyncJob second) {
+        return second.isMoreUrgentThan(first) ? second : first;
+    }
+
+    /**
+     * Checks if this job must run before another one.
+     * @param other the other job.
+     * @return true if this job has a more urgent priority.
+     */
+    boolean isMoreUrgentThan(SyncJob other) {
+        return this.priority.compareTo(other.priority) < 0;
+    }
+
+    public String getZoneName() {
+        return this.zoneName;
+    }
+
+    /**
+     * Gets the Azure subscription whose queue the job waits in: the subscription of the first Azure target.
+     * @return the Azure subscription.
+     */
+    public String getSubscription() {
+        return this.subscriptions.get(0);
+    }
+
+    /**
+     * Gets all the Azure subscriptions the job replicates into, charged for its run time.
+     * @return the distinct Azure subscriptions, the queueing one first.
+     */
+    public List<String> getSubscriptions() {
+        return this.subscriptions;
+    }
+
+    public SyncPriority getPriority() {
+        return this.priority;
+    }
+
+    Runnable getTask() {
+        return this.task;
+    }
+
+    @Override
+    public String toString() {
+        return this.priority + " sync of " + this.zoneName;
+    }
+
+}
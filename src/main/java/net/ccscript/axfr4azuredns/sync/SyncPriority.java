@@ -0,0 +1,20 @@
+package net.ccscript.axfr4azuredns.sync;
+
+/**
+ * Priority classes of zone sync jobs, from the most to the least urgent. A job of a class only runs when no job
+ * of a more urgent class is waiting.
+ */
+public enum SyncPriority {
+    /**
+     * An operator asked for the sync through the admin endpoint, such as to push a critical change through.
+     */
+    OPERATOR,
+    /**
+     * The master sent a NOTIFY: the zone changed and Azure should follow as soon as possible.
+     */
+    NOTIFY,
+    /**
+     * The polling interval of the zone elapsed.
+     */
+    POLL
+}
@@ -0,0 +1,69 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Virtual times of weighted fair queuing: each subscription has a virtual time, advanced by the run time of its
+ * jobs divided by its weight. The clock itself follows the virtual time of the last served subscription.
+ */
+final class VirtualClock {
+
+    private final Map<String, Integer> weights;
+    private final int defaultWeight;
+    private final Map<String, Double> virtualTimes;
+    private double now;
+
+    /**
+     * Creates a VirtualClock.
+     * @param weights the weight of each subscription.
+     * @param defaultWeight the weight of the subscriptions not in weights.
+     */
+    VirtualClock(Map<String, Integer> weights, int defaultWeight) {
+        this.weights = weights;
+        this.defaultWeight = defaultWeight;
+        this.virtualTimes = new HashMap<String, Double>();
+    }
+
+    /**
+     * Registers a subscription with waiting jobs. A subscription which was idle starts at the current virtual
+     * time, so that it cannot accumulate credit while it has nothing to run.
+     * @param subscription the subscription.
+     */
+    void activate(String subscription) {
+        this.virtualTimes.merge(subscription, this.now, Math::max);
+    }
+
+    /**
+     * Moves the clock to the virtual time of a subscription about to be served.
+     * @param subscription the served subscription.
+     */
+    void serve(String subscription) {
+        this.now = Math.max(this.now, virtualTimeOf(subscription));
+    }
+
+    /**
+     * Charges the run time of a job to its subscription.
+     * @param subscription the subscription of the job.
+     * @param runNanos the time the job took or is expected to take, in nanoseconds.
+     */
+    void charge(String subscription, long runNanos) {
+        int weight = this.weights.getOrDefault(subscription, this.defaultWeight);
+        this.virtualTimes.merge(subscription, (double) runNanos / weight, Double::sum);
+    }
+
+    /**
+     * Checks if a subscription must be served before another one.
+     * @param subscription a subscription.
+     * @param other another subscription, or null.
+     * @return true if other is null or has a later virtual time.
+     */
+    boolean isBefore(String subscription, String other) {
+        return other == null || virtualTimeOf(subscription) < virtualTimeOf(other);
+    }
+
+    private double virtualTimeOf(String subscription) {
+        return this.virtualTimes.getOrDefault(subscription, this.now);
+    }
+
+}
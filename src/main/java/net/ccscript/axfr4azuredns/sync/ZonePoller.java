@@ -0,0 +1,160 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.SOARecord;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.DNSDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+
+/**
+ * Polls the SOA serial of the zones on their {@link PollingSchedule}, in case no NOTIFY is received. A
+ * {@link SyncPriority#POLL} job is submitted whenever the polled serial differs from the serial of the last
+ * successful sync of the zone, so that a zone whose sync failed, was paused or was drained is synchronized again
+ * on its next poll. Polls run on the executor, usually virtual threads, and the scheduler only times them.
+ */
+public final class ZonePoller {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final SoaSource soaSource;
+    private final SyncExecutor syncExecutor;
+    private final Consumer<Zone> sync;
+    private final ToLongFunction<Zone> syncedSerial;
+    private final Map<String, PolledZone> polledZones;
+
+    /**
+     * Creates a ZonePoller.
+     * @param scheduler the {@link ScheduledExecutorService} timing the polls.
+     * @param executor the {@link Executor} running the polls.
+     * @param soaSource the {@link SoaSource} giving the current SOA record of the zones.
+     * @param syncExecutor the {@link SyncExecutor} running the sync jobs.
+     * @param sync the sync work of a {@link Zone} out of sync with its master.
+     * @param syncedSerial gives the serial of the last successful sync of a {@link Zone}, or -1 if none.
+     */
+    public ZonePoller(ScheduledExecutorService scheduler, Executor executor, SoaSource soaSource,
+        SyncExecutor syncExecutor, Consumer<Zone> sync, ToLongFunction<Zone> syncedSerial) {
+
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.soaSource = soaSource;
+        this.syncExecutor = syncExecutor;
+        this.sync = sync;
+        this.syncedSerial = syncedSerial;
+        this.polledZones = new ConcurrentHashMap<String, PolledZone>();
+    }
+
+    /**
+     * Starts polling a zone, unless already polled. The first poll runs at once.
+     * @param zone the {@link Zone} to be polled.
+     */
+    public void start(Zone zone) {
+        PolledZone polledZone = new PolledZone(zone, createSchedule(zone.getDnsDomainConfiguration()));
+        if (this.polledZones.putIfAbsent(zone.getZoneName(), polledZone) == null) {
+            this.executor.execute(() -> poll(polledZone));
+        }
+    }
+
+    /**
+     * Stops polling a zone.
+     * @param zoneName the name of the zone.
+     */
+    public void stop(String zoneName) {
+        PolledZone polledZone = this.polledZones.remove(zoneName);
+        if (polledZone != null) {
+            polledZone.cancel();
+        }
+    }
+
+    /**
+     * Stops polling all the zones.
+     */
+    public void stopAll() {
+        this.polledZones.keySet().forEach(this::stop);
+    }
+
+    private static PollingSchedule createSchedule(DNSDomain dnsDomain) {
+        Duration minInterval = Duration.ofMinutes(dnsDomain.getPollingInterval());
+        if (!dnsDomain.isAdaptivePolling()) {
+            return new PollingSchedule(minInterval, minInterval, false);
+        }
+        return new PollingSchedule(minInterval, Duration.ofMinutes(dnsDomain.getMaxPollingInterval()), true);
+    }
+
+    private void poll(PolledZone polledZone) {
+        Duration delay;
+        try {
+            delay = polledZone.polled(this.soaSource.query(polledZone.zone));
+        } catch (IOException ioe) {
+            delay = polledZone.failed();
+            logger.warn("SOA poll of zone {} failed, next attempt in {}: {}", polledZone.zone.getZoneName(), delay,
+                ioe.getMessage());
+        }
+        if (this.polledZones.get(polledZone.zone.getZoneName()) == polledZone) {
+            polledZone.next = this.scheduler.schedule(() -> this.executor.execute(() -> poll(polledZone)),
+                delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The polling state of a zone.
+     */
+    private final class PolledZone {
+        private final Zone zone;
+        private final PollingSchedule schedule;
+        private long serial = -1;
+        private long lastPollNanos;
+        private Duration retry;
+        private volatile ScheduledFuture<?> next;
+
+        PolledZone(Zone zone, PollingSchedule schedule) {
+            this.zone = zone;
+            this.schedule = schedule;
+        }
+
+        Duration polled(SOARecord soa) {
+            long now = System.nanoTime();
+            Duration elapsed = Duration.ofNanos(now - this.lastPollNanos);
+            Duration refresh = Duration.ofSeconds(soa.getRefresh());
+            boolean first = this.serial < 0;
+            boolean changed = soa.getSerial() != this.serial;
+            this.serial = soa.getSerial();
+            this.lastPollNanos = now;
+            this.retry = Duration.ofSeconds(soa.getRetry());
+
+            if (changed) {
+                logger.debug("Serial of zone {} is now {}", this.zone.getZoneName(), this.serial);
+            }
+            if (this.serial != ZonePoller.this.syncedSerial.applyAsLong(this.zone)) {
+                ZonePoller.this.syncExecutor.submit(SyncJob.of(this.zone, SyncPriority.POLL,
+                    () -> ZonePoller.this.sync.accept(this.zone)));
+            }
+            return first ? this.schedule.started(refresh) : this.schedule.polled(changed, elapsed, refresh);
+        }
+
+        Duration failed() {
+            return this.schedule.failed(this.retry);
+        }
+
+        void cancel() {
+            ScheduledFuture<?> scheduled = this.next;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+
+}
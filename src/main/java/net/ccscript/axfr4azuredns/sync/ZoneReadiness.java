@@ -0,0 +1,20 @@
+package net.ccscript.axfr4azuredns.sync;
+
+/**
+ * How far a zone served by this server is in its startup.
+ */
+public enum ZoneReadiness {
+    /**
+     * The zone waits for its turn to be started: it is neither answered nor polled yet. A NOTIFY starts it at once.
+     */
+    PENDING,
+    /**
+     * The zone is started and polled, but no version of it is held yet: it is answered once its first transfer
+     * completes.
+     */
+    SYNCING,
+    /**
+     * A version of the zone, restored or transferred, is held and answered.
+     */
+    READY
+}
@@ -0,0 +1,146 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+
+/**
+ * Starts the zones at a steady pace, in the order they were queued, so that a server with thousands of zones does
+ * not query every master server and Azure subscription at once when it starts. A zone can be started at once out of
+ * turn, such as when its master sends a NOTIFY. The start work runs on the executor, usually virtual threads, and
+ * the scheduler only times it.
+ */
+public final class ZoneStarter {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final long periodNanos;
+    private final Consumer<Zone> start;
+    private final Map<String, Zone> pendingZones;
+    private ScheduledFuture<?> ticks;
+    private int startedZones;
+    private long firstQueuedNanos;
+
+    /**
+     * Creates a ZoneStarter.
+     * @param scheduler the {@link ScheduledExecutorService} timing the starts.
+     * @param executor the {@link Executor} running the starts.
+     * @param zonesPerSecond the number of zones started per second.
+     * @param start the start work of a {@link Zone}.
+     */
+    public ZoneStarter(ScheduledExecutorService scheduler, Executor executor, int zonesPerSecond,
+        Consumer<Zone> start) {
+
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / zonesPerSecond;
+        this.start = start;
+        this.pendingZones = new LinkedHashMap<String, Zone>();
+    }
+
+    /**
+     * Queues zones to be started, after the zones already queued. Zones already queued keep their turn.
+     * @param zones the {@link Zone}s to be started.
+     */
+    public synchronized void queue(Collection<Zone> zones) {
+        if (this.pendingZones.isEmpty()) {
+            this.firstQueuedNanos = System.nanoTime();
+            this.startedZones = 0;
+        }
+        for (Zone zone : zones) {
+            this.pendingZones.putIfAbsent(zone.getZoneName(), zone);
+        }
+        if (this.ticks == null && !this.pendingZones.isEmpty()) {
+            logger.info("Starting {} zones at {} zones per second", this.pendingZones.size(),
+                TimeUnit.SECONDS.toNanos(1) / this.periodNanos);
+            this.ticks = this.scheduler.scheduleAtFixedRate(this::tick, 0, this.periodNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Starts a queued zone at once, out of turn.
+     * @param zone the {@link Zone} to be started.
+     * @return true if the zone was queued and is now started, false if it was not queued.
+     */
+    public boolean startNow(Zone zone) {
+        synchronized (this) {
+            if (this.pendingZones.remove(zone.getZoneName()) == null) {
+                return false;
+            }
+            this.startedZones++;
+        }
+        logger.debug("Zone {} started out of turn", zone.getZoneName());
+        this.start.accept(zone);
+        return true;
+    }
+
+    /**
+     * Removes a zone from the queue, if still queued.
+     * @param zoneName the name of the zone.
+     */
+    public synchronized void cancel(String zoneName) {
+        this.pendingZones.remove(zoneName);
+    }
+
+    /**
+     * Checks if a zone is waiting for its turn to be started.
+     * @param zoneName the name of the zone.
+     * @return true if the zone is queued.
+     */
+    public synchronized boolean isPending(String zoneName) {
+        return this.pendingZones.containsKey(zoneName);
+    }
+
+    /**
+     * Gets the number of zones waiting for their turn to be started.
+     * @return the number of queued zones.
+     */
+    public synchronized int getPendingCount() {
+        return this.pendingZones.size();
+    }
+
+    /**
+     * Stops starting zones and drops the queued ones.
+     */
+    public synchronized void stop() {
+        this.pendingZones.clear();
+        if (this.ticks != null) {
+            this.ticks.cancel(false);
+            this.ticks = null;
+        }
+    }
+
+    private void tick() {
+        Zone zone;
+        synchronized (this) {
+            Iterator<Zone> pending = this.pendingZones.values().iterator();
+            if (!pending.hasNext()) {
+                if (this.ticks != null) {
+                    this.ticks.cancel(false);
+                    this.ticks = null;
+                    logger.info("{} zones started in {} ms", this.startedZones,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.firstQueuedNanos));
+                }
+                return;
+            }
+            zone = pending.next();
+            pending.remove();
+            this.startedZones++;
+        }
+        this.executor.execute(() -> this.start.accept(zone));
+    }
+
+}
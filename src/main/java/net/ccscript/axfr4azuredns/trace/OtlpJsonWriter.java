@@ -0,0 +1,117 @@
+package net.ccscript.axfr4azuredns.trace;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Writes spans in the JSON encoding of the OpenTelemetry protocol (OTLP/JSON, ExportTraceServiceRequest), so that
+ * exported files can be loaded by any OTLP compatible collector or trace viewer.
+ */
+final class OtlpJsonWriter {
+
+    private static final String SERVICE_NAME = "axfr4azuredns";
+    private static final String SCOPE_NAME = "net.ccscript.axfr4azuredns.trace";
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int STATUS_CODE_OK = 1;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private OtlpJsonWriter() {
+    }
+
+    /**
+     * Converts spans to an OTLP/JSON document.
+     * @param ended the ended spans.
+     * @param open the spans still open, written as ending now with the "in_progress" attribute.
+     * @param nowEpochNanos the current time in nanoseconds since the epoch.
+     * @return the OTLP/JSON document.
+     */
+    static JsonObject toJson(Collection<Span> ended, Collection<Span> open, long nowEpochNanos) {
+        JsonArray spans = new JsonArray();
+        for (Span span : ended) {
+            spans.add(toJson(span, span.getStartEpochNanos() + span.getDurationNanos(), false));
+        }
+        for (Span span : open) {
+            spans.add(toJson(span, nowEpochNanos, true));
+        }
+
+        JsonObject scope = new JsonObject();
+        scope.addProperty("name", SCOPE_NAME);
+        JsonObject scopeSpans = new JsonObject();
+        scopeSpans.add("scope", scope);
+        scopeSpans.add("spans", spans);
+        JsonArray scopeSpansArray = new JsonArray();
+        scopeSpansArray.add(scopeSpans);
+
+        JsonArray resourceAttributes = new JsonArray();
+        resourceAttributes.add(stringAttribute("service.name", SERVICE_NAME));
+        JsonObject resource = new JsonObject();
+        resource.add("attributes", resourceAttributes);
+        JsonObject resourceSpans = new JsonObject();
+        resourceSpans.add("resource", resource);
+        resourceSpans.add("scopeSpans", scopeSpansArray);
+        JsonArray resourceSpansArray = new JsonArray();
+        resourceSpansArray.add(resourceSpans);
+
+        JsonObject request = new JsonObject();
+        request.add("resourceSpans", resourceSpansArray);
+        return request;
+    }
+
+    private static JsonObject toJson(Span span, long endEpochNanos, boolean inProgress) {
+        JsonObject spanObject = new JsonObject();
+        spanObject.addProperty("traceId", span.getTrace().getTraceId());
+        spanObject.addProperty("spanId", span.getSpanId());
+        if (span.getParent() != null) {
+            spanObject.addProperty("parentSpanId", span.getParent().getSpanId());
+        }
+        spanObject.addProperty("name", span.getName());
+        spanObject.addProperty("kind", SPAN_KIND_INTERNAL);
+        // 64 bits integers are written as strings in OTLP/JSON
+        spanObject.addProperty("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+        spanObject.addProperty("endTimeUnixNano", Long.toString(endEpochNanos));
+
+        JsonArray attributes = new JsonArray();
+        for (Map.Entry<String, String> attribute : span.getAttributes().entrySet()) {
+            attributes.add(stringAttribute(attribute.getKey(), attribute.getValue()));
+        }
+        for (Map.Entry<String, LongAdder> counter : span.getCounters().entrySet()) {
+            JsonObject value = new JsonObject();
+            value.addProperty("intValue", Long.toString(counter.getValue().sum()));
+            attributes.add(attribute(counter.getKey(), value));
+        }
+        if (inProgress) {
+            JsonObject value = new JsonObject();
+            value.addProperty("boolValue", true);
+            attributes.add(attribute("in_progress", value));
+        }
+        spanObject.add("attributes", attributes);
+
+        JsonObject status = new JsonObject();
+        if (span.getError() != null) {
+            status.addProperty("code", STATUS_CODE_ERROR);
+            status.addProperty("message", span.getError());
+        } else if (!inProgress) {
+            status.addProperty("code", STATUS_CODE_OK);
+        }
+        spanObject.add("status", status);
+        return spanObject;
+    }
+
+    private static JsonObject stringAttribute(String key, String value) {
+        JsonObject valueObject = new JsonObject();
+        valueObject.addProperty("stringValue", value);
+        return attribute(key, valueObject);
+    }
+
+    private static JsonObject attribute(String key, JsonObject value) {
+        JsonObject attribute = new JsonObject();
+        attribute.addProperty("key", key);
+        attribute.add("value", value);
+        return attribute;
+    }
+
+}
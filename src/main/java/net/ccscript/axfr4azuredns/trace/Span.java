@@ -0,0 +1,282 @@
+package net.ccscript.axfr4azuredns.trace;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.ThreadContext;
+
+/**
+ * A timed stage of a zone sync, child of the stage it is part of. Opening a span makes it the current span of the
+ * opening thread, and puts its trace and span identifiers in the log4j2 {@link ThreadContext} as "traceId" and
+ * "spanId", so that the log lines of a sync can be correlated with its trace. Closing it restores the previous
+ * current span. Counters, such as records and bytes, can be added from any thread.
+ * <p>
+ * Outside of a zone sync, {@link #current()} gives {@link #NONE}, on which every method does nothing: instrumented
+ * code does not have to check whether it runs within a trace.
+ */
+public final class Span implements AutoCloseable {
+
+    /**
+     * The span of code not running within a trace, recording nothing.
+     */
+    public static final Span NONE = new Span(null, null, "none", false);
+
+    /**
+     * The counter of the records read or written by a span.
+     */
+    public static final String RECORDS = "records";
+    /**
+     * The counter of the bytes sent or received by a span.
+     */
+    public static final String BYTES = "bytes";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<Span>();
+    private static final String TRACE_ID_KEY = "traceId";
+    private static final String SPAN_ID_KEY = "spanId";
+
+    private final Trace trace;
+    private final Span parent;
+    private final String spanId;
+    private final String name;
+    private final boolean detail;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Map<String, String> attributes;
+    private final Map<String, LongAdder> counters;
+    private volatile long durationNanos = -1;
+    private volatile String error;
+    private Span previous;
+
+    private Span(Trace trace, Span parent, String name, boolean detail) {
+        this.trace = trace;
+        this.parent = parent;
+        this.spanId = String.format("%016x", ThreadLocalRandom.current().nextLong());
+        this.name = name;
+        this.detail = detail;
+        this.startEpochNanos = trace == null ? 0 : trace.getTracer().epochNanos();
+        this.startNanos = System.nanoTime();
+        this.attributes = trace == null ? Collections.emptyMap() : new ConcurrentHashMap<String, String>();
+        this.counters = trace == null ? Collections.emptyMap() : new ConcurrentHashMap<String, LongAdder>();
+    }
+
+    /**
+     * Opens the root span of a new trace.
+     * @param trace the new {@link Trace}.
+     * @param name the name of the span.
+     * @return the open span, current span of the calling thread.
+     */
+    static Span root(Trace trace, String name) {
+        return new Span(trace, null, name, false).open();
+    }
+
+    /**
+     * Gets the current span of the calling thread.
+     * @return the current span, or {@link #NONE} if the thread does not run within a trace.
+     */
+    public static Span current() {
+        Span current = CURRENT.get();
+        return current == null ? NONE : current;
+    }
+
+    /**
+     * Opens a child span, current span of the calling thread until it is closed.
+     * @param childName the name of the child span, such as "transfer".
+     * @return the open child span, or {@link #NONE} if this span is {@link #NONE}.
+     */
+    public Span child(String childName) {
+        return this.trace == null ? NONE : new Span(this.trace, this, childName, false).open();
+    }
+
+    /**
+     * Opens a detail child span, such as a single Azure request, which is only recorded if it lasts at least the
+     * slow call threshold of the {@link Tracer}. Every detail is counted in this span under its name, and its
+     * counters are added to the counters of this span.
+     * @param childName the name of the detail span.
+     * @return the open detail span, or {@link #NONE} if this span is {@link #NONE}.
+     */
+    public Span detail(String childName) {
+        return this.trace == null ? NONE : new Span(this.trace, this, childName, true).open();
+    }
+
+    private Span open() {
+        this.trace.opened(this);
+        this.previous = CURRENT.get();
+        CURRENT.set(this);
+        ThreadContext.put(TRACE_ID_KEY, this.trace.getTraceId());
+        ThreadContext.put(SPAN_ID_KEY, this.spanId);
+        return this;
+    }
+
+    /**
+     * Sets a text attribute, such as the zone name or the Azure DNS Zone.
+     * @param key the attribute name.
+     * @param value the attribute value.
+     * @return this span.
+     */
+    public Span setAttribute(String key, String value) {
+        if (this.trace != null && value != null) {
+            this.attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds to a counter of this span.
+     * @param counter the counter name, such as {@link #RECORDS} or {@link #BYTES}.
+     * @param delta the value to be added.
+     */
+    public void add(String counter, long delta) {
+        if (this.trace != null) {
+            this.counters.computeIfAbsent(counter, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * Adds to the records counter of this span.
+     * @param records the number of records read or written.
+     */
+    public void addRecords(long records) {
+        add(RECORDS, records);
+    }
+
+    /**
+     * Adds to the bytes counter of this span.
+     * @param bytes the number of bytes sent or received.
+     */
+    public void addBytes(long bytes) {
+        add(BYTES, bytes);
+    }
+
+    /**
+     * Marks this span as failed.
+     * @param message the error message.
+     */
+    public void fail(String message) {
+        if (this.trace != null) {
+            this.error = message == null ? "failed" : message;
+        }
+    }
+
+    /**
+     * Ends this span and restores the previous current span of the thread. Closing a span twice does nothing.
+     */
+    @Override
+    public void close() {
+        if (this.trace == null || this.durationNanos >= 0) {
+            return;
+        }
+        this.durationNanos = System.nanoTime() - this.startNanos;
+        this.trace.closed(this);
+        if (CURRENT.get() == this) {
+            restore(this.previous);
+        }
+        if (this.detail) {
+            this.parent.add(this.name, 1);
+            for (Map.Entry<String, LongAdder> counter : this.counters.entrySet()) {
+                this.parent.add(counter.getKey(), counter.getValue().sum());
+            }
+            if (this.durationNanos < this.trace.getTracer().getSlowCallNanos()) {
+                return;
+            }
+        }
+        this.trace.getTracer().finished(this);
+    }
+
+    private static void restore(Span span) {
+        if (span == null) {
+            CURRENT.remove();
+            ThreadContext.remove(TRACE_ID_KEY);
+            ThreadContext.remove(SPAN_ID_KEY);
+        } else {
+            CURRENT.set(span);
+            ThreadContext.put(TRACE_ID_KEY, span.trace.getTraceId());
+            ThreadContext.put(SPAN_ID_KEY, span.spanId);
+        }
+    }
+
+    /**
+     * Gets the trace of this span.
+     * @return the {@link Trace}, or null for {@link #NONE}.
+     */
+    Trace getTrace() {
+        return this.trace;
+    }
+
+    /**
+     * Gets the span this span is part of.
+     * @return the parent span, or null for a root span.
+     */
+    Span getParent() {
+        return this.parent;
+    }
+
+    /**
+     * Gets the span identifier, 16 hexadecimal digits.
+     * @return the span identifier.
+     */
+    String getSpanId() {
+        return this.spanId;
+    }
+
+    /**
+     * Gets the name of the span.
+     * @return the span name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the time the span started at.
+     * @return the start time in nanoseconds since the epoch.
+     */
+    long getStartEpochNanos() {
+        return this.startEpochNanos;
+    }
+
+    /**
+     * Gets the duration of the span.
+     * @return the duration in nanoseconds, or -1 if the span is still open.
+     */
+    public long getDurationNanos() {
+        return this.durationNanos;
+    }
+
+    /**
+     * Gets the text attributes of the span.
+     * @return an unmodifiable map of attributes.
+     */
+    Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(this.attributes);
+    }
+
+    /**
+     * Gets a counter of the span.
+     * @param counter the counter name.
+     * @return the counter value, 0 if nothing was added to it.
+     */
+    public long getCounter(String counter) {
+        LongAdder value = this.counters.get(counter);
+        return value == null ? 0 : value.sum();
+    }
+
+    /**
+     * Gets the counters of the span.
+     * @return an unmodifiable map of counters.
+     */
+    Map<String, LongAdder> getCounters() {
+        return Collections.unmodifiableMap(this.counters);
+    }
+
+    /**
+     * Gets the error of a failed span.
+     * @return the error message, or null if the span did not fail.
+     */
+    public String getError() {
+        return this.error;
+    }
+
+}
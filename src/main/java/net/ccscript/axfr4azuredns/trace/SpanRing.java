@@ -0,0 +1,54 @@
+package net.ccscript.axfr4azuredns.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size ring of the last ended spans. Adding a span claims the next slot with a single atomic increment and
+ * overwrites the oldest span: writers never lock nor wait for each other or for readers.
+ */
+final class SpanRing {
+
+    private final AtomicReferenceArray<Span> slots;
+    private final AtomicLong next;
+    private final int mask;
+
+    /**
+     * Creates a SpanRing.
+     * @param capacity the minimum number of spans kept, rounded up to a power of two.
+     */
+    SpanRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<Span>(size);
+        this.next = new AtomicLong();
+        this.mask = size - 1;
+    }
+
+    void add(Span span) {
+        this.slots.set((int) (this.next.getAndIncrement() & this.mask), span);
+    }
+
+    /**
+     * Gets the spans currently in the ring, oldest first. Spans added while reading may or may not be included.
+     * @return the spans.
+     */
+    List<Span> snapshot() {
+        long end = this.next.get();
+        long start = Math.max(0, end - this.slots.length());
+        List<Span> spans = new ArrayList<Span>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Span span = this.slots.get((int) (sequence & this.mask));
+            if (span != null) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    int capacity() {
+        return this.slots.length();
+    }
+
+}
@@ -0,0 +1,61 @@
+package net.ccscript.axfr4azuredns.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The spans of one zone sync, sharing a trace identifier. Spans are tracked from any thread while open, then added
+ * to the trace as they end.
+ */
+final class Trace {
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final Queue<Span> spans;
+    private final Set<Span> openSpans;
+
+    /**
+     * Creates a Trace.
+     * @param tracer the {@link Tracer} recording the spans.
+     * @param traceId the trace identifier, 32 hexadecimal digits.
+     */
+    Trace(Tracer tracer, String traceId) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spans = new ConcurrentLinkedQueue<Span>();
+        this.openSpans = ConcurrentHashMap.newKeySet();
+    }
+
+    Tracer getTracer() {
+        return this.tracer;
+    }
+
+    String getTraceId() {
+        return this.traceId;
+    }
+
+    void opened(Span span) {
+        this.openSpans.add(span);
+    }
+
+    void closed(Span span) {
+        this.openSpans.remove(span);
+    }
+
+    void add(Span span) {
+        this.spans.add(span);
+    }
+
+    List<Span> getSpans() {
+        return new ArrayList<Span>(this.spans);
+    }
+
+    List<Span> getOpenSpans() {
+        return new ArrayList<Span>(this.openSpans);
+    }
+
+}
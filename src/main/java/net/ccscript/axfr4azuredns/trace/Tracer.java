@@ -0,0 +1,178 @@
+package net.ccscript.axfr4azuredns.trace;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Tracing;
+
+/**
+ * Records the span tree of each zone sync. Ended spans go into a {@link SpanRing} holding the spans of the recent
+ * syncs, which can be dumped on demand, open spans included. The trace of a sync lasting at least the export
+ * threshold is also exported as soon as it ends. Traces are written to the tracing directory as OTLP/JSON files.
+ */
+public final class Tracer {
+
+    /**
+     * The name of the file which, once created in the tracing directory, requests a dump of the recent spans.
+     */
+    public static final String DUMP_REQUEST = "dump.request";
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final SpanRing ring;
+    private final Path directory;
+    private final long exportThresholdNanos;
+    private final long slowCallNanos;
+    private final Set<Trace> activeTraces;
+    private final long baseEpochNanos;
+    private final long baseNanos;
+
+    /**
+     * Creates a Tracer.
+     * @param bufferSpans the number of ended spans kept in memory.
+     * @param directory the directory traces are written to, or null to keep them in memory only.
+     * @param exportThreshold the duration from which the trace of a sync is exported as soon as it ends.
+     * @param slowCall the duration from which a detail span, such as a single Azure request, is recorded.
+     */
+    public Tracer(int bufferSpans, Path directory, Duration exportThreshold, Duration slowCall) {
+        this.ring = new SpanRing(bufferSpans);
+        this.directory = directory;
+        this.exportThresholdNanos = exportThreshold.toNanos();
+        this.slowCallNanos = slowCall.toNanos();
+        this.activeTraces = ConcurrentHashMap.newKeySet();
+        Instant now = Instant.now();
+        this.baseEpochNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+        this.baseNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates the Tracer of a server.
+     * @param tracing the {@link Tracing} configuration.
+     * @return the Tracer.
+     */
+    public static Tracer forConfiguration(Tracing tracing) {
+        return new Tracer(tracing.getBufferSpans(),
+            tracing.getDirectory() == null ? null : Path.of(tracing.getDirectory()),
+            Duration.ofSeconds(tracing.getExportThresholdSeconds()), Duration.ofMillis(tracing.getSlowCallMillis()));
+    }
+
+    /**
+     * Opens the root span of the sync of a zone, in a new trace.
+     * @param zoneName the name of the zone.
+     * @return the root span, current span of the calling thread until it is closed.
+     */
+    public Span startSync(String zoneName) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Trace trace = new Trace(this, String.format("%016x%016x", random.nextLong(), random.nextLong()));
+        this.activeTraces.add(trace);
+        return Span.root(trace, "zone.sync").setAttribute("zone", zoneName);
+    }
+
+    long epochNanos() {
+        return this.baseEpochNanos + System.nanoTime() - this.baseNanos;
+    }
+
+    long getSlowCallNanos() {
+        return this.slowCallNanos;
+    }
+
+    /**
+     * Records an ended span, and exports its trace if it is a root span lasting at least the export threshold.
+     * @param span the ended {@link Span}.
+     */
+    void finished(Span span) {
+        this.ring.add(span);
+        span.getTrace().add(span);
+        if (span.getParent() == null) {
+            this.activeTraces.remove(span.getTrace());
+            if (this.directory != null && span.getDurationNanos() >= this.exportThresholdNanos) {
+                export(span);
+            }
+        }
+    }
+
+    private void export(Span root) {
+        String zone = root.getAttributes().getOrDefault("zone", "zone").replaceAll("[^A-Za-z0-9._-]", "_");
+        try {
+            Path file = write("trace-" + zone + "-" + root.getTrace().getTraceId() + ".json",
+                OtlpJsonWriter.toJson(root.getTrace().getSpans(), List.of(), epochNanos()));
+            logger.info("Sync of zone {} took {} ms, trace exported to {}", root.getAttributes().get("zone"),
+                TimeUnit.NANOSECONDS.toMillis(root.getDurationNanos()), file);
+        } catch (IOException ioe) {
+            logger.warn("Trace {} could not be exported: {}", root.getTrace().getTraceId(), ioe.getMessage());
+        }
+    }
+
+    /**
+     * Gets the recent spans: the ended spans still in the ring, oldest first.
+     * @return the recent {@link Span}s.
+     */
+    public List<Span> getRecentSpans() {
+        return this.ring.snapshot();
+    }
+
+    /**
+     * Dumps the recent spans and the open spans of the syncs in progress to a new file of the tracing directory.
+     * @return the path of the dump file.
+     * @throws IOException if there is no tracing directory or the file could not be written.
+     */
+    public Path dump() throws IOException {
+        if (this.directory == null) {
+            throw new IOException("No tracing directory is configured");
+        }
+        List<Span> open = new ArrayList<Span>();
+        for (Trace trace : this.activeTraces) {
+            open.addAll(trace.getOpenSpans());
+        }
+        long now = epochNanos();
+        Path file = write("dump-" + TimeUnit.NANOSECONDS.toMillis(now) + ".json",
+            OtlpJsonWriter.toJson(this.ring.snapshot(), open, now));
+        logger.info("Recent spans dumped to {}", file);
+        return file;
+    }
+
+    /**
+     * Dumps the recent spans if the {@link #DUMP_REQUEST} file exists in the tracing directory, then deletes it.
+     * Called periodically.
+     */
+    public void dumpIfRequested() {
+        if (this.directory == null) {
+            return;
+        }
+        try {
+            if (Files.deleteIfExists(this.directory.resolve(DUMP_REQUEST))) {
+                dump();
+            }
+        } catch (IOException ioe) {
+            logger.warn("Recent spans could not be dumped: {}", ioe.getMessage());
+        }
+    }
+
+    /**
+     * Writes a document to a temporary file, then moves it to its name, so that readers never see a partial file.
+     */
+    private Path write(String fileName, JsonObject document) throws IOException {
+        Files.createDirectories(this.directory);
+        Path file = this.directory.resolve(fileName);
+        Path temporary = this.directory.resolve(fileName + ".tmp");
+        Files.writeString(temporary, document.toString(), StandardCharsets.UTF_8);
+        return Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
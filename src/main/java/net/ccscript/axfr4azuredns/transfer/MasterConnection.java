@@ -0,0 +1,147 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import org.xbill.DNS.Message;
+
+import net.ccscript.axfr4azuredns.trace.Span;
+import net.ccscript.axfr4azuredns.tsig.Tsig;
+import net.ccscript.axfr4azuredns.tsig.TsigException;
+import net.ccscript.axfr4azuredns.tsig.TsigExchange;
+
+/**
+ * A TCP connection to a master server, carrying any number of back-to-back exchanges: a SOA query followed by a
+ * zone transfer, then the exchanges of the next zone once returned to the {@link MasterPool}.
+ */
+final class MasterConnection implements Closeable {
+
+    private static final int MAX_MESSAGE_LENGTH = 65535;
+
+    private final Socket socket;
+    private final DataInputStream input;
+    private final DataOutputStream output;
+    private long idleSinceNanos;
+    private boolean reused;
+
+    private MasterConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Opens a connection.
+     * @param address the address of the master server.
+     * @param timeout the connect and read timeout.
+     * @return the {@link MasterConnection}.
+     * @throws IOException if the connection cannot be opened.
+     */
+    static MasterConnection open(InetSocketAddress address, Duration timeout) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) timeout.toMillis());
+            socket.connect(address, (int) timeout.toMillis());
+            return new MasterConnection(socket);
+        } catch (IOException ioe) {
+            socket.close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Sends a query, signed if a key is given.
+     * @param query the query.
+     * @param tsig the {@link Tsig} key signing the query, or null.
+     * @return the {@link TsigExchange} verifying the responses, or null if the query is not signed.
+     * @throws IOException if the connection failed.
+     */
+    TsigExchange send(Message query, Tsig tsig) throws IOException {
+        byte[] wire = query.toWire(MAX_MESSAGE_LENGTH);
+        TsigExchange exchange = tsig == null ? null : tsig.newExchange();
+        if (exchange != null) {
+            wire = exchange.signRequest(wire);
+        }
+        this.output.writeShort(wire.length);
+        this.output.write(wire);
+        this.output.flush();
+        Span.current().addBytes(Short.BYTES + wire.length);
+        return exchange;
+    }
+
+    /**
+     * Receives the next response message, verifying its signature if the query was signed.
+     * @param exchange the {@link TsigExchange} of the query, or null if the query was not signed.
+     * @return the message.
+     * @throws IOException if the connection failed, the message is malformed or its signature is not valid.
+     */
+    Message receive(TsigExchange exchange) throws IOException {
+        byte[] wire = new byte[this.input.readUnsignedShort()];
+        this.input.readFully(wire);
+        Span.current().addBytes(Short.BYTES + wire.length);
+        Message message = new Message(wire);
+        try {
+            if (exchange != null) {
+                exchange.verify(ByteBuffer.wrap(wire), message);
+            }
+        } catch (TsigException te) {
+            throw new IOException("TSIG verification failed: " + te.getMessage(), te);
+        }
+        return message;
+    }
+
+    /**
+     * Checks that the last response message of a signed query was signed.
+     * @param exchange the {@link TsigExchange} of the query, or null if the query was not signed.
+     * @throws IOException if the last message was not signed.
+     */
+    static void finish(TsigExchange exchange) throws IOException {
+        try {
+            if (exchange != null) {
+                exchange.finish();
+            }
+        } catch (TsigException te) {
+            throw new IOException("TSIG verification failed: " + te.getMessage(), te);
+        }
+    }
+
+    /**
+     * Marks the connection as returned to its {@link MasterPool}.
+     */
+    void markIdle() {
+        this.idleSinceNanos = System.nanoTime();
+        this.reused = true;
+    }
+
+    /**
+     * Checks if the connection has been unused for too long to be reused.
+     * @param idleTimeout the idle timeout.
+     * @return true if the connection must be closed.
+     */
+    boolean isExpired(Duration idleTimeout) {
+        return System.nanoTime() - this.idleSinceNanos > idleTimeout.toNanos() || this.socket.isClosed();
+    }
+
+    /**
+     * Checks if the connection already carried exchanges: the master server may have closed it since.
+     * @return true if the connection was taken from the pool.
+     */
+    boolean isReused() {
+        return this.reused;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.socket.close();
+    }
+
+}
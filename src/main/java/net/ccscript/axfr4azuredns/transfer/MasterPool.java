@@ -0,0 +1,186 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Sync;
+
+/**
+ * Limits the concurrent zone transfers of each master server and keeps their TCP connections for reuse. The limit
+ * of a master server applies across all the zones using it: a master server restarting with hundreds of zones only
+ * serves a few transfers at a time, while other master servers keep their own slots. Waiting transfers get a slot
+ * in arrival order. Connections returned to the pool are reused, most recently used first, until unused for the
+ * idle timeout.
+ */
+public final class MasterPool implements Closeable {
+
+    /**
+     * Port of the master servers.
+     */
+    public static final int DNS_PORT = 53;
+    /**
+     * Default connect and read timeout of the master server connections.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final int defaultLimit;
+    private final Map<String, Integer> limits;
+    private final Duration idleTimeout;
+    private final Duration timeout;
+    private final int port;
+    private final Map<String, Master> masters;
+
+    /**
+     * Creates a MasterPool.
+     * @param defaultLimit the maximum number of concurrent transfers of a master server.
+     * @param limits the maximum number of concurrent transfers of specific master servers, by IP address.
+     * @param idleTimeout the time an unused connection is kept for reuse.
+     * @param timeout the connect and read timeout of the connections.
+     * @param port the port of the master servers.
+     */
+    public MasterPool(int defaultLimit, Map<String, Integer> limits, Duration idleTimeout, Duration timeout,
+        int port) {
+
+        this.defaultLimit = defaultLimit;
+        this.limits = limits;
+        this.idleTimeout = idleTimeout;
+        this.timeout = timeout;
+        this.port = port;
+        this.masters = new ConcurrentHashMap<String, Master>();
+    }
+
+    /**
+     * Creates a MasterPool from the sync configuration.
+     * @param sync the {@link Sync} configuration.
+     */
+    public MasterPool(Sync sync) {
+        this(sync, DNS_PORT);
+    }
+
+    /**
+     * Creates a MasterPool from the sync configuration, for master servers listening on another port.
+     * @param sync the {@link Sync} configuration.
+     * @param port the port of the master servers.
+     */
+    public MasterPool(Sync sync, int port) {
+        this(sync.getMaxTransfersPerMaster(), sync.getMasterTransferLimits(),
+            Duration.ofSeconds(sync.getMasterIdleTimeoutSeconds()), DEFAULT_TIMEOUT, port);
+    }
+
+    /**
+     * Takes a transfer slot of a master server, waiting for one if needed, and a connection to it.
+     * @param master the IP address of the master server.
+     * @return a connection, reused if possible.
+     * @throws IOException if no connection could be opened.
+     * @throws InterruptedException if interrupted while waiting for a slot.
+     */
+    MasterConnection acquire(String master) throws IOException, InterruptedException {
+        Master state = this.masters.computeIfAbsent(master,
+            ip -> new Master(this.limits.getOrDefault(ip, this.defaultLimit)));
+        state.slots.acquire();
+        try {
+            MasterConnection connection = state.idleConnections.pollFirst();
+            while (connection != null && connection.isExpired(this.idleTimeout)) {
+                connection.close();
+                connection = state.idleConnections.pollFirst();
+            }
+            return connection != null ? connection : open(master);
+        } catch (IOException ioe) {
+            state.slots.release();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Replaces a connection found closed by the master server, keeping the transfer slot.
+     * @param master the IP address of the master server.
+     * @param connection the closed connection.
+     * @return a new connection.
+     * @throws IOException if no connection could be opened.
+     */
+    MasterConnection reconnect(String master, MasterConnection connection) throws IOException {
+        logger.debug("Connection to master {} closed while idle, reconnecting", master);
+        connection.close();
+        return open(master);
+    }
+
+    /**
+     * Gives back a transfer slot and its connection.
+     * @param master the IP address of the master server.
+     * @param connection the connection.
+     * @param reusable true if the connection is ready for another exchange, false to close it.
+     */
+    void release(String master, MasterConnection connection, boolean reusable) {
+        Master state = this.masters.get(master);
+        try {
+            if (reusable && !this.idleTimeout.isZero()) {
+                connection.markIdle();
+                state.idleConnections.offerFirst(connection);
+            } else {
+                connection.close();
+            }
+        } catch (IOException ioe) {
+            logger.debug("Closing connection to master {} failed: {}", master, ioe.getMessage());
+        } finally {
+            state.slots.release();
+        }
+    }
+
+    /**
+     * Gets the number of transfers waiting for a slot of a master server.
+     * @param master the IP address of the master server.
+     * @return the number of waiting transfers.
+     */
+    public int getWaitingTransfers(String master) {
+        Master state = this.masters.get(master);
+        return state == null ? 0 : state.slots.getQueueLength();
+    }
+
+    /**
+     * Closes the idle connections.
+     */
+    @Override
+    public void close() {
+        for (Master state : this.masters.values()) {
+            for (MasterConnection connection = state.idleConnections.pollFirst(); connection != null;
+                connection = state.idleConnections.pollFirst()) {
+                closeQuietly(connection);
+            }
+        }
+    }
+
+    private MasterConnection open(String master) throws IOException {
+        return MasterConnection.open(new InetSocketAddress(master, this.port), this.timeout);
+    }
+
+    private static void closeQuietly(MasterConnection connection) {
+        try {
+            connection.close();
+        } catch (IOException ioe) {
+            logger.debug("Closing idle master connection failed: {}", ioe.getMessage());
+        }
+    }
+
+    private static final class Master {
+        private final Semaphore slots;
+        private final Deque<MasterConnection> idleConnections;
+
+        Master(int limit) {
+            this.slots = new Semaphore(limit, true);
+            this.idleConnections = new ConcurrentLinkedDeque<MasterConnection>();
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Serial;
+
+/**
+ * The answer records of a zone transfer, collected until the transfer is complete. A full zone ends with the second
+ * occurrence of its SOA record, and incremental differences with the third one, as the new SOA record also starts
+ * the last added records. An IXFR response made of the SOA record alone means the zone is up to date.
+ */
+final class TransferAnswers {
+
+    private static final int FULL_SOA_COUNT = 2;
+    private static final int INCREMENTAL_SOA_COUNT = 3;
+
+    private final long currentSerial;
+    private final List<Record> answers;
+    private long newSerial;
+    private int lastSoaCount = FULL_SOA_COUNT;
+    private int soaCount;
+
+    /**
+     * Creates a TransferAnswers.
+     * @param currentSerial the serial of the current content for IXFR, -1 for AXFR.
+     */
+    TransferAnswers(long currentSerial) {
+        this.currentSerial = currentSerial;
+        this.answers = new ArrayList<Record>();
+    }
+
+    /**
+     * Adds an answer record.
+     * @param record the record.
+     * @return true if the transfer is complete.
+     * @throws IOException if the transfer does not start with a SOA record.
+     */
+    boolean add(Record record) throws IOException {
+        readTransferKind(record);
+        this.answers.add(record);
+        return isNewSoa(record) && ++this.soaCount == this.lastSoaCount;
+    }
+
+    /**
+     * Checks if the master server answered with the SOA record alone, because the current content is up to date.
+     * @return true if the zone is up to date.
+     */
+    boolean isUpToDate() {
+        return this.answers.size() == 1 && this.currentSerial >= 0
+            && Serial.compare(this.newSerial, this.currentSerial) <= 0;
+    }
+
+    /**
+     * Gets the outcome of the complete transfer.
+     * @return the {@link ZoneTransfer}.
+     */
+    ZoneTransfer toZoneTransfer() {
+        return isUpToDate() ? ZoneTransfer.upToDate((SOARecord) this.answers.get(0))
+            : ZoneTransfer.of(this.answers, this.lastSoaCount == INCREMENTAL_SOA_COUNT);
+    }
+
+    /**
+     * Reads the serial of the new version from the first record, and the kind of transfer from the second one:
+     * incremental differences start with the old SOA record.
+     */
+    private void readTransferKind(Record record) throws IOException {
+        switch (this.answers.size()) {
+            case 0:
+                this.newSerial = startSerial(record);
+                break;
+            case 1:
+                this.lastSoaCount = record instanceof SOARecord ? INCREMENTAL_SOA_COUNT : FULL_SOA_COUNT;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static long startSerial(Record record) throws IOException {
+        if (record instanceof SOARecord soa) {
+            return soa.getSerial();
+        }
+        throw new IOException("Transfer does not start with a SOA record");
+    }
+
+    private boolean isNewSoa(Record record) {
+        return record instanceof SOARecord soa && soa.getSerial() == this.newSerial;
+    }
+
+}
@@ -0,0 +1,87 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+
+import net.ccscript.axfr4azuredns.trace.Span;
+import net.ccscript.axfr4azuredns.tsig.TsigExchange;
+
+/**
+ * Reads the response messages of an AXFR or IXFR query until the {@link TransferAnswers} are complete, verifying
+ * their TSIG signatures if the query was signed.
+ */
+final class TransferReader {
+
+    private final MasterConnection connection;
+    private final Message query;
+    private final TsigExchange exchange;
+    private final TransferAnswers answers;
+
+    /**
+     * Creates a TransferReader.
+     * @param connection the connection the query was sent on.
+     * @param query the AXFR or IXFR query.
+     * @param exchange the {@link TsigExchange} of the query, or null if the query was not signed.
+     * @param currentSerial the serial of the current content for IXFR, -1 for AXFR.
+     */
+    TransferReader(MasterConnection connection, Message query, TsigExchange exchange, long currentSerial) {
+        this.connection = connection;
+        this.query = query;
+        this.exchange = exchange;
+        this.answers = new TransferAnswers(currentSerial);
+    }
+
+    /**
+     * Reads the transfer.
+     * @return the {@link ZoneTransfer}, or null if the master server refused the query.
+     * @throws IOException if the connection failed or the response is malformed.
+     */
+    ZoneTransfer read() throws IOException {
+        Message response = receive();
+        if (response.getRcode() != Rcode.NOERROR) {
+            return null;
+        }
+        while (!readAnswers(response)) {
+            response = receiveNext();
+        }
+        MasterConnection.finish(this.exchange);
+        return this.answers.toZoneTransfer();
+    }
+
+    private Message receive() throws IOException {
+        Message response = this.connection.receive(this.exchange);
+        if (response.getHeader().getID() != this.query.getHeader().getID()) {
+            throw new IOException("Transfer response ID mismatch");
+        }
+        return response;
+    }
+
+    private Message receiveNext() throws IOException {
+        Message response = receive();
+        if (response.getRcode() != Rcode.NOERROR) {
+            throw new IOException("Transfer failed: " + Rcode.string(response.getRcode()));
+        }
+        return response;
+    }
+
+    /**
+     * Adds the answer records of a response message.
+     * @return true if the transfer is complete.
+     */
+    private boolean readAnswers(Message response) throws IOException {
+        List<Record> records = response.getSection(Section.ANSWER);
+        Span.current().addRecords(records.size());
+        for (Record record : records) {
+            if (this.answers.add(record)) {
+                return true;
+            }
+        }
+        return this.answers.isUpToDate();
+    }
+
+}
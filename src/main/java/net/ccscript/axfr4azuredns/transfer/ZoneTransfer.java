@@ -0,0 +1,125 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+
+/**
+ * The outcome of a zone transfer: the zone is up to date, or its full content (AXFR, or IXFR answered with the
+ * whole zone), or the ordered differences from the current content (IXFR, RFC 1995).
+ */
+public final class ZoneTransfer {
+
+    private final SOARecord soa;
+    private final List<Record> records;
+    private final List<Difference> differences;
+
+    private ZoneTransfer(SOARecord soa, List<Record> records, List<Difference> differences) {
+        this.soa = soa;
+        this.records = records;
+        this.differences = differences;
+    }
+
+    /**
+     * Creates the outcome of a transfer not needed: the master server has the same serial.
+     * @param soa the SOA record of the master server.
+     * @return the {@link ZoneTransfer}.
+     */
+    static ZoneTransfer upToDate(SOARecord soa) {
+        return new ZoneTransfer(soa, null, List.of());
+    }
+
+    /**
+     * Creates the outcome of a transfer from the answer records of its response messages.
+     * @param answers the answer records, starting and ending with the SOA record of the new version.
+     * @param incremental true if the answers hold differences, false for the full zone.
+     * @return the {@link ZoneTransfer}.
+     */
+    static ZoneTransfer of(List<Record> answers, boolean incremental) {
+        SOARecord soa = (SOARecord) answers.get(0);
+        if (!incremental) {
+            return new ZoneTransfer(soa, List.copyOf(answers.subList(0, answers.size() - 1)), null);
+        }
+
+        return new ZoneTransfer(soa, null, differences(answers.subList(1, answers.size() - 1)));
+    }
+
+    private static List<Difference> differences(List<Record> records) {
+        List<Difference> differences = new ArrayList<Difference>();
+        for (Record record : records) {
+            if (differences.isEmpty() || differences.get(differences.size() - 1).isFollowedBy(record)) {
+                differences.add(new Difference());
+            }
+            differences.get(differences.size() - 1).add(record);
+        }
+        return differences;
+    }
+
+    /**
+     * Gets the SOA record of the transferred version.
+     * @return the SOA record of the master server.
+     */
+    public SOARecord getSoa() {
+        return this.soa;
+    }
+
+    /**
+     * Checks if the master server had the same version as the current content.
+     * @return true if nothing was transferred.
+     */
+    public boolean isUpToDate() {
+        return this.records == null && this.differences.isEmpty();
+    }
+
+    /**
+     * Checks if the transfer holds differences rather than the full zone.
+     * @return true for an incremental transfer.
+     */
+    public boolean isIncremental() {
+        return this.records == null && !this.differences.isEmpty();
+    }
+
+    /**
+     * Computes the content of the transferred version.
+     * @param current the current records of the zone, used by incremental transfers.
+     * @return the records of the zone, including its SOA record.
+     */
+    public List<Record> apply(Collection<Record> current) {
+        if (this.records != null) {
+            return this.records;
+        }
+        Set<Record> content = new LinkedHashSet<Record>(current);
+        for (Difference difference : this.differences) {
+            content.removeAll(difference.deleted);
+            content.addAll(difference.added);
+        }
+        return new ArrayList<Record>(content);
+    }
+
+    /**
+     * One difference sequence of an incremental transfer: the records deleted, starting with the old SOA record,
+     * and the records added, starting with the new SOA record.
+     */
+    private static final class Difference {
+        private final List<Record> deleted = new ArrayList<Record>();
+        private final List<Record> added = new ArrayList<Record>();
+        private boolean adding;
+
+        boolean isFollowedBy(Record record) {
+            return this.adding && record instanceof SOARecord;
+        }
+
+        void add(Record record) {
+            if (record instanceof SOARecord && !this.deleted.isEmpty()) {
+                this.adding = true;
+            }
+            (this.adding ? this.added : this.deleted).add(record);
+        }
+    }
+
+}
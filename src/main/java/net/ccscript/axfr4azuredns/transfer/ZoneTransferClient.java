@@ -0,0 +1,224 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.io.IOException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Serial;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.ZoneTransferType;
+import net.ccscript.axfr4azuredns.trace.Span;
+import net.ccscript.axfr4azuredns.tsig.Tsig;
+import net.ccscript.axfr4azuredns.tsig.TsigExchange;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+
+/**
+ * Transfers zones from their master servers, tried in their configured order. Each transfer holds a slot of its
+ * master server in the {@link MasterPool} and runs on a single TCP connection: the SOA query, then the IXFR query if
+ * the serial changed, then the AXFR query if the master server refused the IXFR one. When a TSIG key applies to
+ * the zone and master server, every query is signed and every response must be signed. SOA polls take the same
+ * path, on a connection of the pool.
+ */
+public final class ZoneTransferClient {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final MasterPool masterPool;
+    private final TsigKeyring keyring;
+
+    /**
+     * Creates a ZoneTransferClient.
+     * @param masterPool the {@link MasterPool} limiting the transfers of each master server.
+     * @param keyring the {@link TsigKeyring} giving the key signing the messages of each zone and master server.
+     */
+    public ZoneTransferClient(MasterPool masterPool, TsigKeyring keyring) {
+        this.masterPool = masterPool;
+        this.keyring = keyring;
+    }
+
+    /**
+     * Transfers a zone.
+     * @param zone the {@link Zone} to be transferred.
+     * @param currentSoa the SOA record of the current content of the zone, or null to transfer the whole zone.
+     * @return the {@link ZoneTransfer}.
+     * @throws IOException if no master server could transfer the zone.
+     * @throws InterruptedException if interrupted while waiting for a transfer slot.
+     */
+    public ZoneTransfer transfer(Zone zone, SOARecord currentSoa) throws IOException, InterruptedException {
+        Name origin = Name.fromString(zone.getZoneName(), Name.root);
+        SOARecord ixfrSoa = zone.getDnsDomainConfiguration().getZoneTransfer() == ZoneTransferType.IXFR
+            ? currentSoa : null;
+        IOException lastError = new IOException("Zone " + zone.getZoneName() + " has no master server");
+
+        for (String master : zone.getDnsDomainConfiguration().getDnsServersIPs()) {
+            try {
+                Request request = new Request(origin, currentSoa, ixfrSoa, this.keyring.forMaster(zone, master));
+                return transferFrom(master, request);
+            } catch (IOException ioe) {
+                logger.warn("Transfer of zone {} from master {} failed: {}", origin, master, ioe.getMessage());
+                lastError = ioe;
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Queries the SOA record of a zone, such as to poll its serial.
+     * @param zone the {@link Zone}.
+     * @return the SOA record of the zone, from the first master server answering.
+     * @throws IOException if no master server answered with the SOA record of the zone.
+     * @throws InterruptedException if interrupted while waiting for a connection slot.
+     */
+    public SOARecord querySoa(Zone zone) throws IOException, InterruptedException {
+        Name origin = Name.fromString(zone.getZoneName(), Name.root);
+        IOException lastError = new IOException("Zone " + zone.getZoneName() + " has no master server");
+
+        for (String master : zone.getDnsDomainConfiguration().getDnsServersIPs()) {
+            try {
+                return querySoaFrom(master, new Request(origin, null, null, this.keyring.forMaster(zone, master)));
+            } catch (IOException ioe) {
+                lastError = ioe;
+            }
+        }
+        throw lastError;
+    }
+
+    private SOARecord querySoaFrom(String master, Request request) throws IOException, InterruptedException {
+        MasterConnection connection = this.masterPool.acquire(master);
+        boolean reusable = false;
+        try {
+            SOARecord masterSoa;
+            try {
+                masterSoa = querySoaOn(connection, request);
+            } catch (IOException ioe) {
+                if (!connection.isReused()) {
+                    throw ioe;
+                }
+                connection = this.masterPool.reconnect(master, connection);
+                masterSoa = querySoaOn(connection, request);
+            }
+            reusable = true;
+            return masterSoa;
+        } finally {
+            this.masterPool.release(master, connection, reusable);
+        }
+    }
+
+    private ZoneTransfer transferFrom(String master, Request request) throws IOException, InterruptedException {
+        MasterConnection connection = this.masterPool.acquire(master);
+        boolean reusable = false;
+        try {
+            SOARecord masterSoa;
+            try {
+                masterSoa = checkSoa(connection, master, request);
+            } catch (IOException ioe) {
+                if (!connection.isReused()) {
+                    throw ioe;
+                }
+                connection = this.masterPool.reconnect(master, connection);
+                masterSoa = checkSoa(connection, master, request);
+            }
+            ZoneTransfer transfer = isUpToDate(masterSoa, request.currentSoa) ? ZoneTransfer.upToDate(masterSoa)
+                : transferChanges(connection, master, request);
+            reusable = true;
+            return transfer;
+        } finally {
+            this.masterPool.release(master, connection, reusable);
+        }
+    }
+
+    private static boolean isUpToDate(SOARecord masterSoa, SOARecord currentSoa) {
+        return currentSoa != null && Serial.compare(masterSoa.getSerial(), currentSoa.getSerial()) <= 0;
+    }
+
+    private static SOARecord checkSoa(MasterConnection connection, String master, Request request)
+        throws IOException {
+
+        try (Span span = Span.current().child("soa.check").setAttribute("master", master)) {
+            try {
+                return querySoaOn(connection, request);
+            } catch (IOException ioe) {
+                span.fail(ioe.getMessage());
+                throw ioe;
+            }
+        }
+    }
+
+    private static ZoneTransfer transferChanges(MasterConnection connection, String master, Request request)
+        throws IOException {
+
+        try (Span span = Span.current().child("transfer").setAttribute("master", master)) {
+            try {
+                ZoneTransfer transfer = readChanges(connection, request);
+                span.setAttribute("type", transfer.isIncremental() ? "IXFR" : "AXFR");
+                return transfer;
+            } catch (IOException ioe) {
+                span.fail(ioe.getMessage());
+                throw ioe;
+            }
+        }
+    }
+
+    private static ZoneTransfer readChanges(MasterConnection connection, Request request) throws IOException {
+        if (request.ixfrSoa != null) {
+            Message query = Message.newQuery(Record.newRecord(request.origin, Type.IXFR, DClass.IN));
+            query.addRecord(request.ixfrSoa, Section.AUTHORITY);
+            TsigExchange exchange = connection.send(query, request.tsig);
+            ZoneTransfer transfer = new TransferReader(connection, query, exchange, request.ixfrSoa.getSerial())
+                .read();
+            if (transfer != null) {
+                return transfer;
+            }
+            logger.debug("IXFR of zone {} refused, falling back to AXFR", request.origin);
+        }
+
+        Message query = Message.newQuery(Record.newRecord(request.origin, Type.AXFR, DClass.IN));
+        TsigExchange exchange = connection.send(query, request.tsig);
+        ZoneTransfer transfer = new TransferReader(connection, query, exchange, -1).read();
+        if (transfer == null) {
+            throw new IOException("AXFR of zone " + request.origin + " refused");
+        }
+        return transfer;
+    }
+
+    private static SOARecord querySoaOn(MasterConnection connection, Request request) throws IOException {
+        Message query = Message.newQuery(Record.newRecord(request.origin, Type.SOA, DClass.IN));
+        TsigExchange exchange = connection.send(query, request.tsig);
+        Message response = connection.receive(exchange);
+        if (response.getHeader().getID() == query.getHeader().getID() && response.getRcode() == Rcode.NOERROR) {
+            for (Record record : response.getSection(Section.ANSWER)) {
+                if (record instanceof SOARecord soa) {
+                    return soa;
+                }
+            }
+        }
+        throw new IOException("No SOA record for " + request.origin + ": " + Rcode.string(response.getRcode()));
+    }
+
+    /**
+     * What a transfer asks for: the zone, the version held, and the key signing the messages.
+     */
+    private static final class Request {
+        private final Name origin;
+        private final SOARecord currentSoa;
+        private final SOARecord ixfrSoa;
+        private final Tsig tsig;
+
+        Request(Name origin, SOARecord currentSoa, SOARecord ixfrSoa, Tsig tsig) {
+            this.origin = origin;
+            this.currentSoa = currentSoa;
+            this.ixfrSoa = ixfrSoa;
+            this.tsig = tsig;
+        }
+    }
+
+}
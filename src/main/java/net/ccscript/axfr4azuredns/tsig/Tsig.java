@@ -0,0 +1,184 @@
+package net.ccscript.axfr4azuredns.tsig;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.TSIG;
+
+/**
+ * A TSIG key (RFC 8945) ready to sign and verify messages. Initializing a {@link Mac} with a key is the costly part
+ * of an HMAC, so it is done once: the signing and verifying {@link TsigExchange}s borrow initialized {@link Mac}s
+ * from a pool and give them back reset. Pooling rather than one {@link Mac} per thread keeps the reuse with virtual
+ * threads, which are created for every sync job. The key name and algorithm name are also encoded once.
+ */
+public final class Tsig {
+
+    /**
+     * Allowed difference between the signing time of a message and the local time.
+     */
+    public static final Duration FUDGE = Duration.ofSeconds(300);
+
+    private static final Map<String, Name> ALGORITHM_NAMES = Map.of(
+        "hmac-md5", TSIG.HMAC_MD5,
+        "hmac-sha1", TSIG.HMAC_SHA1,
+        "hmac-sha224", TSIG.HMAC_SHA224,
+        "hmac-sha256", TSIG.HMAC_SHA256,
+        "hmac-sha384", TSIG.HMAC_SHA384,
+        "hmac-sha512", TSIG.HMAC_SHA512);
+    private static final Map<String, String> MAC_ALGORITHMS = Map.of(
+        "hmac-md5", "HmacMD5",
+        "hmac-sha1", "HmacSHA1",
+        "hmac-sha224", "HmacSHA224",
+        "hmac-sha256", "HmacSHA256",
+        "hmac-sha384", "HmacSHA384",
+        "hmac-sha512", "HmacSHA512");
+    private static final int BYTE_SHIFT = 8;
+    private static final int TIME_BYTES = 6;
+    private static final byte[] ZERO_TTL = new byte[Integer.BYTES];
+
+    private final Name name;
+    private final Name algorithm;
+    private final byte[] nameWire;
+    private final byte[] algorithmWire;
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final Queue<Mac> macs;
+
+    /**
+     * Creates a Tsig.
+     * @param name the key name.
+     * @param algorithm the TSIG algorithm name, such as hmac-sha256.
+     * @param secret the shared secret.
+     * @throws GeneralSecurityException if the algorithm is not supported.
+     */
+    public Tsig(Name name, String algorithm, byte[] secret) throws GeneralSecurityException {
+        this.name = name;
+        this.algorithm = ALGORITHM_NAMES.get(algorithm);
+        String macAlgorithm = MAC_ALGORITHMS.get(algorithm);
+        if (macAlgorithm == null) {
+            throw new NoSuchAlgorithmException("Unsupported TSIG algorithm " + algorithm);
+        }
+        this.nameWire = name.toWireCanonical();
+        this.algorithmWire = this.algorithm.toWireCanonical();
+        this.key = new SecretKeySpec(secret, macAlgorithm);
+        this.prototype = Mac.getInstance(macAlgorithm);
+        this.prototype.init(this.key);
+        this.macs = new ConcurrentLinkedQueue<Mac>();
+    }
+
+    /**
+     * Starts a signed exchange: a request and its responses.
+     * @return the {@link TsigExchange}.
+     */
+    public TsigExchange newExchange() {
+        return new TsigExchange(this);
+    }
+
+    /**
+     * Gets the key name.
+     * @return the key name.
+     */
+    public Name getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the TSIG algorithm name.
+     * @return the algorithm name, such as hmac-sha256.
+     */
+    public Name getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * Gets the length of the MACs of this key.
+     * @return the MAC length in bytes.
+     */
+    int getMacLength() {
+        return this.prototype.getMacLength();
+    }
+
+    /**
+     * Borrows an initialized {@link Mac}.
+     * @return a {@link Mac}, to be given back with {@link #release(Mac)}.
+     */
+    Mac borrow() {
+        Mac mac = this.macs.poll();
+        return mac != null ? mac : newMac();
+    }
+
+    /**
+     * Gives back a borrowed {@link Mac}.
+     * @param mac the {@link Mac}, reset by this method.
+     */
+    void release(Mac mac) {
+        mac.reset();
+        this.macs.offer(mac);
+    }
+
+    /**
+     * Digests the TSIG variables of a message.
+     * @param mac the {@link Mac} digesting the message.
+     * @param timeSigned the signing time in seconds since the epoch.
+     * @param error the TSIG error.
+     */
+    void updateVariables(Mac mac, long timeSigned, int error) {
+        mac.update(this.nameWire);
+        updateShort(mac, DClass.ANY);
+        mac.update(ZERO_TTL);
+        mac.update(this.algorithmWire);
+        updateTimers(mac, timeSigned);
+        updateShort(mac, error);
+        updateShort(mac, 0);
+    }
+
+    /**
+     * Digests the timers of a message following the first response message.
+     * @param mac the {@link Mac} digesting the message.
+     * @param timeSigned the signing time in seconds since the epoch.
+     */
+    static void updateTimers(Mac mac, long timeSigned) {
+        for (int i = TIME_BYTES - 1; i >= 0; i--) {
+            mac.update((byte) (timeSigned >>> (i * BYTE_SHIFT)));
+        }
+        updateShort(mac, (int) FUDGE.toSeconds());
+    }
+
+    /**
+     * Digests an unsigned 16 bits value.
+     * @param mac the {@link Mac}.
+     * @param value the value.
+     */
+    static void updateShort(Mac mac, int value) {
+        mac.update((byte) (value >>> BYTE_SHIFT));
+        mac.update((byte) value);
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) this.prototype.clone();
+        } catch (CloneNotSupportedException cnse) {
+            return newInitializedMac();
+        }
+    }
+
+    private Mac newInitializedMac() {
+        try {
+            Mac mac = Mac.getInstance(this.prototype.getAlgorithm());
+            mac.init(this.key);
+            return mac;
+        } catch (GeneralSecurityException gse) {
+            throw new IllegalStateException("TSIG key " + this.name + " cannot be initialized", gse);
+        }
+    }
+
+}
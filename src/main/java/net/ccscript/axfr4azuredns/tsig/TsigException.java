@@ -0,0 +1,16 @@
+package net.ccscript.axfr4azuredns.tsig;
+
+/**
+ * Used to report a message whose TSIG signature is missing, invalid or out of its time window.
+ */
+public class TsigException extends Exception {
+
+    public TsigException(String message, Exception exception) {
+        super(message, exception);
+    }
+
+    public TsigException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,178 @@
+package net.ccscript.axfr4azuredns.tsig;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import javax.crypto.Mac;
+
+import org.xbill.DNS.Message;
+import org.xbill.DNS.TSIGRecord;
+
+/**
+ * One TSIG signed exchange (RFC 8945): a request and its responses, each signature chaining the previous one.
+ * Responses of a zone transfer are verified as a stream: every message is digested once, straight from the
+ * received buffer, and up to 99 unsigned messages may come between two signed ones. Responses are signed the same
+ * way, with {@link #skipResponse(byte[])} for the messages sent unsigned. MACs are computed in a buffer
+ * owned by the exchange, so that verifying a message allocates no digest.
+ */
+public final class TsigExchange {
+
+    private static final int MAX_UNSIGNED_MESSAGES = 99;
+
+    private final Tsig tsig;
+    private final byte[] computedMac;
+    private byte[] priorMac;
+    private Mac running;
+    private int unsignedMessages;
+    private boolean responseVerified;
+    private boolean responseSigned;
+
+    /**
+     * Creates a TsigExchange.
+     * @param tsig the {@link Tsig} key of the exchange.
+     */
+    TsigExchange(Tsig tsig) {
+        this.tsig = tsig;
+        this.computedMac = new byte[tsig.getMacLength()];
+    }
+
+    /**
+     * Signs a request.
+     * @param wire the request in wire format, without TSIG record.
+     * @return the request with its TSIG record.
+     */
+    public byte[] signRequest(byte[] wire) {
+        return sign(this.tsig.borrow(), wire, false);
+    }
+
+    /**
+     * Signs the next response message to a request verified by {@link #verifyRequest(ByteBuffer, Message)}.
+     * @param wire the response message in wire format, without TSIG record.
+     * @return the response message with its TSIG record.
+     */
+    public byte[] signResponse(byte[] wire) {
+        boolean timersOnly = this.responseSigned;
+        this.responseSigned = true;
+        startRunning();
+        Mac mac = this.running;
+        this.running = null;
+        return sign(mac, wire, timersOnly);
+    }
+
+    /**
+     * Sends the next response message unsigned: it is covered by the signature of the following one.
+     * @param wire the response message in wire format.
+     */
+    public void skipResponse(byte[] wire) {
+        startRunning();
+        this.running.update(wire);
+    }
+
+    /**
+     * Verifies a signed request.
+     * @param wire the request, from index 0 to its limit.
+     * @param request the parsed request.
+     * @throws TsigException if the request is not signed with the key or the signature is not valid.
+     */
+    public void verifyRequest(ByteBuffer wire, Message request) throws TsigException {
+        TSIGRecord record = request.getTSIG();
+        if (record == null) {
+            throw new TsigException("Message is not signed");
+        }
+        Mac mac = this.tsig.borrow();
+        try {
+            TsigWire.checkRecord(this.tsig, record);
+            TsigWire.updateMessage(mac, wire, record);
+            this.tsig.updateVariables(mac, record.getTimeSigned().getEpochSecond(), record.getError());
+            TsigWire.checkMac(mac, this.computedMac, record);
+        } finally {
+            this.tsig.release(mac);
+        }
+        this.priorMac = record.getSignature();
+    }
+
+    /**
+     * Verifies the next response message of the request signed by {@link #signRequest(byte[])}.
+     * @param wire the response message, from index 0 to its limit.
+     * @param response the parsed response message.
+     * @throws TsigException if the message should be signed and is not, or its signature is not valid.
+     */
+    public void verify(ByteBuffer wire, Message response) throws TsigException {
+        startRunning();
+        TSIGRecord record = response.getTSIG();
+        if (record == null) {
+            digestUnsigned(wire);
+            return;
+        }
+
+        Mac mac = this.running;
+        this.running = null;
+        try {
+            TsigWire.checkRecord(this.tsig, record);
+            TsigWire.updateMessage(mac, wire, record);
+            updateTimersOrVariables(mac, record);
+            TsigWire.checkMac(mac, this.computedMac, record);
+        } finally {
+            this.tsig.release(mac);
+        }
+        this.priorMac = record.getSignature();
+        this.unsignedMessages = 0;
+        this.responseVerified = true;
+    }
+
+    /**
+     * Checks that the last response message was signed.
+     * @throws TsigException if the exchange ended with unsigned messages.
+     */
+    public void finish() throws TsigException {
+        if (this.running != null) {
+            throw abort("Last response message is not signed");
+        }
+    }
+
+    private byte[] sign(Mac mac, byte[] wire, boolean timersOnly) {
+        long timeSigned = Instant.now().getEpochSecond();
+        byte[] signature;
+        try {
+            signature = TsigWire.mac(this.tsig, mac, wire, timeSigned, timersOnly);
+        } finally {
+            this.tsig.release(mac);
+        }
+        this.priorMac = signature;
+        return TsigWire.append(this.tsig, wire, signature, timeSigned);
+    }
+
+    private void startRunning() {
+        if (this.running == null) {
+            this.running = this.tsig.borrow();
+            Tsig.updateShort(this.running, this.priorMac.length);
+            this.running.update(this.priorMac);
+        }
+    }
+
+    private void digestUnsigned(ByteBuffer wire) throws TsigException {
+        if (!this.responseVerified) {
+            throw abort("First response message is not signed");
+        }
+        if (++this.unsignedMessages > MAX_UNSIGNED_MESSAGES) {
+            throw abort("Too many unsigned response messages");
+        }
+        this.running.update(wire.slice(0, wire.limit()));
+    }
+
+    private void updateTimersOrVariables(Mac mac, TSIGRecord record) {
+        long timeSigned = record.getTimeSigned().getEpochSecond();
+        if (this.responseVerified) {
+            Tsig.updateTimers(mac, timeSigned);
+        } else {
+            this.tsig.updateVariables(mac, timeSigned, record.getError());
+        }
+    }
+
+    private TsigException abort(String message) {
+        this.tsig.release(this.running);
+        this.running = null;
+        return new TsigException(message);
+    }
+
+}
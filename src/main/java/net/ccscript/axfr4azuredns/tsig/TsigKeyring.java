@@ -0,0 +1,85 @@
+package net.ccscript.axfr4azuredns.tsig;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xbill.DNS.Name;
+import org.xbill.DNS.TextParseException;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.TsigKey;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+
+/**
+ * The {@link Tsig} keys of the configuration, ready for use, and which one applies to a zone and master server: the
+ * key named by the zone, otherwise the key listing the master server.
+ */
+public final class TsigKeyring {
+
+    private final Map<String, Tsig> keysByName;
+    private final Map<InetAddress, Tsig> keysByMaster;
+
+    /**
+     * Creates a TsigKeyring.
+     * @param configuration the {@link DNSServerConfiguration} holding the TSIG keys.
+     * @throws DNSServerConfigurationException if a key cannot be used.
+     */
+    public TsigKeyring(DNSServerConfiguration configuration) throws DNSServerConfigurationException {
+        this.keysByName = new HashMap<String, Tsig>();
+        this.keysByMaster = new HashMap<InetAddress, Tsig>();
+        for (TsigKey key : configuration.getTsigKeys()) {
+            Tsig tsig = createTsig(key);
+            this.keysByName.put(key.getName(), tsig);
+            putMasters(key, tsig);
+        }
+    }
+
+    /**
+     * Gets the key signing the messages of a zone exchanged with a master server.
+     * @param zone the {@link Zone}.
+     * @param master the address of the master server.
+     * @return the {@link Tsig} key, or null if the messages are not signed.
+     */
+    public Tsig forMaster(Zone zone, InetAddress master) {
+        String keyName = zone.getDnsDomainConfiguration().getTsigKey();
+        return keyName != null ? this.keysByName.get(keyName) : this.keysByMaster.get(master);
+    }
+
+    /**
+     * Gets the key signing the messages of a zone exchanged with a master server.
+     * @param zone the {@link Zone}.
+     * @param master the IP address of the master server.
+     * @return the {@link Tsig} key, or null if the messages are not signed.
+     * @throws UnknownHostException if the master server is not an IP address.
+     */
+    public Tsig forMaster(Zone zone, String master) throws UnknownHostException {
+        return forMaster(zone, toAddress(master));
+    }
+
+    private static Tsig createTsig(TsigKey key) throws DNSServerConfigurationException {
+        try {
+            return new Tsig(Name.fromString(key.getName(), Name.root), key.getAlgorithm(), key.getSecret());
+        } catch (TextParseException | GeneralSecurityException e) {
+            throw new DNSServerConfigurationException("TSIG key " + key.getName() + " cannot be used", e);
+        }
+    }
+
+    private void putMasters(TsigKey key, Tsig tsig) throws DNSServerConfigurationException {
+        try {
+            for (String master : key.getMasters()) {
+                this.keysByMaster.put(toAddress(master), tsig);
+            }
+        } catch (UnknownHostException uhe) {
+            throw new DNSServerConfigurationException("TSIG key " + key.getName() + " has an invalid master", uhe);
+        }
+    }
+
+    private static InetAddress toAddress(String master) throws UnknownHostException {
+        return InetAddress.getByName(master);
+    }
+
+}
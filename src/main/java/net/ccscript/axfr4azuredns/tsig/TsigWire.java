@@ -0,0 +1,122 @@
+package net.ccscript.axfr4azuredns.tsig;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TSIGRecord;
+
+/**
+ * Wire format operations of the TSIG signatures: what a MAC covers, and how a TSIG record is added to a message
+ * or checked.
+ */
+final class TsigWire {
+
+    private static final int ID_LENGTH = 2;
+    private static final int ARCOUNT_OFFSET = 10;
+    private static final int HEADER_LENGTH = 12;
+    private static final int TSIG_FIXED_LENGTH = 10;
+    private static final int TSIG_RDATA_FIXED_LENGTH = 16;
+    private static final int SHORT_MASK = 0xFFFF;
+
+    private TsigWire() {
+    }
+
+    /**
+     * Completes the MAC of a message to be signed.
+     * @param tsig the {@link Tsig} key.
+     * @param mac the {@link Mac} which digested what precedes the message: nothing for a request, the prior MAC and
+     *        the unsigned messages since for a response message.
+     * @param wire the message in wire format, without TSIG record.
+     * @param timeSigned the signing time in seconds since the epoch.
+     * @param timersOnly true for a response message following the first one, whose MAC covers only the timers.
+     * @return the MAC.
+     */
+    static byte[] mac(Tsig tsig, Mac mac, byte[] wire, long timeSigned, boolean timersOnly) {
+        mac.update(wire);
+        if (timersOnly) {
+            Tsig.updateTimers(mac, timeSigned);
+        } else {
+            tsig.updateVariables(mac, timeSigned, Rcode.NOERROR);
+        }
+        return mac.doFinal();
+    }
+
+    /**
+     * Adds a TSIG record to a message.
+     * @param tsig the {@link Tsig} key.
+     * @param wire the message in wire format, without TSIG record.
+     * @param signature the MAC of the message.
+     * @param timeSigned the signing time in seconds since the epoch.
+     * @return the message with its TSIG record.
+     */
+    static byte[] append(Tsig tsig, byte[] wire, byte[] signature, long timeSigned) {
+        ByteBuffer header = ByteBuffer.wrap(wire);
+        byte[] record = new TSIGRecord(tsig.getName(), DClass.ANY, 0, tsig.getAlgorithm(),
+            Instant.ofEpochSecond(timeSigned), Tsig.FUDGE, signature, header.getShort(0) & SHORT_MASK, Rcode.NOERROR,
+            null).toWire(Section.ADDITIONAL);
+        byte[] signed = Arrays.copyOf(wire, wire.length + record.length);
+        System.arraycopy(record, 0, signed, wire.length, record.length);
+        ByteBuffer.wrap(signed).putShort(ARCOUNT_OFFSET, (short) ((header.getShort(ARCOUNT_OFFSET) & SHORT_MASK) + 1));
+        return signed;
+    }
+
+    /**
+     * Digests a signed message as it was before signing: with its original ID, without its TSIG record, which is
+     * the last record of the message and whose names are never compressed.
+     * @param mac the {@link Mac} digesting the message.
+     * @param wire the message, from index 0 to its limit.
+     * @param record the TSIG record of the message.
+     */
+    static void updateMessage(Mac mac, ByteBuffer wire, TSIGRecord record) {
+        int tsigStart = wire.limit() - record.getName().length() - TSIG_FIXED_LENGTH
+            - record.getAlgorithm().length() - TSIG_RDATA_FIXED_LENGTH - record.getSignature().length
+            - (record.getOther() == null ? 0 : record.getOther().length);
+        Tsig.updateShort(mac, record.getOriginalID());
+        mac.update(wire.slice(ID_LENGTH, ARCOUNT_OFFSET - ID_LENGTH));
+        Tsig.updateShort(mac, (wire.getShort(ARCOUNT_OFFSET) & SHORT_MASK) - 1);
+        mac.update(wire.slice(HEADER_LENGTH, tsigStart - HEADER_LENGTH));
+    }
+
+    /**
+     * Checks that a TSIG record was made with a key and is within its time window.
+     * @param tsig the expected {@link Tsig} key.
+     * @param record the TSIG record.
+     * @throws TsigException if the record was made with another key or too far in time.
+     */
+    static void checkRecord(Tsig tsig, TSIGRecord record) throws TsigException {
+        if (!record.getName().equals(tsig.getName()) || !record.getAlgorithm().equals(tsig.getAlgorithm())) {
+            throw new TsigException("Message is signed with another key: " + record.getName());
+        }
+        long skew = Math.abs(Instant.now().getEpochSecond() - record.getTimeSigned().getEpochSecond());
+        if (skew > record.getFudge().toSeconds()) {
+            throw new TsigException("Message signing time is " + skew + " seconds off");
+        }
+    }
+
+    /**
+     * Completes a MAC and compares it with the signature of a TSIG record, in constant time.
+     * @param mac the {@link Mac} which digested the message.
+     * @param buffer the buffer receiving the MAC, as long as the MACs of the key.
+     * @param record the TSIG record.
+     * @throws TsigException if the signature is not valid.
+     */
+    static void checkMac(Mac mac, byte[] buffer, TSIGRecord record) throws TsigException {
+        try {
+            mac.doFinal(buffer, 0);
+        } catch (ShortBufferException sbe) {
+            throw new TsigException("Unexpected MAC length", sbe);
+        }
+        if (!MessageDigest.isEqual(buffer, record.getSignature())) {
+            throw new TsigException("Message signature is not valid");
+        }
+    }
+
+}
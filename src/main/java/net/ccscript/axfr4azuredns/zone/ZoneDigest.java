@@ -0,0 +1,189 @@
+package net.ccscript.axfr4azuredns.zone;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.xbill.DNS.Name;
+import org.xbill.DNS.RRSIGRecord;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Type;
+import org.xbill.DNS.ZoneMDRecord;
+
+/**
+ * The digests of a zone content, computed over its records in canonical form and canonical order (RFC 8976, SIMPLE
+ * scheme), with the hash updated one record at a time. Two digests are computed in the same pass:
+ * <ul>
+ * <li>the content digest, SHA-384, which leaves out the SOA and apex ZONEMD records and their signatures, so that a
+ * new serial without any other change gives the same content digest;</li>
+ * <li>the ZONEMD digest, only when the zone publishes an apex ZONEMD record of the SIMPLE scheme with a supported
+ * hash algorithm, which is checked against that record.</li>
+ * </ul>
+ */
+public final class ZoneDigest {
+
+    private static final String SHA384 = "SHA-384";
+    private static final String SHA512 = "SHA-512";
+    // The type, class, TTL and rdata length between the owner name and the rdata of a record
+    private static final int RDATA_HEADER_LENGTH = 10;
+
+    private final byte[] contentDigest;
+    private final boolean zonemdVerified;
+
+    private ZoneDigest(byte[] contentDigest, boolean zonemdVerified) {
+        this.contentDigest = contentDigest;
+        this.zonemdVerified = zonemdVerified;
+    }
+
+    /**
+     * Computes the digests of a zone and verifies its apex ZONEMD record, if any.
+     * @param origin the zone apex name.
+     * @param records the records of the zone, including its SOA record.
+     * @return the {@link ZoneDigest}.
+     * @throws IOException if the zone publishes a supported ZONEMD record and none matches its content.
+     */
+    public static ZoneDigest of(Name origin, Collection<Record> records) throws IOException {
+        List<CanonicalRecord> canonical = new ArrayList<CanonicalRecord>(records.size());
+        SOARecord soa = null;
+        List<ZoneMDRecord> zonemds = new ArrayList<ZoneMDRecord>();
+        for (Record record : records) {
+            canonical.add(new CanonicalRecord(record));
+            if (record.getName().equals(origin) && record instanceof SOARecord soaRecord) {
+                soa = soaRecord;
+            } else if (record.getName().equals(origin) && record instanceof ZoneMDRecord zonemd) {
+                zonemds.add(zonemd);
+            }
+        }
+        canonical.sort(Comparator.naturalOrder());
+
+        MessageDigest content = newDigest(SHA384);
+        List<ZoneMDRecord> verifiable = verifiable(zonemds, soa);
+        MessageDigest[] zonemdDigests = new MessageDigest[verifiable.size()];
+        for (int i = 0; i < zonemdDigests.length; i++) {
+            zonemdDigests[i] = newDigest(verifiable.get(i).getHashAlgorithm() == ZoneMDRecord.Hash.SHA384
+                ? SHA384 : SHA512);
+        }
+
+        CanonicalRecord previous = null;
+        for (CanonicalRecord record : canonical) {
+            // Duplicate records are digested once
+            if (previous != null && previous.compareTo(record) == 0) {
+                continue;
+            }
+            previous = record;
+            if (isApexZonemd(record.record, origin)) {
+                continue;
+            }
+            for (MessageDigest zonemdDigest : zonemdDigests) {
+                zonemdDigest.update(record.wire);
+            }
+            if (!isSoa(record.record, origin)) {
+                content.update(record.wire);
+            }
+        }
+
+        return new ZoneDigest(content.digest(), verify(origin, verifiable, zonemdDigests));
+    }
+
+    /**
+     * Gets the apex ZONEMD records of the SIMPLE scheme, with a supported hash algorithm and the serial of the
+     * zone.
+     */
+    private static List<ZoneMDRecord> verifiable(List<ZoneMDRecord> zonemds, SOARecord soa) {
+        List<ZoneMDRecord> verifiable = new ArrayList<ZoneMDRecord>();
+        for (ZoneMDRecord zonemd : zonemds) {
+            if (soa != null && zonemd.getSerial() == soa.getSerial()
+                && zonemd.getScheme() == ZoneMDRecord.Scheme.SIMPLE
+                && (zonemd.getHashAlgorithm() == ZoneMDRecord.Hash.SHA384
+                    || zonemd.getHashAlgorithm() == ZoneMDRecord.Hash.SHA512)) {
+                verifiable.add(zonemd);
+            }
+        }
+        return verifiable;
+    }
+
+    private static boolean verify(Name origin, List<ZoneMDRecord> verifiable, MessageDigest[] zonemdDigests)
+        throws IOException {
+
+        for (int i = 0; i < zonemdDigests.length; i++) {
+            if (MessageDigest.isEqual(zonemdDigests[i].digest(), verifiable.get(i).getDigest())) {
+                return true;
+            }
+        }
+        if (!verifiable.isEmpty()) {
+            throw new IOException("ZONEMD digest of zone " + origin + " does not match its content");
+        }
+        return false;
+    }
+
+    private static boolean isApexZonemd(Record record, Name origin) {
+        return record.getName().equals(origin) && (record.getType() == Type.ZONEMD
+            || record instanceof RRSIGRecord rrsig && rrsig.getTypeCovered() == Type.ZONEMD);
+    }
+
+    private static boolean isSoa(Record record, Name origin) {
+        return record.getName().equals(origin) && (record.getType() == Type.SOA
+            || record instanceof RRSIGRecord rrsig && rrsig.getTypeCovered() == Type.SOA);
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("Digest algorithm " + algorithm + " is not available", nsae);
+        }
+    }
+
+    /**
+     * Checks whether two zone contents only differ by their SOA and apex ZONEMD records.
+     * @param other the {@link ZoneDigest} of the other zone content, or null.
+     * @return true if the content digests are equal.
+     */
+    public boolean hasSameContent(ZoneDigest other) {
+        return other != null && MessageDigest.isEqual(this.contentDigest, other.contentDigest);
+    }
+
+    /**
+     * Checks whether the zone published a ZONEMD record which matched its content.
+     * @return true if the ZONEMD record of the zone was verified, false if it has none this server supports.
+     */
+    public boolean isZonemdVerified() {
+        return this.zonemdVerified;
+    }
+
+    /**
+     * A record in canonical wire form (RFC 4034 section 6.2), ordered by canonical owner name, type, then rdata.
+     */
+    private static final class CanonicalRecord implements Comparable<CanonicalRecord> {
+        private final Record record;
+        private final byte[] wire;
+        private final int rdataOffset;
+
+        CanonicalRecord(Record record) {
+            this.record = record;
+            this.wire = record.toWireCanonical();
+            this.rdataOffset = record.getName().length() + RDATA_HEADER_LENGTH;
+        }
+
+        @Override
+        public int compareTo(CanonicalRecord other) {
+            int byName = this.record.getName().compareTo(other.record.getName());
+            if (byName != 0) {
+                return byName;
+            }
+            int byType = Integer.compare(this.record.getType(), other.record.getType());
+            if (byType != 0) {
+                return byType;
+            }
+            return Arrays.compareUnsigned(this.wire, this.rdataOffset, this.wire.length,
+                other.wire, other.rdataOffset, other.wire.length);
+        }
+    }
+
+}
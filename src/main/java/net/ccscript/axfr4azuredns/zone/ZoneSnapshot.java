@@ -0,0 +1,77 @@
+package net.ccscript.axfr4azuredns.zone;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xbill.DNS.Name;
+import org.xbill.DNS.RRset;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SetResponse;
+import org.xbill.DNS.Zone;
+
+/**
+ * One version of the content of a zone held by the {@link ZoneStore}. A snapshot is never modified: a new content
+ * is published as a new snapshot with a higher version.
+ */
+public final class ZoneSnapshot {
+
+    private final Zone zone;
+    private final long version;
+
+    /**
+     * Creates a ZoneSnapshot.
+     * @param zone the zone content. It must not be modified afterwards.
+     * @param version the version of the snapshot in the {@link ZoneStore}.
+     */
+    ZoneSnapshot(Zone zone, long version) {
+        this.zone = zone;
+        this.version = version;
+    }
+
+    /**
+     * Gets the origin of the zone.
+     * @return the zone apex name.
+     */
+    public Name getOrigin() {
+        return this.zone.getOrigin();
+    }
+
+    /**
+     * Gets the version of the snapshot. Versions grow with every swap of the {@link ZoneStore}.
+     * @return the version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Gets the zone content.
+     * @return the {@link Zone}, which must not be modified.
+     */
+    public Zone getZone() {
+        return this.zone;
+    }
+
+    /**
+     * Gets all the records of the zone.
+     * @return the records, including the SOA record.
+     */
+    public List<Record> getRecords() {
+        List<Record> records = new ArrayList<Record>();
+        for (RRset rrset : this.zone) {
+            records.addAll(rrset.rrs(false));
+        }
+        return records;
+    }
+
+    /**
+     * Looks up the records of a name.
+     * @param name the name, within the zone.
+     * @param type the record type.
+     * @return the {@link SetResponse} of the lookup.
+     */
+    public SetResponse lookup(Name name, int type) {
+        return this.zone.findRecords(name, type);
+    }
+
+}
@@ -0,0 +1,90 @@
+package net.ccscript.axfr4azuredns.zone;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.xbill.DNS.Master;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+
+/**
+ * Keeps one version of each zone in a directory, as an RFC 1035 master file named after the zone, so that a
+ * restarted server can answer for its zones and transfer them incrementally without a full transfer first. A
+ * version is written to a temporary file then moved in place: a crash leaves either the previous or the new version.
+ */
+public final class ZoneStateDirectory {
+
+    private static final String SUFFIX = ".zone";
+
+    private final Path directory;
+
+    /**
+     * Creates a ZoneStateDirectory, creating the directory if needed.
+     * @param directory the directory holding the zone files.
+     * @throws IOException if the directory cannot be created.
+     */
+    public ZoneStateDirectory(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Writes a version of a zone, replacing the previous one.
+     * @param origin the zone apex name.
+     * @param records the records of the zone, including its SOA record.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Name origin, Collection<Record> records) throws IOException {
+        Path file = fileOf(origin);
+        Path temporary = this.directory.resolve(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("$ORIGIN " + origin + "\n");
+            for (Record record : records) {
+                writer.write(record.toString());
+                writer.write('\n');
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the version of a zone.
+     * @param origin the zone apex name.
+     * @return the records of the zone, or null if the directory holds no version of it.
+     * @throws IOException if the file cannot be read or holds an invalid record.
+     */
+    public List<Record> load(Name origin) throws IOException {
+        Path file = fileOf(origin);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        List<Record> records = new ArrayList<Record>();
+        try (Master master = new Master(file.toString(), origin)) {
+            for (Record record = master.nextRecord(); record != null; record = master.nextRecord()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Deletes the version of a zone, if any.
+     * @param origin the zone apex name.
+     * @throws IOException if the file cannot be deleted.
+     */
+    public void delete(Name origin) throws IOException {
+        Files.deleteIfExists(fileOf(origin));
+    }
+
+    private Path fileOf(Name origin) {
+        return this.directory.resolve(origin.toString(true).toLowerCase(Locale.ROOT) + SUFFIX);
+    }
+
+}
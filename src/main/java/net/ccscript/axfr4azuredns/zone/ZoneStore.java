@@ -0,0 +1,82 @@
+package net.ccscript.axfr4azuredns.zone;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Zone;
+
+/**
+ * The current {@link ZoneSnapshot} of every zone the server answers for. A new zone content replaces the previous
+ * one atomically: readers see either the old or the new snapshot, never a mix. Anything derived from a snapshot,
+ * such as cached responses, stays valid as long as {@link #get(Name)} returns that same snapshot.
+ */
+public final class ZoneStore {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final Map<Name, ZoneSnapshot> snapshots;
+    private final AtomicLong versions;
+
+    /**
+     * Creates an empty ZoneStore.
+     */
+    public ZoneStore() {
+        this.snapshots = new ConcurrentHashMap<Name, ZoneSnapshot>();
+        this.versions = new AtomicLong();
+    }
+
+    /**
+     * Publishes a new content for a zone, replacing the previous snapshot.
+     * @param origin the zone apex name.
+     * @param records the records of the zone, including its SOA and apex NS records.
+     * @return the new {@link ZoneSnapshot}.
+     * @throws IOException if the records do not make a valid zone.
+     */
+    public ZoneSnapshot swap(Name origin, Collection<Record> records) throws IOException {
+        ZoneSnapshot snapshot = new ZoneSnapshot(new Zone(origin, records.toArray(new Record[0])),
+            this.versions.incrementAndGet());
+        this.snapshots.put(origin, snapshot);
+        logger.debug("Zone {} swapped to version {}", origin, snapshot.getVersion());
+        return snapshot;
+    }
+
+    /**
+     * Removes a zone: the server stops answering for it.
+     * @param origin the zone apex name.
+     */
+    public void remove(Name origin) {
+        this.snapshots.remove(origin);
+    }
+
+    /**
+     * Gets the current snapshot of a zone.
+     * @param origin the zone apex name.
+     * @return the current {@link ZoneSnapshot}, or null if the store does not hold the zone.
+     */
+    public ZoneSnapshot get(Name origin) {
+        return this.snapshots.get(origin);
+    }
+
+    /**
+     * Finds the closest zone enclosing a name.
+     * @param name the name.
+     * @return the current {@link ZoneSnapshot} of the closest enclosing zone, or null if no zone encloses it.
+     */
+    public ZoneSnapshot find(Name name) {
+        for (int labels = 0; labels < name.labels(); labels++) {
+            ZoneSnapshot snapshot = this.snapshots.get(labels == 0 ? name : new Name(name, labels));
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,134 @@
+package net.ccscript.axfr4azuredns.zonefile;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xbill.DNS.Master;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+
+/**
+ * A byte range of a zone file which can be parsed on its own: it starts at a record with an explicit owner name,
+ * outside of any parentheses, and carries the $ORIGIN and $TTL in effect at that point. Without $TTL, it also
+ * carries the TTL of the last record before it, which its first records without TTL take.
+ */
+final class ZoneFileChunk {
+
+    private final long start;
+    private final long end;
+    private final Name origin;
+    private final long defaultTtl;
+    private final long lastTtl;
+
+    /**
+     * Creates a ZoneFileChunk.
+     * @param start the offset of the first byte of the chunk.
+     * @param end the offset following the last byte of the chunk.
+     * @param origin the $ORIGIN in effect at the start of the chunk.
+     * @param defaultTtl the $TTL in effect at the start of the chunk, or -1 if none.
+     * @param lastTtl the TTL of the last record before the chunk, or -1 if none.
+     */
+    ZoneFileChunk(long start, long end, Name origin, long defaultTtl, long lastTtl) {
+        this.start = start;
+        this.end = end;
+        this.origin = origin;
+        this.defaultTtl = defaultTtl;
+        this.lastTtl = lastTtl;
+    }
+
+    /**
+     * Gets the offset of the first byte of the chunk.
+     * @return the start offset.
+     */
+    long getStart() {
+        return this.start;
+    }
+
+    /**
+     * Gets the length of the chunk.
+     * @return the length in bytes.
+     */
+    long getLength() {
+        return this.end - this.start;
+    }
+
+    /**
+     * Gets the $ORIGIN in effect at the start of the chunk.
+     * @return the origin.
+     */
+    Name getOrigin() {
+        return this.origin;
+    }
+
+    /**
+     * Gets the $TTL in effect at the start of the chunk.
+     * @return the default TTL in seconds, or -1 if none.
+     */
+    long getDefaultTtl() {
+        return this.defaultTtl;
+    }
+
+    /**
+     * Gets the TTL of the last record before the chunk.
+     * @return the TTL in seconds, or -1 if none.
+     */
+    long getLastTtl() {
+        return this.lastTtl;
+    }
+
+    /**
+     * Parses the records of the chunk, with a positional read which may run concurrently with other chunks.
+     * @param channel the channel of the zone file.
+     * @return the records, in file order.
+     * @throws ZoneFileException if the chunk cannot be read or holds an invalid record.
+     */
+    List<Record> parse(FileChannel channel) throws ZoneFileException {
+        ByteBuffer bytes = ByteBuffer.allocate(Math.toIntExact(getLength()));
+        try {
+            readFully(channel, bytes);
+            return parseRecords(new ByteArrayInputStream(bytes.array()));
+        } catch (IOException ioe) {
+            throw new ZoneFileException("Invalid zone file chunk at offset " + this.start + ": " + ioe.getMessage(),
+                ioe);
+        }
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, this.start + bytes.position()) < 0) {
+                throw new EOFException("Zone file truncated while being read");
+            }
+        }
+    }
+
+    private List<Record> parseRecords(ByteArrayInputStream stream) throws IOException {
+        List<Record> records = new ArrayList<Record>();
+        boolean inheritsTtl = this.defaultTtl < 0 && this.lastTtl >= 0;
+        InputStream input = stream;
+        if (inheritsTtl) {
+            // Master gives a record without TTL the TTL of the previous record: parse a placeholder holding it first
+            input = new SequenceInputStream(new ByteArrayInputStream(
+                ("@ " + this.lastTtl + " IN TXT \"\"\n").getBytes(StandardCharsets.US_ASCII)), stream);
+        }
+        try (Master master = new Master(input, this.origin, this.defaultTtl)) {
+            if (inheritsTtl) {
+                master.nextRecord();
+            }
+            Record record = master.nextRecord();
+            while (record != null) {
+                records.add(record);
+                record = master.nextRecord();
+            }
+        }
+        return records;
+    }
+
+}
@@ -0,0 +1,16 @@
+package net.ccscript.axfr4azuredns.zonefile;
+
+/**
+ * Used to report a zone file which is not a valid RFC 1035 master file.
+ */
+public class ZoneFileException extends Exception {
+
+    public ZoneFileException(String message, Exception exception) {
+        super(message, exception);
+    }
+
+    public ZoneFileException(String message) {
+        super(message);
+    }
+
+}
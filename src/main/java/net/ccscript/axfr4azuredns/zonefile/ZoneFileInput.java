@@ -0,0 +1,142 @@
+package net.ccscript.axfr4azuredns.zonefile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads a zone file byte by byte through a fixed direct buffer, and skips the rest of a line while tracking the
+ * parentheses which make a record span several lines. Quoted strings, escaped characters and comments are
+ * honoured, so that a parenthesis or a semicolon in a TXT value is not taken for syntax. No String is built, but
+ * for the lines read with {@link #readLine(int, StringBuilder)}.
+ */
+final class ZoneFileInput {
+
+    private static final int BUFFER_SIZE = 1048576;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long bufferStart;
+    private boolean quoted;
+    private int depth;
+
+    /**
+     * Creates a ZoneFileInput.
+     * @param channel the channel of the zone file, at its first byte.
+     */
+    ZoneFileInput(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).limit(0);
+    }
+
+    /**
+     * Reads the next byte.
+     * @return the byte, or -1 at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    int next() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            this.bufferStart += this.buffer.limit();
+            this.buffer.clear();
+            int read = this.channel.read(this.buffer);
+            this.buffer.flip();
+            if (read < 0) {
+                return -1;
+            }
+        }
+        return this.buffer.get() & BYTE_MASK;
+    }
+
+    /**
+     * Gets the offset of the next byte to be read.
+     * @return the offset in the file.
+     */
+    long position() {
+        return this.bufferStart + this.buffer.position();
+    }
+
+    /**
+     * Gets the number of parentheses still open.
+     * @return 0 when the next line starts a new record.
+     */
+    int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Skips the rest of a line.
+     * @param first the first byte of the line, already read.
+     * @return the first byte of the next line, or -1 at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    int skipLine(int first) throws IOException {
+        this.quoted = false;
+        int b = first;
+        while (b >= 0 && b != '\n') {
+            b = skipByte(b);
+        }
+        return next();
+    }
+
+    /**
+     * Reads the rest of a line without its comment, tracking the parentheses as {@link #skipLine(int)} does.
+     * @param first the first byte of the line, already read.
+     * @param line the StringBuilder the line is appended to, one char per byte.
+     * @return the first byte of the next line, or -1 at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    int readLine(int first, StringBuilder line) throws IOException {
+        this.quoted = false;
+        int b = first;
+        while (b >= 0 && b != '\n') {
+            if (b == '\\') {
+                line.append((char) b);
+                b = next();
+                if (b >= 0) {
+                    line.append((char) b);
+                    b = next();
+                }
+            } else if (b == ';' && !this.quoted) {
+                b = skipComment();
+            } else {
+                line.append((char) b);
+                b = skipByte(b);
+            }
+        }
+        return next();
+    }
+
+    private int skipByte(int b) throws IOException {
+        if (b == '\\') {
+            next();
+            return next();
+        }
+        if (b == '"') {
+            this.quoted ^= true;
+            return next();
+        }
+        return this.quoted ? next() : skipSyntax(b);
+    }
+
+    private int skipSyntax(int b) throws IOException {
+        if (b == ';') {
+            return skipComment();
+        }
+        if (b == '(') {
+            this.depth++;
+        } else if (b == ')') {
+            this.depth = Math.max(0, this.depth - 1);
+        }
+        return next();
+    }
+
+    private int skipComment() throws IOException {
+        int b = next();
+        while (b >= 0 && b != '\n') {
+            b = next();
+        }
+        return b;
+    }
+
+}
@@ -0,0 +1,134 @@
+package net.ccscript.axfr4azuredns.zonefile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+
+/**
+ * Reads the records of an RFC 1035 master file, or of an AXFR dump, with several threads. The file is first split
+ * into {@link ZoneFileChunk}s in one sequential byte scan, then the chunks are parsed in parallel and their
+ * records passed on in file order. At most two chunks per thread are held in memory, whatever the size of the
+ * file. An AXFR dump repeats the SOA record at its end: only the first SOA record of the file is kept.
+ */
+public final class ZoneFileReader {
+
+    /**
+     * Default size of the chunks parsed by one thread.
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 8388608;
+
+    private static Logger logger = LogManager.getLogger();
+
+    private final Path file;
+    private final Name origin;
+    private final int parallelism;
+    private final long chunkSize;
+
+    /**
+     * Creates a ZoneFileReader.
+     * @param file the zone file.
+     * @param origin the origin of the zone file, until its first $ORIGIN directive.
+     * @param parallelism the number of threads parsing the file.
+     * @param chunkSize the size of the chunks parsed by one thread, usually {@link #DEFAULT_CHUNK_SIZE}.
+     */
+    public ZoneFileReader(Path file, Name origin, int parallelism, long chunkSize) {
+        this.file = file;
+        this.origin = origin;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the records of the zone file.
+     * @param sink called with the records of each chunk, in file order, from the calling thread.
+     * @return the number of records read.
+     * @throws IOException if the file cannot be read.
+     * @throws ZoneFileException if the file holds an invalid record or directive.
+     * @throws InterruptedException if interrupted while waiting for a chunk to be parsed.
+     */
+    public long read(Consumer<List<Record>> sink) throws IOException, ZoneFileException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            List<ZoneFileChunk> chunks = new ZoneFileSplitter(new ZoneFileInput(channel), this.origin,
+                this.chunkSize).split();
+            logger.info("Parsing zone file {} in {} chunks with {} threads", this.file, chunks.size(),
+                this.parallelism);
+            ExecutorService executor = Executors.newFixedThreadPool(this.parallelism);
+            try {
+                return parse(channel, chunks, executor, sink);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private long parse(FileChannel channel, List<ZoneFileChunk> chunks, ExecutorService executor,
+        Consumer<List<Record>> sink) throws ZoneFileException, InterruptedException {
+
+        Deque<Future<List<Record>>> parsing = new ArrayDeque<Future<List<Record>>>();
+        Iterator<ZoneFileChunk> pending = chunks.iterator();
+        SOARecord soa = null;
+        long records = 0;
+        while (pending.hasNext() || !parsing.isEmpty()) {
+            while (pending.hasNext() && parsing.size() < 2 * this.parallelism) {
+                ZoneFileChunk chunk = pending.next();
+                parsing.add(executor.submit(() -> chunk.parse(channel)));
+            }
+            List<Record> chunkRecords = await(parsing.poll());
+            soa = dropRepeatedSoa(chunkRecords, soa);
+            records += chunkRecords.size();
+            sink.accept(chunkRecords);
+        }
+        return records;
+    }
+
+    private static List<Record> await(Future<List<Record>> chunkRecords)
+        throws ZoneFileException, InterruptedException {
+
+        try {
+            return chunkRecords.get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof ZoneFileException zfe) {
+                throw zfe;
+            }
+            throw new ZoneFileException("Zone file chunk could not be parsed", ee);
+        }
+    }
+
+    /**
+     * Removes the SOA records following the first one of the file.
+     * @param chunkRecords the records of a chunk.
+     * @param soa the first SOA record of the file, or null if not found yet.
+     * @return the first SOA record of the file, or null if not found yet.
+     */
+    private static SOARecord dropRepeatedSoa(List<Record> chunkRecords, SOARecord soa) {
+        SOARecord first = soa;
+        Iterator<Record> records = chunkRecords.iterator();
+        while (records.hasNext()) {
+            if (records.next() instanceof SOARecord soaRecord) {
+                if (first == null) {
+                    first = soaRecord;
+                } else {
+                    records.remove();
+                }
+            }
+        }
+        return first;
+    }
+
+}
@@ -0,0 +1,180 @@
+package net.ccscript.axfr4azuredns.zonefile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Master;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.TTL;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+/**
+ * Splits a zone file into {@link ZoneFileChunk}s of about the same size in a single sequential pass. A chunk only
+ * ends before a line starting a record with an explicit owner name, so that no record, nor the owner name it
+ * inherits, spans two chunks. Only the $ORIGIN and $TTL directive lines are decoded, to pass them on to the
+ * following chunks: every other line is skipped byte by byte. While no $TTL is in effect, the first line of every
+ * record is decoded as well, to pass on the TTL a record without TTL takes: the TTL of the previous record, or the
+ * minimum of an SOA record without TTL starting the file. $INCLUDE is not supported.
+ */
+final class ZoneFileSplitter {
+
+    private static final String NOT_OWNER_START = " \t\r\n;$";
+    // The TTL and the class of a record come in any order between its owner name and its type
+    private static final int TTL_AND_CLASS_TOKENS = 2;
+
+    private final ZoneFileInput input;
+    private final long chunkSize;
+    private final List<ZoneFileChunk> chunks;
+    private Name origin;
+    private long defaultTtl;
+    private long lastTtl;
+    private long chunkStart;
+    private Name chunkOrigin;
+    private long chunkDefaultTtl;
+    private long chunkLastTtl;
+
+    /**
+     * Creates a ZoneFileSplitter.
+     * @param input the {@link ZoneFileInput} of the zone file.
+     * @param origin the origin of the zone file, until its first $ORIGIN directive.
+     * @param chunkSize the size above which a chunk ends at the next record.
+     */
+    ZoneFileSplitter(ZoneFileInput input, Name origin, long chunkSize) {
+        this.input = input;
+        this.chunkSize = chunkSize;
+        this.chunks = new ArrayList<ZoneFileChunk>();
+        this.origin = origin;
+        this.defaultTtl = -1;
+        this.lastTtl = -1;
+        this.chunkOrigin = origin;
+        this.chunkDefaultTtl = -1;
+        this.chunkLastTtl = -1;
+    }
+
+    /**
+     * Splits the zone file.
+     * @return the {@link ZoneFileChunk}s, in file order.
+     * @throws IOException if the file cannot be read.
+     * @throws ZoneFileException if a directive or a decoded record line is not valid, or on $INCLUDE.
+     */
+    List<ZoneFileChunk> split() throws IOException, ZoneFileException {
+        int first = this.input.next();
+        while (first >= 0) {
+            first = this.input.getDepth() == 0 ? startLine(first) : this.input.skipLine(first);
+        }
+        this.chunks.add(new ZoneFileChunk(this.chunkStart, this.input.position(), this.chunkOrigin,
+            this.chunkDefaultTtl, this.chunkLastTtl));
+        return this.chunks;
+    }
+
+    private int startLine(int first) throws IOException, ZoneFileException {
+        long lineStart = this.input.position() - 1;
+        if (first == '$') {
+            return readDirective(first);
+        }
+        if (NOT_OWNER_START.indexOf(first) < 0 && lineStart - this.chunkStart >= this.chunkSize) {
+            this.chunks.add(new ZoneFileChunk(this.chunkStart, lineStart, this.chunkOrigin, this.chunkDefaultTtl,
+                this.chunkLastTtl));
+            this.chunkStart = lineStart;
+            this.chunkOrigin = this.origin;
+            this.chunkDefaultTtl = this.defaultTtl;
+            this.chunkLastTtl = this.lastTtl;
+        }
+        return this.defaultTtl < 0 ? readRecordTtl(first) : this.input.skipLine(first);
+    }
+
+    /**
+     * Reads the TTL of a record, following the rules of {@link Master} when no $TTL is in effect.
+     * @param first the first byte of the record.
+     * @return the first byte of the line following the record's first line, or of the record for an SOA record.
+     */
+    private int readRecordTtl(int first) throws IOException, ZoneFileException {
+        StringBuilder line = new StringBuilder();
+        int next = this.input.readLine(first, line);
+        if (line.toString().isBlank()) {
+            return next;
+        }
+        String[] tokens = line.toString().trim().split("\\s+");
+        int index = Character.isWhitespace(first) ? 0 : 1;
+        long ttl = -1;
+        for (int i = 0; i < TTL_AND_CLASS_TOKENS && index < tokens.length; i++) {
+            if (Character.isDigit(tokens[index].charAt(0))) {
+                ttl = parseTtl(tokens[index]);
+            } else if (DClass.value(tokens[index]) < 0) {
+                break;
+            }
+            index++;
+        }
+
+        if (ttl >= 0) {
+            this.lastTtl = ttl;
+        } else if (this.lastTtl < 0 && index < tokens.length && Type.value(tokens[index]) == Type.SOA) {
+            // An SOA record without TTL takes its minimum, which then applies like a $TTL directive
+            while (next >= 0 && this.input.getDepth() > 0) {
+                line.append('\n');
+                next = this.input.readLine(next, line);
+            }
+            this.defaultTtl = soaMinimum(Character.isWhitespace(first) ? "@" + line : line.toString());
+        }
+        return next;
+    }
+
+    private static long parseTtl(String token) throws ZoneFileException {
+        try {
+            return TTL.parseTTL(token);
+        } catch (NumberFormatException nfe) {
+            throw new ZoneFileException("Invalid TTL " + token, nfe);
+        }
+    }
+
+    private long soaMinimum(String soa) throws ZoneFileException {
+        try (Master master = new Master(new ByteArrayInputStream(soa.getBytes(StandardCharsets.ISO_8859_1)),
+            this.origin)) {
+            Record record = master.nextRecord();
+            if (!(record instanceof SOARecord)) {
+                throw new ZoneFileException("Invalid SOA record " + soa);
+            }
+            return ((SOARecord) record).getMinimum();
+        } catch (IOException ioe) {
+            throw new ZoneFileException("Invalid SOA record " + soa, ioe);
+        }
+    }
+
+    private int readDirective(int first) throws IOException, ZoneFileException {
+        StringBuilder line = new StringBuilder();
+        int b = first;
+        while (b >= 0 && b != '\n') {
+            line.append((char) b);
+            b = this.input.next();
+        }
+        applyDirective(line.toString().split(";", 2)[0].trim().split("\\s+"));
+        return this.input.next();
+    }
+
+    private void applyDirective(String[] tokens) throws ZoneFileException {
+        if ("$INCLUDE".equalsIgnoreCase(tokens[0])) {
+            throw new ZoneFileException("$INCLUDE is not supported, the included file must be merged into the zone "
+                + "file: " + String.join(" ", tokens));
+        }
+        if (tokens.length < 2) {
+            return;
+        }
+        try {
+            if ("$ORIGIN".equalsIgnoreCase(tokens[0])) {
+                this.origin = Name.fromString(tokens[1], this.origin);
+            } else if ("$TTL".equalsIgnoreCase(tokens[0])) {
+                this.defaultTtl = TTL.parseTTL(tokens[1]);
+            }
+        } catch (TextParseException | NumberFormatException e) {
+            throw new ZoneFileException("Invalid directive " + String.join(" ", tokens), e);
+        }
+    }
+
+}
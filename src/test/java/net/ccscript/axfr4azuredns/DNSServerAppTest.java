@@ -18,7 +18,25 @@ public class DNSServerAppTest {
     private static final String[] GET_HELP_REFERENCE = new String[]{
         "usage: axfr4azuredns",
         " -c,--config <config_file>   The JSON configuration file",
-        " -h,--help                   Prints this help message"
+        " -d,--duration <seconds>     The duration of -l against each listener (10)",
+        " -h,--help                   Prints this help message",
+        " -i,--import <zone_file>     Imports a zone file (RFC 1035 master file or",
+        "                             AXFR dump) into the Azure DNS Zones of the",
+        "                             zone given by -o, then exits",
+        " -l,--load <mode>            Sends udp or tcp queries, or notify messages,",
+        "                             for names of the configured zones to the",
+        "                             listener of every server, prints the rate,",
+        "                             latency histogram and loss of each, then",
+        "                             exits",
+        " -o,--origin <zone_name>     The configured zone the imported zone file",
+        "                             holds",
+        " -p,--plan <plan_file>       Writes the changes a sync would make to every",
+        "                             Azure DNS Zone to plan_file, one JSON line",
+        "                             per zone and Azure DNS Zone, without writing",
+        "                             to Azure, then exits",
+        " -r,--rate <requests>        The requests per second sent by -l, as fast",
+        "                             as answered if absent",
+        " -w,--workers <count>        The concurrent requests of -l (16)"
     };
 
     @Test
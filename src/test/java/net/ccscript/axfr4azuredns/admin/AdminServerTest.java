@@ -0,0 +1,194 @@
+package net.ccscript.axfr4azuredns.admin;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.sync.SyncPriority;
+import net.ccscript.axfr4azuredns.sync.ZoneReadiness;
+
+public class AdminServerTest {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_ACCEPTED = 202;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_CONFLICT = 409;
+    private static final int DRAINED_JOBS = 7;
+    private static final long SERIAL = 2024010101;
+    private static final String SUBSCRIPTION = "55555555-6666-4444-7777-888888888888";
+
+    private ExecutorService virtualThreads;
+    private AdminServer adminServer;
+    private FakeZoneControl control;
+    private HttpClient httpClient;
+
+    /**
+     * A ZoneControl recording the operations, serving every zone but other.example.com.
+     */
+    private static final class FakeZoneControl implements ZoneControl {
+        private final List<String> operations = Collections.synchronizedList(new ArrayList<String>());
+        private final Set<String> pausedZones = Collections.synchronizedSet(new HashSet<String>());
+
+        @Override
+        public ZoneStatus getStatus(Zone zone) {
+            if ("other.example.com".equals(zone.getZoneName())) {
+                return null;
+            }
+            return new ZoneStatus(zone.getZoneName(), SUBSCRIPTION, ZoneReadiness.READY,
+                this.pausedZones.contains(zone.getZoneName()), false, SyncPriority.POLL, SERIAL);
+        }
+
+        @Override
+        public void syncNow(Zone zone) {
+            this.operations.add("sync " + zone.getZoneName());
+        }
+
+        @Override
+        public void pause(Zone zone) {
+            this.operations.add("pause " + zone.getZoneName());
+            this.pausedZones.add(zone.getZoneName());
+        }
+
+        @Override
+        public void resume(Zone zone) {
+            this.operations.add("resume " + zone.getZoneName());
+            this.pausedZones.remove(zone.getZoneName());
+        }
+
+        @Override
+        public int drain(String subscription) {
+            this.operations.add("drain " + subscription);
+            return DRAINED_JOBS;
+        }
+
+        @Override
+        public int getRunningCount() {
+            return 1;
+        }
+
+        @Override
+        public Map<String, Integer> getWaitingCounts() {
+            return Map.of(SUBSCRIPTION, 2);
+        }
+    }
+
+    private static String zone(String zoneName) {
+        return "{\"zone_name\":\"" + zoneName + "\",\"master\":\"dns\",\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"" + zoneName + "\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"" + SUBSCRIPTION + "\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}";
+    }
+
+    private static String configuration(String admin) {
+        return "{\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[" + zone("example.com") + "," + zone("other.example.com") + "],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}],"
+            + "\"admin\":" + admin + "}";
+    }
+
+    @BeforeEach
+    void startAdminServer() throws IOException, DNSServerConfigurationException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            configuration("{\"listen_on\":\"127.0.0.1\",\"port\":" + port + "}"));
+        this.virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        this.control = new FakeZoneControl();
+        this.adminServer = new AdminServer(configuration.getAdmin(), configuration, this.control);
+        this.adminServer.start(this.virtualThreads);
+        this.httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stopAdminServer() {
+        this.adminServer.stop();
+        this.virtualThreads.shutdownNow();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        URI uri = URI.create("http://127.0.0.1:" + this.adminServer.getAddress().getPort() + path);
+        return this.httpClient.send(HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.noBody())
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonObject json(HttpResponse<String> response) {
+        return JsonParser.parseString(response.body()).getAsJsonObject();
+    }
+
+    @Test
+    void testZoneStatus() throws IOException, InterruptedException {
+        HttpResponse<String> zones = send("GET", "/zones");
+        assertEquals(HTTP_OK, zones.statusCode());
+        assertEquals(1, json(zones).get("running").getAsInt());
+        assertEquals(2, json(zones).getAsJsonObject("waiting").get(SUBSCRIPTION).getAsInt());
+        assertEquals(1, json(zones).getAsJsonArray("zones").size());
+
+        JsonObject zone = json(send("GET", "/zones/example.com."));
+        assertEquals("example.com", zone.get("zone").getAsString());
+        assertEquals("ready", zone.get("readiness").getAsString());
+        assertEquals("poll", zone.get("waiting").getAsString());
+        assertEquals(SERIAL, zone.get("serial").getAsLong());
+        assertFalse(zone.get("paused").getAsBoolean());
+
+        assertEquals(HTTP_NOT_FOUND, send("GET", "/zones/unknown.com").statusCode());
+        assertEquals(HTTP_CONFLICT, send("GET", "/zones/other.example.com").statusCode());
+        assertEquals(HTTP_OK, send("GET", "/queue").statusCode());
+        assertTrue(this.control.operations.isEmpty());
+    }
+
+    @Test
+    void testZoneOperations() throws IOException, InterruptedException {
+        assertEquals(HTTP_ACCEPTED, send("POST", "/zones/example.com/sync").statusCode());
+        assertEquals(HTTP_BAD_METHOD, send("GET", "/zones/example.com/sync").statusCode());
+        assertEquals(HTTP_NOT_FOUND, send("POST", "/zones/example.com/reload").statusCode());
+
+        assertTrue(json(send("POST", "/zones/example.com/pause")).get("paused").getAsBoolean());
+        assertEquals(HTTP_CONFLICT, send("POST", "/zones/example.com/sync").statusCode());
+        assertFalse(json(send("POST", "/zones/example.com/resume")).get("paused").getAsBoolean());
+
+        HttpResponse<String> drained = send("POST", "/subscriptions/" + SUBSCRIPTION + "/drain");
+        assertEquals(HTTP_OK, drained.statusCode());
+        assertEquals(DRAINED_JOBS, json(drained).get("dropped").getAsInt());
+
+        assertEquals(List.of("sync example.com", "pause example.com", "resume example.com",
+            "drain " + SUBSCRIPTION), this.control.operations);
+    }
+
+    @Test
+    void testLoopbackOnly() {
+        assertThrows(DNSServerConfigurationException.class, () -> {
+            DNSServerConfigurationFactory.createDNSServerConfiguration(configuration("{\"listen_on\":\"0.0.0.0\"}"));
+        });
+    }
+
+}
@@ -0,0 +1,169 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class AzureDeploymentSeederTest {
+
+    private static final int RECORD_SETS = 10;
+    private static final int BATCH_SIZE = 3;
+    private static final int EXPECTED_DEPLOYMENTS = 4;
+    private static final int CONCURRENT_DEPLOYMENTS = 2;
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+    private static final long TTL = 3600;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_CREATED = 201;
+
+    private HttpServer standIn;
+    private Map<String, Integer> deployedResources;
+    private Map<String, AtomicInteger> polls;
+    private String finalState;
+    private DNSServerConfiguration configuration;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void startStandIn() throws IOException, DNSServerConfigurationException {
+        this.deployedResources = new ConcurrentHashMap<String, Integer>();
+        this.polls = new ConcurrentHashMap<String, AtomicInteger>();
+        this.finalState = AzureDeploymentClient.SUCCEEDED;
+
+        this.standIn = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.standIn.createContext("/exampletenant.onmicrosoft.com/oauth2/v2.0/token", exchange ->
+            respond(exchange, HTTP_OK, "{\"access_token\":\"token\",\"expires_in\":3600}"));
+        this.standIn.createContext("/subscriptions/", this::handleDeployment);
+        this.standIn.start();
+
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"bulk_seeding\":true}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        this.configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        this.standIn.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Stand-in for the Azure Resource Manager deployments endpoint: deployments are Running on the first poll
+     * and reach finalState on the second one.
+     */
+    private void handleDeployment(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String deploymentName = path.substring(path.lastIndexOf('/') + 1);
+
+        if ("PUT".equals(exchange.getRequestMethod())) {
+            JsonObject deployment = JsonParser.parseString(
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+            int resources = deployment.getAsJsonObject("properties").getAsJsonObject("template")
+                .getAsJsonArray("resources").size();
+            this.deployedResources.put(deploymentName, resources);
+            respond(exchange, HTTP_CREATED, "{\"properties\":{\"provisioningState\":\"Accepted\"}}");
+            return;
+        }
+
+        int poll = this.polls.computeIfAbsent(deploymentName, name -> new AtomicInteger()).incrementAndGet();
+        String state = poll > 1 ? this.finalState : "Running";
+        respond(exchange, HTTP_OK, "{\"properties\":{\"provisioningState\":\"" + state + "\"}}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private AzureDeploymentSeeder createSeeder() {
+        String endpoint = "http://127.0.0.1:" + this.standIn.getAddress().getPort();
+        AzureRestTransport transport = new AzureRestTransport(endpoint,
+            new AzureAccessTokenProvider(this.configuration, endpoint), new AzureThrottle());
+        return new AzureDeploymentSeeder(new AzureDeploymentClient(transport), this.executor, BATCH_SIZE,
+            CONCURRENT_DEPLOYMENTS, POLL_INTERVAL);
+    }
+
+    private static List<AzureRecordSet> createRecordSets() {
+        List<AzureRecordSet> recordSets = new ArrayList<AzureRecordSet>();
+        for (int i = 0; i < RECORD_SETS; i++) {
+            recordSets.add(new AzureRecordSet("host" + i, AzureRecordType.A, TTL, List.of("192.0.2.1"), null));
+        }
+        return recordSets;
+    }
+
+    @Test
+    void testSeedInBoundedBatches() throws InterruptedException, ExecutionException {
+        AzureDomain azureDomain = this.configuration.getZoneByName("example.com").getAzureDomain();
+        assertTrue(azureDomain.isBulkSeeding());
+
+        createSeeder().seed(azureDomain, createRecordSets()).get();
+
+        assertEquals(EXPECTED_DEPLOYMENTS, this.deployedResources.size());
+        int deployed = 0;
+        for (int resources : this.deployedResources.values()) {
+            assertTrue(resources <= BATCH_SIZE);
+            deployed += resources;
+        }
+        assertEquals(RECORD_SETS, deployed);
+    }
+
+    @Test
+    void testFailedDeployment() {
+        AzureDomain azureDomain = this.configuration.getZoneByName("example.com").getAzureDomain();
+        this.finalState = "Failed";
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> {
+            createSeeder().seed(azureDomain, createRecordSets()).get();
+        });
+        assertEquals(AzureDNSException.class, failure.getCause().getClass());
+    }
+
+    @Test
+    void testIsEmptyZone() {
+        AzureZoneCache cache = new AzureZoneCache(this.configuration.getZoneByName("example.com").getAzureDomain());
+        cache.put(new AzureRecordSet(AzureRecordSet.APEX_NAME, AzureRecordType.NS, TTL,
+            List.of("ns1-01.azure-dns.com."), "etag"));
+        assertTrue(AzureDeploymentSeeder.isEmptyZone(cache));
+
+        cache.put(new AzureRecordSet("www", AzureRecordType.A, TTL, List.of("192.0.2.1"), "etag"));
+        assertFalse(AzureDeploymentSeeder.isEmptyZone(cache));
+    }
+
+}
@@ -0,0 +1,134 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.azure.AzureRecordSetChange.Action;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class AzureZoneDiffTest {
+
+    private static final long TTL = 300;
+
+    private AzureDomain azureDomain;
+    private AzureZoneCache cache;
+
+    @BeforeEach
+    void createCache() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"sub.example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        this.azureDomain = DNSServerConfigurationFactory.createDNSServerConfiguration(json)
+            .getZoneByName("sub.example.com").getAzureDomain();
+        this.cache = new AzureZoneCache(this.azureDomain);
+    }
+
+    private static Record record(String name, int type, String rdata) throws IOException {
+        return Record.fromString(Name.fromString(name), type, DClass.IN, TTL, rdata, Name.root);
+    }
+
+    private static AzureRecordSet recordSet(String name, AzureRecordType type, String... records) {
+        return new AzureRecordSet(name, type, TTL, List.of(records), "etag");
+    }
+
+    @Test
+    void testRecordsAreFormattedLikeAzure() throws IOException {
+        AzureZoneDiff diff = new AzureZoneDiff(new AzureZoneScope(Name.fromString("sub.example.com."),
+            this.azureDomain));
+        diff.addAll(List.of(
+            record("www.sub.example.com.", Type.AAAA, "2001:db8:0:0:1:0:0:1"),
+            record("www.sub.example.com.", Type.AAAA, "2001:db8::2"),
+            record("sub.example.com.", Type.MX, "10 mail.example.com."),
+            record("sub.example.com.", Type.TXT, "\"v=spf1 \" \"-all\""),
+            record("sub.example.com.", Type.CAA, "0 issue \"letsencrypt.org\""),
+            record("_sip._tcp.sub.example.com.", Type.SRV, "10 60 5060 sip.example.com.")));
+
+        assertEquals(List.of(
+            recordSet("www.sub", AzureRecordType.AAAA, "2001:db8::1:0:0:1", "2001:db8::2"),
+            recordSet("sub", AzureRecordType.MX, "10 mail.example.com"),
+            recordSet("sub", AzureRecordType.TXT, "v=spf1 -all"),
+            recordSet("sub", AzureRecordType.CAA, "0 issue letsencrypt.org"),
+            recordSet("_sip._tcp.sub", AzureRecordType.SRV, "10 60 5060 sip.example.com")), diff.getRecordSets());
+    }
+
+    @Test
+    void testChangesAreScopedToTheSourceSubtree() throws IOException {
+        this.cache.put(recordSet("@", AzureRecordType.NS, "ns1-01.azure-dns.com"));
+        this.cache.put(recordSet("www", AzureRecordType.A, "192.0.2.1"));
+        this.cache.put(recordSet("sub", AzureRecordType.NS, "ns1.example.com"));
+        this.cache.put(recordSet("www.sub", AzureRecordType.A, "192.0.2.1"));
+        this.cache.put(recordSet("old.sub", AzureRecordType.A, "192.0.2.1"));
+        this.cache.put(recordSet("api.sub", AzureRecordType.A, "192.0.2.2"));
+
+        AzureZoneDiff diff = new AzureZoneDiff(new AzureZoneScope(Name.fromString("sub.example.com."),
+            this.azureDomain));
+        diff.addAll(List.of(
+            record("sub.example.com.", Type.SOA, "ns1.example.com. hostmaster.example.com. 1 3600 600 86400 300"),
+            record("sub.example.com.", Type.NS, "ns2.example.com."),
+            record("www.sub.example.com.", Type.A, "192.0.2.3"),
+            record("api.sub.example.com.", Type.A, "192.0.2.2"),
+            record("glue.example.org.", Type.A, "192.0.2.4"),
+            record("www.sub.example.com.", Type.HINFO, "\"cpu\" \"os\"")));
+
+        List<AzureRecordSetChange> changes = diff.changes(this.cache);
+        assertEquals(2, changes.size());
+        assertEquals(Action.UPSERT, changes.get(0).getAction());
+        assertEquals("www.sub", changes.get(0).getRecordSet().getName());
+        assertEquals(Action.DELETE, changes.get(1).getAction());
+        assertEquals("old.sub", changes.get(1).getRecordSet().getName());
+        assertTrue(diff.getSkippedRecords() > 0);
+    }
+
+    @Test
+    void testParentZoneLeavesTheSubtreeOfItsSubZones() throws IOException, DNSServerConfigurationException {
+        String azure = "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}";
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"sub.example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]}," + azure + "},"
+            + "{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]}," + azure + "}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        AzureDomain parentDomain = DNSServerConfigurationFactory.createDNSServerConfiguration(json)
+            .getZoneByName("example.com").getAzureDomain();
+        this.cache.put(recordSet("www", AzureRecordType.A, "192.0.2.1"));
+        this.cache.put(recordSet("old", AzureRecordType.A, "192.0.2.1"));
+        this.cache.put(recordSet("www.sub", AzureRecordType.A, "192.0.2.1"));
+
+        AzureZoneDiff diff = new AzureZoneDiff(new AzureZoneScope(Name.fromString("example.com."), parentDomain));
+        diff.addAll(List.of(
+            record("www.example.com.", Type.A, "192.0.2.1"),
+            record("sub.example.com.", Type.NS, "ns1.sub.example.com."),
+            record("ns1.sub.example.com.", Type.A, "192.0.2.5")));
+
+        List<AzureRecordSetChange> changes = diff.changes(this.cache);
+        assertEquals(2, changes.size());
+        assertEquals(Action.UPSERT, changes.get(0).getAction());
+        assertEquals("sub", changes.get(0).getRecordSet().getName());
+        assertEquals(AzureRecordType.NS, changes.get(0).getRecordSet().getType());
+        assertEquals(Action.DELETE, changes.get(1).getAction());
+        assertEquals("old", changes.get(1).getRecordSet().getName());
+        assertEquals(1, diff.getSkippedRecords());
+    }
+
+}
@@ -0,0 +1,140 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class AzureZoneLoaderTest {
+
+    private static final int PAGES_PER_TYPE = 3;
+    private static final int RECORD_SETS_PER_PAGE = 4;
+    private static final long TTL = 3600;
+
+    private static final String ZONE_TEMPLATE = "{\"zone_name\":\"%s\",\"master\":\"dns\","
+        + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+        + "\"azure\":{\"zone_name\":\"%s\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+        + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+        + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}";
+
+    private List<AzureDomain> createAzureDomains(String... zoneAndAzureZoneNames)
+        throws IOException, DNSServerConfigurationException {
+
+        List<String> zones = new ArrayList<String>();
+        for (int i = 0; i < zoneAndAzureZoneNames.length; i += 2) {
+            zones.add(String.format(ZONE_TEMPLATE, zoneAndAzureZoneNames[i], zoneAndAzureZoneNames[i + 1]));
+        }
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[" + String.join(",", zones) + "],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json);
+        List<AzureDomain> azureDomains = new ArrayList<AzureDomain>();
+        for (Zone zone : configuration.getZones()) {
+            azureDomains.add(zone.getAzureDomain());
+        }
+        return azureDomains;
+    }
+
+    @Test
+    void testLoadAllTypesAndPages() throws IOException, DNSServerConfigurationException,
+        InterruptedException, ExecutionException {
+
+        AzureDomain azureDomain = createAzureDomains("example.com", "example.com").get(0);
+        PagedClient client = new PagedClient();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        AzureZoneCache cache = new AzureZoneLoader(client, executor).load(azureDomain).get();
+        executor.shutdown();
+
+        assertTrue(cache.isLoaded());
+        assertEquals(AzureRecordType.values().length * PAGES_PER_TYPE * RECORD_SETS_PER_PAGE, cache.size());
+        assertEquals(AzureRecordType.values().length * PAGES_PER_TYPE, client.getRequestCount());
+        assertNotNull(cache.get("mx-2-3", AzureRecordType.MX));
+        assertEquals(TTL, cache.get("a-0-0", AzureRecordType.A).getTtl());
+    }
+
+    @Test
+    void testLoadAllSharesAzureZones() throws IOException, DNSServerConfigurationException,
+        InterruptedException, ExecutionException {
+
+        Collection<AzureDomain> azureDomains = createAzureDomains("sub1.example.com", "example.com",
+            "sub2.example.com", "example.com", "example.net", "example.net");
+        PagedClient client = new PagedClient();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        Map<String, CompletableFuture<AzureZoneCache>> loads = new AzureZoneLoader(client, executor)
+            .loadAll(azureDomains);
+        CompletableFuture.allOf(loads.values().toArray(new CompletableFuture<?>[0])).get();
+        executor.shutdown();
+
+        assertEquals(2, loads.size());
+        assertEquals(2 * AzureRecordType.values().length * PAGES_PER_TYPE, client.getRequestCount());
+    }
+
+    @Test
+    void testLoadFailure() throws IOException, DNSServerConfigurationException {
+        AzureDomain azureDomain = createAzureDomains("example.com", "example.com").get(0);
+        AzureDNSClient failingClient = new InMemoryAzureDNSClient() {
+            @Override
+            public AzureRecordSetPage listRecordSets(AzureDomain domain, AzureRecordType type, String nextLink) {
+                throw new IllegalStateException("Azure is unavailable");
+            }
+        };
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        CompletableFuture<AzureZoneCache> load = new AzureZoneLoader(failingClient, executor).load(azureDomain);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> {
+            load.get();
+        });
+        executor.shutdown();
+        assertEquals(IllegalStateException.class, failure.getCause().getClass());
+    }
+
+    /**
+     * Serves PAGES_PER_TYPE pages of RECORD_SETS_PER_PAGE record sets for every record type.
+     */
+    private static final class PagedClient extends InMemoryAzureDNSClient {
+        private final AtomicInteger requestCount = new AtomicInteger();
+
+        @Override
+        public AzureRecordSetPage listRecordSets(AzureDomain azureDomain, AzureRecordType type, String nextLink) {
+            this.requestCount.incrementAndGet();
+            int pageNumber = nextLink == null ? 0 : Integer.parseInt(nextLink);
+
+            List<AzureRecordSet> recordSets = new ArrayList<AzureRecordSet>();
+            for (int i = 0; i < RECORD_SETS_PER_PAGE; i++) {
+                String name = type.name().toLowerCase() + "-" + pageNumber + "-" + i;
+                recordSets.add(new AzureRecordSet(name, type, TTL, List.of("value"), "etag"));
+            }
+
+            String next = pageNumber + 1 < PAGES_PER_TYPE ? Integer.toString(pageNumber + 1) : null;
+            return new AzureRecordSetPage(recordSets, next);
+        }
+
+        int getRequestCount() {
+            return this.requestCount.get();
+        }
+    }
+
+}
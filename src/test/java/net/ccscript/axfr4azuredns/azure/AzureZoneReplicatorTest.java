@@ -0,0 +1,229 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class AzureZoneReplicatorTest {
+
+    private static final long TTL = 300;
+    private static final String AZURE_TEMPLATE = "{\"zone_name\":\"example.com\",\"resourcegroup\":\"%s\","
+        + "\"subscription\":\"%s\",\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}";
+
+    private static final String CREDENTIALS = "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+        + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+
+    private Zone zone;
+    private RoutingClient azure;
+    private ExecutorService executor;
+    private AzureZoneReplicator replicator;
+
+    @BeforeEach
+    void createReplicator() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":["
+            + String.format(AZURE_TEMPLATE, "DNS_Prod", "55555555-6666-4444-7777-888888888888") + ","
+            + String.format(AZURE_TEMPLATE, "DNS_DR", "99999999-6666-4444-7777-888888888888") + "]}],"
+            + CREDENTIALS;
+        this.zone = DNSServerConfigurationFactory.createDNSServerConfiguration(json).getZoneByName("example.com");
+        this.azure = new RoutingClient();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.replicator = new AzureZoneReplicator(new AzureZoneUpdater(this.azure), null, null, this.executor);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        this.executor.shutdown();
+    }
+
+    private Map<String, AzureZoneDiff> createDiffs(String address) throws IOException {
+        Map<String, AzureZoneDiff> diffs = AzureZoneReplicator.newDiffs(this.zone);
+        Record www = Record.fromString(Name.fromString("www.example.com."), Type.A, DClass.IN, TTL, address,
+            Name.root);
+        for (AzureZoneDiff diff : diffs.values()) {
+            diff.addAll(List.of(www));
+        }
+        return diffs;
+    }
+
+    private static Map<String, AzureZoneDiff> createDiffs(Zone sourceZone, String... names) throws IOException {
+        Map<String, AzureZoneDiff> diffs = AzureZoneReplicator.newDiffs(sourceZone);
+        for (String name : names) {
+            Record record = Record.fromString(Name.fromString(name + ".example.com."), Type.A, DClass.IN, TTL,
+                "192.0.2.1", Name.root);
+            for (AzureZoneDiff diff : diffs.values()) {
+                diff.addAll(List.of(record));
+            }
+        }
+        return diffs;
+    }
+
+    private CompletableFuture<AzureZoneCache> load(AzureDomain azureDomain) {
+        AzureZoneCache cache = new AzureZoneCache(azureDomain);
+        cache.putAll(this.azure.of(azureDomain).listRecordSets(azureDomain, AzureRecordType.A, null)
+            .getRecordSets());
+        return CompletableFuture.completedFuture(cache);
+    }
+
+    @Test
+    void testOneDiffIsAppliedToEveryTarget() throws IOException {
+        AzureDomain prod = this.zone.getAzureDomains().get(0);
+        AzureDomain dr = this.zone.getAzureDomains().get(1);
+        this.azure.of(dr).editOutsideOfSync(
+            new AzureRecordSet("old", AzureRecordType.A, TTL, List.of("192.0.2.9"), null));
+
+        Map<String, AzureZoneDiff> diffs = createDiffs("192.0.2.1");
+        assertEquals(1, diffs.size());
+        assertEquals(0, this.replicator.replicate(this.zone, diffs, this::load));
+
+        for (AzureDomain azureDomain : List.of(prod, dr)) {
+            assertEquals(List.of("192.0.2.1"),
+                this.azure.of(azureDomain).stored("www", AzureRecordType.A).getRecords());
+            assertNull(this.azure.of(azureDomain).stored("old", AzureRecordType.A));
+        }
+        assertEquals(1, this.azure.of(prod).getWrites());
+        assertEquals(2, this.azure.of(dr).getWrites());
+    }
+
+    @Test
+    void testFailingTargetDoesNotStopTheOthers() throws IOException {
+        AzureDomain prod = this.zone.getAzureDomains().get(0);
+        CompletableFuture<AzureZoneCache> failedLoad = CompletableFuture.failedFuture(
+            new AzureDNSException("Load failed"));
+        int failures = this.replicator.replicate(this.zone, createDiffs("192.0.2.2"),
+            azureDomain -> azureDomain == prod ? failedLoad : load(azureDomain));
+
+        assertEquals(1, failures);
+        assertNull(this.azure.of(prod).stored("www", AzureRecordType.A));
+        assertNotNull(this.azure.of(this.zone.getAzureDomains().get(1)).stored("www", AzureRecordType.A));
+    }
+
+    @Test
+    void testSeededRecordSetIsDeletedWithItsEtag() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"DNS_Prod\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"bulk_seeding\":true}}],"
+            + CREDENTIALS;
+        Zone seededZone = DNSServerConfigurationFactory.createDNSServerConfiguration(json)
+            .getZoneByName("example.com");
+        AzureDomain azureDomain = seededZone.getAzureDomains().get(0);
+        InMemoryAzureDNSClient azureZone = this.azure.of(azureDomain);
+        AzureZoneLoader loader = new AzureZoneLoader(this.azure, this.executor);
+        AzureZoneReplicator seedingReplicator = new AzureZoneReplicator(new AzureZoneUpdater(this.azure),
+            new AzureDeploymentSeeder(new InMemoryDeploymentClient(azureZone), this.executor,
+                AzureDeploymentSeeder.DEFAULT_BATCH_SIZE, 1, Duration.ZERO),
+            loader, this.executor);
+        CompletableFuture<AzureZoneCache> cache = loader.load(azureDomain);
+
+        assertEquals(0, seedingReplicator.replicate(seededZone, createDiffs(seededZone, "www", "mail"),
+            target -> cache));
+        assertEquals(0, azureZone.getWrites());
+        assertNotNull(cache.join().get("mail", AzureRecordType.A).getEtag());
+
+        // The master removed mail: its deletion is conditional on the etag listed after seeding, without conflict
+        assertEquals(0, seedingReplicator.replicate(seededZone, createDiffs(seededZone, "www"), target -> cache));
+        assertNull(azureZone.stored("mail", AzureRecordType.A));
+        assertNotNull(azureZone.stored("www", AzureRecordType.A));
+        assertEquals(1, azureZone.getWrites());
+    }
+
+    /**
+     * An {@link AzureDeploymentClient} deploying the record sets of a template into an
+     * {@link InMemoryAzureDNSClient}, each deployment succeeding at once.
+     */
+    private static final class InMemoryDeploymentClient extends AzureDeploymentClient {
+        private final InMemoryAzureDNSClient azureZone;
+
+        InMemoryDeploymentClient(InMemoryAzureDNSClient azureZone) {
+            super(null);
+            this.azureZone = azureZone;
+        }
+
+        @Override
+        public void submit(AzureDomain azureDomain, String deploymentName, JsonObject deployment)
+            throws AzureDNSException {
+
+            for (JsonElement resource : deployment.getAsJsonObject("properties").getAsJsonObject("template")
+                .getAsJsonArray("resources")) {
+                JsonObject recordSet = resource.getAsJsonObject().deepCopy();
+                String name = recordSet.get("name").getAsString();
+                recordSet.addProperty("name", name.substring(name.indexOf('/') + 1));
+                this.azureZone.editOutsideOfSync(AzureRecordSetJsonReader.fromJson(recordSet));
+            }
+        }
+
+        @Override
+        public String getProvisioningState(AzureDomain azureDomain, String deploymentName) {
+            return SUCCEEDED;
+        }
+    }
+
+    /**
+     * An {@link AzureDNSClient} holding each Azure DNS Zone in its own {@link InMemoryAzureDNSClient}.
+     */
+    private static final class RoutingClient implements AzureDNSClient {
+        private final Map<String, InMemoryAzureDNSClient> zones =
+            new ConcurrentHashMap<String, InMemoryAzureDNSClient>();
+
+        InMemoryAzureDNSClient of(AzureDomain azureDomain) {
+            return this.zones.computeIfAbsent(azureDomain.getAzureResourceId(),
+                resourceId -> new InMemoryAzureDNSClient());
+        }
+
+        @Override
+        public AzureRecordSetPage listRecordSets(AzureDomain azureDomain, AzureRecordType type, String nextLink) {
+            return of(azureDomain).listRecordSets(azureDomain, type, nextLink);
+        }
+
+        @Override
+        public AzureRecordSet getRecordSet(AzureDomain azureDomain, String name, AzureRecordType type)
+            throws AzureDNSException {
+
+            return of(azureDomain).getRecordSet(azureDomain, name, type);
+        }
+
+        @Override
+        public AzureRecordSet putRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet, String ifMatch)
+            throws AzureDNSException {
+
+            return of(azureDomain).putRecordSet(azureDomain, recordSet, ifMatch);
+        }
+
+        @Override
+        public void deleteRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet) throws AzureDNSException {
+            of(azureDomain).deleteRecordSet(azureDomain, recordSet);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class AzureZoneUpdaterTest {
+
+    private static final long TTL = 300;
+    private static final long OTHER_TTL = 60;
+
+    private InMemoryAzureDNSClient azure;
+    private AzureZoneCache cache;
+    private AzureZoneUpdater updater;
+
+    @BeforeEach
+    void createZone() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json);
+
+        this.azure = new InMemoryAzureDNSClient();
+        this.cache = new AzureZoneCache(configuration.getZoneByName("example.com").getAzureDomain());
+        this.updater = new AzureZoneUpdater(this.azure);
+    }
+
+    private static AzureRecordSet www(long ttl, String address) {
+        return new AzureRecordSet("www", AzureRecordType.A, ttl, List.of(address), null);
+    }
+
+    @Test
+    void testCreateAndUpdateWithoutReads() throws AzureDNSException {
+        this.updater.apply(this.cache, AzureRecordSetChange.upsert(www(TTL, "192.0.2.1")));
+        this.updater.apply(this.cache, AzureRecordSetChange.upsert(www(TTL, "192.0.2.2")));
+
+        assertEquals(0, this.azure.getReads());
+        assertEquals(2, this.azure.getWrites());
+        assertEquals(this.azure.stored("www", AzureRecordType.A).getEtag(),
+            this.cache.get("www", AzureRecordType.A).getEtag());
+        assertEquals(List.of("192.0.2.2"), this.azure.stored("www", AzureRecordType.A).getRecords());
+    }
+
+    @Test
+    void testUnchangedRecordSetIsNotWritten() throws AzureDNSException {
+        this.updater.apply(this.cache, AzureRecordSetChange.upsert(www(TTL, "192.0.2.1")));
+        this.updater.apply(this.cache, AzureRecordSetChange.upsert(www(TTL, "192.0.2.1")));
+
+        assertEquals(1, this.azure.getWrites());
+    }
+
+    @Test
+    void testConflictRefreshesOnlyThatRecordSet() throws AzureDNSException {
+        this.updater.apply(this.cache, AzureRecordSetChange.upsert(www(TTL, "192.0.2.1")));
+        this.azure.editOutsideOfSync(www(OTHER_TTL, "198.51.100.1"));
+
+        int failures = this.updater.apply(this.cache, List.of(AzureRecordSetChange.upsert(www(TTL, "192.0.2.3"))));
+
+        assertEquals(0, failures);
+        assertEquals(1, this.azure.getReads());
+        assertEquals(List.of("192.0.2.3"), this.azure.stored("www", AzureRecordType.A).getRecords());
+        assertEquals(TTL, this.cache.get("www", AzureRecordType.A).getTtl());
+    }
+
+    @Test
+    void testDeleteOfRecordSetAlreadyRemovedInAzure() throws AzureDNSException {
+        this.updater.apply(this.cache, AzureRecordSetChange.upsert(www(TTL, "192.0.2.1")));
+        AzureRecordSet cached = this.cache.get("www", AzureRecordType.A);
+        this.azure.deleteRecordSet(this.cache.getAzureDomain(), cached);
+
+        this.updater.apply(this.cache, AzureRecordSetChange.delete(cached));
+
+        assertEquals(1, this.azure.getReads());
+        assertNull(this.cache.get("www", AzureRecordType.A));
+    }
+
+}
@@ -0,0 +1,93 @@
+package net.ccscript.axfr4azuredns.azure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+
+/**
+ * An {@link AzureDNSClient} holding one Azure DNS Zone in memory, with etags and If-Match semantics.
+ */
+class InMemoryAzureDNSClient implements AzureDNSClient {
+
+    private final Map<String, AzureRecordSet> recordSets = new ConcurrentHashMap<String, AzureRecordSet>();
+    private final AtomicInteger etagSequence = new AtomicInteger();
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicInteger writes = new AtomicInteger();
+
+    /**
+     * Changes a record set as if it was edited in the Azure portal.
+     * @param recordSet the new record set content.
+     * @return the record set as stored, with its new etag.
+     */
+    AzureRecordSet editOutsideOfSync(AzureRecordSet recordSet) {
+        AzureRecordSet stored = recordSet.withEtag(nextEtag());
+        this.recordSets.put(stored.getKey(), stored);
+        return stored;
+    }
+
+    AzureRecordSet stored(String name, AzureRecordType type) {
+        return this.recordSets.get(AzureRecordSet.keyOf(name, type));
+    }
+
+    int getReads() {
+        return this.reads.get();
+    }
+
+    int getWrites() {
+        return this.writes.get();
+    }
+
+    @Override
+    public AzureRecordSetPage listRecordSets(AzureDomain azureDomain, AzureRecordType type, String nextLink) {
+        this.reads.incrementAndGet();
+        List<AzureRecordSet> page = new ArrayList<AzureRecordSet>();
+        for (AzureRecordSet recordSet : this.recordSets.values()) {
+            if (recordSet.getType() == type) {
+                page.add(recordSet);
+            }
+        }
+        return new AzureRecordSetPage(page, null);
+    }
+
+    @Override
+    public AzureRecordSet getRecordSet(AzureDomain azureDomain, String name, AzureRecordType type) {
+        this.reads.incrementAndGet();
+        return stored(name, type);
+    }
+
+    @Override
+    public synchronized AzureRecordSet putRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet,
+        String ifMatch) throws AzureDNSException {
+
+        this.writes.incrementAndGet();
+        AzureRecordSet current = this.recordSets.get(recordSet.getKey());
+        checkEtag(current, ifMatch);
+        return editOutsideOfSync(recordSet);
+    }
+
+    @Override
+    public synchronized void deleteRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet)
+        throws AzureDNSException {
+
+        this.writes.incrementAndGet();
+        AzureRecordSet current = this.recordSets.get(recordSet.getKey());
+        checkEtag(current, recordSet.getEtag());
+        this.recordSets.remove(recordSet.getKey());
+    }
+
+    private void checkEtag(AzureRecordSet current, String ifMatch) throws AzurePreconditionFailedException {
+        boolean matches = ifMatch == null ? current == null : current != null && ifMatch.equals(current.getEtag());
+        if (!matches) {
+            throw new AzurePreconditionFailedException("etag mismatch");
+        }
+    }
+
+    private String nextEtag() {
+        return "etag-" + this.etagSequence.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,206 @@
+package net.ccscript.axfr4azuredns.cluster;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ZoneShardCoordinatorTest {
+
+    private static final int ZONES = 1000;
+    private static final int VIRTUAL_NODES = 128;
+    private static final Duration LEASE_DURATION = Duration.ofSeconds(30);
+    private static final Duration SHORT_LEASE_DURATION = Duration.ofMillis(300);
+
+    @TempDir
+    private Path leaseDirectory;
+
+    private static List<String> createZoneNames() {
+        List<String> zoneNames = new ArrayList<String>();
+        for (int i = 0; i < ZONES; i++) {
+            zoneNames.add("zone" + i + ".example.com");
+        }
+        return zoneNames;
+    }
+
+    @Test
+    void testRingOnlyMovesZonesOfDepartingNode() {
+        ConsistentHashRing threeNodes = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+        ConsistentHashRing twoNodes = new ConsistentHashRing(List.of("node-a", "node-b"), VIRTUAL_NODES);
+
+        int movedZones = 0;
+        for (String zoneName : createZoneNames()) {
+            String previousOwner = threeNodes.ownerOf(zoneName);
+            if (!"node-c".equals(previousOwner)) {
+                assertEquals(previousOwner, twoNodes.ownerOf(zoneName));
+            } else {
+                movedZones++;
+            }
+        }
+        assertTrue(movedZones > 0);
+        assertTrue(movedZones < ZONES / 2);
+    }
+
+    @Test
+    void testLeasesAreExclusive() throws IOException {
+        FileLockLeaseBackend backend = new FileLockLeaseBackend(this.leaseDirectory);
+
+        assertEquals(LeaseClaim.HELD, backend.tryAcquire("example.com", "node-a", LEASE_DURATION));
+        assertEquals(LeaseClaim.HELD, backend.tryAcquire("example.com", "node-a", LEASE_DURATION));
+        assertEquals(LeaseClaim.TAKEN, backend.tryAcquire("example.com", "node-b", LEASE_DURATION));
+
+        backend.release("example.com", "node-a");
+        assertEquals(LeaseClaim.HELD, backend.tryAcquire("example.com", "node-b", LEASE_DURATION));
+    }
+
+    @Test
+    void testBusyLeaseKeepsOwnership() throws IOException {
+        FileLockLeaseBackend backend = new FileLockLeaseBackend(this.leaseDirectory);
+        Set<String> releasedZones = new HashSet<String>();
+        ZoneShardCoordinator node = new ZoneShardCoordinator("node-a", List.of("example.com"), backend,
+            VIRTUAL_NODES, LEASE_DURATION, (acquired, released) -> releasedZones.addAll(released));
+        node.refresh();
+        assertTrue(node.owns("example.com"));
+
+        // Another node checking the lease at the same time does not take the zone from its owner
+        try (FileChannel channel = FileChannel.open(this.leaseDirectory.resolve("leases/example.com.lock"),
+            StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+
+            assertEquals(LeaseClaim.BUSY, backend.tryAcquire("example.com", "node-b", LEASE_DURATION));
+            node.refresh();
+            assertTrue(node.owns("example.com"));
+            assertTrue(releasedZones.isEmpty());
+        }
+        node.refresh();
+        assertTrue(node.owns("example.com"));
+    }
+
+    @Test
+    void testCoordinatorsSplitZones() throws IOException {
+        List<String> zoneNames = createZoneNames();
+        Set<String> acquiredByA = new HashSet<String>();
+        ZoneShardCoordinator nodeA = new ZoneShardCoordinator("node-a", zoneNames,
+            new FileLockLeaseBackend(this.leaseDirectory), VIRTUAL_NODES, LEASE_DURATION,
+            (acquired, released) -> {
+                acquiredByA.addAll(acquired);
+                acquiredByA.removeAll(released);
+            });
+        ZoneShardCoordinator nodeB = new ZoneShardCoordinator("node-b", zoneNames,
+            new FileLockLeaseBackend(this.leaseDirectory), VIRTUAL_NODES, LEASE_DURATION,
+            (acquired, released) -> { });
+
+        // node-a alone owns every zone, then hands over the zones assigned to node-b once node-b has joined
+        nodeA.refresh();
+        assertEquals(ZONES, nodeA.getOwnedZones().size());
+        nodeB.refresh();
+        nodeA.refresh();
+        nodeB.refresh();
+
+        Set<String> ownedByB = nodeB.getOwnedZones();
+        assertFalse(ownedByB.isEmpty());
+        assertEquals(ZONES, nodeA.getOwnedZones().size() + ownedByB.size());
+        for (String zoneName : ownedByB) {
+            assertFalse(nodeA.owns(zoneName));
+        }
+        assertEquals(nodeA.getOwnedZones(), acquiredByA);
+
+        // node-b leaving hands its zones back to node-a
+        nodeB.leave();
+        nodeA.refresh();
+        assertEquals(ZONES, nodeA.getOwnedZones().size());
+    }
+
+    @Test
+    void testZonesAreDroppedWhenLeasesCannotBeRenewed() throws IOException, InterruptedException {
+        List<String> zoneNames = List.of("example.com", "example.net");
+        AtomicBoolean unreachable = new AtomicBoolean();
+        ZoneLeaseBackend backend = new UnreachableBackend(new FileLockLeaseBackend(this.leaseDirectory),
+            unreachable);
+        Set<String> ownedZones = new HashSet<String>();
+        ZoneShardCoordinator node = new ZoneShardCoordinator("node-a", zoneNames, backend, VIRTUAL_NODES,
+            SHORT_LEASE_DURATION, (acquired, released) -> {
+                ownedZones.addAll(acquired);
+                ownedZones.removeAll(released);
+            });
+
+        node.refresh();
+        assertEquals(Set.copyOf(zoneNames), ownedZones);
+
+        // The zones are kept while their leases are valid, then dropped before another node can claim them
+        unreachable.set(true);
+        node.refresh();
+        assertEquals(Set.copyOf(zoneNames), ownedZones);
+        Thread.sleep(SHORT_LEASE_DURATION.toMillis());
+        assertFalse(node.owns("example.com"));
+        node.refresh();
+        assertTrue(ownedZones.isEmpty());
+        assertTrue(node.getOwnedZones().isEmpty());
+
+        unreachable.set(false);
+        node.refresh();
+        assertEquals(Set.copyOf(zoneNames), ownedZones);
+    }
+
+    /**
+     * A backend failing every call while unreachable.
+     */
+    private static final class UnreachableBackend implements ZoneLeaseBackend {
+        private final ZoneLeaseBackend backend;
+        private final AtomicBoolean unreachable;
+
+        UnreachableBackend(ZoneLeaseBackend backend, AtomicBoolean unreachable) {
+            this.backend = backend;
+            this.unreachable = unreachable;
+        }
+
+        private void check() throws IOException {
+            if (this.unreachable.get()) {
+                throw new IOException("Lease directory unreachable");
+            }
+        }
+
+        @Override
+        public void heartbeat(String nodeId, Duration ttl) throws IOException {
+            check();
+            this.backend.heartbeat(nodeId, ttl);
+        }
+
+        @Override
+        public Set<String> getLiveNodes() throws IOException {
+            check();
+            return this.backend.getLiveNodes();
+        }
+
+        @Override
+        public LeaseClaim tryAcquire(String zoneName, String nodeId, Duration ttl) throws IOException {
+            check();
+            return this.backend.tryAcquire(zoneName, nodeId, ttl);
+        }
+
+        @Override
+        public void release(String zoneName, String nodeId) throws IOException {
+            check();
+            this.backend.release(zoneName, nodeId);
+        }
+
+        @Override
+        public void leave(String nodeId) throws IOException {
+            check();
+            this.backend.leave(nodeId);
+        }
+    }
+
+}
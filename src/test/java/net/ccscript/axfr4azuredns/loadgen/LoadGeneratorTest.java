@@ -0,0 +1,112 @@
+package net.ccscript.axfr4azuredns.loadgen;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.Rcode;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.server.listener.DNSServerRequestHandler;
+import net.ccscript.axfr4azuredns.server.listener.ServerListeners;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+public class LoadGeneratorTest {
+
+    private static final int WORKERS = 4;
+    private static final int NOTIFY_RATE = 50;
+    private static final Duration DURATION = Duration.ofSeconds(1);
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+    private static final long MICROS_5 = 5;
+    private static final long MICROS_6 = 6;
+    private static final long MICROS_1000 = 1000;
+    private static final long MICROS_1024 = 1024;
+    private static final long MICROS_1280 = 1280;
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final double MEDIAN = 0.5;
+
+    private DNSServerConfiguration configuration;
+    private List<String> notifiedZones;
+    private ServerListeners listeners;
+
+    @BeforeEach
+    void startListeners() throws IOException, DNSServerConfigurationException {
+        int port;
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":" + port + ",\"udp_port\":" + port + "}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"127.0.0.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        this.configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json);
+        this.notifiedZones = new CopyOnWriteArrayList<String>();
+        this.listeners = new ServerListeners();
+        this.listeners.start(this.configuration.getServers(),
+            new DNSServerRequestHandler(this.configuration, new TsigKeyring(this.configuration), new ZoneStore(),
+                zone -> this.notifiedZones.add(zone.getZoneName())));
+    }
+
+    @AfterEach
+    void stopListeners() {
+        this.listeners.close();
+    }
+
+    @Test
+    void testClosedLoopQueries() throws DNSServerConfigurationException, InterruptedException {
+        for (LoadMode mode : List.of(LoadMode.UDP, LoadMode.TCP)) {
+            List<LoadReport> reports = new LoadGenerator(this.configuration, mode, 0, WORKERS, DURATION, TIMEOUT)
+                .runAll();
+            assertEquals(1, reports.size());
+            LoadReport report = reports.get(0);
+            assertTrue(report.getAnswered() > 0);
+            assertEquals(report.getSent(), report.getAnswered());
+            assertEquals(0, report.getLost());
+            assertEquals(0, report.getFailed());
+            assertTrue(report.getAnsweredPerSecond() > 0);
+        }
+    }
+
+    @Test
+    void testFixedRateNotifyBurst() throws DNSServerConfigurationException, InterruptedException {
+        LoadReport report = new LoadGenerator(this.configuration, LoadMode.NOTIFY, NOTIFY_RATE, WORKERS, DURATION,
+            TIMEOUT).runAll().get(0);
+        // Requests are scheduled evenly over the duration: exactly rate x duration are sent
+        assertEquals(NOTIFY_RATE, report.getSent());
+        assertEquals(NOTIFY_RATE, report.getRcodeCount(Rcode.NOERROR));
+        assertEquals(NOTIFY_RATE, this.notifiedZones.size());
+        assertEquals("example.com", this.notifiedZones.get(0));
+    }
+
+    @Test
+    void testLatencyHistogram() {
+        assertEquals(MICROS_6, LatencyHistogram.upperBoundMicros(LatencyHistogram.bucketOf(MICROS_5)));
+        assertEquals(MICROS_1024, LatencyHistogram.upperBoundMicros(LatencyHistogram.bucketOf(MICROS_1000)));
+        assertEquals(MICROS_1280, LatencyHistogram.upperBoundMicros(LatencyHistogram.bucketOf(MICROS_1024)));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(MICROS_5 * NANOS_PER_MICRO);
+        histogram.record(MICROS_5 * NANOS_PER_MICRO);
+        histogram.record(MICROS_1000 * NANOS_PER_MICRO);
+        assertEquals(MICROS_6, histogram.percentileMicros(MEDIAN));
+        assertEquals(MICROS_1000, histogram.percentileMicros(1));
+        assertEquals(MICROS_1000, histogram.getMaxMicros());
+    }
+
+}
@@ -0,0 +1,398 @@
+package net.ccscript.axfr4azuredns.loadtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in of the Azure DNS record set REST API, and of the Microsoft identity platform token endpoint, so
+ * that the server can be driven end to end without Azure. Listing is paged through nextLink and $skipToken, writes
+ * honour If-Match and If-None-Match against the etag of each record set, and DNS Zones are created on first use
+ * with their apex SOA and NS record sets, as Azure does. Latency, 500 errors and 429 responses with a Retry-After
+ * header can be injected in every record set request.
+ */
+final class AzureDnsEmulator implements Closeable {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_CREATED = 201;
+    private static final int HTTP_NO_CONTENT = 204;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+    private static final int HTTP_PRECONDITION_FAILED = 412;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int TOKEN_EXPIRES_IN = 3600;
+    private static final int APEX_TTL = 3600;
+    private static final int ZONE_SEGMENTS = 9;
+    private static final int BACKLOG = 4096;
+    private static final String MAX_IDLE_CONNECTIONS = "100000";
+    private static final String TOKEN_PATH = "/oauth2/v2.0/token";
+    private static final String SKIP_TOKEN = "$skipToken=";
+    private static final String TYPE_PREFIX = "Microsoft.Network/dnszones/";
+
+    static {
+        // The server closes the idle connections beyond 200 by default, which the HTTP client may be reusing
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", MAX_IDLE_CONNECTIONS);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int pageSize;
+    private final Map<String, NavigableMap<String, JsonObject>> zones;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile int retryAfterSeconds = 1;
+
+    /**
+     * Starts an emulator listening on an ephemeral port of the loopback address.
+     * @param pageSize the number of record sets per page of a list.
+     * @throws IOException if the server cannot listen.
+     */
+    AzureDnsEmulator(int pageSize) throws IOException {
+        this.pageSize = pageSize;
+        this.zones = new ConcurrentHashMap<String, NavigableMap<String, JsonObject>>();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Gets the URL of the emulator, used both as Azure Resource Manager endpoint and as token authority.
+     * @return the URL, without trailing slash.
+     */
+    String getUrl() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort();
+    }
+
+    void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    void setThrottleRate(double rate, int retryAfter) {
+        this.throttleRate = rate;
+        this.retryAfterSeconds = retryAfter;
+    }
+
+    long getRequests() {
+        return this.requests.get();
+    }
+
+    long getWrites() {
+        return this.writes.get();
+    }
+
+    long getThrottled() {
+        return this.throttled.get();
+    }
+
+    long getErrors() {
+        return this.errors.get();
+    }
+
+    /**
+     * Gets a record set of a DNS Zone, without going through HTTP.
+     * @param resourceId the Azure resource id of the DNS Zone.
+     * @param type the record type, such as "A".
+     * @param name the relative record set name, "@" for the apex.
+     * @return the record set JSON object, or null if the record set does not exist.
+     */
+    JsonObject getRecordSet(String resourceId, String type, String name) {
+        NavigableMap<String, JsonObject> recordSets = this.zones.get(resourceId.toLowerCase(Locale.ROOT));
+        return recordSets == null ? null : recordSets.get(key(type, name));
+    }
+
+    /**
+     * Gets the IPv4 addresses of an A record set, without going through HTTP.
+     * @param resourceId the Azure resource id of the DNS Zone.
+     * @param name the relative record set name.
+     * @return the addresses as text, or null if the record set does not exist.
+     */
+    String getAddresses(String resourceId, String name) {
+        JsonObject recordSet = getRecordSet(resourceId, "A", name);
+        if (recordSet == null) {
+            return null;
+        }
+        StringBuilder addresses = new StringBuilder();
+        for (JsonElement record : recordSet.getAsJsonObject("properties").getAsJsonArray("ARecords")) {
+            if (!addresses.isEmpty()) {
+                addresses.append(' ');
+            }
+            addresses.append(record.getAsJsonObject().get("ipv4Address").getAsString());
+        }
+        return addresses.toString();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            this.requests.incrementAndGet();
+            URI uri = exchange.getRequestURI();
+            if (uri.getPath().endsWith(TOKEN_PATH)) {
+                JsonObject token = new JsonObject();
+                token.addProperty("access_token", UUID.randomUUID().toString());
+                token.addProperty("expires_in", TOKEN_EXPIRES_IN);
+                respond(exchange, HTTP_OK, token);
+                return;
+            }
+            if (!inject(exchange)) {
+                route(exchange, uri);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the injected latency, then answers with an injected failure if one is drawn.
+     * @return true if the request was answered with a failure.
+     */
+    private boolean inject(HttpExchange exchange) throws IOException, InterruptedException {
+        Duration delay = this.latency;
+        if (!delay.isZero()) {
+            Thread.sleep(delay);
+        }
+        double draw = ThreadLocalRandom.current().nextDouble();
+        if (draw < this.throttleRate) {
+            this.throttled.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", Integer.toString(this.retryAfterSeconds));
+            respond(exchange, HTTP_TOO_MANY_REQUESTS, error("TooManyRequests"));
+            return true;
+        }
+        if (draw < this.throttleRate + this.errorRate) {
+            this.errors.incrementAndGet();
+            respond(exchange, HTTP_INTERNAL_ERROR, error("InternalServerError"));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Routes a record set request. The path is the resource id of the DNS Zone, made of 9 segments from the
+     * leading empty one to the zone name, followed by the record type and, except for lists, the record set name.
+     */
+    private void route(HttpExchange exchange, URI uri) throws IOException {
+        String[] segments = uri.getPath().split("/");
+        if (segments.length <= ZONE_SEGMENTS || segments.length > ZONE_SEGMENTS + 2) {
+            respond(exchange, HTTP_BAD_REQUEST, error("BadRequest"));
+            return;
+        }
+        String resourceId = String.join("/", Arrays.copyOf(segments, ZONE_SEGMENTS));
+        NavigableMap<String, JsonObject> recordSets = zone(resourceId, segments[ZONE_SEGMENTS - 1]);
+        String type = segments[ZONE_SEGMENTS].toUpperCase(Locale.ROOT);
+        String method = exchange.getRequestMethod();
+        if (segments.length == ZONE_SEGMENTS + 1) {
+            if ("GET".equals(method)) {
+                list(exchange, uri, recordSets, type);
+            } else {
+                respond(exchange, HTTP_METHOD_NOT_ALLOWED, error("MethodNotAllowed"));
+            }
+            return;
+        }
+        String name = segments[ZONE_SEGMENTS + 1];
+        switch (method) {
+            case "GET" -> {
+                JsonObject recordSet = recordSets.get(key(type, name));
+                respond(exchange, recordSet == null ? HTTP_NOT_FOUND : HTTP_OK,
+                    recordSet == null ? error("NotFound") : recordSet);
+            }
+            case "PUT" -> put(exchange, resourceId, recordSets, type, name);
+            case "DELETE" -> delete(exchange, recordSets, type, name);
+            default -> respond(exchange, HTTP_METHOD_NOT_ALLOWED, error("MethodNotAllowed"));
+        }
+    }
+
+    private void list(HttpExchange exchange, URI uri, NavigableMap<String, JsonObject> recordSets, String type)
+        throws IOException {
+
+        String query = uri.getRawQuery() == null ? "" : uri.getRawQuery();
+        int skip = 0;
+        int skipIndex = query.indexOf(SKIP_TOKEN);
+        if (skipIndex >= 0) {
+            int end = query.indexOf('&', skipIndex);
+            skip = Integer.parseInt(query.substring(skipIndex + SKIP_TOKEN.length(), end < 0 ? query.length() : end));
+        }
+
+        JsonArray value = new JsonArray();
+        int index = 0;
+        boolean more = false;
+        for (JsonObject recordSet : recordSets.subMap(type + "/", type + "0").values()) {
+            if (index >= skip + this.pageSize) {
+                more = true;
+                break;
+            }
+            if (index++ >= skip) {
+                value.add(recordSet);
+            }
+        }
+        JsonObject page = new JsonObject();
+        page.add("value", value);
+        if (more) {
+            String otherParameters = query.replaceAll("&?\\$skipToken=[0-9]*", "");
+            page.addProperty("nextLink", getUrl() + uri.getRawPath() + "?" + otherParameters + "&" + SKIP_TOKEN
+                + (skip + this.pageSize));
+        }
+        respond(exchange, HTTP_OK, page);
+    }
+
+    private void put(HttpExchange exchange, String resourceId, NavigableMap<String, JsonObject> recordSets,
+        String type, String name) throws IOException {
+
+        JsonObject body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = JsonParser.parseString(new String(input.readAllBytes(), StandardCharsets.UTF_8))
+                .getAsJsonObject();
+        }
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        JsonObject stored;
+        boolean created;
+        synchronized (recordSets) {
+            JsonObject current = recordSets.get(key(type, name));
+            if (ifMatch != null && (current == null || !ifMatch.equals(current.get("etag").getAsString()))
+                || "*".equals(ifNoneMatch) && current != null) {
+                respond(exchange, HTTP_PRECONDITION_FAILED, error("PreconditionFailed"));
+                return;
+            }
+            stored = recordSet(resourceId, type, name, body.getAsJsonObject("properties"));
+            recordSets.put(key(type, name), stored);
+            created = current == null;
+        }
+        this.writes.incrementAndGet();
+        respond(exchange, created ? HTTP_CREATED : HTTP_OK, stored);
+    }
+
+    private void delete(HttpExchange exchange, NavigableMap<String, JsonObject> recordSets, String type,
+        String name) throws IOException {
+
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        synchronized (recordSets) {
+            JsonObject current = recordSets.get(key(type, name));
+            if (current == null) {
+                respond(exchange, HTTP_NO_CONTENT, null);
+                return;
+            }
+            if (ifMatch != null && !ifMatch.equals(current.get("etag").getAsString())) {
+                respond(exchange, HTTP_PRECONDITION_FAILED, error("PreconditionFailed"));
+                return;
+            }
+            recordSets.remove(key(type, name));
+        }
+        this.writes.incrementAndGet();
+        respond(exchange, HTTP_OK, null);
+    }
+
+    /**
+     * Gets the record sets of a DNS Zone, creating the zone with its apex SOA and NS record sets on first use.
+     */
+    private NavigableMap<String, JsonObject> zone(String resourceId, String zoneName) {
+        return this.zones.computeIfAbsent(resourceId.toLowerCase(Locale.ROOT), id -> {
+            NavigableMap<String, JsonObject> recordSets = new ConcurrentSkipListMap<String, JsonObject>();
+            JsonObject soa = new JsonObject();
+            soa.addProperty("host", "ns1-01.azure-dns.com.");
+            soa.addProperty("email", "azuredns-hostmaster.microsoft.com.");
+            soa.addProperty("serialNumber", 1);
+            soa.addProperty("refreshTime", APEX_TTL);
+            soa.addProperty("retryTime", APEX_TTL);
+            soa.addProperty("expireTime", APEX_TTL);
+            soa.addProperty("minimumTTL", APEX_TTL);
+            JsonObject soaProperties = new JsonObject();
+            soaProperties.addProperty("TTL", APEX_TTL);
+            soaProperties.add("SOARecord", soa);
+            recordSets.put(key("SOA", "@"), recordSet(resourceId, "SOA", "@", soaProperties));
+
+            JsonArray nameServers = new JsonArray();
+            JsonObject nameServer = new JsonObject();
+            nameServer.addProperty("nsdname", "ns1-01.azure-dns.com.");
+            nameServers.add(nameServer);
+            JsonObject nsProperties = new JsonObject();
+            nsProperties.addProperty("TTL", APEX_TTL);
+            nsProperties.add("NSRecords", nameServers);
+            recordSets.put(key("NS", "@"), recordSet(resourceId, "NS", "@", nsProperties));
+            return recordSets;
+        });
+    }
+
+    private static JsonObject recordSet(String resourceId, String type, String name, JsonObject properties) {
+        JsonObject recordSet = new JsonObject();
+        recordSet.addProperty("id", resourceId + "/" + type + "/" + name);
+        recordSet.addProperty("name", name);
+        recordSet.addProperty("type", TYPE_PREFIX + type);
+        recordSet.addProperty("etag", UUID.randomUUID().toString());
+        recordSet.add("properties", properties);
+        return recordSet;
+    }
+
+    /**
+     * Builds the key of a record set, record set names being case insensitive in Azure DNS.
+     */
+    private static String key(String type, String name) {
+        return type.toUpperCase(Locale.ROOT) + "/" + name.toLowerCase(Locale.ROOT);
+    }
+
+    private static JsonObject error(String code) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        return body;
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+}
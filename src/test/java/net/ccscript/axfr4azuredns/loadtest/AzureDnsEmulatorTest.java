@@ -0,0 +1,139 @@
+package net.ccscript.axfr4azuredns.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ccscript.axfr4azuredns.azure.AzureAccessTokenProvider;
+import net.ccscript.axfr4azuredns.azure.AzureDNSException;
+import net.ccscript.axfr4azuredns.azure.AzureDNSRestClient;
+import net.ccscript.axfr4azuredns.azure.AzurePreconditionFailedException;
+import net.ccscript.axfr4azuredns.azure.AzureRecordSet;
+import net.ccscript.axfr4azuredns.azure.AzureRecordSetPage;
+import net.ccscript.axfr4azuredns.azure.AzureRecordType;
+import net.ccscript.axfr4azuredns.azure.AzureRestTransport;
+import net.ccscript.axfr4azuredns.azure.AzureThrottle;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class AzureDnsEmulatorTest {
+
+    private static final int PAGE_SIZE = 2;
+    private static final int RECORD_SETS = 5;
+    private static final int PAGES = 3;
+    private static final long TTL = 300;
+    private static final int RETRY_AFTER_SECONDS = 7;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+
+    private static final String CONFIGURATION = "{"
+        + "\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":53}],"
+        + "\"zones\":[{\"zone_name\":\"example.com\",\"master\": \"dns\","
+        + "\"dns\":{\"servers\":[\"192.0.2.53\"]},"
+        + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"DNS\","
+        + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+        + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+        + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+        + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+
+    private AzureDnsEmulator emulator;
+    private AzureDomain azureDomain;
+    private AzureDNSRestClient client;
+
+    @BeforeEach
+    void startEmulator() throws IOException, DNSServerConfigurationException {
+        this.emulator = new AzureDnsEmulator(PAGE_SIZE);
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            CONFIGURATION);
+        this.azureDomain = configuration.getZoneByName("example.com").getAzureDomains().get(0);
+        this.client = new AzureDNSRestClient(new AzureRestTransport(this.emulator.getUrl(),
+            new AzureAccessTokenProvider(configuration, this.emulator.getUrl()), new AzureThrottle()));
+    }
+
+    @AfterEach
+    void stopEmulator() {
+        this.emulator.close();
+    }
+
+    private static AzureRecordSet www(String etag) {
+        return new AzureRecordSet("www", AzureRecordType.A, TTL, List.of("192.0.2.1"), etag);
+    }
+
+    @Test
+    void testListIsPaged() throws AzureDNSException {
+        for (int i = 0; i < RECORD_SETS; i++) {
+            this.client.putRecordSet(this.azureDomain,
+                new AzureRecordSet("host" + i, AzureRecordType.A, TTL, List.of("192.0.2." + i), null), null);
+        }
+
+        int pages = 0;
+        int recordSets = 0;
+        String nextLink = null;
+        do {
+            AzureRecordSetPage page = this.client.listRecordSets(this.azureDomain, AzureRecordType.A, nextLink);
+            pages++;
+            recordSets += page.getRecordSets().size();
+            nextLink = page.hasNextLink() ? page.getNextLink() : null;
+        } while (nextLink != null);
+        assertEquals(PAGES, pages);
+        assertEquals(RECORD_SETS, recordSets);
+
+        // A new DNS Zone holds its apex SOA and NS record sets
+        assertEquals(1, this.client.listRecordSets(this.azureDomain, AzureRecordType.SOA, null)
+            .getRecordSets().size());
+        assertEquals("@", this.client.listRecordSets(this.azureDomain, AzureRecordType.NS, null)
+            .getRecordSets().get(0).getName());
+    }
+
+    @Test
+    void testWritesCheckEtags() throws AzureDNSException {
+        AzureRecordSet created = this.client.putRecordSet(this.azureDomain, www(null), null);
+        assertThrows(AzurePreconditionFailedException.class,
+            () -> this.client.putRecordSet(this.azureDomain, www(null), null));
+
+        AzureRecordSet updated = this.client.putRecordSet(this.azureDomain, www(null), created.getEtag());
+        assertNotEquals(created.getEtag(), updated.getEtag());
+        assertThrows(AzurePreconditionFailedException.class,
+            () -> this.client.putRecordSet(this.azureDomain, www(null), created.getEtag()));
+        assertThrows(AzurePreconditionFailedException.class,
+            () -> this.client.deleteRecordSet(this.azureDomain, www(created.getEtag())));
+
+        this.client.deleteRecordSet(this.azureDomain, updated);
+        assertNull(this.client.getRecordSet(this.azureDomain, "www", AzureRecordType.A));
+    }
+
+    @Test
+    void testFaultsAreInjected() throws IOException, InterruptedException {
+        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(this.emulator.getUrl()
+            + this.azureDomain.getAzureResourceId() + "/A?api-version=2018-05-01")).GET().build();
+
+        this.emulator.setThrottleRate(1, RETRY_AFTER_SECONDS);
+        HttpResponse<String> throttled = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HTTP_TOO_MANY_REQUESTS, throttled.statusCode());
+        assertEquals(Integer.toString(RETRY_AFTER_SECONDS), throttled.headers().firstValue("Retry-After").get());
+
+        this.emulator.setThrottleRate(0, RETRY_AFTER_SECONDS);
+        this.emulator.setErrorRate(1);
+        assertEquals(HTTP_INTERNAL_ERROR, httpClient.send(request, HttpResponse.BodyHandlers.ofString())
+            .statusCode());
+        assertEquals(1, this.emulator.getThrottled());
+        assertEquals(1, this.emulator.getErrors());
+        assertEquals(2, this.emulator.getRequests());
+        assertEquals(0, this.emulator.getWrites());
+    }
+
+}
@@ -0,0 +1,322 @@
+package net.ccscript.axfr4azuredns.loadtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Opcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.Type;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import net.ccscript.axfr4azuredns.azure.AzureAccessTokenProvider;
+import net.ccscript.axfr4azuredns.azure.AzureRestTransport;
+import net.ccscript.axfr4azuredns.azure.AzureThrottle;
+import net.ccscript.axfr4azuredns.server.DNSServer;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+/**
+ * Drives a {@link DNSServer} against an {@link AzureDnsEmulator} and a {@link SyntheticMaster} serving many zones,
+ * and measures how long each zone takes to reach Azure. Zones are spread over several subscriptions, each with its
+ * own Azure Resource Manager throttle, and a zone is synced once every record set of the emulator holds the records
+ * of the current serial of the master.
+ */
+final class SyncLoadHarness implements Closeable {
+
+    private static Logger logger = LogManager.getLogger();
+
+    private static final String SERVICE_PRINCIPAL = "00000000-1111-4444-2222-333333333333";
+    private static final long CHECK_INTERVAL_MILLIS = 100;
+    private static final Duration NOTIFY_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_TRANSFERS_PER_MASTER = 16;
+    // Zones start as fast as the server allows: the cold sync measures the sync, not the startup pace
+    private static final int ZONES_PER_SECOND = 100000;
+    private static final int POLLING_INTERVAL_MINUTES = 60;
+
+    private final AzureDnsEmulator emulator;
+    private final SyntheticMaster master;
+    private final int hostsPerZone;
+    private final int listenPort;
+    private final DNSServerConfiguration configuration;
+    private final String[] zoneNames;
+    private final String[] resourceIds;
+    private final DNSServer server;
+
+    /**
+     * Creates the harness and its server, not started yet.
+     * @param emulator the {@link AzureDnsEmulator} standing in for Azure.
+     * @param master the {@link SyntheticMaster} serving the zones.
+     * @param zones the number of zones.
+     * @param hostsPerZone the number of A records of each zone, as served by the master.
+     * @param subscriptions the number of subscriptions the Azure DNS Zones are spread over.
+     * @throws IOException if no port is free for the server.
+     * @throws DNSServerConfigurationException if the generated configuration is invalid.
+     */
+    SyncLoadHarness(AzureDnsEmulator emulator, SyntheticMaster master, int zones, int hostsPerZone,
+        int subscriptions) throws IOException, DNSServerConfigurationException {
+
+        this.emulator = emulator;
+        this.master = master;
+        this.hostsPerZone = hostsPerZone;
+        try (DatagramSocket socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            this.listenPort = socket.getLocalPort();
+        }
+        this.zoneNames = new String[zones];
+        for (int i = 0; i < zones; i++) {
+            this.zoneNames[i] = "zone" + i + ".load.example.com";
+        }
+        this.configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            configuration(subscriptions).toString());
+        this.resourceIds = new String[zones];
+        for (int i = 0; i < zones; i++) {
+            this.resourceIds[i] = this.configuration.getZoneByName(this.zoneNames[i]).getAzureDomains().get(0)
+                .getAzureResourceId();
+        }
+
+        AzureRestTransport transport = new AzureRestTransport(emulator.getUrl(),
+            new AzureAccessTokenProvider(this.configuration, emulator.getUrl()), new AzureThrottle());
+        this.server = new DNSServer(this.configuration, transport, master.getPort());
+    }
+
+    private JsonObject configuration(int subscriptions) {
+        JsonObject listener = new JsonObject();
+        listener.addProperty("listen_on", "127.0.0.1");
+        listener.addProperty("tcp_port", this.listenPort);
+        listener.addProperty("udp_port", this.listenPort);
+        JsonArray servers = new JsonArray();
+        servers.add(listener);
+
+        JsonArray zones = new JsonArray();
+        for (int i = 0; i < this.zoneNames.length; i++) {
+            JsonArray masters = new JsonArray();
+            masters.add("127.0.0.1");
+            JsonObject dns = new JsonObject();
+            dns.add("servers", masters);
+            dns.addProperty("zone_transfer", "axfr");
+            dns.addProperty("polling_interval", POLLING_INTERVAL_MINUTES);
+            JsonObject azure = new JsonObject();
+            azure.addProperty("zone_name", this.zoneNames[i]);
+            azure.addProperty("resourcegroup", "loadtest");
+            azure.addProperty("subscription", String.format("%08d-6666-4444-7777-888888888888", i % subscriptions));
+            azure.addProperty("service_principal", SERVICE_PRINCIPAL);
+            JsonObject zone = new JsonObject();
+            zone.addProperty("zone_name", this.zoneNames[i]);
+            zone.addProperty("master", "dns");
+            zone.add("dns", dns);
+            zone.add("azure", azure);
+            zones.add(zone);
+        }
+
+        JsonObject credentials = new JsonObject();
+        credentials.addProperty("tenant", "loadtest.onmicrosoft.com");
+        credentials.addProperty("service_principal", SERVICE_PRINCIPAL);
+        credentials.addProperty("password", "loadtest");
+        JsonArray azureCredentials = new JsonArray();
+        azureCredentials.add(credentials);
+
+        JsonObject sync = new JsonObject();
+        sync.addProperty("max_transfers_per_master", MAX_TRANSFERS_PER_MASTER);
+
+        JsonObject startup = new JsonObject();
+        startup.addProperty("zones_per_second", ZONES_PER_SECOND);
+
+        JsonObject root = new JsonObject();
+        root.add("servers", servers);
+        root.add("zones", zones);
+        root.add("azure_credentials", azureCredentials);
+        root.add("sync", sync);
+        root.add("startup", startup);
+        return root;
+    }
+
+    /**
+     * Starts the server, whose first poll of each zone triggers its cold sync, and waits for every zone to be
+     * synced.
+     * @param timeout the maximum time to wait.
+     * @return the {@link Phase} measured.
+     * @throws DNSServerConfigurationException if the server cannot start.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    Phase coldSync(Duration timeout) throws DNSServerConfigurationException, InterruptedException {
+        long[] triggered = new long[this.zoneNames.length];
+        Phase phase = new Phase("cold sync", this.emulator);
+        Arrays.fill(triggered, System.nanoTime());
+        this.server.start();
+        return await(phase, triggered, timeout);
+    }
+
+    /**
+     * Bumps the serial of the master, changing every A record, sends a NOTIFY for each zone and waits for every
+     * zone to be synced.
+     * @param timeout the maximum time to wait.
+     * @return the {@link Phase} measured.
+     * @throws IOException if a NOTIFY cannot be built.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    Phase notifySync(Duration timeout) throws IOException, InterruptedException {
+        long[] triggered = new long[this.zoneNames.length];
+        Phase phase = new Phase("NOTIFY sync", this.emulator);
+        this.master.bumpSerial();
+
+        SimpleResolver resolver = new SimpleResolver(InetAddress.getLoopbackAddress());
+        resolver.setPort(this.listenPort);
+        resolver.setTimeout(NOTIFY_TIMEOUT);
+        List<CompletableFuture<Message>> answers = new ArrayList<CompletableFuture<Message>>();
+        for (int i = 0; i < this.zoneNames.length; i++) {
+            Message notify = Message.newQuery(Record.newRecord(Name.fromString(this.zoneNames[i] + "."), Type.SOA,
+                DClass.IN));
+            notify.getHeader().setOpcode(Opcode.NOTIFY);
+            notify.getHeader().setFlag(Flags.AA);
+            notify.getHeader().unsetFlag(Flags.RD);
+            triggered[i] = System.nanoTime();
+            answers.add(resolver.sendAsync(notify).toCompletableFuture());
+        }
+        for (CompletableFuture<Message> answer : answers) {
+            if (answer.handle((message, error) -> error != null).join()) {
+                phase.lostNotifies++;
+            }
+        }
+        return await(phase, triggered, timeout);
+    }
+
+    /**
+     * Polls the emulator until every zone holds the records of the current serial of the master.
+     */
+    private Phase await(Phase phase, long[] triggered, Duration timeout) throws InterruptedException {
+        long serial = this.master.getSerial();
+        long[] latencies = new long[this.zoneNames.length];
+        boolean[] synced = new boolean[this.zoneNames.length];
+        long deadline = phase.startNanos + timeout.toNanos();
+        while (phase.synced < this.zoneNames.length && System.nanoTime() < deadline) {
+            for (int i = 0; i < this.zoneNames.length; i++) {
+                if (!synced[i] && isSynced(i, serial)) {
+                    synced[i] = true;
+                    latencies[phase.synced++] = System.nanoTime() - triggered[i];
+                }
+            }
+            if (phase.synced < this.zoneNames.length) {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            }
+        }
+        phase.end(Arrays.copyOf(latencies, phase.synced), this.zoneNames.length, this.hostsPerZone);
+        logger.info(phase);
+        return phase;
+    }
+
+    private boolean isSynced(int zone, long serial) {
+        for (int host = this.hostsPerZone - 1; host >= 0; host--) {
+            if (!SyntheticMaster.address(host, serial).equals(
+                this.emulator.getAddresses(this.resourceIds[zone], "host" + host))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop();
+    }
+
+    /**
+     * The measures of a sync of every zone: throughput, latency percentiles from the trigger of the sync of each
+     * zone, and the requests the emulator received, throttled or failed meanwhile.
+     */
+    static final class Phase {
+        private static final double P50 = 0.50;
+        private static final double P90 = 0.90;
+        private static final double P99 = 0.99;
+
+        private final String name;
+        private final AzureDnsEmulator emulator;
+        private final long startNanos;
+        private final long startRequests;
+        private final long startWrites;
+        private final long startThrottled;
+        private final long startErrors;
+        private int synced;
+        private int lostNotifies;
+        private int zones;
+        private int recordSets;
+        private long elapsedNanos;
+        private long[] latencies;
+        private long requests;
+        private long writes;
+        private long throttled;
+        private long errors;
+
+        Phase(String name, AzureDnsEmulator emulator) {
+            this.name = name;
+            this.emulator = emulator;
+            this.startNanos = System.nanoTime();
+            this.startRequests = emulator.getRequests();
+            this.startWrites = emulator.getWrites();
+            this.startThrottled = emulator.getThrottled();
+            this.startErrors = emulator.getErrors();
+        }
+
+        void end(long[] syncLatencies, int zoneCount, int recordSetsPerZone) {
+            this.elapsedNanos = System.nanoTime() - this.startNanos;
+            this.latencies = syncLatencies;
+            Arrays.sort(this.latencies);
+            this.zones = zoneCount;
+            this.recordSets = this.synced * recordSetsPerZone;
+            this.requests = this.emulator.getRequests() - this.startRequests;
+            this.writes = this.emulator.getWrites() - this.startWrites;
+            this.throttled = this.emulator.getThrottled() - this.startThrottled;
+            this.errors = this.emulator.getErrors() - this.startErrors;
+        }
+
+        int getSynced() {
+            return this.synced;
+        }
+
+        int getLostNotifies() {
+            return this.lostNotifies;
+        }
+
+        /**
+         * Gets a percentile of the sync latencies, by the nearest rank method.
+         * @param percentile the percentile, between 0 and 1.
+         * @return the latency in milliseconds, or -1 if no zone was synced.
+         */
+        long percentileMillis(double percentile) {
+            if (this.latencies.length == 0) {
+                return -1;
+            }
+            int rank = (int) Math.ceil(percentile * this.latencies.length);
+            return TimeUnit.NANOSECONDS.toMillis(this.latencies[Math.max(0, rank - 1)]);
+        }
+
+        @Override
+        public String toString() {
+            double seconds = this.elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+            return String.format("%s: %d/%d zones synced in %.1f s (%.1f zones/s, %.1f record sets/s), "
+                + "latency p50 %d ms, p90 %d ms, p99 %d ms, max %d ms; "
+                + "%d Azure requests (%d writes, %d throttled, %d failed), %d NOTIFY lost",
+                this.name, this.synced, this.zones, seconds, this.synced / seconds, this.recordSets / seconds,
+                percentileMillis(P50), percentileMillis(P90), percentileMillis(P99), percentileMillis(1),
+                this.requests, this.writes, this.throttled, this.errors, this.lostNotifies);
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package net.ccscript.axfr4azuredns.loadtest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import net.ccscript.axfr4azuredns.loadtest.SyncLoadHarness.Phase;
+
+/**
+ * Syncs many zones end to end, from a {@link SyntheticMaster} to an {@link AzureDnsEmulator}, first cold then after
+ * a NOTIFY of every zone. Only runs with the load-test Maven profile; the scale and the faults injected are set by
+ * system properties, e.g. {@code mvn test -P load-test -Dload.zones=2000 -Dload.throttleRate=0.01}.
+ */
+@Tag("load")
+public class SyncLoadTest {
+
+    private static final int DEFAULT_ZONES = 200;
+    private static final int DEFAULT_HOSTS_PER_ZONE = 20;
+    private static final int DEFAULT_SUBSCRIPTIONS = 20;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 600;
+
+    @Test
+    void testColdAndNotifySync() throws Exception {
+        int zones = Integer.getInteger("load.zones", DEFAULT_ZONES);
+        int hostsPerZone = Integer.getInteger("load.hostsPerZone", DEFAULT_HOSTS_PER_ZONE);
+        int subscriptions = Integer.getInteger("load.subscriptions", DEFAULT_SUBSCRIPTIONS);
+        Duration timeout = Duration.ofSeconds(Integer.getInteger("load.timeoutSeconds", DEFAULT_TIMEOUT_SECONDS));
+        double errorRate = Double.parseDouble(System.getProperty("load.errorRate", "0"));
+
+        try (AzureDnsEmulator emulator = new AzureDnsEmulator(
+                Integer.getInteger("load.pageSize", AzureDnsEmulator.DEFAULT_PAGE_SIZE));
+            SyntheticMaster master = new SyntheticMaster(hostsPerZone);
+            SyncLoadHarness harness = new SyncLoadHarness(emulator, master, zones, hostsPerZone, subscriptions)) {
+
+            emulator.setLatency(Duration.ofMillis(Long.getLong("load.latencyMillis", 0)));
+            emulator.setErrorRate(errorRate);
+            emulator.setThrottleRate(Double.parseDouble(System.getProperty("load.throttleRate", "0")),
+                Integer.getInteger("load.retryAfterSeconds", 1));
+
+            Phase cold = harness.coldSync(timeout);
+            Phase notified = harness.notifySync(timeout);
+            // Failed syncs are only retried on the next poll, so injected errors may leave zones behind
+            if (errorRate == 0) {
+                assertEquals(zones, cold.getSynced());
+                assertEquals(0, notified.getLostNotifies());
+                assertEquals(zones, notified.getSynced());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package net.ccscript.axfr4azuredns.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.NSRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+/**
+ * A master server serving any zone it is asked for, generated on the fly: the SOA and NS records of the apex and
+ * the A records host0 to hostN-1, whose addresses depend on the serial, so that bumping the serial changes every
+ * record set of every zone. SOA queries are answered over UDP and TCP on the same port, as polls use UDP and
+ * transfers TCP. Only AXFR is served: IXFR requests are answered with NOTIMP, falling back to AXFR.
+ */
+final class SyntheticMaster implements Closeable {
+
+    static final long FIRST_SERIAL = 1;
+
+    private static final long TTL = 300;
+    private static final long SOA_RETRY = 5;
+    private static final int RECORDS_PER_MESSAGE = 200;
+    private static final int MAX_UDP_MESSAGE = 512;
+    private static final int OCTET = 256;
+
+    private final int hostsPerZone;
+    private final ServerSocket serverSocket;
+    private final DatagramSocket datagramSocket;
+    private final AtomicLong transfers = new AtomicLong();
+    private final AtomicLong soaQueries = new AtomicLong();
+    private volatile long serial = FIRST_SERIAL;
+
+    /**
+     * Starts a master server listening on an ephemeral port of the loopback address, over UDP and TCP.
+     * @param hostsPerZone the number of A records of each zone.
+     * @throws IOException if no port is free over both UDP and TCP.
+     */
+    SyntheticMaster(int hostsPerZone) throws IOException {
+        this.hostsPerZone = hostsPerZone;
+        this.datagramSocket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.serverSocket = new ServerSocket(this.datagramSocket.getLocalPort(), 0, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().start(this::accept);
+        Thread.ofPlatform().daemon().start(this::receive);
+    }
+
+    int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    long getSerial() {
+        return this.serial;
+    }
+
+    /**
+     * Bumps the serial of every zone, changing the address of all their A records.
+     * @return the new serial.
+     */
+    long bumpSerial() {
+        return ++this.serial;
+    }
+
+    long getTransfers() {
+        return this.transfers.get();
+    }
+
+    long getSoaQueries() {
+        return this.soaQueries.get();
+    }
+
+    /**
+     * Gets the address of an A record at a serial.
+     * @param host the index of the host, from 0 to the number of hosts per zone excluded.
+     * @param atSerial the serial of the zone.
+     * @return the IPv4 address as text.
+     */
+    static String address(int host, long atSerial) {
+        return "10." + atSerial % OCTET + "." + host / OCTET % OCTET + "." + host % OCTET;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.datagramSocket.close();
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_UDP_MESSAGE];
+        try {
+            while (true) {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                this.datagramSocket.receive(packet);
+                Message query = new Message(Arrays.copyOf(packet.getData(), packet.getLength()));
+                Message response = query.getQuestion().getType() == Type.SOA
+                    ? response(query, Rcode.NOERROR, soa(query.getQuestion().getName()))
+                    : response(query, Rcode.REFUSED);
+                if (query.getQuestion().getType() == Type.SOA) {
+                    this.soaQueries.incrementAndGet();
+                }
+                byte[] wire = response.toWire();
+                this.datagramSocket.send(new DatagramPacket(wire, wire.length, packet.getSocketAddress()));
+            }
+        } catch (IOException ioe) {
+            // closed
+        }
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = this.serverSocket.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            }
+        } catch (IOException ioe) {
+            // closed
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            while (true) {
+                byte[] wire = new byte[input.readUnsignedShort()];
+                input.readFully(wire);
+                for (Message response : answer(new Message(wire))) {
+                    byte[] responseWire = response.toWire();
+                    output.writeShort(responseWire.length);
+                    output.write(responseWire);
+                }
+                output.flush();
+            }
+        } catch (EOFException eofe) {
+            // client closed the connection
+        } catch (IOException ioe) {
+            // test over
+        }
+    }
+
+    private List<Message> answer(Message query) throws IOException {
+        Name origin = query.getQuestion().getName();
+        switch (query.getQuestion().getType()) {
+            case Type.SOA:
+                this.soaQueries.incrementAndGet();
+                return List.of(response(query, Rcode.NOERROR, soa(origin)));
+            case Type.AXFR:
+                this.transfers.incrementAndGet();
+                return transfer(query, origin);
+            default:
+                return List.of(response(query, Rcode.NOTIMP));
+        }
+    }
+
+    /**
+     * Builds the messages of an AXFR of a zone at the current serial, framed by its SOA record.
+     */
+    private List<Message> transfer(Message query, Name origin) throws IOException {
+        long atSerial = this.serial;
+        List<Record> records = new ArrayList<Record>();
+        records.add(soa(origin, atSerial));
+        records.add(new NSRecord(origin, DClass.IN, TTL, Name.fromString("ns", origin)));
+        for (int host = 0; host < this.hostsPerZone; host++) {
+            records.add(new ARecord(Name.fromString("host" + host, origin), DClass.IN, TTL,
+                InetAddress.getByName(address(host, atSerial))));
+        }
+        records.add(soa(origin, atSerial));
+
+        List<Message> responses = new ArrayList<Message>();
+        for (int start = 0; start < records.size(); start += RECORDS_PER_MESSAGE) {
+            List<Record> answers = records.subList(start, Math.min(records.size(), start + RECORDS_PER_MESSAGE));
+            responses.add(response(query, Rcode.NOERROR, answers.toArray(new Record[0])));
+        }
+        return responses;
+    }
+
+    private SOARecord soa(Name origin) throws TextParseException {
+        return soa(origin, this.serial);
+    }
+
+    private static SOARecord soa(Name origin, long atSerial) throws TextParseException {
+        return new SOARecord(origin, DClass.IN, TTL, Name.fromString("ns", origin),
+            Name.fromString("hostmaster", origin), atSerial, TTL, SOA_RETRY, TTL, TTL);
+    }
+
+    private static Message response(Message query, int rcode, Record... answers) {
+        Message response = new Message(query.getHeader().getID());
+        response.getHeader().setFlag(Flags.QR);
+        response.getHeader().setFlag(Flags.AA);
+        response.getHeader().setRcode(rcode);
+        response.addRecord(query.getQuestion(), Section.QUESTION);
+        for (Record answer : answers) {
+            response.addRecord(answer, Section.ANSWER);
+        }
+        return response;
+    }
+
+}
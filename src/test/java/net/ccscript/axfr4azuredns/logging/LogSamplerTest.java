@@ -0,0 +1,47 @@
+package net.ccscript.axfr4azuredns.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+public class LogSamplerTest {
+
+    private static final int MESSAGES_PER_SECOND = 5;
+    private static final long START_MILLIS = 1_000_000;
+    private static final long TOKEN_MILLIS = 200;
+    private static final long IDLE_MILLIS = 60_000;
+    private static final int FLOOD = 100;
+
+    @Test
+    void testRatePerKey() {
+        LogSampler sampler = new LogSampler(MESSAGES_PER_SECOND);
+        for (int i = 0; i < MESSAGES_PER_SECOND; i++) {
+            assertEquals(0, sampler.sample("example.com", START_MILLIS));
+        }
+        for (int i = 0; i < FLOOD; i++) {
+            assertEquals(-1, sampler.sample("example.com", START_MILLIS));
+        }
+        // The flood on one zone does not silence the other ones
+        assertEquals(0, sampler.sample("other.example.com", START_MILLIS));
+
+        // A token comes back every 200 ms, reporting the messages dropped meanwhile
+        assertEquals(-1, sampler.sample("example.com", START_MILLIS + TOKEN_MILLIS - 1));
+        assertEquals(FLOOD + 1, sampler.sample("example.com", START_MILLIS + TOKEN_MILLIS));
+        assertEquals(-1, sampler.sample("example.com", START_MILLIS + TOKEN_MILLIS));
+    }
+
+    @Test
+    void testBurstAfterIdle() {
+        LogSampler sampler = new LogSampler(MESSAGES_PER_SECOND);
+        assertEquals(0, sampler.sample("example.com", START_MILLIS));
+
+        // An idle key gets one second of messages back, not more
+        int logged = 0;
+        for (int i = 0; i < FLOOD; i++) {
+            if (sampler.sample("example.com", START_MILLIS + IDLE_MILLIS) >= 0) {
+                logged++;
+            }
+        }
+        assertEquals(MESSAGES_PER_SECOND, logged);
+    }
+
+}
@@ -0,0 +1,131 @@
+package net.ccscript.axfr4azuredns.plan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import net.ccscript.axfr4azuredns.azure.AzureDeploymentSeeder;
+import net.ccscript.axfr4azuredns.azure.AzureRecordSet;
+import net.ccscript.axfr4azuredns.azure.AzureRecordType;
+import net.ccscript.axfr4azuredns.azure.AzureThrottle;
+import net.ccscript.axfr4azuredns.azure.AzureZoneCache;
+import net.ccscript.axfr4azuredns.azure.AzureZoneDiff;
+import net.ccscript.axfr4azuredns.azure.AzureZoneScope;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class ZoneChangePlanTest {
+
+    private static final long TTL = 300;
+    private static final long SERIAL = 2024010101;
+    private static final int HOSTS = 1000;
+
+    private static Zone createZone(boolean bulkSeeding) throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\",\"bulk_seeding\":" + bulkSeeding + ","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        return DNSServerConfigurationFactory.createDNSServerConfiguration(json).getZoneByName("example.com");
+    }
+
+    private static AzureZoneDiff createDiff(Zone zone, int hosts) throws IOException {
+        AzureZoneDiff diff = new AzureZoneDiff(new AzureZoneScope(Name.fromString("example.com."),
+            zone.getAzureDomain()));
+        List<Record> records = new ArrayList<Record>();
+        for (int i = 0; i < hosts; i++) {
+            records.add(Record.fromString(Name.fromString("host" + i + ".example.com."), Type.A, DClass.IN, TTL,
+                "192.0.2.1", Name.root));
+        }
+        diff.addAll(records);
+        return diff;
+    }
+
+    private static AzureRecordSet recordSet(String name, String address) {
+        return new AzureRecordSet(name, AzureRecordType.A, TTL, List.of(address), "etag");
+    }
+
+    @Test
+    void testPlanCountsChanges() throws IOException, DNSServerConfigurationException {
+        Zone zone = createZone(false);
+        AzureZoneCache cache = new AzureZoneCache(zone.getAzureDomain());
+        cache.put(recordSet("host0", "192.0.2.1"));
+        cache.put(recordSet("host1", "192.0.2.2"));
+        cache.put(recordSet("old", "192.0.2.3"));
+
+        ZoneChangePlan plan = ZoneChangePlan.of(zone, zone.getAzureDomain(), SERIAL, HOSTS, createDiff(zone, HOSTS),
+            cache);
+        JsonObject json = plan.toJson();
+        assertEquals(HOSTS - 2, json.get("creates").getAsInt());
+        assertEquals(1, json.get("updates").getAsInt());
+        assertEquals(1, json.get("deletes").getAsInt());
+        assertEquals(1, json.get("unchanged").getAsInt());
+        assertEquals(HOSTS - 1, plan.getWrites());
+        assertFalse(plan.isMassDeletion());
+        assertEquals(ChangePlanWriter.toSeconds(AzureThrottle.estimateDuration(AzureThrottle.Operation.WRITE,
+            HOSTS - 1)), json.get("estimated_seconds").getAsDouble());
+        assertTrue(json.get("estimated_seconds").getAsDouble() > 0);
+    }
+
+    @Test
+    void testMassDeletionAndSeedingPlans() throws IOException, DNSServerConfigurationException {
+        Zone zone = createZone(true);
+        AzureZoneCache cache = new AzureZoneCache(zone.getAzureDomain());
+        cache.put(recordSet("host0", "192.0.2.1"));
+        cache.put(recordSet("old1", "192.0.2.1"));
+        cache.put(recordSet("old2", "192.0.2.1"));
+        ZoneChangePlan massDeletion = ZoneChangePlan.of(zone, zone.getAzureDomain(), SERIAL, 1, createDiff(zone, 1),
+            cache);
+        assertTrue(massDeletion.isMassDeletion());
+        assertEquals(2, massDeletion.getDeletes());
+
+        ZoneChangePlan seeding = ZoneChangePlan.of(zone, zone.getAzureDomain(), SERIAL, HOSTS, createDiff(zone, HOSTS),
+            new AzureZoneCache(zone.getAzureDomain()));
+        assertEquals(Math.ceilDiv(HOSTS, AzureDeploymentSeeder.DEFAULT_BATCH_SIZE), seeding.getWrites());
+        assertEquals(0, seeding.toJson().get("estimated_seconds").getAsDouble());
+    }
+
+    @Test
+    void testWriterStreamsPlansAndSummary() throws IOException, DNSServerConfigurationException {
+        Zone zone = createZone(false);
+        AzureZoneCache cache = new AzureZoneCache(zone.getAzureDomain());
+        cache.put(recordSet("old", "192.0.2.1"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChangePlanWriter writer = new ChangePlanWriter(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        writer.write(ZoneChangePlan.of(zone, zone.getAzureDomain(), SERIAL, 0, createDiff(zone, 0), cache));
+        writer.write(ZoneChangePlan.failed(zone, zone.getAzureDomain(), "Connection refused"));
+        writer.writeSummary();
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(List.of("zone", "azure_zone", "subscription", "error"),
+            List.copyOf(JsonParser.parseString(lines[1]).getAsJsonObject().keySet()));
+        JsonObject summary = JsonParser.parseString(lines[2]).getAsJsonObject().getAsJsonObject("summary");
+        assertEquals(2, summary.get("zones").getAsInt());
+        assertEquals("example.com", summary.getAsJsonArray("failed_zones").get(0).getAsString());
+        assertEquals("example.com", summary.getAsJsonArray("mass_deletion_zones").get(0).getAsString());
+        assertEquals(1, summary.getAsJsonObject("subscriptions")
+            .getAsJsonObject("55555555-6666-4444-7777-888888888888").get("delete_requests").getAsInt());
+    }
+
+}
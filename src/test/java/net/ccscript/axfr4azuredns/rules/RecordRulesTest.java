@@ -0,0 +1,92 @@
+package net.ccscript.axfr4azuredns.rules;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.CNAMERecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.rules.RecordRule.Action;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+
+public class RecordRulesTest {
+
+    private static final long TTL = 3600;
+    private static final long OVERRIDDEN_TTL = 60;
+
+    private static Record record(String name, int type, String rdata) throws IOException {
+        return Record.fromString(Name.fromString(name), type, DClass.IN, TTL, rdata, Name.root);
+    }
+
+    @Test
+    void testFirstMatchingRuleApplies() throws IOException, DNSServerConfigurationException {
+        RecordRule keepPublic = new RecordRule("www.corp.example.com", List.of(), Action.INCLUDE);
+        RecordRule dropCorp = new RecordRule("*.corp.example.com", List.of(), Action.EXCLUDE);
+        RecordRule dropTemp = new RecordRule("tmp-*.example.com.", List.of("A", "AAAA"), Action.EXCLUDE);
+        RecordRules rules = new RecordRules(List.of(keepPublic, dropCorp, dropTemp));
+
+        Record www = record("www.corp.example.com.", Type.A, "192.0.2.1");
+        assertSame(www, rules.apply(www));
+        assertNull(rules.apply(record("db.corp.example.com.", Type.A, "192.0.2.2")));
+        assertNull(rules.apply(record("a.b.CORP.example.com.", Type.TXT, "\"x\"")));
+        assertNull(rules.apply(record("TMP-build1.example.com.", Type.AAAA, "2001:db8::1")));
+
+        Record corp = record("corp.example.com.", Type.A, "192.0.2.3");
+        Record tempText = record("tmp-build1.example.com.", Type.TXT, "\"x\"");
+        Record nestedTemp = record("a.tmp-build1.example.com.", Type.A, "192.0.2.4");
+        assertEquals(List.of(corp, tempText, nestedTemp), rules.apply(List.of(corp, tempText, nestedTemp)));
+    }
+
+    @Test
+    void testGlobsMatchOneLabel() throws IOException, DNSServerConfigurationException {
+        RecordRules rules = new RecordRules(List.of(
+            new RecordRule("db?-*-int.example.com", List.of(), Action.EXCLUDE),
+            new RecordRule("*test.example.com", List.of(), Action.EXCLUDE)));
+
+        assertNull(rules.apply(record("db1-eu-west-int.example.com.", Type.A, "192.0.2.1")));
+        assertNull(rules.apply(record("db2--int.example.com.", Type.A, "192.0.2.1")));
+        assertNull(rules.apply(record("test.example.com.", Type.A, "192.0.2.1")));
+        assertNull(rules.apply(record("loadtest.example.com.", Type.A, "192.0.2.1")));
+        for (String name : List.of("db-eu-int.example.com.", "db1-eu-int2.example.com.", "testing.example.com.",
+            "x.loadtest.example.com.")) {
+            Record kept = record(name, Type.A, "192.0.2.1");
+            assertSame(kept, rules.apply(kept));
+        }
+    }
+
+    @Test
+    void testIncludedRecordsAreTransformed() throws IOException, DNSServerConfigurationException {
+        RecordRule rule = new RecordRule("*.example.com", List.of("CNAME", "MX"), Action.INCLUDE);
+        rule.setTtl(OVERRIDDEN_TTL);
+        rule.setRewriteTarget("corp.example.com", "example.net");
+        RecordRules rules = new RecordRules(List.of(rule));
+
+        Record cname = rules.apply(record("www.example.com.", Type.CNAME, "web.corp.example.com."));
+        assertEquals(Name.fromString("web.example.net."), ((CNAMERecord) cname).getTarget());
+        assertEquals(OVERRIDDEN_TTL, cname.getTTL());
+
+        Record mx = rules.apply(record("mail.example.com.", Type.MX, "10 mx.other.org."));
+        assertEquals(record("mail.example.com.", Type.MX, "10 mx.other.org.").rdataToString(), mx.rdataToString());
+        assertEquals(OVERRIDDEN_TTL, mx.getTTL());
+
+        Record text = record("www.example.com.", Type.TXT, "\"v=spf1 -all\"");
+        assertSame(text, rules.apply(text));
+    }
+
+    @Test
+    void testWildcardsOnlyInTheLeftmostLabel() {
+        assertThrows(DNSServerConfigurationException.class,
+            () -> new RecordRule("www.*.example.com", List.of(), Action.EXCLUDE));
+        assertThrows(DNSServerConfigurationException.class,
+            () -> new RecordRule("www.example.com", List.of("NOTATYPE"), Action.EXCLUDE));
+    }
+
+}
@@ -0,0 +1,66 @@
+package net.ccscript.axfr4azuredns.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.transfer.MasterPool;
+
+public class DNSServerTest {
+
+    @TempDir
+    private Path directory;
+
+    private static String configuration(int port, String extraSections) {
+        return "{\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":" + port + ",\"udp_port\":" + port + "}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}],"
+            + extraSections + "}";
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static DNSServer createServer(String json) throws IOException, DNSServerConfigurationException {
+        return new DNSServer(DNSServerConfigurationFactory.createDNSServerConfiguration(json), null,
+            MasterPool.DNS_PORT);
+    }
+
+    @Test
+    void testStartFailingBeforeTheListenersCanBeStopped() throws IOException, DNSServerConfigurationException {
+        Path notADirectory = Files.writeString(this.directory.resolve("state"), "");
+        DNSServer server = createServer(configuration(freePort(),
+            "\"startup\":{\"state_directory\":\"" + notADirectory.toString().replace("\\", "\\\\") + "\"}"));
+
+        assertThrows(DNSServerConfigurationException.class, server::start);
+        assertDoesNotThrow(server::stop);
+    }
+
+    @Test
+    void testStartFailingAfterTheListenersCanBeStopped() throws IOException, DNSServerConfigurationException {
+        try (ServerSocket adminPort = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            DNSServer server = createServer(configuration(freePort(),
+                "\"admin\":{\"listen_on\":\"127.0.0.1\",\"port\":" + adminPort.getLocalPort() + "}"));
+            assertThrows(DNSServerConfigurationException.class, server::start);
+            assertDoesNotThrow(server::stop);
+        }
+    }
+
+}
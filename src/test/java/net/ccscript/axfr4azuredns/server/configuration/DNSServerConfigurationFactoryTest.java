@@ -8,6 +8,7 @@ import java.util.Iterator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,8 @@ import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Az
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.DNSDomain;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Startup;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Tracing;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
 import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.ZoneTransferType;
 
@@ -24,6 +27,9 @@ public class DNSServerConfigurationFactoryTest {
     private static final int TEST_ONE_PORT = 53;
     private static final int TEST_ONE_POLLPERIOD = 5;
     private static final ZoneTransferType TEST_ONE_TXMODE = ZoneTransferType.IXFR;
+    private static final int TEST_CLUSTER_LEASE_SECONDS = 15;
+    private static final int TEST_TRACING_EXPORT_THRESHOLD = 300;
+    private static final int TEST_STARTUP_ZONES_PER_SECOND = 200;
 
     @Test
     void testFullValidConfigurationServersContents() throws FileNotFoundException,
@@ -269,4 +275,135 @@ public class DNSServerConfigurationFactoryTest {
         DNSServerConfiguration config = DNSServerConfigurationFactory.createDNSServerConfiguration(json2);
         assertEquals(config.getZoneByName("example.com").getAzureDomain().getAzureZoneName(), "sub.example.com");
     }
+
+    @Test
+    void testClusterConfiguration() throws IOException, DNSServerConfigurationException {
+        String zones = "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]";
+
+        DNSServerConfiguration standalone = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            "{" + zones + "}");
+        assertFalse(standalone.isClusterEnabled());
+
+        DNSServerConfiguration clustered = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            "{" + zones + ",\"cluster\":{\"node_id\":\"node-a\",\"lease_directory\":\"/mnt/axfr4azuredns\","
+            + "\"lease_seconds\":15}}");
+        assertTrue(clustered.isClusterEnabled());
+        assertEquals(clustered.getCluster().getNodeId(), "node-a");
+        assertEquals(clustered.getCluster().getLeaseDirectory(), "/mnt/axfr4azuredns");
+        assertEquals(clustered.getCluster().getLeaseSeconds(), TEST_CLUSTER_LEASE_SECONDS);
+        assertEquals(clustered.getCluster().getVirtualNodes(), DNSServerConfiguration.Cluster.DEFAULT_VIRTUAL_NODES);
+    }
+
+    @Test
+    void testAzureTargets() throws IOException, DNSServerConfigurationException {
+        String target = "{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"%s\",\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}";
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":[" + target + "," + target + "]}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+
+        Zone zone = DNSServerConfigurationFactory.createDNSServerConfiguration(String.format(json,
+            "55555555-6666-4444-7777-888888888888", "99999999-6666-4444-7777-888888888888"))
+            .getZoneByName("example.com");
+        assertEquals(zone.getAzureDomains().size(), 2);
+        assertEquals(zone.getAzureDomain(), zone.getAzureDomains().get(0));
+        assertEquals(zone.getAzureDomains().get(1).getAzureSubscription(), "99999999-6666-4444-7777-888888888888");
+
+        assertThrows(DNSServerConfigurationException.class, () -> {
+            DNSServerConfigurationFactory.createDNSServerConfiguration(String.format(json,
+                "55555555-6666-4444-7777-888888888888", "55555555-6666-4444-7777-888888888888"));
+        });
+    }
+
+    @Test
+    void testRecordRules() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"},"
+            + "\"record_rules\":[{\"name\":\"*.corp.example.com\",\"types\":[%s],\"action\":\"exclude\"},"
+            + "{\"name\":\"www.example.com\",\"ttl\":60,"
+            + "\"rewrite_target\":{\"from\":\"corp.example.com\",\"to\":\"example.com\"}}]}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+
+        Zone zone = DNSServerConfigurationFactory.createDNSServerConfiguration(String.format(json, "\"A\""))
+            .getZoneByName("example.com");
+        assertFalse(zone.getRecordRules().isEmpty());
+
+        assertThrows(DNSServerConfigurationException.class, () -> {
+            DNSServerConfigurationFactory.createDNSServerConfiguration(String.format(json, "\"NOTATYPE\""));
+        });
+    }
+
+    @Test
+    void testTracing() throws IOException, DNSServerConfigurationException {
+        String zones = "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]";
+
+        Tracing defaults = DNSServerConfigurationFactory.createDNSServerConfiguration("{" + zones + "}")
+            .getTracing();
+        assertNull(defaults.getDirectory());
+        assertEquals(defaults.getBufferSpans(), Tracing.DEFAULT_BUFFER_SPANS);
+
+        Tracing tracing = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            "{" + zones + ",\"tracing\":{\"directory\":\"/var/log/axfr4azuredns/traces\","
+            + "\"export_threshold\":300}}").getTracing();
+        assertEquals(tracing.getDirectory(), "/var/log/axfr4azuredns/traces");
+        assertEquals(tracing.getExportThresholdSeconds(), TEST_TRACING_EXPORT_THRESHOLD);
+        assertEquals(tracing.getSlowCallMillis(), Tracing.DEFAULT_SLOW_CALL_MILLIS);
+
+        assertThrows(DNSServerConfigurationException.class, () -> {
+            DNSServerConfigurationFactory.createDNSServerConfiguration(
+                "{" + zones + ",\"tracing\":{\"buffer_spans\":1}}");
+        });
+    }
+
+    @Test
+    void testStartup() throws IOException, DNSServerConfigurationException {
+        String zones = "\"servers\":[{\"listen_on\":\"127.0.0.1\"}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]";
+
+        Startup defaults = DNSServerConfigurationFactory.createDNSServerConfiguration("{" + zones + "}")
+            .getStartup();
+        assertNull(defaults.getStateDirectory());
+        assertEquals(defaults.getZonesPerSecond(), Startup.DEFAULT_ZONES_PER_SECOND);
+
+        Startup startup = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            "{" + zones + ",\"startup\":{\"state_directory\":\"/var/lib/axfr4azuredns\","
+            + "\"zones_per_second\":200}}").getStartup();
+        assertEquals(startup.getStateDirectory(), "/var/lib/axfr4azuredns");
+        assertEquals(startup.getZonesPerSecond(), TEST_STARTUP_ZONES_PER_SECOND);
+
+        assertThrows(DNSServerConfigurationException.class, () -> {
+            DNSServerConfigurationFactory.createDNSServerConfiguration(
+                "{" + zones + ",\"startup\":{\"zones_per_second\":0}}");
+        });
+    }
 }
@@ -0,0 +1,123 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.NSRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.OPTRecord;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+public class ResponseCacheTest {
+
+    private static final long TTL = 3600;
+    private static final long SERIAL = 2024010101;
+    private static final int CLIENT_UDP_PAYLOAD = 1232;
+    private static final int FIRST_ID = 1234;
+    private static final int SECOND_ID = 4321;
+
+    private Name origin;
+    private ZoneStore zoneStore;
+    private DNSServerRequestHandler handler;
+    private RequestContext context;
+
+    @BeforeEach
+    void createHandler() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":53,\"udp_port\":53}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"127.0.0.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json);
+
+        this.origin = Name.fromString("example.com.");
+        this.zoneStore = new ZoneStore();
+        this.zoneStore.swap(this.origin, createRecords("192.0.2.1"));
+        this.handler = new DNSServerRequestHandler(configuration, new TsigKeyring(configuration), this.zoneStore,
+            zone -> { });
+        this.context = new RequestContext(new InetSocketAddress("127.0.0.1", 0), Transport.UDP,
+            CLIENT_UDP_PAYLOAD, null);
+    }
+
+    private List<Record> createRecords(String address) throws IOException {
+        Name www = Name.fromString("www", this.origin);
+        Name ns = Name.fromString("ns", this.origin);
+        return List.of(
+            new SOARecord(this.origin, DClass.IN, TTL, ns, Name.fromString("hostmaster", this.origin), SERIAL,
+                TTL, TTL, TTL, TTL),
+            new NSRecord(this.origin, DClass.IN, TTL, ns),
+            new ARecord(ns, DClass.IN, TTL, InetAddress.getByName("192.0.2.53")),
+            new ARecord(www, DClass.IN, TTL, InetAddress.getByName(address)));
+    }
+
+    private Message query(String name, int id) throws IOException {
+        Message request = Message.newQuery(Record.newRecord(Name.fromString(name), Type.A, DClass.IN));
+        request.getHeader().setID(id);
+        request.addRecord(new OPTRecord(CLIENT_UDP_PAYLOAD, 0, 0), Section.ADDITIONAL);
+        return new Message(this.handler.handle(ByteBuffer.wrap(request.toWire()), this.context));
+    }
+
+    @Test
+    void testHitPatchesIdAndCase() throws IOException {
+        Message first = query("www.example.com.", FIRST_ID);
+        assertEquals(Rcode.NOERROR, first.getHeader().getRcode());
+        assertTrue(first.getHeader().getFlag(Flags.AA));
+        assertEquals(0, this.handler.getCacheHits());
+
+        Message second = query("WwW.ExAmple.com.", SECOND_ID);
+        assertEquals(1, this.handler.getCacheHits());
+        assertEquals(SECOND_ID, second.getHeader().getID());
+        assertEquals("WwW.ExAmple.com.", second.getQuestion().getName().toString());
+        assertEquals(first.getSection(Section.ANSWER), second.getSection(Section.ANSWER));
+    }
+
+    @Test
+    void testSwapInvalidatesEntries() throws IOException {
+        query("www.example.com.", FIRST_ID);
+        this.zoneStore.swap(this.origin, createRecords("192.0.2.2"));
+
+        Message response = query("www.example.com.", SECOND_ID);
+        assertEquals(0, this.handler.getCacheHits());
+        assertEquals(InetAddress.getByName("192.0.2.2"),
+            ((ARecord) response.getSection(Section.ANSWER).get(0)).getAddress());
+    }
+
+    @Test
+    void testNegativeAndRefusedResponses() throws IOException {
+        Message nxdomain = query("missing.example.com.", FIRST_ID);
+        assertEquals(Rcode.NXDOMAIN, nxdomain.getHeader().getRcode());
+        assertEquals(Type.SOA, nxdomain.getSection(Section.AUTHORITY).get(0).getType());
+        query("missing.example.com.", SECOND_ID);
+        assertEquals(1, this.handler.getCacheHits());
+
+        assertEquals(Rcode.REFUSED, query("www.example.net.", FIRST_ID).getHeader().getRcode());
+        assertEquals(Rcode.REFUSED, query("www.example.net.", SECOND_ID).getHeader().getRcode());
+        assertEquals(1, this.handler.getCacheHits());
+    }
+
+}
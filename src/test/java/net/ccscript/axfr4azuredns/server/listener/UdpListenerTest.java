@@ -0,0 +1,191 @@
+package net.ccscript.axfr4azuredns.server.listener;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.ExtendedFlags;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.OPTRecord;
+import org.xbill.DNS.Opcode;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Server;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.server.ratelimit.ResponseRateLimiter;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+public class UdpListenerTest {
+
+    private static final int SOCKETS = 4;
+    private static final int TIMEOUT_MILLIS = 5000;
+    private static final int MAX_DATAGRAM_LENGTH = 65535;
+    private static final int CLIENT_UDP_PAYLOAD = 4096;
+    private static final int UNSUPPORTED_EDNS_VERSION = 1;
+
+    private DNSServerConfiguration configuration;
+    private List<String> notifiedZones;
+    private UdpListener listener;
+    private DatagramSocket client;
+
+    @BeforeEach
+    void startListener() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":53,\"udp_port\":53,\"udp_sockets\":4,"
+            + "\"rate_limit\":{\"responses_per_second\":100,\"errors_per_second\":1,\"slip\":1}}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"127.0.0.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+        this.configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json);
+        this.notifiedZones = new CopyOnWriteArrayList<String>();
+
+        Server server = this.configuration.getServers().iterator().next();
+        assertEquals(SOCKETS, server.getUdpSockets());
+        this.listener = new UdpListener(new InetSocketAddress("127.0.0.1", 0), server.getUdpSockets(),
+            new DNSServerRequestHandler(this.configuration, new TsigKeyring(this.configuration),
+                new ZoneStore(),
+                zone -> this.notifiedZones.add(zone.getZoneName())),
+            new ResponseRateLimiter(server.getRateLimit()), server.getEdnsUdpPayload());
+        this.listener.start();
+
+        this.client = new DatagramSocket();
+        this.client.setSoTimeout(TIMEOUT_MILLIS);
+    }
+
+    @AfterEach
+    void stopListener() throws IOException {
+        this.client.close();
+        this.listener.close();
+    }
+
+    private Message exchange(Message request) throws IOException {
+        byte[] wire = request.toWire();
+        this.client.send(new DatagramPacket(wire, wire.length, this.listener.getLocalAddress()));
+        DatagramPacket packet = new DatagramPacket(new byte[MAX_DATAGRAM_LENGTH], MAX_DATAGRAM_LENGTH);
+        this.client.receive(packet);
+        return new Message(Arrays.copyOf(packet.getData(), packet.getLength()));
+    }
+
+    private static Message createRequest(String zoneName, int opcode) throws IOException {
+        Message request = Message.newQuery(Record.newRecord(Name.fromString(zoneName), Type.SOA, DClass.IN));
+        request.getHeader().setOpcode(opcode);
+        return request;
+    }
+
+    @Test
+    void testNotifyFromMaster() throws IOException {
+        Message request = createRequest("example.com.", Opcode.NOTIFY);
+        Message response = exchange(request);
+
+        assertEquals(request.getHeader().getID(), response.getHeader().getID());
+        assertEquals(Opcode.NOTIFY, response.getHeader().getOpcode());
+        assertEquals(Rcode.NOERROR, response.getHeader().getRcode());
+        assertTrue(response.getHeader().getFlag(Flags.AA));
+        assertEquals(List.of("example.com"), this.notifiedZones);
+    }
+
+    @Test
+    void testNotifyForUnknownZone() throws IOException {
+        Message response = exchange(createRequest("example.net.", Opcode.NOTIFY));
+
+        assertEquals(Rcode.NOTAUTH, response.getHeader().getRcode());
+        assertTrue(this.notifiedZones.isEmpty());
+    }
+
+    @Test
+    void testEdnsPayloadIsCappedByServer() throws IOException {
+        Message request = createRequest("example.com.", Opcode.NOTIFY);
+        request.addRecord(new OPTRecord(CLIENT_UDP_PAYLOAD, 0, 0), Section.ADDITIONAL);
+        Message response = exchange(request);
+
+        assertEquals(Rcode.NOERROR, response.getHeader().getRcode());
+        assertEquals(Server.DEFAULT_EDNS_UDP_PAYLOAD, response.getOPT().getPayloadSize());
+    }
+
+    @Test
+    void testEdnsDoBitIsEchoed() throws IOException {
+        Message request = createRequest("example.com.", Opcode.NOTIFY);
+        request.addRecord(new OPTRecord(CLIENT_UDP_PAYLOAD, 0, 0, ExtendedFlags.DO), Section.ADDITIONAL);
+        Message response = exchange(request);
+
+        assertEquals(Rcode.NOERROR, response.getHeader().getRcode());
+        assertEquals(ExtendedFlags.DO, response.getOPT().getFlags() & ExtendedFlags.DO);
+    }
+
+    @Test
+    void testUnsupportedEdnsVersionIsBadvers() throws IOException {
+        Message request = createRequest("example.com.", Opcode.NOTIFY);
+        request.addRecord(new OPTRecord(CLIENT_UDP_PAYLOAD, 0, UNSUPPORTED_EDNS_VERSION), Section.ADDITIONAL);
+        Message response = exchange(request);
+
+        assertEquals(Rcode.BADVERS, response.getRcode());
+        assertEquals(0, response.getOPT().getVersion());
+        assertTrue(this.notifiedZones.isEmpty());
+    }
+
+    @Test
+    void testRateLimitedErrorsAreTruncated() throws IOException {
+        Message refused = exchange(createRequest("example.com.", Opcode.QUERY));
+        assertEquals(Rcode.REFUSED, refused.getHeader().getRcode());
+        assertFalse(refused.getHeader().getFlag(Flags.TC));
+
+        Message request = createRequest("example.com.", Opcode.QUERY);
+        Message truncated = exchange(request);
+        assertTrue(truncated.getHeader().getFlag(Flags.TC));
+        assertTrue(truncated.getHeader().getFlag(Flags.QR));
+        assertEquals(request.getHeader().getID(), truncated.getHeader().getID());
+        assertEquals(request.getQuestion(), truncated.getQuestion());
+    }
+
+    @Test
+    void testFailingRequestDoesNotStopTheWorker() throws IOException, DNSServerConfigurationException {
+        DNSRequestHandler handler = new DNSServerRequestHandler(this.configuration,
+            new TsigKeyring(this.configuration), new ZoneStore(), zone -> this.notifiedZones.add(zone.getZoneName()));
+        AtomicBoolean failed = new AtomicBoolean();
+        UdpListener oneSocket = new UdpListener(new InetSocketAddress("127.0.0.1", 0), 1, (request, context) -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Unexpected failure");
+            }
+            return handler.handle(request, context);
+        }, null, Server.DEFAULT_EDNS_UDP_PAYLOAD);
+        oneSocket.start();
+        try {
+            byte[] wire = createRequest("example.com.", Opcode.NOTIFY).toWire();
+            this.client.send(new DatagramPacket(wire, wire.length, oneSocket.getLocalAddress()));
+            this.client.send(new DatagramPacket(wire, wire.length, oneSocket.getLocalAddress()));
+
+            DatagramPacket packet = new DatagramPacket(new byte[MAX_DATAGRAM_LENGTH], MAX_DATAGRAM_LENGTH);
+            this.client.receive(packet);
+            Message response = new Message(Arrays.copyOf(packet.getData(), packet.getLength()));
+            assertTrue(failed.get());
+            assertEquals(Rcode.NOERROR, response.getHeader().getRcode());
+        } finally {
+            oneSocket.close();
+        }
+    }
+
+}
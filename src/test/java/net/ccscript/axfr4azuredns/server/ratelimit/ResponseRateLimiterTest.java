@@ -0,0 +1,116 @@
+package net.ccscript.axfr4azuredns.server.ratelimit;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.RateLimit;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class ResponseRateLimiterTest {
+
+    private static final int RESPONSES_PER_SECOND = 10;
+    private static final int ERRORS_PER_SECOND = 2;
+    private static final long START_MILLIS = 1_000_000;
+    private static final long HALF_SECOND_MILLIS = 500;
+    private static final long RECOVERY_MILLIS = 2500;
+    // 2^24 milliseconds, about 4.66 hours
+    private static final long IDLE_MILLIS = 16_777_216;
+    private static final int FLOOD = 100;
+    private static final int RCODE_SERVFAIL = 2;
+    private static final int RCODE_NXDOMAIN = 3;
+
+    private RateLimit rateLimit;
+
+    @BeforeEach
+    void loadConfiguration() throws IOException, DNSServerConfigurationException {
+        String json = "{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":53,\"udp_port\":53,"
+            + "\"rate_limit\":{\"responses_per_second\":10,\"errors_per_second\":2}}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"192.168.100.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}";
+
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json);
+        this.rateLimit = configuration.getServers().iterator().next().getRateLimit();
+    }
+
+    @Test
+    void testConfiguration() {
+        assertEquals(RESPONSES_PER_SECOND, this.rateLimit.getResponsesPerSecond());
+        assertEquals(RESPONSES_PER_SECOND, this.rateLimit.getNxdomainsPerSecond());
+        assertEquals(ERRORS_PER_SECOND, this.rateLimit.getErrorsPerSecond());
+        assertEquals(RateLimit.DEFAULT_SLIP, this.rateLimit.getSlip());
+        assertEquals(RateLimit.DEFAULT_IPV4_PREFIX_LENGTH, this.rateLimit.getIpv4PrefixLength());
+    }
+
+    @Test
+    void testLimitAndSlipPerPrefix() throws UnknownHostException {
+        ResponseRateLimiter limiter = new ResponseRateLimiter(this.rateLimit);
+        InetAddress client = InetAddress.getByName("192.0.2.1");
+        InetAddress samePrefix = InetAddress.getByName("192.0.2.200");
+        InetAddress otherPrefix = InetAddress.getByName("198.51.100.1");
+
+        for (int i = 0; i < RESPONSES_PER_SECOND; i++) {
+            assertEquals(RateLimitDecision.SEND, limiter.check(client, ResponseClass.RESPONSE, START_MILLIS));
+        }
+        // the /24 prefix shares the bucket: one in every two responses over the limit is sent truncated
+        assertEquals(RateLimitDecision.DROP, limiter.check(samePrefix, ResponseClass.RESPONSE, START_MILLIS));
+        assertEquals(RateLimitDecision.SLIP, limiter.check(client, ResponseClass.RESPONSE, START_MILLIS));
+        assertEquals(RateLimitDecision.DROP, limiter.check(client, ResponseClass.RESPONSE, START_MILLIS));
+
+        assertEquals(RateLimitDecision.SEND, limiter.check(otherPrefix, ResponseClass.RESPONSE, START_MILLIS));
+        assertEquals(RateLimitDecision.SEND, limiter.check(client, ResponseClass.NXDOMAIN, START_MILLIS));
+    }
+
+    @Test
+    void testRefillAfterFlood() throws UnknownHostException {
+        ResponseRateLimiter limiter = new ResponseRateLimiter(this.rateLimit);
+        InetAddress client = InetAddress.getByName("2001:db8::1");
+
+        int sent = 0;
+        for (int i = 0; i < FLOOD; i++) {
+            if (limiter.check(client, ResponseClass.ERROR, START_MILLIS) == RateLimitDecision.SEND) {
+                sent++;
+            }
+        }
+        assertEquals(ERRORS_PER_SECOND, sent);
+
+        // the debt is paid after one second, then the bucket refills at the configured rate
+        assertTrue(limiter.check(client, ResponseClass.ERROR, START_MILLIS + HALF_SECOND_MILLIS)
+            != RateLimitDecision.SEND);
+        assertEquals(RateLimitDecision.SEND, limiter.check(client, ResponseClass.ERROR,
+            START_MILLIS + RECOVERY_MILLIS));
+    }
+
+    @Test
+    void testRefillAfterHoursIdle() throws UnknownHostException {
+        ResponseRateLimiter limiter = new ResponseRateLimiter(this.rateLimit);
+        InetAddress client = InetAddress.getByName("192.0.2.1");
+
+        for (int i = 0; i < FLOOD; i++) {
+            limiter.check(client, ResponseClass.ERROR, START_MILLIS);
+        }
+        // the client comes back hours later, its debt long paid
+        assertEquals(RateLimitDecision.SEND, limiter.check(client, ResponseClass.ERROR, START_MILLIS + IDLE_MILLIS));
+    }
+
+    @Test
+    void testResponseClassOfRcode() {
+        assertEquals(ResponseClass.RESPONSE, ResponseClass.of(0));
+        assertEquals(ResponseClass.NXDOMAIN, ResponseClass.of(RCODE_NXDOMAIN));
+        assertEquals(ResponseClass.ERROR, ResponseClass.of(RCODE_SERVFAIL));
+    }
+
+}
@@ -0,0 +1,153 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ccscript.axfr4azuredns.azure.AzureDNSClient;
+import net.ccscript.axfr4azuredns.azure.AzureDNSException;
+import net.ccscript.axfr4azuredns.azure.AzureRecordSet;
+import net.ccscript.axfr4azuredns.azure.AzureRecordSetPage;
+import net.ccscript.axfr4azuredns.azure.AzureRecordType;
+import net.ccscript.axfr4azuredns.azure.AzureZoneCache;
+import net.ccscript.axfr4azuredns.azure.AzureZoneReplicator;
+import net.ccscript.axfr4azuredns.azure.AzureZoneUpdater;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.AzureDomain;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.trace.Tracer;
+import net.ccscript.axfr4azuredns.transfer.FakeMaster;
+import net.ccscript.axfr4azuredns.transfer.MasterPool;
+import net.ccscript.axfr4azuredns.transfer.ZoneTransferClient;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+import net.ccscript.axfr4azuredns.zone.ZoneStore;
+
+public class MasterZoneSyncTest {
+
+    private static final int TRANSFERS_PER_MASTER = 2;
+    private static final int BUFFER_SPANS = 64;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(30);
+
+    private FakeMaster master;
+    private MasterPool masterPool;
+    private ExecutorService executor;
+    private Zone zone;
+    private RecordingClient azure;
+    private volatile boolean azureUnavailable;
+    private MasterZoneSync masterZoneSync;
+
+    @BeforeEach
+    void createSync() throws IOException, DNSServerConfigurationException {
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration("{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":53}],"
+            + "\"zones\":[{\"zone_name\":\"example.com\",\"master\":\"dns\","
+            + "\"dns\":{\"servers\":[\"127.0.0.1\"]},"
+            + "\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\","
+            + "\"subscription\":\"55555555-6666-4444-7777-888888888888\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}],"
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}");
+        this.zone = configuration.getZoneByName("example.com");
+
+        this.master = new FakeMaster();
+        this.masterPool = new MasterPool(TRANSFERS_PER_MASTER, Map.of(), IDLE_TIMEOUT, TIMEOUT,
+            this.master.getPort());
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.azure = new RecordingClient();
+        AzureZoneReplicator replicator = new AzureZoneReplicator(new AzureZoneUpdater(this.azure), null, null,
+            this.executor);
+        this.masterZoneSync = new MasterZoneSync(new ZoneTransferClient(this.masterPool,
+            new TsigKeyring(configuration)), new ZoneStore(), replicator, this::load,
+            new Tracer(BUFFER_SPANS, null, Duration.ofHours(1), Duration.ofHours(1)));
+    }
+
+    @AfterEach
+    void stopMaster() throws IOException {
+        this.masterPool.close();
+        this.master.close();
+        this.executor.shutdown();
+    }
+
+    private CompletableFuture<AzureZoneCache> load(AzureDomain azureDomain) {
+        if (this.azureUnavailable) {
+            return CompletableFuture.failedFuture(new AzureDNSException("Azure is unavailable"));
+        }
+        AzureZoneCache cache = new AzureZoneCache(azureDomain);
+        cache.putAll(this.azure.recordSets.values());
+        return CompletableFuture.completedFuture(cache);
+    }
+
+    @Test
+    void testFailedReplicationIsRetriedAtTheSameSerial() {
+        this.azureUnavailable = true;
+        this.masterZoneSync.sync(this.zone);
+        assertEquals(-1, this.masterZoneSync.getSyncedSerial(this.zone));
+        assertEquals(0, this.azure.recordSets.size());
+
+        // The master serial did not change, the version held by the store is replicated again
+        this.azureUnavailable = false;
+        this.masterZoneSync.sync(this.zone);
+        assertEquals(FakeMaster.FIRST_SERIAL, this.masterZoneSync.getSyncedSerial(this.zone));
+        int recordSets = this.azure.recordSets.size();
+        int writes = this.azure.writes;
+        assertTrue(recordSets > 0);
+
+        this.masterZoneSync.sync(this.zone);
+        assertEquals(writes, this.azure.writes);
+
+        this.master.setSerial(FakeMaster.SECOND_SERIAL);
+        assertEquals(FakeMaster.FIRST_SERIAL, this.masterZoneSync.getSyncedSerial(this.zone));
+        this.masterZoneSync.sync(this.zone);
+        assertEquals(FakeMaster.SECOND_SERIAL, this.masterZoneSync.getSyncedSerial(this.zone));
+        assertEquals(recordSets, this.azure.recordSets.size());
+    }
+
+    /**
+     * Keeps the record sets written, whatever their etag.
+     */
+    private static final class RecordingClient implements AzureDNSClient {
+        private final Map<String, AzureRecordSet> recordSets = new ConcurrentHashMap<String, AzureRecordSet>();
+        private volatile int writes;
+
+        @Override
+        public AzureRecordSetPage listRecordSets(AzureDomain azureDomain, AzureRecordType type, String nextLink) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AzureRecordSet getRecordSet(AzureDomain azureDomain, String name, AzureRecordType type) {
+            return this.recordSets.get(name + "/" + type);
+        }
+
+        @Override
+        public synchronized AzureRecordSet putRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet,
+            String ifMatch) {
+
+            this.writes++;
+            AzureRecordSet written = new AzureRecordSet(recordSet.getName(), recordSet.getType(), recordSet.getTtl(),
+                recordSet.getRecords(), "etag-" + this.writes);
+            this.recordSets.put(recordSet.getName() + "/" + recordSet.getType(), written);
+            return written;
+        }
+
+        @Override
+        public synchronized void deleteRecordSet(AzureDomain azureDomain, AzureRecordSet recordSet) {
+            this.writes++;
+            this.recordSets.remove(recordSet.getName() + "/" + recordSet.getType());
+        }
+    }
+
+}
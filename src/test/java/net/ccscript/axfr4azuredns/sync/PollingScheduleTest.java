@@ -0,0 +1,61 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class PollingScheduleTest {
+
+    private static final Duration MIN_INTERVAL = Duration.ofMinutes(5);
+    private static final Duration MAX_INTERVAL = Duration.ofMinutes(60);
+    private static final Duration SOA_REFRESH = Duration.ofHours(2);
+    private static final Duration SOA_RETRY = Duration.ofMinutes(15);
+    private static final int POLLS = 20;
+
+    @Test
+    void testFixedScheduleIgnoresChanges() {
+        PollingSchedule schedule = new PollingSchedule(MIN_INTERVAL, MIN_INTERVAL, false);
+        assertEquals(MIN_INTERVAL, schedule.started(SOA_REFRESH));
+        assertEquals(MIN_INTERVAL, schedule.polled(false, MIN_INTERVAL, SOA_REFRESH));
+        assertEquals(MIN_INTERVAL, schedule.failed(SOA_RETRY));
+    }
+
+    @Test
+    void testBusyZoneStaysAtMinimum() {
+        PollingSchedule schedule = new PollingSchedule(MIN_INTERVAL, MAX_INTERVAL, true);
+        Duration delay = schedule.started(SOA_REFRESH);
+        for (int i = 0; i < POLLS; i++) {
+            delay = schedule.polled(true, delay, SOA_REFRESH);
+        }
+        assertEquals(MIN_INTERVAL, delay);
+    }
+
+    @Test
+    void testStaticZoneBacksOffToMaximum() {
+        PollingSchedule schedule = new PollingSchedule(MIN_INTERVAL, MAX_INTERVAL, true);
+        Duration delay = schedule.started(SOA_REFRESH);
+        delay = schedule.polled(true, delay, SOA_REFRESH);
+        assertEquals(MIN_INTERVAL, delay);
+
+        Duration previous = delay;
+        for (int i = 0; i < POLLS; i++) {
+            delay = schedule.polled(false, delay, SOA_REFRESH);
+            assertTrue(delay.compareTo(previous) >= 0);
+            previous = delay;
+        }
+        assertEquals(MAX_INTERVAL, delay);
+    }
+
+    @Test
+    void testSoaTimersBoundTheInterval() {
+        PollingSchedule schedule = new PollingSchedule(MIN_INTERVAL, MAX_INTERVAL, true);
+        schedule.started(SOA_REFRESH);
+        assertEquals(SOA_RETRY, schedule.polled(false, MIN_INTERVAL, SOA_RETRY));
+        assertEquals(SOA_RETRY, schedule.failed(SOA_RETRY));
+        assertEquals(MIN_INTERVAL, schedule.failed(null));
+        assertEquals(MIN_INTERVAL, schedule.failed(Duration.ofSeconds(1)));
+    }
+
+}
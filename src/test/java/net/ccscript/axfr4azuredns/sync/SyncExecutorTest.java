@@ -0,0 +1,198 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SyncExecutorTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final int NOISY_JOBS = 10;
+    private static final int QUIET_JOBS = 2;
+    private static final int HEAVY_WEIGHT = 4;
+    private static final int PRIORITY_CLASSES = SyncPriority.values().length;
+    private static final int SECOND_QUIET_POSITION = 3;
+    private static final long SHARED_RUN_MILLIS = 100;
+
+    private ExecutorService virtualThreads;
+    private List<String> completedZones;
+    private CountDownLatch blocker;
+
+    @BeforeEach
+    void createExecutor() {
+        this.virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        this.completedZones = Collections.synchronizedList(new ArrayList<String>());
+        this.blocker = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        this.virtualThreads.shutdownNow();
+    }
+
+    private SyncJob job(String zoneName, String subscription, SyncPriority priority, CountDownLatch done) {
+        return new SyncJob(zoneName, subscription, priority, () -> {
+            this.completedZones.add(zoneName);
+            done.countDown();
+        });
+    }
+
+    /**
+     * Occupies the single slot of the executor until the blocker is released, so that the next jobs wait.
+     */
+    private void block(SyncExecutor syncExecutor) {
+        syncExecutor.submit(new SyncJob("blocker.example.com", "blocker", SyncPriority.NOTIFY, () -> {
+            try {
+                this.blocker.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+    @Test
+    void testPriorityClasses() throws InterruptedException {
+        SyncExecutor syncExecutor = new SyncExecutor(this.virtualThreads, 1, Map.of());
+        CountDownLatch done = new CountDownLatch(PRIORITY_CLASSES);
+        block(syncExecutor);
+
+        syncExecutor.submit(job("poll.example.com", "subscription", SyncPriority.POLL, done));
+        syncExecutor.submit(job("notify.example.com", "subscription", SyncPriority.NOTIFY, done));
+        syncExecutor.submit(job("operator.example.com", "subscription", SyncPriority.OPERATOR, done));
+        this.blocker.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("operator.example.com", "notify.example.com", "poll.example.com"), this.completedZones);
+    }
+
+    @Test
+    void testDrainAndCancel() throws InterruptedException {
+        SyncExecutor syncExecutor = new SyncExecutor(this.virtualThreads, 1, Map.of());
+        CountDownLatch done = new CountDownLatch(1);
+        block(syncExecutor);
+        assertTrue(syncExecutor.isRunning("blocker.example.com"));
+
+        for (int i = 0; i < NOISY_JOBS; i++) {
+            syncExecutor.submit(job("noisy" + i + ".example.com", "noisy", SyncPriority.POLL, done));
+        }
+        syncExecutor.submit(job("quiet0.example.com", "quiet", SyncPriority.POLL, done));
+        syncExecutor.submit(job("quiet1.example.com", "quiet", SyncPriority.NOTIFY, done));
+        assertEquals(Map.of("noisy", NOISY_JOBS, "quiet", QUIET_JOBS), syncExecutor.getWaitingCounts());
+        assertEquals(SyncPriority.NOTIFY, syncExecutor.getWaitingPriority("quiet1.example.com"));
+
+        assertEquals(NOISY_JOBS, syncExecutor.drain("noisy"));
+        assertTrue(syncExecutor.cancel("quiet0.example.com"));
+        assertFalse(syncExecutor.cancel("quiet0.example.com"));
+        assertEquals(Map.of("quiet", 1), syncExecutor.getWaitingCounts());
+        this.blocker.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("quiet1.example.com"), this.completedZones);
+        assertEquals(0, syncExecutor.getWaitingCount());
+    }
+
+    @Test
+    void testSubscriptionsShareExecution() throws InterruptedException {
+        SyncExecutor syncExecutor = new SyncExecutor(this.virtualThreads, 1, Map.of());
+        CountDownLatch done = new CountDownLatch(NOISY_JOBS + QUIET_JOBS);
+        block(syncExecutor);
+
+        for (int i = 0; i < NOISY_JOBS; i++) {
+            syncExecutor.submit(job("noisy" + i + ".example.com", "noisy", SyncPriority.POLL, done));
+        }
+        for (int i = 0; i < QUIET_JOBS; i++) {
+            syncExecutor.submit(job("quiet" + i + ".example.com", "quiet", SyncPriority.POLL, done));
+        }
+        this.blocker.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // the quiet subscription does not wait for the noisy one to drain its queue
+        assertEquals("quiet0.example.com", this.completedZones.get(1));
+        assertEquals("quiet1.example.com", this.completedZones.get(SECOND_QUIET_POSITION));
+    }
+
+    @Test
+    void testSubscriptionWeights() throws InterruptedException {
+        SyncExecutor syncExecutor = new SyncExecutor(this.virtualThreads, 1, Map.of("heavy", HEAVY_WEIGHT));
+        CountDownLatch done = new CountDownLatch(2 * NOISY_JOBS);
+        block(syncExecutor);
+
+        for (int i = 0; i < NOISY_JOBS; i++) {
+            syncExecutor.submit(job("heavy" + i + ".example.com", "heavy", SyncPriority.POLL, done));
+            syncExecutor.submit(job("light" + i + ".example.com", "light", SyncPriority.POLL, done));
+        }
+        this.blocker.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long heavyFirst = this.completedZones.subList(0, NOISY_JOBS).stream()
+            .filter(zoneName -> zoneName.startsWith("heavy")).count();
+        assertTrue(heavyFirst > NOISY_JOBS / 2);
+    }
+
+    @Test
+    void testJobsAreChargedToEveryTargetSubscription() throws InterruptedException {
+        SyncExecutor syncExecutor = new SyncExecutor(this.virtualThreads, 1, Map.of());
+        CountDownLatch done = new CountDownLatch(1 + QUIET_JOBS);
+        syncExecutor.submit(new SyncJob("shared.example.com", List.of("first", "second"), SyncPriority.POLL, () -> {
+            try {
+                this.blocker.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        syncExecutor.submit(job("second.example.com", "second", SyncPriority.POLL, done));
+        for (int i = 0; i < QUIET_JOBS; i++) {
+            syncExecutor.submit(job("quiet" + i + ".example.com", "quiet", SyncPriority.POLL, done));
+        }
+        Thread.sleep(SHARED_RUN_MILLIS);
+        this.blocker.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // the run time of the shared zone was charged to the second subscription as well, although it queued in the
+        // first one
+        assertEquals(List.of("quiet0.example.com", "quiet1.example.com", "second.example.com"), this.completedZones);
+    }
+
+    @Test
+    void testDrainMatchesEveryTargetSubscription() throws InterruptedException {
+        SyncExecutor syncExecutor = new SyncExecutor(this.virtualThreads, 1, Map.of());
+        block(syncExecutor);
+
+        syncExecutor.submit(new SyncJob("shared.example.com", List.of("first", "second"), SyncPriority.POLL,
+            () -> this.completedZones.add("shared.example.com")));
+        assertEquals(Map.of("first", 1, "second", 1), syncExecutor.getWaitingCounts());
+        assertEquals(1, syncExecutor.drain("second"));
+        assertEquals(0, syncExecutor.getWaitingCount());
+        this.blocker.countDown();
+    }
+
+    @Test
+    void testZoneJobsAreCoalesced() throws InterruptedException {
+        SyncExecutor syncExecutor = new SyncExecutor(this.virtualThreads, 1, Map.of());
+        CountDownLatch done = new CountDownLatch(1);
+        block(syncExecutor);
+
+        syncExecutor.submit(job("example.com", "subscription", SyncPriority.POLL, done));
+        syncExecutor.submit(job("example.com", "subscription", SyncPriority.NOTIFY, done));
+        syncExecutor.submit(job("example.com", "subscription", SyncPriority.NOTIFY, done));
+        assertEquals(1, syncExecutor.getWaitingCount());
+        this.blocker.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("example.com"), this.completedZones);
+    }
+
+}
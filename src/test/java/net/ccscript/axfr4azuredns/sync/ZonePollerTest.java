@@ -0,0 +1,90 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.SOARecord;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class ZonePollerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final long TTL = 3600;
+    private static final long SERIAL = 2024010101;
+    private static final int MAX_CONCURRENT_JOBS = 4;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService virtualThreads;
+    private DNSServerConfiguration configuration;
+    private List<String> syncedZones;
+
+    @BeforeEach
+    void createExecutors() throws IOException, DNSServerConfigurationException {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        this.syncedZones = Collections.synchronizedList(new ArrayList<String>());
+
+        StringBuilder json = new StringBuilder("{\"servers\":[{\"listen_on\":\"127.0.0.1\"}],\"zones\":[");
+        for (String zoneName : List.of("synced.example.com", "stale.example.com")) {
+            json.append(zoneName.startsWith("synced") ? "" : ",").append("{\"zone_name\":\"").append(zoneName)
+                .append("\",\"master\":\"dns\",\"dns\":{\"servers\":[\"192.168.100.1\"]},")
+                .append("\"azure\":{\"zone_name\":\"").append(zoneName).append("\",")
+                .append("\"resourcegroup\":\"AMDProject_DNS_Global\",")
+                .append("\"subscription\":\"55555555-6666-4444-7777-888888888888\",")
+                .append("\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}");
+        }
+        json.append("],\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\",")
+            .append("\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}");
+        this.configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(json.toString());
+    }
+
+    @AfterEach
+    void shutdownExecutors() {
+        this.scheduler.shutdownNow();
+        this.virtualThreads.shutdownNow();
+    }
+
+    @Test
+    void testOnlyZonesBehindTheirMasterAreSynchronized() throws InterruptedException {
+        CountDownLatch polled = new CountDownLatch(2);
+        CountDownLatch synced = new CountDownLatch(1);
+        SoaSource soaSource = zone -> {
+            polled.countDown();
+            Name origin = Name.fromString(zone.getZoneName(), Name.root);
+            return new SOARecord(origin, DClass.IN, TTL, Name.fromString("ns", origin),
+                Name.fromString("hostmaster", origin), SERIAL, TTL, TTL, TTL, TTL);
+        };
+        // The last sync of the stale zone failed, or was dropped, at an older serial
+        Map<String, Long> syncedSerials = Map.of("synced.example.com", SERIAL, "stale.example.com", SERIAL - 1);
+        ZonePoller poller = new ZonePoller(this.scheduler, this.virtualThreads, soaSource,
+            new SyncExecutor(this.virtualThreads, MAX_CONCURRENT_JOBS, Map.of()), zone -> {
+                this.syncedZones.add(zone.getZoneName());
+                synced.countDown();
+            }, zone -> syncedSerials.get(zone.getZoneName()));
+
+        this.configuration.getZones().forEach(poller::start);
+        assertTrue(polled.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(synced.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        poller.stopAll();
+        assertEquals(List.of("stale.example.com"), this.syncedZones);
+    }
+
+}
@@ -0,0 +1,108 @@
+package net.ccscript.axfr4azuredns.sync;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+
+public class ZoneStarterTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final int ZONES = 5;
+    private static final int ZONES_PER_SECOND = 20;
+    private static final long MIN_PACED_MILLIS = (ZONES - 1) * TimeUnit.SECONDS.toMillis(1) / ZONES_PER_SECOND;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService virtualThreads;
+    private List<String> startedZones;
+    private List<Zone> zones;
+
+    @BeforeEach
+    void createExecutors() throws IOException, DNSServerConfigurationException {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        this.startedZones = Collections.synchronizedList(new ArrayList<String>());
+
+        StringBuilder json = new StringBuilder("{\"servers\":[{\"listen_on\":\"127.0.0.1\"}],\"zones\":[");
+        for (int i = 0; i < ZONES; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"zone_name\":\"zone").append(i).append(".example.com\",")
+                .append("\"master\":\"dns\",\"dns\":{\"servers\":[\"192.168.100.1\"]},")
+                .append("\"azure\":{\"zone_name\":\"zone").append(i).append(".example.com\",")
+                .append("\"resourcegroup\":\"AMDProject_DNS_Global\",")
+                .append("\"subscription\":\"55555555-6666-4444-7777-888888888888\",")
+                .append("\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}");
+        }
+        json.append("],\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\",")
+            .append("\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}");
+        DNSServerConfiguration configuration = DNSServerConfigurationFactory.createDNSServerConfiguration(
+            json.toString());
+        this.zones = new ArrayList<Zone>();
+        for (int i = 0; i < ZONES; i++) {
+            this.zones.add(configuration.getZoneByName("zone" + i + ".example.com"));
+        }
+    }
+
+    @AfterEach
+    void shutdownExecutors() {
+        this.scheduler.shutdownNow();
+        this.virtualThreads.shutdownNow();
+    }
+
+    @Test
+    void testPacedStartInQueueOrder() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(ZONES);
+        ZoneStarter starter = new ZoneStarter(this.scheduler, this.virtualThreads, ZONES_PER_SECOND, zone -> {
+            this.startedZones.add(zone.getZoneName());
+            done.countDown();
+        });
+
+        long start = System.nanoTime();
+        starter.queue(this.zones);
+        // Queued again while still waiting, the last zone keeps its turn
+        starter.queue(this.zones.subList(ZONES - 1, ZONES));
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= MIN_PACED_MILLIS);
+        assertEquals(this.zones.stream().map(Zone::getZoneName).toList(), this.startedZones);
+        assertEquals(0, starter.getPendingCount());
+    }
+
+    @Test
+    void testStartNowAndCancel() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(ZONES - 1);
+        ZoneStarter starter = new ZoneStarter(this.scheduler, this.virtualThreads, 1, zone -> {
+            this.startedZones.add(zone.getZoneName());
+            done.countDown();
+        });
+
+        starter.queue(this.zones);
+        Zone last = this.zones.get(ZONES - 1);
+        assertTrue(starter.isPending(last.getZoneName()));
+        assertTrue(starter.startNow(last));
+        assertFalse(starter.startNow(last));
+        assertFalse(starter.isPending(last.getZoneName()));
+        assertTrue(this.startedZones.contains(last.getZoneName()));
+
+        starter.cancel(this.zones.get(1).getZoneName());
+        starter.stop();
+        assertEquals(0, starter.getPendingCount());
+        assertFalse(this.startedZones.contains(this.zones.get(1).getZoneName()));
+    }
+
+}
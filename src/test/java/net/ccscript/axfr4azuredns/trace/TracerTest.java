@@ -0,0 +1,139 @@
+package net.ccscript.axfr4azuredns.trace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class TracerTest {
+
+    private static final int BUFFER_SPANS = 64;
+    private static final int SMALL_BUFFER_SPANS = 4;
+    private static final int BATCH_RECORDS = 100;
+    private static final int REQUEST_BYTES = 250;
+    private static final int TRACE_ID_LENGTH = 32;
+    private static final int EXPORTED_SPANS = 3;
+
+    @TempDir
+    private Path directory;
+
+    private static JsonArray spansOf(Path file) throws IOException {
+        JsonObject request = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        return request.getAsJsonArray("resourceSpans").get(0).getAsJsonObject()
+            .getAsJsonArray("scopeSpans").get(0).getAsJsonObject().getAsJsonArray("spans");
+    }
+
+    private static void put() {
+        try (Span call = Span.current().detail("azure.put")) {
+            call.addBytes(REQUEST_BYTES);
+        }
+    }
+
+    @Test
+    void testSpanTreeAndCounters() {
+        Tracer tracer = new Tracer(BUFFER_SPANS, null, Duration.ZERO, Duration.ofHours(1));
+        assertSame(Span.NONE, Span.current());
+
+        try (Span sync = tracer.startSync("example.com")) {
+            assertSame(sync, Span.current());
+            String traceId = ThreadContext.get("traceId");
+            assertEquals(TRACE_ID_LENGTH, traceId.length());
+            try (Span batch = Span.current().child("azure.batch")) {
+                batch.addRecords(BATCH_RECORDS);
+                put();
+                put();
+                assertSame(batch, Span.current());
+                assertEquals(traceId, ThreadContext.get("traceId"));
+            }
+            assertSame(sync, Span.current());
+        }
+        assertSame(Span.NONE, Span.current());
+        assertNull(ThreadContext.get("traceId"));
+
+        // Fast details are not recorded, only counted in their parent
+        List<Span> spans = tracer.getRecentSpans();
+        assertEquals(List.of("azure.batch", "zone.sync"), spans.stream().map(Span::getName).toList());
+        Span batch = spans.get(0);
+        assertSame(spans.get(1), batch.getParent());
+        assertEquals(BATCH_RECORDS, batch.getCounter(Span.RECORDS));
+        assertEquals(2 * REQUEST_BYTES, batch.getCounter(Span.BYTES));
+        assertEquals(2, batch.getCounter("azure.put"));
+    }
+
+    @Test
+    void testSlowSyncIsExported() throws IOException {
+        Tracer tracer = new Tracer(BUFFER_SPANS, this.directory, Duration.ZERO, Duration.ZERO);
+        try (Span sync = tracer.startSync("example.com")) {
+            try (Span transfer = sync.child("transfer")) {
+                transfer.fail("connection reset");
+            }
+            try (Span call = sync.detail("azure.put")) {
+                call.addBytes(REQUEST_BYTES);
+            }
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(this.directory)) {
+            files = list.toList();
+        }
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).getFileName().toString().startsWith("trace-example.com-"));
+        JsonArray spans = spansOf(files.get(0));
+        assertEquals(EXPORTED_SPANS, spans.size());
+        JsonObject transfer = spans.get(0).getAsJsonObject();
+        assertEquals("transfer", transfer.get("name").getAsString());
+        assertEquals(spans.get(2).getAsJsonObject().get("spanId").getAsString(),
+            transfer.get("parentSpanId").getAsString());
+        assertEquals("connection reset", transfer.getAsJsonObject("status").get("message").getAsString());
+    }
+
+    @Test
+    void testDumpIncludesSyncsInProgress() throws IOException {
+        Tracer tracer = new Tracer(BUFFER_SPANS, this.directory, Duration.ofHours(1), Duration.ofHours(1));
+        try (Span sync = tracer.startSync("example.com")) {
+            sync.child("transfer").close();
+            try (Span diff = sync.child("diff")) {
+                Files.createFile(this.directory.resolve(Tracer.DUMP_REQUEST));
+                tracer.dumpIfRequested();
+            }
+        }
+        assertFalse(Files.exists(this.directory.resolve(Tracer.DUMP_REQUEST)));
+
+        List<Path> dumps;
+        try (Stream<Path> list = Files.list(this.directory)) {
+            dumps = list.toList();
+        }
+        assertEquals(1, dumps.size());
+        JsonArray spans = spansOf(dumps.get(0));
+        // The ended transfer, then the open sync and diff
+        assertEquals(EXPORTED_SPANS, spans.size());
+        assertEquals("transfer", spans.get(0).getAsJsonObject().get("name").getAsString());
+    }
+
+    @Test
+    void testRingKeepsTheLastSpans() {
+        Tracer tracer = new Tracer(SMALL_BUFFER_SPANS, null, Duration.ZERO, Duration.ZERO);
+        for (int i = 0; i < SMALL_BUFFER_SPANS * 2; i++) {
+            tracer.startSync("zone" + i + ".example.com").close();
+        }
+        List<Span> spans = tracer.getRecentSpans();
+        assertEquals(SMALL_BUFFER_SPANS, spans.size());
+        assertEquals("zone" + SMALL_BUFFER_SPANS + ".example.com", spans.get(0).getAttributes().get("zone"));
+    }
+
+}
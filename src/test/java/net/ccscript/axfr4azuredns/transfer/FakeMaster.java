@@ -0,0 +1,191 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.NSRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+import net.ccscript.axfr4azuredns.tsig.Tsig;
+import net.ccscript.axfr4azuredns.tsig.TsigException;
+import net.ccscript.axfr4azuredns.tsig.TsigExchange;
+
+/**
+ * A master server serving two versions of any zone over TCP: serial 1 with www at 192.0.2.1 and serial 2 with www
+ * at 192.0.2.2. Transfers are slowed down to make concurrent transfers overlap. With a TSIG key, requests must be
+ * signed with it and every response message is signed.
+ */
+public final class FakeMaster implements Closeable {
+
+    public static final long FIRST_SERIAL = 1;
+    public static final long SECOND_SERIAL = 2;
+
+    private static final long TTL = 3600;
+    private static final long TRANSFER_MILLIS = 50;
+
+    private final ServerSocket serverSocket;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger transfersInFlight = new AtomicInteger();
+    private final AtomicInteger maxTransfersInFlight = new AtomicInteger();
+    private volatile long serial = FIRST_SERIAL;
+    private volatile boolean ixfrSupported = true;
+    private volatile Tsig tsig;
+
+    public FakeMaster() throws IOException {
+        this.serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().start(this::accept);
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    public void setSerial(long serial) {
+        this.serial = serial;
+    }
+
+    void setIxfrSupported(boolean ixfrSupported) {
+        this.ixfrSupported = ixfrSupported;
+    }
+
+    public void setTsig(Tsig tsig) {
+        this.tsig = tsig;
+    }
+
+    int getConnections() {
+        return this.connections.get();
+    }
+
+    int getMaxTransfersInFlight() {
+        return this.maxTransfersInFlight.get();
+    }
+
+    static SOARecord soa(Name origin, long serial) throws IOException {
+        return new SOARecord(origin, DClass.IN, TTL, Name.fromString("ns", origin),
+            Name.fromString("hostmaster", origin), serial, TTL, TTL, TTL, TTL);
+    }
+
+    static ARecord www(Name origin, long serial) throws IOException {
+        return new ARecord(Name.fromString("www", origin), DClass.IN, TTL,
+            InetAddress.getByName("192.0.2." + serial));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = this.serverSocket.accept();
+                this.connections.incrementAndGet();
+                Thread.ofVirtual().start(() -> serve(socket));
+            }
+        } catch (IOException ioe) {
+            // closed
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            while (true) {
+                byte[] wire = new byte[input.readUnsignedShort()];
+                input.readFully(wire);
+                Message query = new Message(wire);
+                TsigExchange exchange = verify(wire, query);
+                List<Message> responses = exchange == null && this.tsig != null
+                    ? List.of(response(query, Rcode.NOTAUTH)) : answer(query);
+                for (Message response : responses) {
+                    byte[] responseWire = exchange == null ? response.toWire()
+                        : exchange.signResponse(response.toWire());
+                    output.writeShort(responseWire.length);
+                    output.write(responseWire);
+                }
+                output.flush();
+            }
+        } catch (EOFException eofe) {
+            // client closed the connection
+        } catch (IOException | InterruptedException e) {
+            // test over
+        }
+    }
+
+    private TsigExchange verify(byte[] wire, Message query) {
+        Tsig key = this.tsig;
+        if (key == null) {
+            return null;
+        }
+        TsigExchange exchange = key.newExchange();
+        try {
+            exchange.verifyRequest(ByteBuffer.wrap(wire), query);
+            return exchange;
+        } catch (TsigException te) {
+            return null;
+        }
+    }
+
+    private List<Message> answer(Message query) throws IOException, InterruptedException {
+        Name origin = query.getQuestion().getName();
+        switch (query.getQuestion().getType()) {
+            case Type.SOA:
+                return List.of(response(query, Rcode.NOERROR, soa(origin, this.serial)));
+            case Type.IXFR:
+                if (!this.ixfrSupported) {
+                    return List.of(response(query, Rcode.NOTIMP));
+                }
+                return transfer(List.of(
+                    response(query, Rcode.NOERROR, soa(origin, SECOND_SERIAL), soa(origin, FIRST_SERIAL),
+                        www(origin, FIRST_SERIAL)),
+                    response(query, Rcode.NOERROR, soa(origin, SECOND_SERIAL), www(origin, SECOND_SERIAL),
+                        soa(origin, SECOND_SERIAL))));
+            default:
+                return transfer(List.of(
+                    response(query, Rcode.NOERROR, soa(origin, this.serial),
+                        new NSRecord(origin, DClass.IN, TTL, Name.fromString("ns", origin))),
+                    response(query, Rcode.NOERROR, www(origin, this.serial), soa(origin, this.serial))));
+        }
+    }
+
+    private List<Message> transfer(List<Message> responses) throws InterruptedException {
+        int inFlight = this.transfersInFlight.incrementAndGet();
+        this.maxTransfersInFlight.accumulateAndGet(inFlight, Math::max);
+        Thread.sleep(TRANSFER_MILLIS);
+        this.transfersInFlight.decrementAndGet();
+        return responses;
+    }
+
+    private static Message response(Message query, int rcode, Record... answers) {
+        Message response = new Message(query.getHeader().getID());
+        response.getHeader().setFlag(Flags.QR);
+        response.getHeader().setFlag(Flags.AA);
+        response.getHeader().setRcode(rcode);
+        response.addRecord(query.getQuestion(), Section.QUESTION);
+        for (Record answer : answers) {
+            response.addRecord(answer, Section.ANSWER);
+        }
+        return response;
+    }
+
+}
@@ -0,0 +1,169 @@
+package net.ccscript.axfr4azuredns.transfer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfiguration.Zone;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationException;
+import net.ccscript.axfr4azuredns.server.configuration.DNSServerConfigurationFactory;
+import net.ccscript.axfr4azuredns.tsig.Tsig;
+import net.ccscript.axfr4azuredns.tsig.TsigKeyring;
+
+public class ZoneTransferClientTest {
+
+    private static final int ZONES = 6;
+    private static final int ZONE_RECORDS = 3;
+    private static final int TRANSFERS_PER_MASTER = 2;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(30);
+    private static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+    private FakeMaster master;
+    private MasterPool masterPool;
+    private ZoneTransferClient client;
+    private DNSServerConfiguration configuration;
+
+    @BeforeEach
+    void startMaster() throws IOException, DNSServerConfigurationException {
+        this.master = new FakeMaster();
+        this.masterPool = new MasterPool(TRANSFERS_PER_MASTER, Map.of(), IDLE_TIMEOUT, TIMEOUT,
+            this.master.getPort());
+        this.configuration = createConfiguration("");
+        this.client = new ZoneTransferClient(this.masterPool, new TsigKeyring(this.configuration));
+    }
+
+    private static DNSServerConfiguration createConfiguration(String tsigKeys)
+        throws IOException, DNSServerConfigurationException {
+
+        StringBuilder zones = new StringBuilder();
+        for (int i = 0; i < ZONES; i++) {
+            zones.append(i == 0 ? "" : ",").append("{\"zone_name\":\"z").append(i).append(".example.com\",")
+                .append("\"master\":\"dns\",\"dns\":{\"servers\":[\"127.0.0.1\"]},")
+                .append("\"azure\":{\"zone_name\":\"example.com\",\"resourcegroup\":\"AMDProject_DNS_Global\",")
+                .append("\"subscription\":\"55555555-6666-4444-7777-888888888888\",")
+                .append("\"service_principal\":\"00000000-1111-4444-2222-333333333333\"}}");
+        }
+        return DNSServerConfigurationFactory.createDNSServerConfiguration("{"
+            + "\"servers\":[{\"listen_on\":\"127.0.0.1\",\"tcp_port\":53}],"
+            + "\"zones\":[" + zones + "]," + tsigKeys
+            + "\"azure_credentials\":[{\"tenant\":\"exampletenant.onmicrosoft.com\","
+            + "\"service_principal\":\"00000000-1111-4444-2222-333333333333\",\"password\":\"passw0rd\"}]}");
+    }
+
+    @AfterEach
+    void stopMaster() throws IOException {
+        this.masterPool.close();
+        this.master.close();
+    }
+
+    @Test
+    void testAxfrThenIxfrOnReusedConnection() throws IOException, InterruptedException {
+        Zone zone = this.configuration.getZoneByName("z0.example.com");
+        Name origin = Name.fromString("z0.example.com.");
+
+        ZoneTransfer axfr = this.client.transfer(zone, null);
+        assertFalse(axfr.isIncremental());
+        List<Record> records = axfr.apply(List.of());
+        assertEquals(ZONE_RECORDS, records.size());
+        assertTrue(records.contains(FakeMaster.www(origin, FakeMaster.FIRST_SERIAL)));
+
+        this.master.setSerial(FakeMaster.SECOND_SERIAL);
+        ZoneTransfer ixfr = this.client.transfer(zone, FakeMaster.soa(origin, FakeMaster.FIRST_SERIAL));
+        assertTrue(ixfr.isIncremental());
+        records = ixfr.apply(records);
+        assertEquals(ZONE_RECORDS, records.size());
+        assertTrue(records.contains(FakeMaster.www(origin, FakeMaster.SECOND_SERIAL)));
+        assertTrue(records.contains(FakeMaster.soa(origin, FakeMaster.SECOND_SERIAL)));
+
+        assertTrue(this.client.transfer(zone, FakeMaster.soa(origin, FakeMaster.SECOND_SERIAL)).isUpToDate());
+        assertEquals(1, this.master.getConnections());
+    }
+
+    @Test
+    void testRefusedIxfrFallsBackToAxfr() throws IOException, InterruptedException {
+        Zone zone = this.configuration.getZoneByName("z0.example.com");
+        this.master.setSerial(FakeMaster.SECOND_SERIAL);
+        this.master.setIxfrSupported(false);
+
+        ZoneTransfer transfer = this.client.transfer(zone,
+            FakeMaster.soa(Name.fromString("z0.example.com."), FakeMaster.FIRST_SERIAL));
+        assertFalse(transfer.isIncremental());
+        assertEquals(FakeMaster.SECOND_SERIAL, transfer.getSoa().getSerial());
+        assertEquals(1, this.master.getConnections());
+    }
+
+    @Test
+    void testTransfersPerMasterAreLimited() throws Exception {
+        List<Future<ZoneTransfer>> transfers = new ArrayList<Future<ZoneTransfer>>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Zone zone : this.configuration.getZones()) {
+                transfers.add(executor.submit(() -> this.client.transfer(zone, null)));
+            }
+            for (Future<ZoneTransfer> transfer : transfers) {
+                assertEquals(FakeMaster.FIRST_SERIAL, transfer.get().getSoa().getSerial());
+            }
+        }
+        assertTrue(this.master.getMaxTransfersInFlight() <= TRANSFERS_PER_MASTER);
+        assertTrue(this.master.getConnections() <= TRANSFERS_PER_MASTER);
+        assertEquals(0, this.masterPool.getWaitingTransfers("127.0.0.1"));
+    }
+
+    @Test
+    void testSignedTransfers() throws Exception {
+        DNSServerConfiguration signedConfiguration = createConfiguration("\"tsig_keys\":[{\"name\":\"transfer.key\","
+            + "\"secret\":\"" + SECRET + "\",\"masters\":[\"127.0.0.1\"]}],");
+        TsigKeyring keyring = new TsigKeyring(signedConfiguration);
+        Zone zone = signedConfiguration.getZoneByName("z0.example.com");
+        Name origin = Name.fromString("z0.example.com.");
+        ZoneTransferClient signedClient = new ZoneTransferClient(this.masterPool, keyring);
+        this.master.setTsig(keyring.forMaster(zone, "127.0.0.1"));
+
+        List<Record> records = signedClient.transfer(zone, null).apply(List.of());
+        assertEquals(ZONE_RECORDS, records.size());
+        this.master.setSerial(FakeMaster.SECOND_SERIAL);
+        ZoneTransfer ixfr = signedClient.transfer(zone, FakeMaster.soa(origin, FakeMaster.FIRST_SERIAL));
+        assertTrue(ixfr.isIncremental());
+        assertTrue(ixfr.apply(records).contains(FakeMaster.www(origin, FakeMaster.SECOND_SERIAL)));
+
+        assertThrows(IOException.class, () -> this.client.transfer(zone, null));
+        this.master.setTsig(new Tsig(Name.fromString("transfer.key."), "hmac-sha256", new byte[SECRET.length()]));
+        assertThrows(IOException.class, () -> signedClient.transfer(zone, null));
+    }
+
+    @Test
+    void testSignedSoaQueriesOnPooledConnection() throws Exception {
+        DNSServerConfiguration signedConfiguration = createConfiguration("\"tsig_keys\":[{\"name\":\"transfer.key\","
+            + "\"secret\":\"" + SECRET + "\",\"masters\":[\"127.0.0.1\"]}],");
+        TsigKeyring keyring = new TsigKeyring(signedConfiguration);
+        Zone zone = signedConfiguration.getZoneByName("z0.example.com");
+        ZoneTransferClient signedClient = new ZoneTransferClient(this.masterPool, keyring);
+        this.master.setTsig(keyring.forMaster(zone, "127.0.0.1"));
+
+        assertEquals(FakeMaster.FIRST_SERIAL, signedClient.querySoa(zone).getSerial());
+        this.master.setSerial(FakeMaster.SECOND_SERIAL);
+        assertEquals(FakeMaster.SECOND_SERIAL, signedClient.querySoa(zone).getSerial());
+        assertEquals(1, this.master.getConnections());
+
+        assertThrows(IOException.class, () -> this.client.querySoa(zone));
+        this.master.setTsig(new Tsig(Name.fromString("transfer.key."), "hmac-sha256", new byte[SECRET.length()]));
+        assertThrows(IOException.class, () -> signedClient.querySoa(zone));
+    }
+
+}
@@ -0,0 +1,100 @@
+package net.ccscript.axfr4azuredns.tsig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Opcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TSIG;
+import org.xbill.DNS.Type;
+
+public class TsigExchangeTest {
+
+    private static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+    private static final int STREAM_MESSAGES = 5;
+    private static final int SIGNED_EVERY = 2;
+    private static final int TAMPERED_BYTE = 3;
+
+    private Name keyName;
+    private Tsig tsig;
+
+    @BeforeEach
+    void createKey() throws IOException, GeneralSecurityException {
+        this.keyName = Name.fromString("transfer.key.");
+        this.tsig = new Tsig(this.keyName, "hmac-sha256", Base64.getDecoder().decode(SECRET));
+    }
+
+    private static Message newNotify() throws IOException {
+        Message notify = Message.newQuery(Record.newRecord(Name.fromString("example.com."), Type.SOA, DClass.IN));
+        notify.getHeader().setOpcode(Opcode.NOTIFY);
+        notify.getHeader().setFlag(Flags.AA);
+        return notify;
+    }
+
+    private static Message responseTo(Message query) {
+        Message response = new Message(query.getHeader().getID());
+        response.getHeader().setFlag(Flags.QR);
+        response.addRecord(query.getQuestion(), Section.QUESTION);
+        return response;
+    }
+
+    @Test
+    void testRequestMatchesDnsjava() throws IOException {
+        Message notify = newNotify();
+        byte[] signed = this.tsig.newExchange().signRequest(notify.toWire());
+
+        Message parsed = new Message(signed);
+        TSIG reference = new TSIG(TSIG.HMAC_SHA256, this.keyName, SECRET);
+        assertDoesNotThrow(() -> this.tsig.newExchange().verifyRequest(ByteBuffer.wrap(signed), parsed));
+        assertDoesNotThrow(() -> reference.verify(parsed, signed, null));
+    }
+
+    @Test
+    void testStreamWithUnsignedMessages() throws IOException, TsigException {
+        Message query = newNotify();
+        TsigExchange client = this.tsig.newExchange();
+        byte[] request = client.signRequest(query.toWire());
+
+        TsigExchange server = this.tsig.newExchange();
+        server.verifyRequest(ByteBuffer.wrap(request), new Message(request));
+        for (int i = 0; i < STREAM_MESSAGES; i++) {
+            byte[] response = responseTo(query).toWire();
+            if (i % SIGNED_EVERY == 0) {
+                response = server.signResponse(response);
+            } else {
+                server.skipResponse(response);
+            }
+            client.verify(ByteBuffer.wrap(response), new Message(response));
+        }
+        client.finish();
+    }
+
+    @Test
+    void testTamperedOrUnsignedMessagesAreRejected() throws IOException, GeneralSecurityException {
+        byte[] signed = this.tsig.newExchange().signRequest(newNotify().toWire());
+        byte[] tampered = signed.clone();
+        tampered[TAMPERED_BYTE] ^= 1;
+        assertThrows(TsigException.class,
+            () -> this.tsig.newExchange().verifyRequest(ByteBuffer.wrap(tampered), new Message(tampered)));
+
+        Tsig otherKey = new Tsig(this.keyName, "hmac-sha256", new byte[SECRET.length()]);
+        assertThrows(TsigException.class,
+            () -> otherKey.newExchange().verifyRequest(ByteBuffer.wrap(signed), new Message(signed)));
+
+        byte[] unsigned = newNotify().toWire();
+        assertThrows(TsigException.class,
+            () -> this.tsig.newExchange().verifyRequest(ByteBuffer.wrap(unsigned), new Message(unsigned)));
+    }
+
+}
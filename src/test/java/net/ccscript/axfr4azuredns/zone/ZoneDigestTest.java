@@ -0,0 +1,67 @@
+package net.ccscript.axfr4azuredns.zone;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.Master;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+
+public class ZoneDigestTest {
+
+    // The simple EXAMPLE zone of RFC 8976, appendix A.1
+    private static final String EXAMPLE_ZONE = ""
+        + "example.      86400  IN  SOA     ns1 admin 2018031900 1800 900 604800 86400\n"
+        + "              86400  IN  NS      ns1\n"
+        + "              86400  IN  NS      ns2\n"
+        + "              86400  IN  ZONEMD  2018031900 1 1 ( c68090d90a7aed716bc459f9340e3d7c1370d4d24b7e2fc3"
+        + " a1ddc0b9a87153b9a9713b3c9ae5cc27777f98b8e730044c )\n"
+        + "ns1           3600   IN  A       203.0.113.63\n"
+        + "ns2           3600   IN  AAAA    2001:db8::63\n";
+
+    private static List<Record> parse(String zone) throws IOException {
+        List<Record> records = new ArrayList<Record>();
+        try (Master master = new Master(new ByteArrayInputStream(zone.getBytes(StandardCharsets.US_ASCII)),
+            Name.fromString("example."))) {
+            for (Record record = master.nextRecord(); record != null; record = master.nextRecord()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void testZonemdOfTheSimpleExampleZoneIsVerified() throws IOException {
+        assertTrue(ZoneDigest.of(Name.fromString("example."), parse(EXAMPLE_ZONE)).isZonemdVerified());
+    }
+
+    @Test
+    void testZonemdMismatchIsRejected() throws IOException {
+        List<Record> tampered = parse(EXAMPLE_ZONE.replace("203.0.113.63", "203.0.113.64"));
+        assertThrows(IOException.class, () -> ZoneDigest.of(Name.fromString("example."), tampered));
+    }
+
+    @Test
+    void testNewSerialAloneKeepsTheContent() throws IOException {
+        String unsigned = EXAMPLE_ZONE.replaceAll("(?s)  +86400  IN  ZONEMD.*?\\)\\n", "");
+        ZoneDigest applied = ZoneDigest.of(Name.fromString("example."), parse(unsigned));
+        assertFalse(applied.isZonemdVerified());
+
+        ZoneDigest bumped = ZoneDigest.of(Name.fromString("example."),
+            parse(unsigned.replace("2018031900", "2018031901")));
+        assertTrue(bumped.hasSameContent(applied));
+
+        ZoneDigest changed = ZoneDigest.of(Name.fromString("example."),
+            parse(unsigned.replace("2001:db8::63", "2001:db8::64")));
+        assertFalse(changed.hasSameContent(applied));
+        assertFalse(changed.hasSameContent(null));
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.ccscript.axfr4azuredns.zone;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xbill.DNS.Master;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+
+public class ZoneStateDirectoryTest {
+
+    private static final long SERIAL = 2024010101;
+    private static final String EXAMPLE_ZONE = ""
+        + "example.com.  3600  IN  SOA    ns1 hostmaster 2024010101 1800 900 604800 300\n"
+        + "              3600  IN  NS     ns1\n"
+        + "ns1           3600  IN  A      192.0.2.1\n"
+        + "www           300   IN  CNAME  @\n"
+        + "txt           300   IN  TXT    \"v=spf1 -all\" \"two strings\"\n"
+        + "mail          300   IN  MX     10 ns1\n";
+
+    @TempDir
+    private Path directory;
+
+    private static List<Record> parse(String zone, Name origin) throws IOException {
+        List<Record> records = new ArrayList<Record>();
+        try (Master master = new Master(new ByteArrayInputStream(zone.getBytes(StandardCharsets.US_ASCII)),
+            origin)) {
+            for (Record record = master.nextRecord(); record != null; record = master.nextRecord()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void testSaveAndLoad() throws IOException {
+        Name origin = Name.fromString("example.com.");
+        List<Record> records = parse(EXAMPLE_ZONE, origin);
+        ZoneStateDirectory stateDirectory = new ZoneStateDirectory(this.directory.resolve("state"));
+        assertNull(stateDirectory.load(origin));
+
+        stateDirectory.save(origin, records);
+        List<Record> loaded = new ZoneStateDirectory(this.directory.resolve("state")).load(origin);
+        assertEquals(records, loaded);
+        assertTrue(ZoneDigest.of(origin, loaded).hasSameContent(ZoneDigest.of(origin, records)));
+        assertEquals(SERIAL, new ZoneStore().swap(origin, loaded).getZone().getSOA().getSerial());
+        try (Stream<Path> files = Files.list(this.directory.resolve("state"))) {
+            assertEquals(List.of("example.com.zone"), files.map(file -> file.getFileName().toString()).toList());
+        }
+
+        stateDirectory.save(origin, records.subList(0, 2));
+        assertEquals(2, stateDirectory.load(origin).size());
+        stateDirectory.delete(origin);
+        assertNull(stateDirectory.load(origin));
+        assertFalse(Files.exists(this.directory.resolve("state").resolve("example.com.zone")));
+    }
+
+}
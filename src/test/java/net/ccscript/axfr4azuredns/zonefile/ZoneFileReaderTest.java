@@ -0,0 +1,155 @@
+package net.ccscript.axfr4azuredns.zonefile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xbill.DNS.Master;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+public class ZoneFileReaderTest {
+
+    private static final int PARALLELISM = 4;
+    private static final long SMALL_CHUNK_SIZE = 64;
+    private static final int HOSTS = 200;
+    private static final int HOSTS_PER_TTL = 50;
+
+    @TempDir
+    private Path directory;
+
+    private Name origin;
+
+    @BeforeEach
+    void createOrigin() throws IOException {
+        this.origin = Name.fromString("example.com.");
+    }
+
+    private static String masterFile() {
+        StringBuilder zone = new StringBuilder()
+            .append("$TTL 1h ; default TTL\n")
+            .append("@ IN SOA ns1 hostmaster (\n")
+            .append("    2024010101 ; serial\n")
+            .append("    3600 600 86400 300 )\n")
+            .append("  IN NS ns1\n")
+            .append("ns1 IN A 192.0.2.53\n")
+            .append("txt IN TXT \"v=DKIM1; k=rsa; (p=abc)\" \"second ; string\"\n")
+            .append("multi 300 IN TXT ( \"first\"\n")
+            .append("    \"second\" )\n");
+        for (int i = 0; i < HOSTS; i++) {
+            zone.append("host").append(i).append(" IN A 198.51.100.").append(i % HOSTS).append('\n')
+                .append("  IN AAAA 2001:db8::").append(Integer.toHexString(i)).append('\n');
+            if (i == HOSTS / 2) {
+                zone.append("$ORIGIN sub.example.com.\n$TTL 60\n");
+            }
+        }
+        return zone.toString();
+    }
+
+    private static String masterFileWithoutDefaultTtl(String soa) {
+        StringBuilder zone = new StringBuilder(soa)
+            .append("  IN NS ns1\n")
+            .append("ns1 IN A 192.0.2.53\n");
+        for (int i = 0; i < HOSTS; i++) {
+            zone.append("host").append(i);
+            if (i % HOSTS_PER_TTL == 1) {
+                zone.append(' ').append(i);
+            }
+            zone.append(" IN A 198.51.100.").append(i % HOSTS).append('\n');
+        }
+        return zone.toString();
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(this.directory.resolve("zone.db"), content, StandardCharsets.UTF_8);
+    }
+
+    private List<Record> read(Path file, long chunkSize) throws Exception {
+        List<Record> records = new ArrayList<Record>();
+        long count = new ZoneFileReader(file, this.origin, PARALLELISM, chunkSize).read(records::addAll);
+        assertEquals(count, records.size());
+        return records;
+    }
+
+    private List<Record> readSequentially(String content) throws IOException {
+        List<Record> records = new ArrayList<Record>();
+        try (Master master = new Master(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+            this.origin)) {
+            for (Record record = master.nextRecord(); record != null; record = master.nextRecord()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void testParallelParseMatchesSequentialParse() throws Exception {
+        String content = masterFile();
+        List<Record> expected = readSequentially(content);
+
+        List<Record> records = read(write(content), SMALL_CHUNK_SIZE);
+        assertEquals(expected, records);
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(expected.get(i).getTTL(), records.get(i).getTTL());
+        }
+        assertTrue(records.contains(expected.get(expected.size() - 1)));
+        assertEquals(Name.fromString("host199.sub.example.com."), records.get(records.size() - 1).getName());
+        assertEquals(read(write(content), ZoneFileReader.DEFAULT_CHUNK_SIZE), records);
+    }
+
+    private void assertParallelParseMatchesSequentialParse(String content) throws Exception {
+        List<Record> expected = readSequentially(content);
+        List<Record> records = read(write(content), SMALL_CHUNK_SIZE);
+        assertEquals(expected, records);
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(expected.get(i).getTTL(), records.get(i).getTTL(), records.get(i).toString());
+        }
+    }
+
+    @Test
+    void testRecordsWithoutTtlTakeThePreviousTtlAcrossChunks() throws Exception {
+        assertParallelParseMatchesSequentialParse(
+            masterFileWithoutDefaultTtl("@ 3600 IN SOA ns1 hostmaster 2024010101 3600 600 86400 300\n"));
+        assertParallelParseMatchesSequentialParse(
+            masterFileWithoutDefaultTtl("@ IN SOA ns1 hostmaster ( 2024010101 ; serial\n  3600 600 86400 300 )\n"));
+    }
+
+    @Test
+    void testIncludeIsRejected() throws IOException {
+        Path file = write("$TTL 1h\n$INCLUDE hosts.db\n" + masterFile());
+        ZoneFileException exception = assertThrows(ZoneFileException.class, () -> read(file, SMALL_CHUNK_SIZE));
+        assertTrue(exception.getMessage().contains("$INCLUDE"));
+    }
+
+    @Test
+    void testAxfrDumpKeepsOneSoa() throws Exception {
+        String dump = "; <<>> DiG <<>> @192.0.2.53 example.com AXFR\n"
+            + "example.com.\t3600\tIN\tSOA\tns1.example.com. hostmaster.example.com. 1 3600 600 86400 300\n"
+            + "example.com.\t3600\tIN\tNS\tns1.example.com.\n"
+            + "www.example.com.\t300\tIN\tA\t192.0.2.1\n"
+            + "example.com.\t3600\tIN\tSOA\tns1.example.com. hostmaster.example.com. 1 3600 600 86400 300\n"
+            + ";; Query time: 1 msec\n";
+
+        List<Record> records = read(write(dump), SMALL_CHUNK_SIZE);
+        assertEquals(List.of(Type.SOA, Type.NS, Type.A), records.stream().map(Record::getType).toList());
+    }
+
+    @Test
+    void testInvalidRecordIsReported() throws IOException {
+        Path file = write(masterFile() + "broken IN A not-an-address\n");
+        assertThrows(ZoneFileException.class, () -> read(file, SMALL_CHUNK_SIZE));
+        assertThrows(ZoneFileException.class, () -> read(write("$TTL forever\n"), SMALL_CHUNK_SIZE));
+    }
+
+}